@@ -37,13 +37,10 @@ import org.opensaml.xml.signature.Signer;
 import org.opensaml.xml.signature.X509Data;
 import org.opensaml.xml.util.Base64;
 import org.w3c.dom.Element;
-import org.w3c.dom.bootstrap.DOMImplementationRegistry;
-import org.w3c.dom.ls.DOMImplementationLS;
-import org.w3c.dom.ls.LSOutput;
-import org.w3c.dom.ls.LSSerializer;
 import org.wso2.carbon.identity.application.authenticator.samlsso.exception.SAMLSSOException;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.base.SecureXMLProcessor;
 
 import javax.xml.namespace.QName;
 import java.io.ByteArrayInputStream;
@@ -307,23 +304,17 @@ public class SSOUtils {
      */
     public static String marshall(XMLObject xmlObject) throws SAMLSSOException {
         try {
-
-            System.setProperty("javax.xml.parsers.DocumentBuilderFactory",
-                    "org.apache.xerces.jaxp.DocumentBuilderFactoryImpl");
-
             MarshallerFactory marshallerFactory = org.opensaml.xml.Configuration
                     .getMarshallerFactory();
             Marshaller marshaller = marshallerFactory.getMarshaller(xmlObject);
-            Element element = marshaller.marshall(xmlObject);
-
-            ByteArrayOutputStream byteArrayOutputStrm = new ByteArrayOutputStream();
-            DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
-            DOMImplementationLS impl = (DOMImplementationLS) registry.getDOMImplementation("LS");
-            LSSerializer writer = impl.createLSSerializer();
-            LSOutput output = impl.createLSOutput();
-            output.setByteStream(byteArrayOutputStrm);
-            writer.write(element, output);
-            return byteArrayOutputStrm.toString();
+            Element element;
+            if (xmlObject.getDOM() != null) {
+                // already marshalled, e.g. while signing
+                element = marshaller.marshall(xmlObject);
+            } else {
+                element = marshaller.marshall(xmlObject, SecureXMLProcessor.newDocument());
+            }
+            return SecureXMLProcessor.serialize(element);
         } catch (Exception e) {
             log.error("Error Serializing the SAML Response");
             throw new SAMLSSOException("Error Serializing the SAML Response", e);
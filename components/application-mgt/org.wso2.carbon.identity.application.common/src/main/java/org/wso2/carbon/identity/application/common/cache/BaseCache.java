@@ -30,13 +30,20 @@ import javax.cache.CacheBuilder;
 import javax.cache.CacheConfiguration;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.Status;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A base class for all cache implementations in Identity Application Management modules.
+ * <p/>
+ * The underlying cache is resolved once and reused for as long as it is running. Every operation runs in a single
+ * super tenant flow.
  */
 public class BaseCache<K extends Serializable, V extends Serializable> {
 
@@ -44,61 +51,75 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
     private CacheBuilder<K, V> cacheBuilder;
     private String cacheName;
     private List<AbstractCacheListener> cacheListeners = new ArrayList<AbstractCacheListener>();
+    private volatile Cache<K, V> cache;
+    private IdentityCacheConfig identityCacheConfig;
+    private volatile boolean identityCacheConfigResolved;
+    private final CacheStatistics statistics;
 
     public BaseCache(String cacheName) {
         this.cacheName = cacheName;
+        this.statistics = CacheStatistics.getInstance(cacheName);
     }
 
+    /**
+     * Returns the underlying cache. Should be called within a super tenant flow.
+     *
+     * @return the cache
+     */
     private Cache<K, V> getBaseCache() {
 
-        Cache<K, V> cache = null;
-        try {
+        Cache<K, V> resolvedCache = cache;
+        if (resolvedCache != null && resolvedCache.getStatus() == Status.STARTED) {
+            return resolvedCache;
+        }
 
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        synchronized (cacheName.intern()) {
+            if (cache != null && cache.getStatus() == Status.STARTED) {
+                return cache;
+            }
+            if (cache != null) {
+                // the cache has been stopped, e.g. by the idle cache cleanup of the cache manager
+                cacheBuilder = null;
+            }
 
             CacheManager cacheManager = Caching.getCacheManagerFactory()
                     .getCacheManager(CACHE_MANAGER_NAME);
 
             if (getCacheTimeout() > 0 && cacheBuilder == null) {
-                synchronized (cacheName.intern()) {
-                    if (cacheBuilder == null) {
-                        cacheManager.removeCache(cacheName);
-                        cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
-                                setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setStoreByValue(false);
-                        cache = cacheBuilder.build();
-
-                        for (AbstractCacheListener cacheListener : cacheListeners) {
-                            if (cacheListener.isEnable()) {
-                                this.cacheBuilder.registerCacheEntryListener(cacheListener);
-                            }
-                        }
-
-                        setCapacity((CacheImpl) cache);
-                    } else {
-                        cache = cacheManager.getCache(cacheName);
-                        setCapacity((CacheImpl) cache);
+                cacheManager.removeCache(cacheName);
+                cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
+                        setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setStoreByValue(false);
+                resolvedCache = cacheBuilder.build();
+
+                for (AbstractCacheListener cacheListener : cacheListeners) {
+                    if (cacheListener.isEnable()) {
+                        this.cacheBuilder.registerCacheEntryListener(cacheListener);
                     }
                 }
-
             } else {
-                cache = cacheManager.getCache(cacheName);
-                setCapacity((CacheImpl) cache);
-
+                resolvedCache = cacheManager.getCache(cacheName);
             }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            if (resolvedCache != null) {
+                setCapacity((CacheImpl) resolvedCache);
+            }
+            cache = resolvedCache;
         }
 
-        return cache;
+        return resolvedCache;
+    }
+
+    private void startSuperTenantFlow() {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
+                .getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
     }
 
     /**
@@ -113,15 +134,37 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
 
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            // Element already in the cache. Remove it first
+            startSuperTenantFlow();
+            long startTime = System.nanoTime();
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.put(key, entry);
+                statistics.recordPut(1, System.nanoTime() - startTime);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Add a set of cache entries.
+     *
+     * @param entries Cache entries to be placed, indexed by their keys.
+     */
+    public void addToCache(Map<K, V> entries) {
+        if (!isEnabled() || entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            long startTime = System.nanoTime();
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                for (Map.Entry<K, V> entry : entries.entrySet()) {
+                    cache.put(entry.getKey(), entry.getValue());
+                }
+                statistics.recordPut(entries.size(), System.nanoTime() - startTime);
             }
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
@@ -144,14 +187,13 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
 
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            startSuperTenantFlow();
+            long startTime = System.nanoTime();
             Cache<K, V> cache = getBaseCache();
-            if (cache != null && cache.get(key) != null) {
-                return (V) cache.get(key);
+            if (cache != null) {
+                V value = cache.get(key);
+                statistics.recordGet(value != null, System.nanoTime() - startTime);
+                return value;
             }
             return null;
         } finally {
@@ -159,6 +201,40 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
     }
 
+    /**
+     * Retrieves a set of cache entries.
+     *
+     * @param keys CacheKeys
+     * @return Cached entries indexed by their keys. Keys which are not in the cache are not included.
+     */
+    public Map<K, V> getValuesFromCache(Collection<K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        if (!isEnabled() || keys == null || keys.isEmpty()) {
+            return values;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<K, V> cache = getBaseCache();
+            if (cache != null) {
+                for (K key : keys) {
+                    if (key == null) {
+                        continue;
+                    }
+                    long startTime = System.nanoTime();
+                    V value = cache.get(key);
+                    statistics.recordGet(value != null, System.nanoTime() - startTime);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }
+            }
+            return values;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
     /**
      * Clears a cache entry.
      *
@@ -170,14 +246,11 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
 
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            startSuperTenantFlow();
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.remove(key);
+                statistics.recordRemoval();
             }
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
@@ -193,11 +266,7 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         }
 
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            startSuperTenantFlow();
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.removeAll();
@@ -211,8 +280,23 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         cacheListeners.add(listener);
     }
 
+    /**
+     * @return hit, miss and latency counters of this cache
+     */
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private IdentityCacheConfig getIdentityCacheConfig() {
+        if (!identityCacheConfigResolved) {
+            identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+            identityCacheConfigResolved = true;
+        }
+        return identityCacheConfig;
+    }
+
     public boolean isEnabled() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+        IdentityCacheConfig identityCacheConfig = getIdentityCacheConfig();
         if (identityCacheConfig != null) {
             return identityCacheConfig.isEnabled();
         }
@@ -220,7 +304,7 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
     }
 
     public int getCacheTimeout() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+        IdentityCacheConfig identityCacheConfig = getIdentityCacheConfig();
         if (identityCacheConfig != null && identityCacheConfig.getTimeout() > 0) {
             return identityCacheConfig.getTimeout();
         }
@@ -228,7 +312,7 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
     }
 
     public int getCapacity() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
+        IdentityCacheConfig identityCacheConfig = getIdentityCacheConfig();
         if (identityCacheConfig != null && identityCacheConfig.getCapacity() > 0) {
             return identityCacheConfig.getCapacity();
         }
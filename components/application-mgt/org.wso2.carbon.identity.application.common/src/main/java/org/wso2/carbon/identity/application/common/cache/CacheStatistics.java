@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.common.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and latency counters of a cache in Identity Application Management modules. There is one instance
+ * per cache name, shared by all {@link BaseCache} instances of that name.
+ */
+public class CacheStatistics {
+
+    private static final ConcurrentMap<String, CacheStatistics> cacheStatistics =
+            new ConcurrentHashMap<String, CacheStatistics>();
+
+    private final String cacheName;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+    private final AtomicLong getTimeNanos = new AtomicLong();
+    private final AtomicLong putTimeNanos = new AtomicLong();
+
+    private CacheStatistics(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    /**
+     * @param cacheName name of the cache
+     * @return statistics of the given cache
+     */
+    public static CacheStatistics getInstance(String cacheName) {
+        CacheStatistics statistics = cacheStatistics.get(cacheName);
+        if (statistics == null) {
+            CacheStatistics newStatistics = new CacheStatistics(cacheName);
+            statistics = cacheStatistics.putIfAbsent(cacheName, newStatistics);
+            if (statistics == null) {
+                statistics = newStatistics;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * @return statistics of all the caches used so far, keyed by cache name
+     */
+    public static Map<String, CacheStatistics> getAll() {
+        return Collections.<String, CacheStatistics>unmodifiableMap(cacheStatistics);
+    }
+
+    void recordGet(boolean hit, long timeNanos) {
+        if (hit) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        getTimeNanos.addAndGet(timeNanos);
+    }
+
+    void recordPut(int count, long timeNanos) {
+        puts.addAndGet(count);
+        putTimeNanos.addAndGet(timeNanos);
+    }
+
+    void recordRemoval() {
+        removals.incrementAndGet();
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getPuts() {
+        return puts.get();
+    }
+
+    public long getRemovals() {
+        return removals.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public double getAverageGetTimeMicros() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : getTimeNanos.get() / 1000D / total;
+    }
+
+    public double getAveragePutTimeMicros() {
+        long total = puts.get();
+        return total == 0 ? 0 : putTimeNanos.get() / 1000D / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{cacheName=" + cacheName +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", puts=" + getPuts() +
+                ", removals=" + getRemovals() +
+                ", hitRatio=" + getHitRatio() +
+                ", averageGetTimeMicros=" + getAverageGetTimeMicros() +
+                ", averagePutTimeMicros=" + getAveragePutTimeMicros() + "}";
+    }
+}
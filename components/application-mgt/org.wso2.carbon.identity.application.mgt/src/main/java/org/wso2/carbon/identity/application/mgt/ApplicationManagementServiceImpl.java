@@ -47,6 +47,9 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationConst
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCache;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheEntry;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheKey;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderByClientIdCache;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderByClientIdCacheEntry;
+import org.wso2.carbon.identity.application.mgt.cache.ServiceProviderByClientIdCacheKey;
 import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
 import org.wso2.carbon.identity.application.mgt.dao.IdentityProviderDAO;
 import org.wso2.carbon.identity.application.mgt.dao.OAuthApplicationDAO;
@@ -279,7 +282,12 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
 
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             String storedAppName = appDAO.getApplicationName(serviceProvider.getApplicationID());
+            // clients removed from the application must not resolve to it from the cache any more
+            if (storedAppName != null) {
+                clearServiceProviderByClientIdCache(appDAO.getApplication(storedAppName, tenantDomain), tenantDomain);
+            }
             appDAO.updateApplication(serviceProvider, tenantDomain);
+            clearServiceProviderByClientIdCache(serviceProvider, tenantDomain);
 
             ApplicationPermission[] permissions = serviceProvider.getPermissionAndRoleConfig().getPermissions();
             String applicationNode = ApplicationMgtUtil.getApplicationPermissionPath() + RegistryConstants
@@ -367,6 +375,10 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             ServiceProvider serviceProvider = appDAO.getApplication(applicationName, tenantDomain);
             appDAO.deleteApplication(applicationName);
 
+            IdentityServiceProviderCache.getInstance().clearCacheEntry(
+                    new IdentityServiceProviderCacheKey(tenantDomain, applicationName));
+            clearServiceProviderByClientIdCache(serviceProvider, tenantDomain);
+
             ApplicationMgtUtil.deleteAppRole(applicationName);
             ApplicationMgtUtil.deletePermissions(applicationName);
 
@@ -673,18 +685,38 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             }
         }
 
-        ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
-        name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
-
-        if (name == null) {
-            name = new FileBasedApplicationDAO().getServiceProviderNameByClientId(clientId,
-                                                                                  clientType, tenantDomain);
+        ServiceProviderByClientIdCacheKey cacheKey = null;
+        if (clientId != null && clientType != null && tenantDomain != null) {
+            cacheKey = new ServiceProviderByClientIdCacheKey(clientId, clientType, tenantDomain);
+            ServiceProviderByClientIdCacheEntry entry = ServiceProviderByClientIdCache.getInstance()
+                    .getValueFromCache(cacheKey);
+            if (entry != null) {
+                name = entry.getServiceProviderName();
+            }
         }
 
         if (name == null) {
-            ServiceProvider defaultSP = ApplicationManagementServiceComponent.getFileBasedSPs()
-                    .get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
-            name = defaultSP.getApplicationName();
+            ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+            name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
+
+            if (name == null) {
+                name = new FileBasedApplicationDAO().getServiceProviderNameByClientId(clientId,
+                                                                                      clientType, tenantDomain);
+            }
+
+            if (name == null) {
+                ServiceProvider defaultSP = ApplicationManagementServiceComponent.getFileBasedSPs()
+                        .get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
+                name = defaultSP.getApplicationName();
+            }
+
+            // clients which are not registered are cached as well, they resolve to the default service provider
+            // until an application is updated with them
+            if (cacheKey != null) {
+                ServiceProviderByClientIdCacheEntry entry = new ServiceProviderByClientIdCacheEntry();
+                entry.setServiceProviderName(name);
+                ServiceProviderByClientIdCache.getInstance().addToCache(cacheKey, entry);
+            }
         }
 
         for (ApplicationMgtListener listener : listeners) {
@@ -838,6 +870,28 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
         return serviceProvider;
     }
 
+    /**
+     * Removes the service provider names cached for the inbound clients of an application.
+     *
+     * @param serviceProvider application, may be null
+     * @param tenantDomain    tenant domain of the application
+     */
+    private void clearServiceProviderByClientIdCache(ServiceProvider serviceProvider, String tenantDomain) {
+
+        if (serviceProvider == null || serviceProvider.getInboundAuthenticationConfig() == null ||
+                serviceProvider.getInboundAuthenticationConfig().getInboundAuthenticationRequestConfigs() == null) {
+            return;
+        }
+
+        for (InboundAuthenticationRequestConfig config : serviceProvider.getInboundAuthenticationConfig()
+                .getInboundAuthenticationRequestConfigs()) {
+            if (config.getInboundAuthKey() != null && config.getInboundAuthType() != null) {
+                ServiceProviderByClientIdCache.getInstance().clearCacheEntry(new ServiceProviderByClientIdCacheKey(
+                        config.getInboundAuthKey(), config.getInboundAuthType(), tenantDomain));
+            }
+        }
+    }
+
     private void loadApplicationPermissions(String serviceProviderName, ServiceProvider serviceProvider)
             throws IdentityApplicationManagementException {
         List<ApplicationPermission> permissionList = ApplicationMgtUtil.loadPermissions(serviceProviderName);
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * Names of the service providers which inbound clients, e.g. OAuth consumer keys or SAML issuers, belong to. Lets
+ * the authentication request path resolve the service provider of a client without a database lookup, the service
+ * provider itself being cached in {@link IdentityServiceProviderCache}.
+ */
+public class ServiceProviderByClientIdCache extends
+        BaseCache<ServiceProviderByClientIdCacheKey, ServiceProviderByClientIdCacheEntry> {
+
+    public static final String SP_BY_CLIENT_ID_CACHE_NAME = "ServiceProviderByClientIdCache";
+
+    private static volatile ServiceProviderByClientIdCache instance;
+
+    private ServiceProviderByClientIdCache() {
+        super(SP_BY_CLIENT_ID_CACHE_NAME);
+    }
+
+    public static ServiceProviderByClientIdCache getInstance() {
+        if (instance == null) {
+            synchronized (ServiceProviderByClientIdCache.class) {
+                if (instance == null) {
+                    instance = new ServiceProviderByClientIdCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -22,15 +22,21 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionStore;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.cache.BaseCache;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 
+import java.util.concurrent.TimeUnit;
+
 public class AuthenticationContextCache extends
         BaseCache<AuthenticationContextCacheKey, AuthenticationContextCacheEntry> {
 
     private static Log log = LogFactory.getLog(AuthenticationContextCache.class);
     private static final String AUTHENTICATION_CONTEXT_CACHE_NAME = "AuthenticationContextCache";
+    // default expiry of the Carbon caches
+    private static final long DEFAULT_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(15);
     private static volatile AuthenticationContextCache instance;
     private boolean isTemporarySessionDataPersistEnabled = false;
 
@@ -54,7 +60,13 @@ public class AuthenticationContextCache extends
     }
 
     public void addToCache(AuthenticationContextCacheKey key, AuthenticationContextCacheEntry entry) {
-        super.addToCache(key, entry);
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            sessionStore.put(AUTHENTICATION_CONTEXT_CACHE_NAME, key.getContextId(), entry,
+                    System.currentTimeMillis() + getExpiryMillis());
+        } else {
+            super.addToCache(key, entry);
+        }
         if (isTemporarySessionDataPersistEnabled) {
             int tenantId = MultitenantConstants.INVALID_TENANT_ID;
             String tenantDomain = entry.getContext().getTenantDomain();
@@ -67,7 +79,14 @@ public class AuthenticationContextCache extends
     }
 
     public AuthenticationContextCacheEntry getValueFromCache(AuthenticationContextCacheKey key) {
-        AuthenticationContextCacheEntry entry = super.getValueFromCache(key);
+        AuthenticationContextCacheEntry entry;
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            entry = (AuthenticationContextCacheEntry) sessionStore.get(AUTHENTICATION_CONTEXT_CACHE_NAME,
+                    key.getContextId());
+        } else {
+            entry = super.getValueFromCache(key);
+        }
         if (entry == null && isTemporarySessionDataPersistEnabled) {
             entry = (AuthenticationContextCacheEntry) SessionDataStore.getInstance().
                     getSessionData(key.getContextId(), AUTHENTICATION_CONTEXT_CACHE_NAME);
@@ -76,9 +95,19 @@ public class AuthenticationContextCache extends
     }
 
     public void clearCacheEntry(AuthenticationContextCacheKey key) {
-        super.clearCacheEntry(key);
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            sessionStore.remove(AUTHENTICATION_CONTEXT_CACHE_NAME, key.getContextId());
+        } else {
+            super.clearCacheEntry(key);
+        }
         if (isTemporarySessionDataPersistEnabled) {
             SessionDataStore.getInstance().clearSessionData(key.getContextId(), AUTHENTICATION_CONTEXT_CACHE_NAME);
         }
     }
+
+    private long getExpiryMillis() {
+        int cacheTimeout = getCacheTimeout();
+        return cacheTimeout > 0 ? TimeUnit.SECONDS.toMillis(cacheTimeout) : DEFAULT_EXPIRY_MILLIS;
+    }
 }
@@ -23,6 +23,8 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionContextDO;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionStore;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.cache.BaseCache;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
 
@@ -52,12 +54,23 @@ public class SessionContextCache extends BaseCache<SessionContextCacheKey, Sessi
 
     public void addToCache(SessionContextCacheKey key, SessionContextCacheEntry entry) {
         entry.setAccessedTime();
-        super.addToCache(key, entry);
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            sessionStore.put(SESSION_CONTEXT_CACHE_NAME, key.getContextId(), entry, getExpiryTime(entry));
+        } else {
+            super.addToCache(key, entry);
+        }
         SessionDataStore.getInstance().storeSessionData(key.getContextId(), SESSION_CONTEXT_CACHE_NAME, entry);
     }
 
     public SessionContextCacheEntry getValueFromCache(SessionContextCacheKey key) {
-        SessionContextCacheEntry cacheEntry = super.getValueFromCache(key);
+        SessionContextCacheEntry cacheEntry;
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            cacheEntry = (SessionContextCacheEntry) sessionStore.get(SESSION_CONTEXT_CACHE_NAME, key.getContextId());
+        } else {
+            cacheEntry = super.getValueFromCache(key);
+        }
 
         // Retrieve session from the database if its not in cache
         if (cacheEntry == null) {
@@ -90,10 +103,31 @@ public class SessionContextCache extends BaseCache<SessionContextCacheKey, Sessi
     }
 
     public void clearCacheEntry(SessionContextCacheKey key) {
-        super.clearCacheEntry(key);
+        SessionStore sessionStore = FrameworkUtils.getSessionStore();
+        if (sessionStore != null) {
+            sessionStore.remove(SESSION_CONTEXT_CACHE_NAME, key.getContextId());
+        } else {
+            super.clearCacheEntry(key);
+        }
         SessionDataStore.getInstance().clearSessionData(key.getContextId(), SESSION_CONTEXT_CACHE_NAME);
     }
 
+    /**
+     * Returns the time after which the session is neither a valid idle session nor a valid remember me session.
+     *
+     * @param cacheEntry SessionContextCacheEntry
+     * @return expiry time of the session in milliseconds
+     */
+    private long getExpiryTime(SessionContextCacheEntry cacheEntry) {
+
+        String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        long timeout = IdPManagementUtil.getIdleSessionTimeOut(tenantDomain);
+        if (cacheEntry.getContext() != null && cacheEntry.getContext().isRememberMe()) {
+            timeout = Math.max(timeout, IdPManagementUtil.getRememberMeTimeout(tenantDomain));
+        }
+        return cacheEntry.getAccessedTime() + TimeUnit.SECONDS.toMillis(timeout);
+    }
+
     /**
      * Check whether the given session context is valid according to idle session timeout restrictions.
      *
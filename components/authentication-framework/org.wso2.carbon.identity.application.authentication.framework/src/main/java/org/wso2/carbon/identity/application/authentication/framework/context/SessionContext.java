@@ -67,4 +67,8 @@ public class SessionContext implements Serializable {
     public Object getProperty(String key) {
         return properties.get(key);
     }
+
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
 }
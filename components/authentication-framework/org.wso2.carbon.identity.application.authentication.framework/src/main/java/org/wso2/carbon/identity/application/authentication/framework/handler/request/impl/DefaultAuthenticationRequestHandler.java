@@ -33,6 +33,7 @@ import org.wso2.carbon.identity.application.authentication.framework.handler.req
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationResult;
 import org.wso2.carbon.identity.application.authentication.framework.model.CommonAuthResponseWrapper;
+import org.wso2.carbon.identity.application.authentication.framework.util.AuthenticationPhaseStats;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
@@ -265,6 +266,7 @@ public class DefaultAuthenticationRequestHandler implements AuthenticationReques
             }
 
             // session context may be null when cache expires therefore creating new cookie as well.
+            long sessionPersistStartTime = System.nanoTime();
             if (sessionContext != null) {
                 sessionContext.getAuthenticatedSequences().put(appConfig.getApplicationName(),
                                                                sequenceConfig);
@@ -283,6 +285,8 @@ public class DefaultAuthenticationRequestHandler implements AuthenticationReques
 
                 setAuthCookie(request, response, context, sessionKey, authenticatedUserTenantDomain);
             }
+            AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.SESSION_PERSIST, context, null,
+                    sessionPersistStartTime);
 
             if (authenticatedUserTenantDomain == null) {
                 PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
@@ -31,6 +31,7 @@ import org.wso2.carbon.identity.application.authentication.framework.exception.F
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.RequestCoordinator;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceComponent;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.util.AuthenticationPhaseStats;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.registry.core.utils.UUIDGenerator;
@@ -299,10 +300,13 @@ public class DefaultRequestCoordinator implements RequestCoordinator {
                                                     AuthenticationContext context) throws FrameworkException {
 
         // Get service provider chain
+        String issuer = request.getParameter(FrameworkConstants.RequestParams.ISSUER);
+        long configLoadStartTime = System.nanoTime();
         SequenceConfig sequenceConfig = ConfigurationFacade.getInstance().getSequenceConfig(
-                context.getRequestType(),
-                request.getParameter(FrameworkConstants.RequestParams.ISSUER),
-                context.getTenantDomain());
+                context.getRequestType(), issuer, context.getTenantDomain());
+        AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.CONFIG_LOAD,
+                context.getTenantDomain(), sequenceConfig.getApplicationConfig() != null ?
+                        sequenceConfig.getApplicationConfig().getApplicationName() : issuer, null, configLoadStartTime);
 
         Cookie cookie = FrameworkUtils.getAuthCookie(request);
 
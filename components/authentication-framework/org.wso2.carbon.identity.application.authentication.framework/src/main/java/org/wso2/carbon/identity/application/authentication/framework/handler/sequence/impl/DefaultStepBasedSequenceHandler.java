@@ -33,6 +33,7 @@ import org.wso2.carbon.identity.application.authentication.framework.context.Aut
 import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
 import org.wso2.carbon.identity.application.authentication.framework.handler.sequence.StepBasedSequenceHandler;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.util.AuthenticationPhaseStats;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
@@ -168,7 +169,13 @@ public class DefaultStepBasedSequenceHandler implements StepBasedSequenceHandler
                 log.debug("Starting Step: " + stepConfig.getOrder());
             }
 
-            FrameworkUtils.getStepHandler().handle(request, response, context);
+            long stepStartTime = System.nanoTime();
+            try {
+                FrameworkUtils.getStepHandler().handle(request, response, context);
+            } finally {
+                AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.STEP, context, null,
+                        stepStartTime);
+            }
 
             // if step is not completed, that means step wants to redirect to outside
             if (!stepConfig.isCompleted()) {
@@ -666,11 +673,15 @@ public class DefaultStepBasedSequenceHandler implements StepBasedSequenceHandler
 
         Map<String, String> mappedAttrs = new HashMap<String, String>();
 
+        long claimMappingStartTime = System.nanoTime();
         try {
             mappedAttrs = FrameworkUtils.getClaimHandler().handleClaimMappings(stepConfig, context,
                                                                                extAttrs, isFederatedClaims);
         } catch (FrameworkException e) {
             log.error("Claim handling failed!", e);
+        } finally {
+            AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.CLAIM_MAPPING, context,
+                    getAuthenticatorName(stepConfig), claimMappingStartTime);
         }
         if(mappedAttrs == null){
             mappedAttrs = new HashMap<>();
@@ -711,8 +722,14 @@ public class DefaultStepBasedSequenceHandler implements StepBasedSequenceHandler
             IdentityApplicationManagementUtil
                     .setThreadLocalProvisioningServiceProvider(serviceProvider);
 
-            FrameworkUtils.getProvisioningHandler().handle(mappedRoles, subjectIdentifier,
-                                                           extAttributesValueMap, userStoreDomain, context.getTenantDomain());
+            long provisioningStartTime = System.nanoTime();
+            try {
+                FrameworkUtils.getProvisioningHandler().handle(mappedRoles, subjectIdentifier,
+                        extAttributesValueMap, userStoreDomain, context.getTenantDomain());
+            } finally {
+                AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.JIT_PROVISIONING,
+                        context, null, provisioningStartTime);
+            }
 
         } catch (FrameworkException e) {
             log.error("User provisioning failed!", e);
@@ -721,6 +738,13 @@ public class DefaultStepBasedSequenceHandler implements StepBasedSequenceHandler
         }
     }
 
+    private String getAuthenticatorName(StepConfig stepConfig) {
+        if (stepConfig != null && stepConfig.getAuthenticatedAutenticator() != null) {
+            return stepConfig.getAuthenticatedAutenticator().getName();
+        }
+        return null;
+    }
+
     protected void resetAuthenticationContext(AuthenticationContext context)
             throws FrameworkException {
 
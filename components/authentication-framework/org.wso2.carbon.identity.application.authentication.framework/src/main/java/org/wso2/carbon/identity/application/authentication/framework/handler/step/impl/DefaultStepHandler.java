@@ -36,6 +36,7 @@ import org.wso2.carbon.identity.application.authentication.framework.exception.L
 import org.wso2.carbon.identity.application.authentication.framework.handler.step.StepHandler;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedIdPData;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.util.AuthenticationPhaseStats;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants;
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
@@ -429,7 +430,14 @@ public class DefaultStepHandler implements StepHandler {
         try {
             context.setAuthenticatorProperties(FrameworkUtils.getAuthenticatorPropertyMapFromIdP(
                     context.getExternalIdP(), authenticator.getName()));
-            AuthenticatorFlowStatus status = authenticator.process(request, response, context);
+            AuthenticatorFlowStatus status;
+            long processStartTime = System.nanoTime();
+            try {
+                status = authenticator.process(request, response, context);
+            } finally {
+                AuthenticationPhaseStats.getInstance().record(AuthenticationPhaseStats.Phase.AUTHENTICATOR, context,
+                        authenticator.getName(), processStartTime);
+            }
             request.setAttribute(FrameworkConstants.RequestParams.FLOW_STATUS, status);
 
             if (log.isDebugEnabled()) {
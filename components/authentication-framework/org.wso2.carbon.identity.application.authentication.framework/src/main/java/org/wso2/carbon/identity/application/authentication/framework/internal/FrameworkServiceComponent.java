@@ -36,19 +36,26 @@ import org.wso2.carbon.identity.application.authentication.framework.inbound.Inb
 import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationRequestProcessor;
 import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationResponseProcessor;
 import org.wso2.carbon.identity.application.authentication.framework.listener.AuthenticationEndpointTenantActivityListener;
+import org.wso2.carbon.identity.application.authentication.framework.servlet.AuthenticationPhaseStatsServlet;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.CommonAuthenticationServlet;
 import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+import org.wso2.carbon.identity.application.authentication.framework.util.AuthenticationPhaseStats;
 import org.wso2.carbon.identity.application.common.ApplicationAuthenticatorService;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
 import org.wso2.carbon.identity.core.util.IdentityCoreInitializedEvent;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.servlet.Servlet;
+import java.lang.management.ManagementFactory;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -95,6 +102,7 @@ public class FrameworkServiceComponent {
 
     public static final String COMMON_SERVLET_URL = "/commonauth";
     private static final String COMMON_INBOUND_SERVLET_URL = "/authentication";
+    private static final String AUTHENTICATION_STATS_SERVLET_URL = "/authenticationstats";
     private static final Log log = LogFactory.getLog(FrameworkServiceComponent.class);
 
     private HttpService httpService;
@@ -168,6 +176,11 @@ public class FrameworkServiceComponent {
                                         null, null);
             httpService.registerServlet(COMMON_INBOUND_SERVLET_URL, commonInboundServlet,
                     null, null);
+            if (AuthenticationPhaseStats.getInstance().isEnabled() && Boolean.parseBoolean(
+                    IdentityUtil.getProperty("AuthenticationPhaseStats.Endpoint.Enable"))) {
+                httpService.registerServlet(AUTHENTICATION_STATS_SERVLET_URL, new ContextPathServletAdaptor(
+                        new AuthenticationPhaseStatsServlet(), AUTHENTICATION_STATS_SERVLET_URL), null, null);
+            }
         } catch (Exception e) {
             String errMsg = "Error when registering Common Servlet via the HttpService.";
             log.error(errMsg, e);
@@ -179,6 +192,8 @@ public class FrameworkServiceComponent {
         //this is done to load SessionDataStore class and start the cleanup tasks.
         SessionDataStore.getInstance();
 
+        registerAuthenticationPhaseStats();
+
         if (log.isDebugEnabled()) {
             log.info("Application Authentication Framework bundle is activated");
         }
@@ -189,9 +204,37 @@ public class FrameworkServiceComponent {
             log.info("Application Authentication Framework bundle is deactivated");
         }
 
+        unregisterAuthenticationPhaseStats();
         FrameworkServiceDataHolder.getInstance().setBundleContext(null);
     }
 
+    private void registerAuthenticationPhaseStats() {
+        if (!AuthenticationPhaseStats.getInstance().isEnabled()) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(AuthenticationPhaseStats.OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(AuthenticationPhaseStats.getInstance(), objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the authentication phase statistics MBean", e);
+        }
+    }
+
+    private void unregisterAuthenticationPhaseStats() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(AuthenticationPhaseStats.OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the authentication phase statistics MBean", e);
+        }
+    }
+
     protected void setHttpService(HttpService httpService) {
         if (log.isDebugEnabled()) {
             log.debug("HTTP Service is set in the Application Authentication Framework bundle");
@@ -0,0 +1,878 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorStateInfo;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SessionContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.SessionContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedIdPData;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned compact binary session serializer.
+ * <p/>
+ * {@link SessionContextCacheEntry} graphs, i.e. SessionContext, SequenceConfig, StepConfig, AuthenticatorConfig,
+ * AuthenticatedIdPData and AuthenticatedUser, are written field by field without class descriptors. Objects this
+ * serializer does not know about (service provider and identity provider models, authenticator state, custom
+ * session properties and other cache entries) are collected into a single Java serialized section which is
+ * appended to the binary body, so class descriptors are written only once per session.
+ * <p/>
+ * Layout : MAGIC(2) VERSION(1) FLAGS(1) [deflated] { BODY_LENGTH BODY OPAQUE_SECTION }
+ * <p/>
+ * The body can optionally be deflated when it is larger than
+ * JDBCPersistenceManager.SessionDataPersist.Serializer.CompressionThreshold bytes.
+ */
+public class BinarySessionSerializer implements SessionSerializer {
+
+    private static final Log log = LogFactory.getLog(BinarySessionSerializer.class);
+
+    private static final byte MAGIC_0 = (byte) 0x57;
+    private static final byte MAGIC_1 = (byte) 0x53;
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 4;
+    private static final int FLAG_DEFLATED = 1;
+
+    private static final int TYPE_SESSION_CONTEXT_ENTRY = 1;
+    private static final int TYPE_VALUE = 2;
+
+    // markers written before every object of a known type
+    private static final int OBJECT_NULL = 0;
+    private static final int OBJECT_INLINE = 1;
+    private static final int OBJECT_REFERENCE = 2;
+    private static final int OBJECT_OPAQUE = 3;
+
+    // tags written before every value of an unknown type
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_BOOLEAN = 2;
+    private static final int VALUE_INTEGER = 3;
+    private static final int VALUE_LONG = 4;
+    private static final int VALUE_OPAQUE = 5;
+
+    private static final String COMPRESSION_THRESHOLD =
+            "JDBCPersistenceManager.SessionDataPersist.Serializer.CompressionThreshold";
+
+    private int compressionThreshold = -1;
+
+    public BinarySessionSerializer() {
+        String compressionThresholdVal = IdentityUtil.getProperty(COMPRESSION_THRESHOLD);
+        if (StringUtils.isNotBlank(compressionThresholdVal)) {
+            try {
+                compressionThreshold = Integer.parseInt(compressionThresholdVal.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + compressionThresholdVal + " configured for " + COMPRESSION_THRESHOLD +
+                        ". Session data compression is disabled.");
+            }
+        }
+    }
+
+    /**
+     * @param compressionThreshold body size in bytes above which the body is deflated, negative to disable
+     */
+    public BinarySessionSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        Encoder encoder = new Encoder();
+        if (value != null && value.getClass() == SessionContextCacheEntry.class) {
+            encoder.writeVarInt(TYPE_SESSION_CONTEXT_ENTRY);
+            encoder.writeSessionContextCacheEntry((SessionContextCacheEntry) value);
+        } else {
+            encoder.writeVarInt(TYPE_VALUE);
+            encoder.writeValue(value);
+        }
+        byte[] payload = encoder.toByteArray();
+
+        boolean deflate = compressionThreshold >= 0 && payload.length > compressionThreshold;
+        if (deflate) {
+            payload = deflate(payload);
+        }
+        byte[] data = new byte[HEADER_LENGTH + payload.length];
+        data[0] = MAGIC_0;
+        data[1] = MAGIC_1;
+        data[2] = VERSION;
+        data[3] = (byte) (deflate ? FLAG_DEFLATED : 0);
+        System.arraycopy(payload, 0, data, HEADER_LENGTH, payload.length);
+        return data;
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        if (!canDeserialize(data)) {
+            throw new IOException("Data is not in binary session format");
+        }
+        if (data[2] > VERSION) {
+            throw new IOException("Unsupported binary session format version : " + data[2]);
+        }
+        byte[] payload;
+        if ((data[3] & FLAG_DEFLATED) != 0) {
+            payload = inflate(data, HEADER_LENGTH);
+        } else {
+            payload = new byte[data.length - HEADER_LENGTH];
+            System.arraycopy(data, HEADER_LENGTH, payload, 0, payload.length);
+        }
+
+        Decoder decoder = new Decoder(payload);
+        try {
+            int type = decoder.readVarInt();
+            if (type == TYPE_SESSION_CONTEXT_ENTRY) {
+                return decoder.readSessionContextCacheEntry();
+            } else if (type == TYPE_VALUE) {
+                return decoder.readValue();
+            }
+            throw new IOException("Unknown session data type : " + type);
+        } catch (ClassCastException e) {
+            throw new IOException("Corrupted binary session data", e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted binary session data", e);
+        }
+    }
+
+    @Override
+    public boolean canDeserialize(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                baos.write(buffer, 0, count);
+            }
+            return baos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Unexpected end of deflated session data");
+                }
+                baos.write(buffer, 0, count);
+            }
+            return baos.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted deflated session data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Writes a single session object graph. Not thread safe, a new encoder is used for every object.
+     */
+    private static final class Encoder {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+        private final DataOutputStream out = new DataOutputStream(body);
+        private final Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+        private final List<Object> opaqueObjects = new ArrayList<Object>();
+
+        byte[] toByteArray() throws IOException {
+            out.flush();
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + 16);
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            writeVarInt(payloadOut, body.size());
+            body.writeTo(payloadOut);
+            writeVarInt(payloadOut, opaqueObjects.size());
+            payloadOut.flush();
+            if (!opaqueObjects.isEmpty()) {
+                ObjectOutputStream oos = new ObjectOutputStream(payload);
+                oos.writeObject(opaqueObjects.toArray());
+                oos.flush();
+                oos.close();
+            }
+            return payload.toByteArray();
+        }
+
+        /**
+         * Writes the marker of an object of a known type.
+         *
+         * @return true if the fields of the object have to be written inline
+         */
+        private boolean writeObjectMarker(Object value, Class<?> type) throws IOException {
+            if (value == null) {
+                writeVarInt(OBJECT_NULL);
+                return false;
+            }
+            Integer reference = references.get(value);
+            if (reference != null) {
+                writeVarInt(OBJECT_REFERENCE);
+                writeVarInt(reference);
+                return false;
+            }
+            references.put(value, references.size());
+            if (value.getClass() != type) {
+                // sub classes may carry state we do not know about
+                writeVarInt(OBJECT_OPAQUE);
+                writeVarInt(addOpaqueObject(value));
+                return false;
+            }
+            writeVarInt(OBJECT_INLINE);
+            return true;
+        }
+
+        private int addOpaqueObject(Object value) {
+            opaqueObjects.add(value);
+            return opaqueObjects.size() - 1;
+        }
+
+        void writeSessionContextCacheEntry(SessionContextCacheEntry entry) throws IOException {
+            writeString(entry.getLoggedInUser());
+            writeSessionContext(entry.getContext());
+        }
+
+        private void writeSessionContext(SessionContext context) throws IOException {
+            if (!writeObjectMarker(context, SessionContext.class)) {
+                return;
+            }
+            out.writeBoolean(context.isRememberMe());
+
+            Map<String, SequenceConfig> sequences = context.getAuthenticatedSequences();
+            writeSize(sequences == null ? -1 : sequences.size());
+            if (sequences != null) {
+                for (Map.Entry<String, SequenceConfig> sequence : sequences.entrySet()) {
+                    writeString(sequence.getKey());
+                    writeSequenceConfig(sequence.getValue());
+                }
+            }
+
+            Map<String, AuthenticatedIdPData> idps = context.getAuthenticatedIdPs();
+            writeSize(idps == null ? -1 : idps.size());
+            if (idps != null) {
+                for (Map.Entry<String, AuthenticatedIdPData> idp : idps.entrySet()) {
+                    writeString(idp.getKey());
+                    writeAuthenticatedIdPData(idp.getValue());
+                }
+            }
+
+            Map<String, Object> properties = context.getProperties();
+            writeSize(properties == null ? -1 : properties.size());
+            if (properties != null) {
+                for (Map.Entry<String, Object> property : properties.entrySet()) {
+                    writeString(property.getKey());
+                    writeValue(property.getValue());
+                }
+            }
+        }
+
+        private void writeSequenceConfig(SequenceConfig sequenceConfig) throws IOException {
+            if (!writeObjectMarker(sequenceConfig, SequenceConfig.class)) {
+                return;
+            }
+            writeString(sequenceConfig.getName());
+            out.writeBoolean(sequenceConfig.isForceAuthn());
+            out.writeBoolean(sequenceConfig.isCheckAuthn());
+            out.writeBoolean(sequenceConfig.isCompleted());
+            writeString(sequenceConfig.getApplicationId());
+            writeString(sequenceConfig.getAuthenticatedIdPs());
+
+            Map<Integer, StepConfig> stepMap = sequenceConfig.getStepMap();
+            writeSize(stepMap == null ? -1 : stepMap.size());
+            if (stepMap != null) {
+                for (Map.Entry<Integer, StepConfig> step : stepMap.entrySet()) {
+                    out.writeInt(step.getKey());
+                    writeStepConfig(step.getValue());
+                }
+            }
+
+            writeAuthenticatorConfigs(sequenceConfig.getReqPathAuthenticators());
+            writeValue(sequenceConfig.getApplicationConfig());
+            writeAuthenticatedUser(sequenceConfig.getAuthenticatedUser());
+            writeAuthenticatorConfig(sequenceConfig.getAuthenticatedReqPathAuthenticator());
+        }
+
+        private void writeStepConfig(StepConfig stepConfig) throws IOException {
+            if (!writeObjectMarker(stepConfig, StepConfig.class)) {
+                return;
+            }
+            out.writeInt(stepConfig.getOrder());
+            writeString(stepConfig.getLoginPage());
+            writeString(stepConfig.getAuthenticatedIdP());
+            out.writeBoolean(stepConfig.isSubjectIdentifierStep());
+            out.writeBoolean(stepConfig.isSubjectAttributeStep());
+            out.writeBoolean(stepConfig.isCompleted());
+            out.writeBoolean(stepConfig.isMultiOption());
+            out.writeBoolean(stepConfig.isRetrying());
+            writeAuthenticatedUser(stepConfig.getAuthenticatedUser());
+            writeAuthenticatorConfig(stepConfig.getAuthenticatedAutenticator());
+            writeAuthenticatorConfigs(stepConfig.getAuthenticatorList());
+            writeStrings(stepConfig.getAuthenticatorMappings());
+        }
+
+        private void writeAuthenticatorConfigs(List<AuthenticatorConfig> authenticatorConfigs) throws IOException {
+            writeSize(authenticatorConfigs == null ? -1 : authenticatorConfigs.size());
+            if (authenticatorConfigs != null) {
+                for (AuthenticatorConfig authenticatorConfig : authenticatorConfigs) {
+                    writeAuthenticatorConfig(authenticatorConfig);
+                }
+            }
+        }
+
+        private void writeAuthenticatorConfig(AuthenticatorConfig authenticatorConfig) throws IOException {
+            if (!writeObjectMarker(authenticatorConfig, AuthenticatorConfig.class)) {
+                return;
+            }
+            writeString(authenticatorConfig.getName());
+            out.writeBoolean(authenticatorConfig.isEnabled());
+
+            // deployed authenticators are written by name and resolved again when reading
+            ApplicationAuthenticator authenticator = authenticatorConfig.getApplicationAuthenticator();
+            if (authenticator != null && authenticator.getName() != null &&
+                    FrameworkUtils.getAppAuthenticatorByName(authenticator.getName()) == authenticator) {
+                out.writeBoolean(true);
+                writeString(authenticator.getName());
+            } else {
+                out.writeBoolean(false);
+                writeValue(authenticator);
+            }
+            writeValue(authenticatorConfig.getAuthenticatorStateInfo());
+
+            Map<String, String> parameterMap = authenticatorConfig.getParameterMap();
+            writeSize(parameterMap == null ? -1 : parameterMap.size());
+            if (parameterMap != null) {
+                for (Map.Entry<String, String> parameter : parameterMap.entrySet()) {
+                    writeString(parameter.getKey());
+                    writeString(parameter.getValue());
+                }
+            }
+
+            Map<String, IdentityProvider> idps = authenticatorConfig.getIdps();
+            writeSize(idps == null ? -1 : idps.size());
+            if (idps != null) {
+                for (Map.Entry<String, IdentityProvider> idp : idps.entrySet()) {
+                    writeString(idp.getKey());
+                    writeValue(idp.getValue());
+                }
+            }
+            writeStrings(authenticatorConfig.getIdpNames());
+        }
+
+        private void writeAuthenticatedIdPData(AuthenticatedIdPData idPData) throws IOException {
+            if (!writeObjectMarker(idPData, AuthenticatedIdPData.class)) {
+                return;
+            }
+            writeString(idPData.getIdpName());
+            writeAuthenticatorConfig(idPData.getAuthenticator());
+            writeAuthenticatedUser(idPData.getUser());
+        }
+
+        private void writeAuthenticatedUser(AuthenticatedUser user) throws IOException {
+            if (!writeObjectMarker(user, AuthenticatedUser.class)) {
+                return;
+            }
+            writeString(user.getTenantDomain());
+            writeString(user.getUserStoreDomain());
+            writeString(user.getUserName());
+            writeString(user.getAuthenticatedSubjectIdentifier());
+            writeString(user.getFederatedIdPName());
+            out.writeBoolean(user.isFederatedUser());
+
+            Map<ClaimMapping, String> userAttributes = user.getUserAttributes();
+            writeSize(userAttributes == null ? -1 : userAttributes.size());
+            if (userAttributes != null) {
+                for (Map.Entry<ClaimMapping, String> attribute : userAttributes.entrySet()) {
+                    writeClaimMapping(attribute.getKey());
+                    writeString(attribute.getValue());
+                }
+            }
+        }
+
+        private void writeClaimMapping(ClaimMapping claimMapping) throws IOException {
+            if (!writeObjectMarker(claimMapping, ClaimMapping.class)) {
+                return;
+            }
+            writeClaim(claimMapping.getLocalClaim());
+            writeClaim(claimMapping.getRemoteClaim());
+            writeString(claimMapping.getDefaultValue());
+            out.writeBoolean(claimMapping.isRequested());
+        }
+
+        private void writeClaim(Claim claim) throws IOException {
+            if (!writeObjectMarker(claim, Claim.class)) {
+                return;
+            }
+            writeString(claim.getClaimUri());
+            out.writeInt(claim.getClaimId());
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeVarInt(VALUE_NULL);
+            } else if (value instanceof String) {
+                writeVarInt(VALUE_STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeVarInt(VALUE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Integer) {
+                writeVarInt(VALUE_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                writeVarInt(VALUE_LONG);
+                out.writeLong((Long) value);
+            } else {
+                writeVarInt(VALUE_OPAQUE);
+                Integer reference = references.get(value);
+                if (reference == null) {
+                    references.put(value, references.size());
+                    writeVarInt(OBJECT_OPAQUE);
+                    writeVarInt(addOpaqueObject(value));
+                } else {
+                    writeVarInt(OBJECT_REFERENCE);
+                    writeVarInt(reference);
+                }
+            }
+        }
+
+        private void writeStrings(List<String> values) throws IOException {
+            writeSize(values == null ? -1 : values.size());
+            if (values != null) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            out.write(bytes);
+        }
+
+        /**
+         * Sizes are shifted by one so that null collections can be told apart from empty ones.
+         */
+        private void writeSize(int size) throws IOException {
+            writeVarInt(size + 1);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeVarInt(out, value);
+        }
+
+        private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+    }
+
+    /**
+     * Reads a single session object graph written by {@link Encoder}.
+     */
+    private static final class Decoder {
+
+        private final DataInputStream in;
+        private final List<Object> references = new ArrayList<Object>();
+        private Object[] opaqueObjects = new Object[0];
+        // whether the fields of the object of the last read marker follow inline
+        private boolean inline;
+
+        Decoder(byte[] payload) throws IOException, ClassNotFoundException {
+            DataInputStream payloadIn = new DataInputStream(new ByteArrayInputStream(payload));
+            int bodyLength = readVarInt(payloadIn);
+            byte[] body = new byte[bodyLength];
+            payloadIn.readFully(body);
+            int opaqueCount = readVarInt(payloadIn);
+            if (opaqueCount > 0) {
+                ObjectInputStream ois = new ObjectInputStream(payloadIn);
+                try {
+                    opaqueObjects = (Object[]) ois.readObject();
+                } finally {
+                    ois.close();
+                }
+                if (opaqueObjects.length != opaqueCount) {
+                    throw new IOException("Corrupted binary session data. Expected " + opaqueCount +
+                            " opaque objects but found " + opaqueObjects.length);
+                }
+            }
+            in = new DataInputStream(new ByteArrayInputStream(body));
+        }
+
+        /**
+         * Reads the marker of an object of a known type.
+         *
+         * @return the object if it was written by reference or as an opaque object, null otherwise. In the latter
+         * case {@link #inline} tells whether the fields follow inline.
+         */
+        private Object readObjectMarker() throws IOException {
+            int marker = readVarInt();
+            switch (marker) {
+                case OBJECT_NULL:
+                    inline = false;
+                    return null;
+                case OBJECT_INLINE:
+                    inline = true;
+                    return null;
+                case OBJECT_REFERENCE:
+                    inline = false;
+                    return references.get(readVarInt());
+                case OBJECT_OPAQUE:
+                    inline = false;
+                    Object value = opaqueObjects[readVarInt()];
+                    references.add(value);
+                    return value;
+                default:
+                    throw new IOException("Unknown object marker : " + marker);
+            }
+        }
+
+        private <T> T register(T value) {
+            references.add(value);
+            return value;
+        }
+
+        SessionContextCacheEntry readSessionContextCacheEntry() throws IOException {
+            SessionContextCacheEntry entry = new SessionContextCacheEntry();
+            entry.setLoggedInUser(readString());
+            entry.setContext(readSessionContext());
+            return entry;
+        }
+
+        private SessionContext readSessionContext() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (SessionContext) value;
+            }
+            SessionContext context = register(new SessionContext());
+            context.setRememberMe(in.readBoolean());
+
+            int size = readSize();
+            if (size >= 0) {
+                Map<String, SequenceConfig> sequences = new HashMap<String, SequenceConfig>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    String key = readString();
+                    sequences.put(key, readSequenceConfig());
+                }
+                context.setAuthenticatedSequences(sequences);
+            } else {
+                context.setAuthenticatedSequences(null);
+            }
+
+            size = readSize();
+            if (size >= 0) {
+                Map<String, AuthenticatedIdPData> idps = new HashMap<String, AuthenticatedIdPData>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    String key = readString();
+                    idps.put(key, readAuthenticatedIdPData());
+                }
+                context.setAuthenticatedIdPs(idps);
+            } else {
+                context.setAuthenticatedIdPs(null);
+            }
+
+            size = readSize();
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                context.addProperty(key, readValue());
+            }
+            return context;
+        }
+
+        private SequenceConfig readSequenceConfig() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (SequenceConfig) value;
+            }
+            SequenceConfig sequenceConfig = register(new SequenceConfig());
+            sequenceConfig.setName(readString());
+            sequenceConfig.setForceAuthn(in.readBoolean());
+            sequenceConfig.setCheckAuthn(in.readBoolean());
+            sequenceConfig.setCompleted(in.readBoolean());
+            sequenceConfig.setApplicationId(readString());
+            sequenceConfig.setAuthenticatedIdPs(readString());
+
+            int size = readSize();
+            if (size >= 0) {
+                Map<Integer, StepConfig> stepMap = new HashMap<Integer, StepConfig>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    int order = in.readInt();
+                    stepMap.put(order, readStepConfig());
+                }
+                sequenceConfig.setStepMap(stepMap);
+            } else {
+                sequenceConfig.setStepMap(null);
+            }
+
+            sequenceConfig.setReqPathAuthenticators(readAuthenticatorConfigs());
+            sequenceConfig.setApplicationConfig((ApplicationConfig) readValue());
+            sequenceConfig.setAuthenticatedUser(readAuthenticatedUser());
+            sequenceConfig.setAuthenticatedReqPathAuthenticator(readAuthenticatorConfig());
+            return sequenceConfig;
+        }
+
+        private StepConfig readStepConfig() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (StepConfig) value;
+            }
+            StepConfig stepConfig = register(new StepConfig());
+            stepConfig.setOrder(in.readInt());
+            stepConfig.setLoginPage(readString());
+            stepConfig.setAuthenticatedIdP(readString());
+            stepConfig.setSubjectIdentifierStep(in.readBoolean());
+            stepConfig.setSubjectAttributeStep(in.readBoolean());
+            stepConfig.setCompleted(in.readBoolean());
+            stepConfig.setMultiOption(in.readBoolean());
+            stepConfig.setRetrying(in.readBoolean());
+            stepConfig.setAuthenticatedUser(readAuthenticatedUser());
+            stepConfig.setAuthenticatedAutenticator(readAuthenticatorConfig());
+            stepConfig.setAuthenticatorList(readAuthenticatorConfigs());
+            stepConfig.setAuthenticatorMappings(readStrings());
+            return stepConfig;
+        }
+
+        private List<AuthenticatorConfig> readAuthenticatorConfigs() throws IOException {
+            int size = readSize();
+            if (size < 0) {
+                return null;
+            }
+            List<AuthenticatorConfig> authenticatorConfigs = new ArrayList<AuthenticatorConfig>(size);
+            for (int i = 0; i < size; i++) {
+                authenticatorConfigs.add(readAuthenticatorConfig());
+            }
+            return authenticatorConfigs;
+        }
+
+        private AuthenticatorConfig readAuthenticatorConfig() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (AuthenticatorConfig) value;
+            }
+            AuthenticatorConfig authenticatorConfig = register(new AuthenticatorConfig());
+            authenticatorConfig.setName(readString());
+            authenticatorConfig.setEnabled(in.readBoolean());
+
+            if (in.readBoolean()) {
+                String authenticatorName = readString();
+                ApplicationAuthenticator authenticator = FrameworkUtils.getAppAuthenticatorByName(authenticatorName);
+                if (authenticator == null && log.isDebugEnabled()) {
+                    log.debug("Authenticator " + authenticatorName + " of the persisted session is not deployed");
+                }
+                authenticatorConfig.setApplicationAuthenticator(authenticator);
+            } else {
+                authenticatorConfig.setApplicationAuthenticator((ApplicationAuthenticator) readValue());
+            }
+            authenticatorConfig.setAuthenticatorStateInfo((AuthenticatorStateInfo) readValue());
+
+            int size = readSize();
+            if (size >= 0) {
+                Map<String, String> parameterMap = new HashMap<String, String>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    String key = readString();
+                    parameterMap.put(key, readString());
+                }
+                authenticatorConfig.setParameterMap(parameterMap);
+            }
+
+            size = readSize();
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                authenticatorConfig.getIdps().put(key, (IdentityProvider) readValue());
+            }
+            List<String> idpNames = readStrings();
+            if (idpNames != null) {
+                authenticatorConfig.getIdpNames().addAll(idpNames);
+            }
+            return authenticatorConfig;
+        }
+
+        private AuthenticatedIdPData readAuthenticatedIdPData() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (AuthenticatedIdPData) value;
+            }
+            AuthenticatedIdPData idPData = register(new AuthenticatedIdPData());
+            idPData.setIdpName(readString());
+            idPData.setAuthenticator(readAuthenticatorConfig());
+            idPData.setUser(readAuthenticatedUser());
+            return idPData;
+        }
+
+        private AuthenticatedUser readAuthenticatedUser() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (AuthenticatedUser) value;
+            }
+            AuthenticatedUser user = register(new AuthenticatedUser());
+            user.setTenantDomain(readString());
+            user.setUserStoreDomain(readString());
+            user.setUserName(readString());
+            user.setAuthenticatedSubjectIdentifier(readString());
+            user.setFederatedIdPName(readString());
+            user.setFederatedUser(in.readBoolean());
+
+            int size = readSize();
+            if (size >= 0) {
+                Map<ClaimMapping, String> userAttributes = new HashMap<ClaimMapping, String>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    ClaimMapping claimMapping = readClaimMapping();
+                    userAttributes.put(claimMapping, readString());
+                }
+                user.setUserAttributes(userAttributes);
+            } else {
+                user.setUserAttributes(null);
+            }
+            return user;
+        }
+
+        private ClaimMapping readClaimMapping() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (ClaimMapping) value;
+            }
+            ClaimMapping claimMapping = register(new ClaimMapping());
+            claimMapping.setLocalClaim(readClaim());
+            claimMapping.setRemoteClaim(readClaim());
+            claimMapping.setDefaultValue(readString());
+            claimMapping.setRequested(in.readBoolean());
+            return claimMapping;
+        }
+
+        private Claim readClaim() throws IOException {
+            Object value = readObjectMarker();
+            if (!inline) {
+                return (Claim) value;
+            }
+            Claim claim = register(new Claim());
+            claim.setClaimUri(readString());
+            claim.setClaimId(in.readInt());
+            return claim;
+        }
+
+        Object readValue() throws IOException {
+            int tag = readVarInt();
+            switch (tag) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return readString();
+                case VALUE_BOOLEAN:
+                    return in.readBoolean();
+                case VALUE_INTEGER:
+                    return in.readInt();
+                case VALUE_LONG:
+                    return in.readLong();
+                case VALUE_OPAQUE:
+                    return readObjectMarker();
+                default:
+                    throw new IOException("Unknown value tag : " + tag);
+            }
+        }
+
+        private List<String> readStrings() throws IOException {
+            int size = readSize();
+            if (size < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readSize() throws IOException {
+            return readVarInt() - 1;
+        }
+
+        private static int capacity(int size) {
+            return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+        }
+
+        int readVarInt() throws IOException {
+            return readVarInt(in);
+        }
+
+        private static int readVarInt(DataInputStream in) throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer in binary session data");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Session serializer based on Java object serialization. This is the default serializer and the format of all
+ * session data written before session serializers were pluggable.
+ */
+public class JavaSessionSerializer implements SessionSerializer {
+
+    private static final Log log = LogFactory.getLog(JavaSessionSerializer.class);
+
+    private static final byte STREAM_MAGIC_0 = (byte) 0xAC;
+    private static final byte STREAM_MAGIC_1 = (byte) 0xED;
+
+    @Override
+    public byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(value);
+        oos.flush();
+        oos.close();
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        ObjectInput ois = null;
+        try {
+            ois = new ObjectInputStream(new ByteArrayInputStream(data));
+            return ois.readObject();
+        } finally {
+            if (ois != null) {
+                try {
+                    ois.close();
+                } catch (IOException e) {
+                    log.error("IOException while trying to close ObjectInputStream.", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean canDeserialize(byte[] data) {
+        return data != null && data.length > 1 && data[0] == STREAM_MAGIC_0 && data[1] == STREAM_MAGIC_1;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
+import org.wso2.carbon.identity.core.util.IdentityConfigSnapshot;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Session store which keeps the serialized contexts outside of the Java heap, so that a large number of sessions
+ * does not add to the garbage collection work of the server.
+ * <p/>
+ * The store is split into stripes, each guarded by its own lock and owning a direct buffer which is divided into
+ * fixed size blocks. An entry is written to as many blocks of the stripe of its key as it needs, and only the key,
+ * the block numbers and the expiry time of the entry are kept on the heap. When a stripe runs out of blocks, expired
+ * entries are evicted first and then the entries closest to their expiry. Evicted contexts are loaded from the
+ * session data store when they are looked up again.
+ * <p/>
+ * The size of the store is configured with the OffHeapSessionStore element of identity.xml and is limited by the
+ * maximum direct memory of the JVM. The store is local to the node, contexts are not replicated within a cluster.
+ */
+public class OffHeapSessionStore implements SessionStore {
+
+    private static final Log log = LogFactory.getLog(OffHeapSessionStore.class);
+
+    private static final int DEFAULT_MAX_SIZE_MB = 128;
+    private static final int DEFAULT_STRIPES = 16;
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final Comparator<Slot> EXPIRY_ORDER = new Comparator<Slot>() {
+        @Override
+        public int compare(Slot slot1, Slot slot2) {
+            if (slot1.expiryTime != slot2.expiryTime) {
+                return slot1.expiryTime < slot2.expiryTime ? -1 : 1;
+            }
+            return slot1.sequence < slot2.sequence ? -1 : (slot1.sequence == slot2.sequence ? 0 : 1);
+        }
+    };
+
+    private final Stripe[] stripes;
+    private final int blockSize;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    public OffHeapSessionStore() {
+
+        IdentityConfigSnapshot config = IdentityUtil.getConfigSnapshot();
+        long maxSize = (long) config.getInt("OffHeapSessionStore.MaxSize", DEFAULT_MAX_SIZE_MB) * 1024 * 1024;
+        int stripeCount = config.getInt("OffHeapSessionStore.Stripes", DEFAULT_STRIPES);
+        int configuredBlockSize = config.getInt("OffHeapSessionStore.BlockSize", DEFAULT_BLOCK_SIZE);
+
+        if (maxSize <= 0) {
+            maxSize = (long) DEFAULT_MAX_SIZE_MB * 1024 * 1024;
+        }
+        if (stripeCount <= 0) {
+            stripeCount = DEFAULT_STRIPES;
+        }
+        if (configuredBlockSize <= 0) {
+            configuredBlockSize = DEFAULT_BLOCK_SIZE;
+        }
+        this.blockSize = configuredBlockSize;
+
+        // a stripe is addressed by a single direct buffer, hence it can not be larger than Integer.MAX_VALUE
+        long stripeSize = Math.min(maxSize / stripeCount, Integer.MAX_VALUE);
+        int blocksPerStripe = (int) Math.max(1, stripeSize / blockSize);
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(blocksPerStripe, blockSize);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Off heap session store created with " + stripeCount + " stripes of " + blocksPerStripe +
+                      " blocks of " + blockSize + " bytes");
+        }
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object entry, long expiryTime) {
+
+        String storeKey = getStoreKey(cacheName, key);
+        Stripe stripe = getStripe(storeKey);
+
+        byte[] data;
+        try {
+            data = FrameworkUtils.getSessionSerializer().serialize(entry);
+        } catch (IOException e) {
+            log.error("Error while serializing the session data of " + cacheName + " for key " + key, e);
+            stripe.remove(storeKey);
+            return;
+        }
+
+        int blocksNeeded = Math.max(1, (data.length + blockSize - 1) / blockSize);
+        if (blocksNeeded > stripe.blockCount) {
+            // an older version of the entry must not be returned instead
+            stripe.remove(storeKey);
+            rejections.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Session data of " + cacheName + " for key " + key + " is " + data.length +
+                          " bytes long and does not fit into the off heap session store");
+            }
+            return;
+        }
+        evictions.addAndGet(stripe.put(storeKey, data, blocksNeeded, expiryTime));
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+
+        String storeKey = getStoreKey(cacheName, key);
+        Stripe stripe = getStripe(storeKey);
+        byte[] data = stripe.get(storeKey, System.currentTimeMillis());
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            return FrameworkUtils.getSessionSerializer().deserialize(data);
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("Error while deserializing the session data of " + cacheName + " for key " + key, e);
+            stripe.remove(storeKey);
+            return null;
+        }
+    }
+
+    @Override
+    public void remove(String cacheName, String key) {
+        String storeKey = getStoreKey(cacheName, key);
+        getStripe(storeKey).remove(storeKey);
+    }
+
+    /**
+     * @return number of entries in the store, including the expired entries which are not evicted yet
+     */
+    public int getEntryCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return number of unexpired entries evicted to make space for new ones
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of entries which were not stored as they were larger than a stripe
+     */
+    public long getRejectionCount() {
+        return rejections.get();
+    }
+
+    private Stripe getStripe(String storeKey) {
+        int hash = storeKey.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    private static String getStoreKey(String cacheName, String key) {
+        return cacheName + ":" + key;
+    }
+
+    /**
+     * Part of the store guarded by a single lock.
+     */
+    private static class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer arena;
+        private final int blockSize;
+        private final int blockCount;
+        private final int[] freeBlocks;
+        private int freeBlockCount;
+        private final Map<String, Slot> index = new HashMap<>();
+        private final TreeSet<Slot> expiryOrder = new TreeSet<>(EXPIRY_ORDER);
+        private long sequence;
+
+        private Stripe(int blockCount, int blockSize) {
+            this.blockSize = blockSize;
+            this.blockCount = blockCount;
+            this.arena = ByteBuffer.allocateDirect(blockCount * blockSize);
+            this.freeBlocks = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                freeBlocks[i] = blockCount - 1 - i;
+            }
+            this.freeBlockCount = blockCount;
+        }
+
+        /**
+         * @return number of unexpired entries evicted
+         */
+        private int put(String storeKey, byte[] data, int blocksNeeded, long expiryTime) {
+
+            int evicted = 0;
+            long now = System.currentTimeMillis();
+            lock.lock();
+            try {
+                release(index.get(storeKey));
+                while (freeBlockCount < blocksNeeded) {
+                    Slot eldest = expiryOrder.first();
+                    if (eldest.expiryTime > now) {
+                        evicted++;
+                    }
+                    release(eldest);
+                }
+
+                int[] blocks = new int[blocksNeeded];
+                for (int i = 0; i < blocksNeeded; i++) {
+                    int block = freeBlocks[--freeBlockCount];
+                    blocks[i] = block;
+                    int offset = i * blockSize;
+                    arena.position(block * blockSize);
+                    arena.put(data, offset, Math.min(blockSize, data.length - offset));
+                }
+
+                Slot slot = new Slot(storeKey, blocks, data.length, expiryTime, sequence++);
+                index.put(storeKey, slot);
+                expiryOrder.add(slot);
+            } finally {
+                lock.unlock();
+            }
+            return evicted;
+        }
+
+        private byte[] get(String storeKey, long now) {
+
+            lock.lock();
+            try {
+                Slot slot = index.get(storeKey);
+                if (slot == null) {
+                    return null;
+                }
+                if (slot.expiryTime <= now) {
+                    release(slot);
+                    return null;
+                }
+
+                byte[] data = new byte[slot.length];
+                for (int i = 0; i < slot.blocks.length; i++) {
+                    int offset = i * blockSize;
+                    arena.position(slot.blocks[i] * blockSize);
+                    arena.get(data, offset, Math.min(blockSize, slot.length - offset));
+                }
+                return data;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(String storeKey) {
+            lock.lock();
+            try {
+                release(index.get(storeKey));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return index.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(Slot slot) {
+            if (slot == null) {
+                return;
+            }
+            index.remove(slot.storeKey);
+            expiryOrder.remove(slot);
+            for (int block : slot.blocks) {
+                freeBlocks[freeBlockCount++] = block;
+            }
+        }
+    }
+
+    /**
+     * Location of an entry within the buffer of its stripe.
+     */
+    private static class Slot {
+
+        private final String storeKey;
+        private final int[] blocks;
+        private final int length;
+        private final long expiryTime;
+        private final long sequence;
+
+        private Slot(String storeKey, int[] blocks, int length, long expiryTime, long sequence) {
+            this.storeKey = storeKey;
+            this.blocks = blocks;
+            this.length = length;
+            this.expiryTime = expiryTime;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the session data write-behind pipeline. Queue depth is read from the queue itself, everything else
+ * is accumulated by the persist workers when a batch is flushed.
+ */
+public class SessionDataPersistStats {
+
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong flushedOperations = new AtomicLong();
+    private final AtomicLong coalescedOperations = new AtomicLong();
+    private final AtomicLong rejectedOperations = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong totalFlushTimeNanos = new AtomicLong();
+    private final AtomicLong maxFlushTimeNanos = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+
+    void recordFlush(int batchSize, int coalesced, long flushTimeNanos) {
+        flushedBatches.incrementAndGet();
+        flushedOperations.addAndGet(batchSize);
+        coalescedOperations.addAndGet(coalesced);
+        totalFlushTimeNanos.addAndGet(flushTimeNanos);
+        lastBatchSize.set(batchSize);
+
+        long max = maxFlushTimeNanos.get();
+        while (flushTimeNanos > max && !maxFlushTimeNanos.compareAndSet(max, flushTimeNanos)) {
+            max = maxFlushTimeNanos.get();
+        }
+    }
+
+    void recordRejected() {
+        rejectedOperations.incrementAndGet();
+    }
+
+    void recordFailedBatch() {
+        failedBatches.incrementAndGet();
+    }
+
+    /**
+     * @return number of batches written to the database
+     */
+    public long getFlushedBatches() {
+        return flushedBatches.get();
+    }
+
+    /**
+     * @return number of rows written to the database through batches
+     */
+    public long getFlushedOperations() {
+        return flushedOperations.get();
+    }
+
+    /**
+     * @return number of queued operations that were superseded by a later operation on the same session
+     */
+    public long getCoalescedOperations() {
+        return coalescedOperations.get();
+    }
+
+    /**
+     * @return number of operations persisted on the caller thread because the queue was full
+     */
+    public long getRejectedOperations() {
+        return rejectedOperations.get();
+    }
+
+    /**
+     * @return number of batches which failed and had to be retried row by row
+     */
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = flushedBatches.get();
+        return batches == 0 ? 0 : (double) flushedOperations.get() / batches;
+    }
+
+    public double getAverageFlushTimeMillis() {
+        long batches = flushedBatches.get();
+        return batches == 0 ? 0 : totalFlushTimeNanos.get() / 1000000D / batches;
+    }
+
+    public double getMaxFlushTimeMillis() {
+        return maxFlushTimeNanos.get() / 1000000D;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionDataPersistStats{flushedBatches=" + getFlushedBatches() +
+                ", flushedOperations=" + getFlushedOperations() +
+                ", coalescedOperations=" + getCoalescedOperations() +
+                ", rejectedOperations=" + getRejectedOperations() +
+                ", failedBatches=" + getFailedBatches() +
+                ", averageBatchSize=" + getAverageBatchSize() +
+                ", averageFlushTimeMillis=" + getAverageFlushTimeMillis() +
+                ", maxFlushTimeMillis=" + getMaxFlushTimeMillis() + "}";
+    }
+}
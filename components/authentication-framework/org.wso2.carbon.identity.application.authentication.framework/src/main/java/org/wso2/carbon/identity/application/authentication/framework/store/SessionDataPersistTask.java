@@ -15,24 +15,44 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.wso2.carbon.identity.application.authentication.framework.store;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Task to persist and remove session data
+ * Task to persist and remove session data. Operations are drained from the queue in micro batches. Within a batch
+ * only the latest operation of a given session id and session type is written, since the earlier ones would be
+ * shadowed by it when the session is read back.
  */
 public class SessionDataPersistTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(SessionDataPersistTask.class);
     private BlockingDeque<SessionContextDO> sessionContextQueue;
+    private int batchSize;
+    private long flushWindow;
 
     public SessionDataPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue) {
+        this(sessionContextQueue, 1, 0);
+    }
+
+    /**
+     * @param sessionContextQueue queue to consume from
+     * @param batchSize           maximum number of operations written in one transaction
+     * @param flushWindow         time in milliseconds to wait for a batch to fill up once the first operation arrived
+     */
+    public SessionDataPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue, int batchSize,
+                                  long flushWindow) {
         this.sessionContextQueue = sessionContextQueue;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.flushWindow = flushWindow > 0 ? flushWindow : 0;
     }
 
     @Override
@@ -40,28 +60,66 @@ public class SessionDataPersistTask implements Runnable {
 
         log.debug("Session Context persist consumer is started");
 
+        List<SessionContextDO> batch = new ArrayList<SessionContextDO>(batchSize);
         while (true) {
 
             try {
                 SessionContextDO sessionContextDO = sessionContextQueue.take();
-                if (sessionContextDO != null) {
-                    if (sessionContextDO.getEntry() == null) {
-                        log.debug("Session Data removing Task is started to run");
-                        SessionDataStore.getInstance().removeSessionData(
-                                sessionContextDO.getKey(), sessionContextDO.getType(), sessionContextDO.getTimestamp());
-                    } else {
-                        log.debug("Session Data persisting Task is started to run");
-                        SessionDataStore.getInstance().persistSessionData(
-                                sessionContextDO.getKey(),sessionContextDO.getType(),
-                                sessionContextDO.getEntry(), sessionContextDO.getTimestamp(),
-                                sessionContextDO.getTenantId());
-                    }
+                batch.add(sessionContextDO);
+                fillBatch(batch);
+
+                List<SessionContextDO> coalesced = coalesce(batch);
+                if (log.isDebugEnabled()) {
+                    log.debug("Session Data persisting Task is started to run for " + coalesced.size() +
+                            " operations. Drained " + batch.size() + " operations from the queue");
                 }
+                SessionDataStore.getInstance().persistSessionDataBatch(coalesced, batch.size() - coalesced.size());
             } catch (InterruptedException e) {
                 //ignore
                 log.error(e);
+            } catch (RuntimeException e) {
+                // keep the consumer alive, the batch is lost but the following ones will be written
+                log.error("Error while persisting session data batch", e);
+            } finally {
+                batch.clear();
+            }
+
+        }
+    }
+
+    private void fillBatch(List<SessionContextDO> batch) throws InterruptedException {
+
+        sessionContextQueue.drainTo(batch, batchSize - batch.size());
+        if (flushWindow == 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushWindow);
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            SessionContextDO sessionContextDO = sessionContextQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (sessionContextDO == null) {
+                break;
             }
+            batch.add(sessionContextDO);
+            sessionContextQueue.drainTo(batch, batchSize - batch.size());
+        }
+    }
 
+    private List<SessionContextDO> coalesce(List<SessionContextDO> batch) {
+
+        if (batch.size() == 1) {
+            return new ArrayList<SessionContextDO>(batch);
+        }
+        Map<String, SessionContextDO> latest = new LinkedHashMap<String, SessionContextDO>(batch.size());
+        for (SessionContextDO sessionContextDO : batch) {
+            String key = sessionContextDO.getKey() + ":" + sessionContextDO.getType();
+            // remove first so that the map keeps the order of the latest operations
+            latest.remove(key);
+            latest.put(key, sessionContextDO);
         }
+        return new ArrayList<SessionContextDO>(latest.values());
     }
 }
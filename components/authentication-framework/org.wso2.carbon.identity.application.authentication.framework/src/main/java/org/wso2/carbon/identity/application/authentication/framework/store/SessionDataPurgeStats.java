@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of an expired session data purge. The backlog is estimated at the end of a run which stopped before all
+ * the expired rows were deleted, and is zero after a run which caught up.
+ */
+public class SessionDataPurgeStats {
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong purgedRows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private final AtomicLong totalRunTimeMillis = new AtomicLong();
+    private final AtomicLong lastRunPurgedRows = new AtomicLong();
+    private final AtomicLong lastRunTimeMillis = new AtomicLong();
+    private final AtomicLong backlogEstimate = new AtomicLong();
+
+    void recordRun(long purged, long batchCount, long runTimeMillis, long backlog, boolean failed) {
+        runs.incrementAndGet();
+        purgedRows.addAndGet(purged);
+        batches.addAndGet(batchCount);
+        totalRunTimeMillis.addAndGet(runTimeMillis);
+        lastRunPurgedRows.set(purged);
+        lastRunTimeMillis.set(runTimeMillis);
+        backlogEstimate.set(backlog);
+        if (failed) {
+            failedRuns.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of purge runs
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * @return number of rows deleted by all the runs
+     */
+    public long getPurgedRows() {
+        return purgedRows.get();
+    }
+
+    /**
+     * @return number of batches, i.e. transactions, executed by all the runs
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return number of runs which stopped on a database error
+     */
+    public long getFailedRuns() {
+        return failedRuns.get();
+    }
+
+    public long getLastRunPurgedRows() {
+        return lastRunPurgedRows.get();
+    }
+
+    public long getLastRunTimeMillis() {
+        return lastRunTimeMillis.get();
+    }
+
+    /**
+     * @return number of expired rows left behind by the last run, or -1 if they could not be counted
+     */
+    public long getBacklogEstimate() {
+        return backlogEstimate.get();
+    }
+
+    public double getAverageRunTimeMillis() {
+        long runCount = runs.get();
+        return runCount == 0 ? 0 : (double) totalRunTimeMillis.get() / runCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionDataPurgeStats{runs=" + getRuns() +
+                ", purgedRows=" + getPurgedRows() +
+                ", batches=" + getBatches() +
+                ", failedRuns=" + getFailedRuns() +
+                ", lastRunPurgedRows=" + getLastRunPurgedRows() +
+                ", lastRunTimeMillis=" + getLastRunTimeMillis() +
+                ", averageRunTimeMillis=" + getAverageRunTimeMillis() +
+                ", backlogEstimate=" + getBacklogEstimate() + "}";
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.persistence.DatabaseDialect;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Deletes expired rows of the session store in bounded batches. Each batch is a short transaction on a connection
+ * of its own and the purge pauses between batches, so that logins writing to the store are not blocked behind a
+ * single long running delete. A run stops once it has caught up or when its time budget is spent, leaving the
+ * remaining rows to the next run.
+ * <p/>
+ * Expired session data is deleted with a vendor specific bounded DELETE on TIME_CREATED. On Informix, which can
+ * not bound a DELETE, the primary keys of a batch are selected first and deleted one by one in a JDBC batch.
+ * Expired operation data is deleted per session, a batch of sessions with an expired DELETE operation is selected
+ * and their STORE operations and expired DELETE operations are deleted by the primary key prefix.
+ */
+public class SessionDataPurger {
+
+    private static final Log log = LogFactory.getLog(SessionDataPurger.class);
+
+    private static final String OPERATION_DELETE = "DELETE";
+    private static final String OPERATION_STORE = "STORE";
+    private static final String TABLE = "IDN_AUTH_SESSION_STORE";
+    private static final String EXPIRED = "TIME_CREATED < ?";
+    private static final String EXPIRED_DELETE_OPERATION = "OPERATION = '" + OPERATION_DELETE + "' AND TIME_CREATED < ?";
+
+    private static final String SQL_COUNT_EXPIRED_DATA =
+            "SELECT COUNT(*) FROM " + TABLE + " WHERE " + EXPIRED;
+    private static final String SQL_COUNT_EXPIRED_OPERATIONS =
+            "SELECT COUNT(*) FROM " + TABLE + " WHERE " + EXPIRED_DELETE_OPERATION;
+    private static final String SQL_DELETE_BY_KEY =
+            "DELETE FROM " + TABLE + " WHERE SESSION_ID = ? AND SESSION_TYPE = ? AND TIME_CREATED = ? AND OPERATION = ?";
+    private static final String SQL_DELETE_STORE_OPERATIONS_OF_SESSION =
+            "DELETE FROM " + TABLE + " WHERE SESSION_ID = ? AND OPERATION = '" + OPERATION_STORE + "'";
+    private static final String SQL_DELETE_EXPIRED_DELETE_OPERATIONS_OF_SESSION =
+            "DELETE FROM " + TABLE + " WHERE SESSION_ID = ? AND " + EXPIRED_DELETE_OPERATION;
+
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final long maxRunTimeMillis;
+    private final SessionDataPurgeStats sessionDataStats = new SessionDataPurgeStats();
+    private final SessionDataPurgeStats operationDataStats = new SessionDataPurgeStats();
+
+    private volatile String sqlDeleteExpiredDataBatch;
+    private volatile String sqlSelectExpiredDataKeys;
+    private volatile String sqlSelectExpiredOperationSessions;
+
+    /**
+     * @param batchSize        maximum number of rows, or sessions for operation data, deleted in one transaction
+     * @param batchPauseMillis pause between two batches
+     * @param maxRunTimeMillis time after which a run stops starting new batches
+     */
+    public SessionDataPurger(int batchSize, long batchPauseMillis, long maxRunTimeMillis) {
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.maxRunTimeMillis = maxRunTimeMillis;
+    }
+
+    /**
+     * Deletes the session data created before the given time.
+     *
+     * @param timeCreatedBefore expiry time, in the nano second resolution of the TIME_CREATED column
+     */
+    public void purgeExpiredSessionData(long timeCreatedBefore) {
+
+        long startTime = System.currentTimeMillis();
+        long purged = 0;
+        long batches = 0;
+        boolean caughtUp = false;
+        boolean failed = false;
+        try {
+            initStatements();
+            while (true) {
+                int deleted;
+                if (sqlDeleteExpiredDataBatch != null) {
+                    deleted = deleteExpiredDataBatch(timeCreatedBefore);
+                } else {
+                    deleted = deleteExpiredDataBatchByKey(timeCreatedBefore);
+                }
+                purged += deleted;
+                batches++;
+                if (deleted < batchSize) {
+                    caughtUp = true;
+                    break;
+                }
+                if (!continueRun(startTime)) {
+                    break;
+                }
+            }
+        } catch (SQLException | IdentityRuntimeException e) {
+            failed = true;
+            log.error("Error while removing expired session data from the database", e);
+        }
+
+        long backlog = caughtUp ? 0 : countExpired(SQL_COUNT_EXPIRED_DATA, timeCreatedBefore);
+        long runTime = System.currentTimeMillis() - startTime;
+        sessionDataStats.recordRun(purged, batches, runTime, backlog, failed);
+        log.info("Removed " + purged + " expired session data rows in " + batches + " batches within " + runTime +
+                "ms. Expired rows left : " + backlog);
+    }
+
+    /**
+     * Deletes the STORE operations of the sessions which were deleted before the given time, together with the
+     * DELETE operations of those sessions.
+     *
+     * @param timeCreatedBefore expiry time, in the milli second resolution of the TIME_CREATED column of the DELETE
+     *                          operations
+     */
+    public void purgeExpiredOperationData(long timeCreatedBefore) {
+
+        long startTime = System.currentTimeMillis();
+        long purged = 0;
+        long batches = 0;
+        boolean caughtUp = false;
+        boolean failed = false;
+        try {
+            initStatements();
+            while (true) {
+                List<String> sessionIds = selectExpiredOperationSessions(timeCreatedBefore);
+                if (!sessionIds.isEmpty()) {
+                    purged += deleteOperationsOfSessions(sessionIds, timeCreatedBefore);
+                    batches++;
+                }
+                if (sessionIds.size() < batchSize) {
+                    caughtUp = true;
+                    break;
+                }
+                if (!continueRun(startTime)) {
+                    break;
+                }
+            }
+        } catch (SQLException | IdentityRuntimeException e) {
+            failed = true;
+            log.error("Error while removing expired session operation data from the database", e);
+        }
+
+        long backlog = caughtUp ? 0 : countExpired(SQL_COUNT_EXPIRED_OPERATIONS, timeCreatedBefore);
+        long runTime = System.currentTimeMillis() - startTime;
+        operationDataStats.recordRun(purged, batches, runTime, backlog, failed);
+        log.info("Removed " + purged + " expired session operation rows in " + batches + " batches within " +
+                runTime + "ms. Expired DELETE operations left : " + backlog);
+    }
+
+    public SessionDataPurgeStats getSessionDataStats() {
+        return sessionDataStats;
+    }
+
+    public SessionDataPurgeStats getOperationDataStats() {
+        return operationDataStats;
+    }
+
+    private void initStatements() {
+
+        if (sqlSelectExpiredOperationSessions != null) {
+            return;
+        }
+        DatabaseDialect dialect = IdentityDatabaseUtil.getDatabaseDialect();
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+                sqlDeleteExpiredDataBatch = "DELETE FROM " + TABLE + " WHERE " + EXPIRED + " LIMIT " + batchSize;
+                break;
+            case MSSQL:
+                sqlDeleteExpiredDataBatch = "DELETE TOP (" + batchSize + ") FROM " + TABLE + " WHERE " + EXPIRED;
+                break;
+            case POSTGRESQL:
+                sqlDeleteExpiredDataBatch = "DELETE FROM " + TABLE + " WHERE ctid IN (" +
+                        buildBoundedSelect(dialect, "ctid", EXPIRED) + ")";
+                break;
+            case DB2:
+                sqlDeleteExpiredDataBatch = "DELETE FROM (" + buildBoundedSelect(dialect, "*", EXPIRED) + ")";
+                break;
+            case INFORMIX:
+                sqlDeleteExpiredDataBatch = null;
+                break;
+            default:
+                sqlDeleteExpiredDataBatch = "DELETE FROM " + TABLE + " WHERE " + EXPIRED + " AND ROWNUM <= " +
+                        batchSize;
+        }
+        sqlSelectExpiredDataKeys = buildBoundedSelect(dialect, "SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION",
+                EXPIRED);
+        sqlSelectExpiredOperationSessions = buildBoundedSelect(dialect, "SESSION_ID", EXPIRED_DELETE_OPERATION);
+    }
+
+    private String buildBoundedSelect(DatabaseDialect dialect, String columns, String condition) {
+
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+            case POSTGRESQL:
+                return "SELECT " + columns + " FROM " + TABLE + " WHERE " + condition + " LIMIT " + batchSize;
+            case MSSQL:
+                return "SELECT TOP " + batchSize + " " + columns + " FROM " + TABLE + " WHERE " + condition;
+            case DB2:
+                return "SELECT " + columns + " FROM " + TABLE + " WHERE " + condition + " FETCH FIRST " + batchSize +
+                        " ROWS ONLY";
+            case INFORMIX:
+                return "SELECT FIRST " + batchSize + " " + columns + " FROM " + TABLE + " WHERE " + condition;
+            default:
+                return "SELECT " + columns + " FROM " + TABLE + " WHERE " + condition + " AND ROWNUM <= " +
+                        batchSize;
+        }
+    }
+
+    private int deleteExpiredDataBatch(long timeCreatedBefore) throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sqlDeleteExpiredDataBatch);
+            statement.setLong(1, timeCreatedBefore);
+            int deleted = statement.executeUpdate();
+            commit(connection);
+            return deleted;
+        } catch (SQLException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, statement);
+        }
+    }
+
+    private int deleteExpiredDataBatchByKey(long timeCreatedBefore) throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement selectStatement = null;
+        PreparedStatement deleteStatement = null;
+        ResultSet resultSet = null;
+        try {
+            selectStatement = connection.prepareStatement(sqlSelectExpiredDataKeys);
+            selectStatement.setLong(1, timeCreatedBefore);
+            resultSet = selectStatement.executeQuery();
+            deleteStatement = connection.prepareStatement(SQL_DELETE_BY_KEY);
+            int selected = 0;
+            while (resultSet.next()) {
+                deleteStatement.setString(1, resultSet.getString(1));
+                deleteStatement.setString(2, resultSet.getString(2));
+                deleteStatement.setLong(3, resultSet.getLong(3));
+                deleteStatement.setString(4, resultSet.getString(4));
+                deleteStatement.addBatch();
+                selected++;
+            }
+            if (selected > 0) {
+                deleteStatement.executeBatch();
+            }
+            commit(connection);
+            return selected;
+        } catch (SQLException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeResultSet(resultSet);
+            IdentityDatabaseUtil.closeStatement(selectStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deleteStatement);
+        }
+    }
+
+    /**
+     * @return session id of each expired DELETE operation read, a session has one per session type
+     */
+    private List<String> selectExpiredOperationSessions(long timeCreatedBefore) throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        List<String> sessionIds = new ArrayList<String>();
+        try {
+            statement = connection.prepareStatement(sqlSelectExpiredOperationSessions);
+            statement.setLong(1, timeCreatedBefore);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                sessionIds.add(resultSet.getString(1));
+            }
+            commit(connection);
+            return sessionIds;
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, statement);
+        }
+    }
+
+    private long deleteOperationsOfSessions(List<String> sessionIds, long timeCreatedBefore) throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement storeStatement = null;
+        PreparedStatement deleteStatement = null;
+        try {
+            storeStatement = connection.prepareStatement(SQL_DELETE_STORE_OPERATIONS_OF_SESSION);
+            deleteStatement = connection.prepareStatement(SQL_DELETE_EXPIRED_DELETE_OPERATIONS_OF_SESSION);
+            for (String sessionId : new LinkedHashSet<String>(sessionIds)) {
+                storeStatement.setString(1, sessionId);
+                storeStatement.addBatch();
+                deleteStatement.setString(1, sessionId);
+                deleteStatement.setLong(2, timeCreatedBefore);
+                deleteStatement.addBatch();
+            }
+            long deleted = sum(storeStatement.executeBatch()) + sum(deleteStatement.executeBatch());
+            commit(connection);
+            return deleted;
+        } catch (SQLException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeStatement(storeStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deleteStatement);
+        }
+    }
+
+    private long countExpired(String sql, long timeCreatedBefore) {
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+            statement = connection.prepareStatement(sql);
+            statement.setLong(1, timeCreatedBefore);
+            resultSet = statement.executeQuery();
+            long count = resultSet.next() ? resultSet.getLong(1) : 0;
+            commit(connection);
+            return count;
+        } catch (SQLException | IdentityRuntimeException e) {
+            log.warn("Could not count the expired session data left in the database", e);
+            return -1;
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, statement);
+        }
+    }
+
+    private boolean continueRun(long startTime) {
+
+        if (System.currentTimeMillis() - startTime >= maxRunTimeMillis) {
+            return false;
+        }
+        if (batchPauseMillis > 0) {
+            try {
+                Thread.sleep(batchPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long sum(int[] updateCounts) {
+        long sum = 0;
+        for (int updateCount : updateCounts) {
+            // drivers may report SUCCESS_NO_INFO instead of the number of rows
+            if (updateCount > 0) {
+                sum += updateCount;
+            }
+        }
+        return sum;
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.error("Error while rolling back the session data purge batch", e);
+        }
+    }
+}
@@ -24,27 +24,28 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceDataHolder;
+import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.persistence.DatabaseDialect;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInput;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Data will be persisted or stored date will be removed from the store. These two events are considered as STORE operation
@@ -52,6 +53,9 @@ import java.util.concurrent.LinkedBlockingDeque;
  * And these events are stored with unique sessionId, operation type and operation initiated timestamp.
  * Expired DELETE operations and related STORE operations will be deleted by a OperationCleanUpService task.
  * All expired operations will be deleted by SessionCleanUpService task.
+ * When a persist pool is configured, operations are written behind by SessionDataPersistTask workers in batches.
+ * The queue is bounded and operations which do not fit are written by the caller thread.
+ * Unless custom clean up SQL is configured, expired data is deleted in bounded batches by a SessionDataPurger.
  *
  */
 public class SessionDataStore {
@@ -97,10 +101,17 @@ public class SessionDataStore {
             "DELETE FROM IDN_AUTH_SESSION_STORE WHERE TIME_CREATED<?";
 
     private static int maxPoolSize = 100;
+    private static int persistQueueCapacity = 10000;
+    private static int persistBatchSize = 100;
+    private static long persistFlushWindow = 50;
     private long operationCleanUpPeriod = 720;
+    private int cleanUpBatchSize = 10000;
+    private long cleanUpBatchPause = 100;
+    private long cleanUpMaxRunTime = 60;
     private String defaultCleanUpEnabled ="true";
     private String defaultOperationCleanUpEnabled ="false";
-    private static BlockingDeque<SessionContextDO> sessionContextQueue = new LinkedBlockingDeque();
+    private static BlockingDeque<SessionContextDO> sessionContextQueue;
+    private static SessionDataPersistStats persistStats = new SessionDataPersistStats();
     private static volatile SessionDataStore instance;
     private boolean enablePersist;
     private String sqlInsertSTORE;
@@ -109,6 +120,11 @@ public class SessionDataStore {
     private String sqlDeleteDELETETask;
     private String sqlSelect;
     private String sqlDeleteExpiredDataTask;
+    private boolean customOperationCleanUpSQL;
+    private SessionDataPurger purger;
+    private volatile SessionSerializer sessionSerializer;
+    private final SessionSerializer[] builtInSerializers =
+            new SessionSerializer[]{new JavaSessionSerializer(), new BinarySessionSerializer()};
 
     static {
         try {
@@ -122,12 +138,25 @@ public class SessionDataStore {
             }
             log.warn("Session data persistence pool size is not configured. Using default value.");
         }
+        persistQueueCapacity = readIntProperty("JDBCPersistenceManager.SessionDataPersist.QueueCapacity",
+                persistQueueCapacity);
+        persistBatchSize = readIntProperty("JDBCPersistenceManager.SessionDataPersist.BatchSize", persistBatchSize);
+        persistFlushWindow = readIntProperty("JDBCPersistenceManager.SessionDataPersist.FlushWindow",
+                (int) persistFlushWindow);
+        if (persistQueueCapacity > 0) {
+            sessionContextQueue = new LinkedBlockingDeque<SessionContextDO>(persistQueueCapacity);
+        } else {
+            sessionContextQueue = new LinkedBlockingDeque<SessionContextDO>();
+        }
         if (maxPoolSize > 0) {
-            log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
+            log.info("Thread pool size for session persistent consumer : " + maxPoolSize + ", batch size : " +
+                    persistBatchSize + ", flush window : " + persistFlushWindow + "ms, queue capacity : " +
+                    persistQueueCapacity);
 
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new SessionDataPersistTask(sessionContextQueue));
+                threadPool.execute(new SessionDataPersistTask(sessionContextQueue, persistBatchSize,
+                        persistFlushWindow));
             }
         }
     }
@@ -162,10 +191,12 @@ public class SessionDataStore {
         }
         if (!StringUtils.isBlank(deleteSTORETaskSQL)) {
             sqlDeleteSTORETask = deleteSTORETaskSQL;
+            customOperationCleanUpSQL = true;
         }
 
         if (!StringUtils.isBlank(deleteDELETETaskSQL)) {
             sqlDeleteDELETETask = deleteDELETETaskSQL;
+            customOperationCleanUpSQL = true;
         } else {
             sqlDeleteDELETETask = SQL_DELETE_DELETE_OPERATIONS_TASK;
         }
@@ -182,6 +213,18 @@ public class SessionDataStore {
         if (!enablePersist) {
             log.info("Session Data Persistence of Authentication framework is not enabled.");
         }
+
+        cleanUpBatchSize = readIntProperty("JDBCPersistenceManager.SessionDataPersist.CleanUpBatchSize",
+                cleanUpBatchSize);
+        if (cleanUpBatchSize > 0) {
+            purger = new SessionDataPurger(cleanUpBatchSize,
+                    IdentityUtil.getConfigSnapshot().getDurationMillis(
+                            "JDBCPersistenceManager.SessionDataPersist.CleanUpBatchPause", TimeUnit.MILLISECONDS,
+                            cleanUpBatchPause),
+                    IdentityUtil.getConfigSnapshot().getDurationMillis(
+                            "JDBCPersistenceManager.SessionDataPersist.CleanUpMaxRunTime", TimeUnit.MINUTES,
+                            cleanUpMaxRunTime));
+        }
         String isCleanUpEnabledVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.SessionDataCleanUp.Enable");
 
         String isOperationCleanUpEnabledVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.OperationDataCleanUp.Enable");
@@ -216,6 +259,10 @@ public class SessionDataStore {
         }
     }
 
+    private static int readIntProperty(String property, int defaultValue) {
+        return IdentityUtil.getConfigSnapshot().getInt(property, defaultValue);
+    }
+
     public static SessionDataStore getInstance() {
         if (instance == null) {
             synchronized (SessionDataStore.class) {
@@ -247,21 +294,25 @@ public class SessionDataStore {
         ResultSet resultSet = null;
         try {
             if (StringUtils.isBlank(sqlSelect)) {
-                if (connection.getMetaData().getDriverName().contains("MySQL")
-                        || connection.getMetaData().getDriverName().contains("H2")) {
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_MYSQL;
-                } else if (connection.getMetaData().getDatabaseProductName().contains("DB2")) {
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_DB2SQL;
-                } else if (connection.getMetaData().getDriverName().contains("MS SQL")
-                        || connection.getMetaData().getDriverName().contains("Microsoft")) {
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_MSSQL;
-                } else if (connection.getMetaData().getDriverName().contains("PostgreSQL")) {
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_POSTGRESQL;
-                } else if (connection.getMetaData().getDriverName().contains("Informix")) {
-                    // Driver name = "IBM Informix JDBC Driver for IBM Informix Dynamic Server"
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_INFORMIX;
-                } else {
-                    sqlSelect = SQL_DESERIALIZE_OBJECT_ORACLE;
+                switch (IdentityDatabaseUtil.getDatabaseDialect()) {
+                    case MYSQL:
+                    case H2:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_MYSQL;
+                        break;
+                    case DB2:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_DB2SQL;
+                        break;
+                    case MSSQL:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_MSSQL;
+                        break;
+                    case POSTGRESQL:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_POSTGRESQL;
+                        break;
+                    case INFORMIX:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_INFORMIX;
+                        break;
+                    default:
+                        sqlSelect = SQL_DESERIALIZE_OBJECT_ORACLE;
                 }
             }
             preparedStatement = connection.prepareStatement(sqlSelect);
@@ -294,11 +345,10 @@ public class SessionDataStore {
             return;
         }
         Timestamp timestamp = new Timestamp(new Date().getTime());
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, entry, timestamp));
-        } else {
-            persistSessionData(key, type, entry, timestamp, tenantId);
+        if (maxPoolSize > 0 && enqueue(new SessionContextDO(key, type, entry, timestamp, tenantId))) {
+            return;
         }
+        persistSessionData(key, type, entry, timestamp, tenantId);
     }
 
     public void clearSessionData(String key, String type) {
@@ -306,14 +356,61 @@ public class SessionDataStore {
             return;
         }
         Timestamp timestamp = new Timestamp(new Date().getTime());
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, null, timestamp));
-        } else {
-            removeSessionData(key, type, timestamp);
+        if (maxPoolSize > 0 && enqueue(new SessionContextDO(key, type, null, timestamp))) {
+            return;
         }
+        removeSessionData(key, type, timestamp);
+    }
+
+    /**
+     * Hand over an operation to the persist workers. When the queue is full the operation is not queued and the
+     * caller is expected to write it synchronously, which slows down producers instead of growing the queue.
+     *
+     * @param sessionContextDO operation to be persisted
+     * @return true if the operation was queued
+     */
+    private boolean enqueue(SessionContextDO sessionContextDO) {
+        if (sessionContextQueue.offerLast(sessionContextDO)) {
+            return true;
+        }
+        persistStats.recordRejected();
+        if (log.isDebugEnabled()) {
+            log.debug("Session data persist queue is full. Persisting session data of " + sessionContextDO.getKey()
+                    + " in the caller thread");
+        }
+        return false;
+    }
+
+    /**
+     * @return number of session data operations waiting to be persisted
+     */
+    public int getPersistQueueSize() {
+        return sessionContextQueue.size();
+    }
+
+    public SessionDataPersistStats getPersistStats() {
+        return persistStats;
+    }
+
+    /**
+     * @return statistics of the expired session data purge, or null if expired data is not purged in batches
+     */
+    public SessionDataPurgeStats getSessionDataPurgeStats() {
+        return purger != null ? purger.getSessionDataStats() : null;
+    }
+
+    /**
+     * @return statistics of the expired operation data purge, or null if expired data is not purged in batches
+     */
+    public SessionDataPurgeStats getOperationDataPurgeStats() {
+        return purger != null ? purger.getOperationDataStats() : null;
     }
 
     public void removeExpiredSessionData(Timestamp timestamp) {
+        if (purger != null && SQL_DELETE_EXPIRED_DATA_TASK.equals(sqlDeleteExpiredDataTask)) {
+            purger.purgeExpiredSessionData(timestamp.getTime() * 1000000);
+            return;
+        }
         Connection connection = null;
         PreparedStatement statement = null;
         try {
@@ -338,6 +435,11 @@ public class SessionDataStore {
     }
 
     public void removeExpiredOperationData(Timestamp timestamp) {
+        if (purger != null && !customOperationCleanUpSQL) {
+            // DELETE operations are written with a millisecond TIME_CREATED
+            purger.purgeExpiredOperationData(timestamp.getTime());
+            return;
+        }
         deleteSTOREOperationsTask(timestamp);
         deleteDELETEOperationsTask(timestamp);
     }
@@ -356,12 +458,7 @@ public class SessionDataStore {
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
-        // create a nano time stamp relative to Unix Epoch
-        long currentStandardNano = timestamp.getTime() * 1000000;
-        long currentSystemNano = System.nanoTime();
-
-        currentStandardNano = currentStandardNano + (currentSystemNano - FrameworkServiceDataHolder.getInstance()
-                .getNanoTimeReference());
+        long currentStandardNano = getNanoTimestamp(timestamp);
 
         try {
             preparedStatement = connection.prepareStatement(sqlInsertSTORE);
@@ -382,6 +479,96 @@ public class SessionDataStore {
         }
     }
 
+    /**
+     * Persist a batch of STORE and DELETE operations using a single connection and transaction.
+     * If the batch fails it is rolled back and the operations are written one by one.
+     *
+     * @param sessionContextDOs operations to be written, an operation without an entry is a DELETE operation
+     * @param coalesced         number of operations which were dropped in favour of a later one in the batch
+     */
+    public void persistSessionDataBatch(List<SessionContextDO> sessionContextDOs, int coalesced) {
+        if (!enablePersist || sessionContextDOs.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        Connection connection = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return;
+        }
+        PreparedStatement storeStatement = null;
+        PreparedStatement deleteStatement = null;
+        try {
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                if (sessionContextDO.getEntry() != null) {
+                    if (storeStatement == null) {
+                        storeStatement = connection.prepareStatement(sqlInsertSTORE);
+                    }
+                    storeStatement.setString(1, sessionContextDO.getKey());
+                    storeStatement.setString(2, sessionContextDO.getType());
+                    storeStatement.setString(3, OPERATION_STORE);
+                    setBlobObject(storeStatement, sessionContextDO.getEntry(), 4);
+                    storeStatement.setLong(5, getNanoTimestamp(sessionContextDO.getTimestamp()));
+                    storeStatement.setInt(6, sessionContextDO.getTenantId());
+                    storeStatement.addBatch();
+                } else {
+                    if (deleteStatement == null) {
+                        deleteStatement = connection.prepareStatement(sqlInsertDELETE);
+                    }
+                    deleteStatement.setString(1, sessionContextDO.getKey());
+                    deleteStatement.setString(2, sessionContextDO.getType());
+                    deleteStatement.setString(3, OPERATION_DELETE);
+                    deleteStatement.setLong(4, sessionContextDO.getTimestamp().getTime());
+                    deleteStatement.addBatch();
+                }
+            }
+            if (storeStatement != null) {
+                storeStatement.executeBatch();
+            }
+            if (deleteStatement != null) {
+                deleteStatement.executeBatch();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            persistStats.recordFlush(sessionContextDOs.size(), coalesced, System.nanoTime() - startTime);
+        } catch (SQLException | IOException e) {
+            log.error("Error while storing session data batch of " + sessionContextDOs.size() +
+                    " operations. Retrying the operations one by one", e);
+            IdentityDatabaseUtil.rollBack(connection);
+            persistStats.recordFailedBatch();
+            IdentityDatabaseUtil.closeStatement(storeStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deleteStatement);
+            storeStatement = null;
+            deleteStatement = null;
+            connection = null;
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                if (sessionContextDO.getEntry() != null) {
+                    persistSessionData(sessionContextDO.getKey(), sessionContextDO.getType(),
+                            sessionContextDO.getEntry(), sessionContextDO.getTimestamp(),
+                            sessionContextDO.getTenantId());
+                } else {
+                    removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType(),
+                            sessionContextDO.getTimestamp());
+                }
+            }
+        } finally {
+            IdentityDatabaseUtil.closeStatement(storeStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deleteStatement);
+        }
+    }
+
+    private long getNanoTimestamp(Timestamp timestamp) {
+        // create a nano time stamp relative to Unix Epoch
+        long currentStandardNano = timestamp.getTime() * 1000000;
+        long currentSystemNano = System.nanoTime();
+
+        return currentStandardNano + (currentSystemNano - FrameworkServiceDataHolder.getInstance()
+                .getNanoTimeReference());
+    }
+
     public void removeSessionData(String key, String type, Timestamp timestamp) {
         if (!enablePersist) {
             return;
@@ -414,13 +601,8 @@ public class SessionDataStore {
     private void setBlobObject(PreparedStatement prepStmt, Object value, int index)
             throws SQLException, IOException {
         if (value != null) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(value);
-            oos.flush();
-            oos.close();
-            InputStream inputStream = new ByteArrayInputStream(baos.toByteArray());
-            prepStmt.setBinaryStream(index, inputStream, inputStream.available());
+            byte[] data = getSessionSerializer().serialize(value);
+            prepStmt.setBinaryStream(index, new ByteArrayInputStream(data), data.length);
         } else {
             prepStmt.setBinaryStream(index, null, 0);
         }
@@ -429,23 +611,50 @@ public class SessionDataStore {
     private Object getBlobObject(InputStream is)
             throws IdentityApplicationManagementException, IOException, ClassNotFoundException {
         if (is != null) {
-            ObjectInput ois = null;
+            byte[] data;
             try {
-                ois = new ObjectInputStream(is);
-                return ois.readObject();
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int count;
+                while ((count = is.read(buffer)) != -1) {
+                    baos.write(buffer, 0, count);
+                }
+                data = baos.toByteArray();
             } finally {
-                if (ois != null) {
-                    try {
-                        ois.close();
-                    } catch (IOException e) {
-                        log.error("IOException while trying to close ObjectInputStream.", e);
-                    }
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    log.error("IOException while trying to close session data stream.", e);
                 }
             }
+            if (data.length == 0) {
+                return null;
+            }
+            // rows written before the serializer was changed are read with the serializer which wrote them
+            SessionSerializer sessionSerializer = getSessionSerializer();
+            if (sessionSerializer.canDeserialize(data)) {
+                return sessionSerializer.deserialize(data);
+            }
+            for (SessionSerializer builtInSerializer : builtInSerializers) {
+                if (builtInSerializer.canDeserialize(data)) {
+                    return builtInSerializer.deserialize(data);
+                }
+            }
+            throw new IOException("Unknown format of the persisted session data");
         }
         return null;
     }
 
+    private SessionSerializer getSessionSerializer() {
+        if (sessionSerializer == null) {
+            sessionSerializer = FrameworkUtils.getSessionSerializer();
+            if (log.isDebugEnabled()) {
+                log.debug("Session data is serialized using " + sessionSerializer.getClass().getName());
+            }
+        }
+        return sessionSerializer;
+    }
+
     private void deleteSTOREOperationsTask(Timestamp timestamp) {
         Connection connection = null;
         PreparedStatement statement = null;
@@ -457,7 +666,7 @@ public class SessionDataStore {
         }
         try {
             if (StringUtils.isBlank(sqlDeleteSTORETask)) {
-                if (connection.getMetaData().getDriverName().contains("MySQL")) {
+                if (IdentityDatabaseUtil.getDatabaseDialect() == DatabaseDialect.MYSQL) {
                     sqlDeleteSTORETask = SQL_DELETE_STORE_OPERATIONS_TASK_MYSQL;
                 } else {
                     sqlDeleteSTORETask = SQL_DELETE_STORE_OPERATIONS_TASK;
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.io.IOException;
+
+/**
+ * Converts session data objects to and from the binary form kept in the SESSION_OBJECT column of
+ * IDN_AUTH_SESSION_STORE. An implementation can be plugged in through the SessionSerializer extension of
+ * application-authentication.xml.
+ * <p/>
+ * Since rows written by a previously configured serializer may still be in the store, an implementation must be
+ * able to tell whether a given byte array is in its own format.
+ */
+public interface SessionSerializer {
+
+    /**
+     * @param value session data object to be persisted
+     * @return serialized form of the object
+     * @throws IOException if the object cannot be serialized
+     */
+    public byte[] serialize(Object value) throws IOException;
+
+    /**
+     * @param data serialized form of a session data object
+     * @return the session data object
+     * @throws IOException            if the data cannot be read
+     * @throws ClassNotFoundException if a class referred by the data is not available
+     */
+    public Object deserialize(byte[] data) throws IOException, ClassNotFoundException;
+
+    /**
+     * @param data serialized form of a session data object
+     * @return true if the data was written by this serializer
+     */
+    public boolean canDeserialize(byte[] data);
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+/**
+ * In memory store of the session and authentication contexts, used by the session context cache and the
+ * authentication context cache in place of the Carbon cache. An implementation can be plugged in through the
+ * SessionStore extension of application-authentication.xml.
+ * <p/>
+ * Entries are still written to and read back from the session data store as configured, so a context which is not
+ * found in the session store, e.g. because it was evicted, is loaded from the database. Entries are stored by
+ * value, hence a context which is changed after it was read has to be put into the store again.
+ * <p/>
+ * A session store is local to the node. Removing a context, e.g. on logout, does not remove it from the stores of
+ * the other nodes, hence a configured session store is not used when clustering is enabled.
+ */
+public interface SessionStore {
+
+    /**
+     * @param cacheName  name of the cache the entry belongs to
+     * @param key        context id
+     * @param entry      cache entry
+     * @param expiryTime time in milliseconds after which the entry need not be returned any more
+     */
+    public void put(String cacheName, String key, Object entry, long expiryTime);
+
+    /**
+     * @param cacheName name of the cache the entry belongs to
+     * @param key       context id
+     * @return the entry, or null if there is no unexpired entry for the key
+     */
+    public Object get(String cacheName, String key);
+
+    /**
+     * @param cacheName name of the cache the entry belongs to
+     * @param key       context id
+     */
+    public void remove(String cacheName, String key);
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.util;
+
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.core.util.IdentityConfigSnapshot;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Execution times of the phases of an authentication request, i.e. loading the configuration of the service
+ * provider, executing a step, executing an authenticator, claim mapping, just in time provisioning and persisting
+ * the session, per tenant, service provider and authenticator.
+ * <p/>
+ * Every series keeps a fixed bucket histogram of atomic counters, so recording a time does not lock. Since
+ * tenants and service providers are not bounded, the number of series is limited by the
+ * AuthenticationPhaseStats.MaxSeries property of identity.xml and the times of the phases which do not fit are
+ * recorded against a series labelled "other".
+ * <p/>
+ * The series are exposed through JMX and, when enabled, in the Prometheus text format through a servlet.
+ */
+public class AuthenticationPhaseStats implements AuthenticationPhaseStatsMBean {
+
+    public static final String OBJECT_NAME = "org.wso2.carbon.identity:type=AuthenticationPhaseStats";
+
+    private static final String METRIC_NAME = "wso2is_authentication_phase_duration_seconds";
+    private static final String OTHER = "other";
+    private static final String NONE = "";
+    private static final int DEFAULT_MAX_SERIES = 2000;
+
+    // upper bounds of the histogram buckets, the last bucket counts the longer executions
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000,
+            30000};
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MILLIS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = TimeUnit.MILLISECONDS.toNanos(BUCKET_BOUNDS_MILLIS[i]);
+        }
+    }
+
+    private static final AuthenticationPhaseStats instance = new AuthenticationPhaseStats();
+
+    private final boolean enabled;
+    private final int maxSeries;
+    private final ConcurrentMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+
+    private AuthenticationPhaseStats() {
+        IdentityConfigSnapshot config = IdentityUtil.getConfigSnapshot();
+        enabled = config.getBoolean("AuthenticationPhaseStats.Enable", true);
+        maxSeries = config.getInt("AuthenticationPhaseStats.MaxSeries", DEFAULT_MAX_SERIES);
+    }
+
+    public static AuthenticationPhaseStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Phases of an authentication request.
+     */
+    public enum Phase {
+
+        CONFIG_LOAD("config_load"),
+        STEP("step"),
+        AUTHENTICATOR("authenticator"),
+        CLAIM_MAPPING("claim_mapping"),
+        JIT_PROVISIONING("jit_provisioning"),
+        SESSION_PERSIST("session_persist");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Records an execution of a phase for the tenant and the service provider of an authentication context.
+     *
+     * @param phase         executed phase
+     * @param context       context of the authentication request
+     * @param authenticator name of the authenticator, or null if the phase is not specific to an authenticator
+     * @param startTime     value of {@link System#nanoTime()} when the phase started
+     */
+    public void record(Phase phase, AuthenticationContext context, String authenticator, long startTime) {
+        if (!enabled) {
+            return;
+        }
+
+        String tenantDomain = null;
+        String serviceProvider = null;
+        if (context != null) {
+            tenantDomain = context.getTenantDomain();
+            SequenceConfig sequenceConfig = context.getSequenceConfig();
+            if (sequenceConfig != null && sequenceConfig.getApplicationConfig() != null) {
+                serviceProvider = sequenceConfig.getApplicationConfig().getApplicationName();
+            }
+        }
+        record(phase, tenantDomain, serviceProvider, authenticator, startTime);
+    }
+
+    /**
+     * Records an execution of a phase.
+     *
+     * @param phase           executed phase
+     * @param tenantDomain    tenant of the service provider
+     * @param serviceProvider name of the service provider
+     * @param authenticator   name of the authenticator, or null if the phase is not specific to an authenticator
+     * @param startTime       value of {@link System#nanoTime()} when the phase started
+     */
+    public void record(Phase phase, String tenantDomain, String serviceProvider, String authenticator,
+                       long startTime) {
+        if (!enabled) {
+            return;
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        SeriesKey key = new SeriesKey(phase, tenantDomain, serviceProvider, authenticator);
+        Series phaseSeries = series.get(key);
+        if (phaseSeries == null) {
+            if (series.size() >= maxSeries) {
+                key = new SeriesKey(phase, OTHER, OTHER, authenticator == null ? null : OTHER);
+            }
+            phaseSeries = series.get(key);
+            if (phaseSeries == null) {
+                Series newSeries = new Series(key);
+                phaseSeries = series.putIfAbsent(key, newSeries);
+                if (phaseSeries == null) {
+                    phaseSeries = newSeries;
+                }
+            }
+        }
+        phaseSeries.record(elapsedNanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return series.size();
+    }
+
+    @Override
+    public long getCount(String phase) {
+        long count = 0;
+        for (Series phaseSeries : series.values()) {
+            if (phaseSeries.key.phase.getLabel().equals(phase)) {
+                count += phaseSeries.count.get();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double getAverageMillis(String phase) {
+        long count = 0;
+        long totalNanos = 0;
+        for (Series phaseSeries : series.values()) {
+            if (phaseSeries.key.phase.getLabel().equals(phase)) {
+                count += phaseSeries.count.get();
+                totalNanos += phaseSeries.totalNanos.get();
+            }
+        }
+        return count == 0 ? 0 : (double) totalNanos / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String getStatsText() {
+
+        List<Series> sortedSeries = new ArrayList<>(series.values());
+        Collections.sort(sortedSeries, new Comparator<Series>() {
+            @Override
+            public int compare(Series series1, Series series2) {
+                return series1.key.toString().compareTo(series2.key.toString());
+            }
+        });
+
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP ").append(METRIC_NAME).append(" Execution time of the authentication request phases\n");
+        text.append("# TYPE ").append(METRIC_NAME).append(" histogram\n");
+        for (Series phaseSeries : sortedSeries) {
+            String labels = phaseSeries.key.toLabels();
+            long cumulativeCount = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                cumulativeCount += phaseSeries.buckets.get(i);
+                text.append(METRIC_NAME).append("_bucket{").append(labels).append(",le=\"")
+                        .append(BUCKET_BOUNDS_MILLIS[i] / 1000.0).append("\"} ").append(cumulativeCount).append('\n');
+            }
+            cumulativeCount += phaseSeries.buckets.get(BUCKET_BOUNDS_MILLIS.length);
+            text.append(METRIC_NAME).append("_bucket{").append(labels).append(",le=\"+Inf\"} ")
+                    .append(cumulativeCount).append('\n');
+            text.append(METRIC_NAME).append("_sum{").append(labels).append("} ")
+                    .append(phaseSeries.totalNanos.get() / (double) TimeUnit.SECONDS.toNanos(1)).append('\n');
+            text.append(METRIC_NAME).append("_count{").append(labels).append("} ")
+                    .append(phaseSeries.count.get()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void reset() {
+        series.clear();
+    }
+
+    private static String escape(String labelValue) {
+        if (labelValue == null) {
+            return NONE;
+        }
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Phase, tenant, service provider and authenticator a series is recorded for.
+     */
+    private static class SeriesKey {
+
+        private final Phase phase;
+        private final String tenantDomain;
+        private final String serviceProvider;
+        private final String authenticator;
+
+        private SeriesKey(Phase phase, String tenantDomain, String serviceProvider, String authenticator) {
+            this.phase = phase;
+            this.tenantDomain = tenantDomain == null ? NONE : tenantDomain;
+            this.serviceProvider = serviceProvider == null ? NONE : serviceProvider;
+            this.authenticator = authenticator == null ? NONE : authenticator;
+        }
+
+        private String toLabels() {
+            return "phase=\"" + phase.getLabel() + "\",tenant=\"" + escape(tenantDomain) + "\",sp=\"" +
+                   escape(serviceProvider) + "\",authenticator=\"" + escape(authenticator) + "\"";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey that = (SeriesKey) o;
+            return phase == that.phase && tenantDomain.equals(that.tenantDomain) &&
+                   serviceProvider.equals(that.serviceProvider) && authenticator.equals(that.authenticator);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = phase.hashCode();
+            result = 31 * result + tenantDomain.hashCode();
+            result = 31 * result + serviceProvider.hashCode();
+            result = 31 * result + authenticator.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return phase.getLabel() + "/" + tenantDomain + "/" + serviceProvider + "/" + authenticator;
+        }
+    }
+
+    /**
+     * Histogram of the execution times of a phase.
+     */
+    private static class Series {
+
+        private final SeriesKey key;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private Series(SeriesKey key) {
+            this.key = key;
+        }
+
+        private void record(long elapsedNanos) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_NANOS.length && elapsedNanos > BUCKET_BOUNDS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalNanos.addAndGet(elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.util;
+
+/**
+ * JMX view of the authentication phase timers.
+ */
+public interface AuthenticationPhaseStatsMBean {
+
+    /**
+     * @return whether the phases are timed
+     */
+    public boolean isEnabled();
+
+    /**
+     * @return number of timed series, one per phase, tenant, service provider and authenticator
+     */
+    public int getSeriesCount();
+
+    /**
+     * @param phase name of the phase, e.g. authenticator
+     * @return number of times the phase was executed
+     */
+    public long getCount(String phase);
+
+    /**
+     * @param phase name of the phase, e.g. authenticator
+     * @return average execution time of the phase in milliseconds
+     */
+    public double getAverageMillis(String phase);
+
+    /**
+     * @return all the series in the Prometheus text exposition format
+     */
+    public String getStatsText();
+
+    /**
+     * Discards all the recorded series.
+     */
+    public void reset();
+
+}
@@ -124,6 +124,8 @@ public abstract class FrameworkConstants {
         public static final String QNAME_EXT_CLAIM_HANDLER = "ClaimHandler";
         public static final String QNAME_EXT_ROLE_HANDLER = "ClaimHandler";
         public static final String QNAME_EXT_PROVISIONING_HANDLER = "ProvisioningHandler";
+        public static final String QNAME_EXT_SESSION_SERIALIZER = "SessionSerializer";
+        public static final String QNAME_EXT_SESSION_STORE = "SessionStore";
         private Config() {
         }
 
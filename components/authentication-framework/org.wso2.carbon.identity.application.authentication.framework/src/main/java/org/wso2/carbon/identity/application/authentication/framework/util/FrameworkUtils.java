@@ -70,6 +70,9 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationFrameworkWrapper;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationResult;
+import org.wso2.carbon.identity.application.authentication.framework.store.JavaSessionSerializer;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionSerializer;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionStore;
 import org.wso2.carbon.identity.application.common.model.Claim;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
@@ -103,6 +106,7 @@ public class FrameworkUtils {
     public static final String UTF_8 = "UTF-8";
     private static final Log log = LogFactory.getLog(FrameworkUtils.class);
     private static int maxInactiveInterval;
+    private static volatile Boolean sessionStoreEnabled;
     private static final String EMAIL = "email";
     private static List<String> cacheDisabledAuthenticators = Arrays
             .asList(new String[] { FrameworkConstants.RequestType.CLAIM_TYPE_SAML_SSO, FrameworkConstants.OAUTH2 });
@@ -422,6 +426,57 @@ public class FrameworkUtils {
         return provisioningHandler;
     }
 
+    /**
+     * @return serializer used to write session data to the session store
+     */
+    public static SessionSerializer getSessionSerializer() {
+
+        SessionSerializer sessionSerializer = null;
+        Object obj = ConfigurationFacade.getInstance().getExtensions()
+                .get(FrameworkConstants.Config.QNAME_EXT_SESSION_SERIALIZER);
+
+        if (obj instanceof SessionSerializer) {
+            sessionSerializer = (SessionSerializer) obj;
+        } else {
+            sessionSerializer = new JavaSessionSerializer();
+        }
+
+        return sessionSerializer;
+    }
+
+    /**
+     * @return store which keeps the session and authentication contexts in place of the Carbon cache, or null if
+     * the contexts are kept in the Carbon cache
+     */
+    public static SessionStore getSessionStore() {
+
+        Object obj = ConfigurationFacade.getInstance().getExtensions()
+                .get(FrameworkConstants.Config.QNAME_EXT_SESSION_STORE);
+
+        if (obj instanceof SessionStore && isSessionStoreEnabled(obj)) {
+            return (SessionStore) obj;
+        }
+        return null;
+    }
+
+    /**
+     * A session store is node local, so a context removed on one node would still be returned by the others. The
+     * store is therefore not used when clustering is enabled.
+     */
+    private static boolean isSessionStoreEnabled(Object sessionStore) {
+
+        if (sessionStoreEnabled == null) {
+            boolean enabled = !IdentityUtil.isClusteringEnabled();
+            if (!enabled) {
+                log.error("Session store " + sessionStore.getClass().getName() + " is not supported when " +
+                        "clustering is enabled, since removed sessions would not be invalidated on the other " +
+                        "nodes. Session and authentication contexts are kept in the Carbon cache.");
+            }
+            sessionStoreEnabled = enabled;
+        }
+        return sessionStoreEnabled;
+    }
+
     /**
      * @param request
      * @param response
@@ -45,6 +45,8 @@ public class TCPThriftAuthenticationService {
     private final String keyStorePassword;
     private final int clientTimeout;
     private ThriftAuthenticatorService thriftAuthenticatorService;
+    // authenticator service created by this server, which is shut down when the server stops
+    private ThriftAuthenticatorServiceImpl ownThriftAuthenticatorService;
     private Log log = LogFactory.getLog(TCPThriftAuthenticationService.class);
     private TServer authenticationServer;
 
@@ -75,7 +77,9 @@ public class TCPThriftAuthenticationService {
         this.keyStorePassword = SecurityKeyStorePassword;
         this.clientTimeout = 30000;
 
-        this.thriftAuthenticatorService = new ThriftAuthenticatorServiceImpl(null, new InMemoryThriftSessionDAO(), thriftSessionTimeOut);
+        this.ownThriftAuthenticatorService =
+                new ThriftAuthenticatorServiceImpl(null, new InMemoryThriftSessionDAO(), thriftSessionTimeOut);
+        this.thriftAuthenticatorService = ownThriftAuthenticatorService;
     }
 
     public void start() throws TTransportException, UnknownHostException {
@@ -104,6 +108,9 @@ public class TCPThriftAuthenticationService {
 
     public void stop() {
         authenticationServer.stop();
+        if (ownThriftAuthenticatorService != null) {
+            ownThriftAuthenticatorService.shutdown();
+        }
     }
 
     public boolean isAuthenticated(String sessionId) {
@@ -19,6 +19,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.utils.ThriftSession;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface to manipulate thrift session info in database.
@@ -36,6 +37,14 @@ public interface ThriftSessionDAO {
     void updateLastAccessTime(String sessionId, long lastAccessTime)
             throws IdentityException;
 
+    /**
+     * Updates the last access times of many sessions at once. Sessions which do not exist are ignored.
+     *
+     * @param lastAccessTimes last access times keyed by session id
+     * @throws IdentityException
+     */
+    void updateLastAccessTimes(Map<String, Long> lastAccessTimes) throws IdentityException;
+
     ThriftSession getSession(String sessionId) throws IdentityException;
 
     ThriftSessionDAO getInstance();
@@ -66,6 +66,7 @@ public class ThriftAuthenticationServiceComponent {
     private ServiceRegistration thriftAuthenticationService;
     private ConfigurationContextService configurationContext;
     private TCPThriftAuthenticationService TCPThriftAuthenticationService;
+    private ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl;
 
     public static int readPortOffset() {
         return CarbonUtils.
@@ -100,11 +101,17 @@ public class ThriftAuthenticationServiceComponent {
                 thriftSessionTimeout = 60000L * 30;
 
             }
+            //configure how often and how precisely last access times of sessions are written, in ms
+            long lastAccessTimeUpdateInterval = readLongConfig(
+                    ThriftAuthenticationConstants.LAST_ACCESS_TIME_UPDATE_INTERVAL,
+                    ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_UPDATE_INTERVAL);
+            long lastAccessTimeGranularity = readLongConfig(
+                    ThriftAuthenticationConstants.LAST_ACCESS_TIME_GRANULARITY,
+                    ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_GRANULARITY);
             //get an instance of this to register as an osgi service
 
-            ThriftAuthenticatorServiceImpl thriftAuthenticatorServiceImpl =
-
-                    new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(), thriftSessionDAO, thriftSessionTimeout);
+            thriftAuthenticatorServiceImpl = new ThriftAuthenticatorServiceImpl(getRealmServiceInstance(),
+                    thriftSessionDAO, thriftSessionTimeout, lastAccessTimeUpdateInterval, lastAccessTimeGranularity);
             //register as an osgi service
 
             thriftAuthenticationService = compCtx.getBundleContext().registerService(
@@ -126,9 +133,32 @@ public class ThriftAuthenticationServiceComponent {
         if (TCPThriftAuthenticationService != null) {
             TCPThriftAuthenticationService.stop();
         }
+        if (thriftAuthenticatorServiceImpl != null) {
+            thriftAuthenticatorServiceImpl.shutdown();
+        }
         compCtx.getBundleContext().ungetService(thriftAuthenticationService.getReference());
 
     }
+
+    private long readLongConfig(String name, long defaultValue) {
+        OMElement element = ThriftAuthenticationConfigParser.getInstance().getConfigElement(name);
+        if (element == null) {
+            return defaultValue;
+        }
+        try {
+            long value = Long.parseLong(element.getText().trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid " + name + ": " + element.getText(), e);
+            }
+        }
+        log.error("Invalid " + name + " " + element.getText() + ", hence using the default: " + defaultValue + "ms");
+        return defaultValue;
+    }
+
     public static HttpService getHttpServiceInstance() {
         return httpServiceInstance;
     }
@@ -27,6 +27,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.thrift.authentication.ThriftAuthenticatorService;
 import org.wso2.carbon.identity.thrift.authentication.dao.ThriftSessionDAO;
 import org.wso2.carbon.identity.thrift.authentication.internal.generatedCode.AuthenticationException;
+import org.wso2.carbon.identity.thrift.authentication.internal.util.ThriftAuthenticationConstants;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -34,14 +35,27 @@ import org.wso2.carbon.utils.ServerConstants;
 import org.wso2.carbon.utils.ThriftSession;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This is a utility class that performs authentication related functionality
  * by talking to back end authentication service.
+ * <p/>
+ * The last access times of the sessions are kept in memory and written to the session store in batches every
+ * LastAccessTimeUpdateInterval milliseconds. A last access time is written only if it moved by at least
+ * LastAccessTimeGranularity milliseconds since it was last written, hence the session store may be behind by up to
+ * the sum of the two, which has to be well below the session timeout.
  */
 public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorService {
 
@@ -52,11 +66,51 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
     private Map<String, ThriftSession> authenticatedSessions =
             new ConcurrentHashMap<String, ThriftSession>();
     private ThriftSessionDAO thriftSessionDAO;
+    //last access times written to the session store, and the ones still to be written, keyed by session id
+    private Map<String, Long> storedLastAccessTimes = new ConcurrentHashMap<String, Long>();
+    private ConcurrentMap<String, Long> pendingLastAccessTimes = new ConcurrentHashMap<String, Long>();
+    private long lastAccessTimeGranularity;
+    private ScheduledExecutorService scheduler;
+    private AtomicBoolean populatingSessions = new AtomicBoolean();
 
     public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO, long thriftSessionTimeOut) {
+        this(realmService, thriftSessionDAO, thriftSessionTimeOut,
+                ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_UPDATE_INTERVAL,
+                ThriftAuthenticationConstants.DEFAULT_LAST_ACCESS_TIME_GRANULARITY);
+    }
+
+    public ThriftAuthenticatorServiceImpl(RealmService realmService, ThriftSessionDAO thriftSessionDAO,
+                                          long thriftSessionTimeOut, long lastAccessTimeUpdateInterval,
+                                          long lastAccessTimeGranularity) {
         this.realmService = realmService;
         setThriftSessionTimeOut(thriftSessionTimeOut);
         this.thriftSessionDAO = thriftSessionDAO.getInstance();
+        this.lastAccessTimeGranularity = lastAccessTimeGranularity;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ThriftSessionLastAccessTimeWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                storeLastAccessTimes();
+            }
+        }, lastAccessTimeUpdateInterval, lastAccessTimeUpdateInterval, TimeUnit.MILLISECONDS);
+        //load the sessions of the session store in the background
+        schedulePopulateSessionsFromDB();
+    }
+
+    /**
+     * Writes the pending last access times and stops writing them.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        storeLastAccessTimes();
     }
 
     private void addThriftSession(ThriftSession thriftSession) throws IdentityException {
@@ -65,11 +119,14 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         //add to database
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
         sessionDAO.addSession(thriftSession);
+        storedLastAccessTimes.put(thriftSession.getSessionId(), thriftSession.getLastAccess());
     }
 
     private void removeThriftSession(String thriftSessionId) throws IdentityException {
         //remove from cache
         authenticatedSessions.remove(thriftSessionId);
+        storedLastAccessTimes.remove(thriftSessionId);
+        pendingLastAccessTimes.remove(thriftSessionId);
         //remove from db
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
         sessionDAO.removeSession(thriftSessionId);
@@ -167,89 +224,76 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
         if (sessionId == null) {
             return false;
         }
-        //if cache empty, try to populate from db
+        //if cache empty, populate it from db in the background and look up this session in db
         if (authenticatedSessions.isEmpty()) {
-            try {
-                populateSessionsFromDB();
-            } catch (IdentityException e) {
-                String error = "Error while populating thrift sessions from cache";
-                log.error(error, e);
-            } catch (Exception e) {
-                String error = "Error while populating thrift sessions from cache";
-                log.error(error, e);
-            }
+            schedulePopulateSessionsFromDB();
         }
-        //if cache not empty, check if session id existing and valid, if so, update last access time and return it.
-        if (!authenticatedSessions.isEmpty()) {
-            ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
-            if (authenticatedSessions.containsKey(sessionId)) {
-                ThriftSession thriftSessionInCache = authenticatedSessions.get(sessionId);
-                if (isSessionValid(thriftSessionInCache)) {
-                    //update the last access time in cache and d
-                    long lastAccessTime = System.currentTimeMillis();
-                    (authenticatedSessions.get(sessionId)).setLastAccess(lastAccessTime);
-                    try {
-                        //if carbon context in the thrift session is not initialized, should do that now.
-                        onSuccessLogin(thriftSessionInCache);
-                        //put the thrift session filled with carbon context info
-                        authenticatedSessions.put(sessionId, thriftSessionInCache);
-                        sessionDAO.updateLastAccessTime(sessionId, lastAccessTime);
-                    } catch (IdentityException e) {
-                        String error = "Error while updating last access time in DB";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
-                    return true;
-                } else {
-                    //if not valid in cache, check if valid in db
-                    try {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            //update cache and return true
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            //remove from cache and db and return false
-                            removeThriftSession(sessionId);
-                            return false;
-                        }
-                    } catch (IdentityException e) {
-                        String error = "Error while obtaining thrift session from database.";
-                        log.error(error, e);
-                    } catch (Exception e) {
-                        String error = "Error in calling on success admin login for the thrift session.";
-                        log.error(error, e);
-                    }
+        ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
+        //check if session id existing in cache and valid, if so, update last access time and return it.
+        ThriftSession thriftSessionInCache = authenticatedSessions.get(sessionId);
+        if (thriftSessionInCache != null) {
+            if (isSessionValid(thriftSessionInCache)) {
+                //update the last access time in cache, it is written to db later
+                long lastAccessTime = System.currentTimeMillis();
+                thriftSessionInCache.setLastAccess(lastAccessTime);
+                try {
+                    //if carbon context in the thrift session is not initialized, should do that now.
+                    onSuccessLogin(thriftSessionInCache);
+                    //put the thrift session filled with carbon context info
+                    authenticatedSessions.put(sessionId, thriftSessionInCache);
+                    updateLastAccessTime(sessionId, lastAccessTime);
+                } catch (Exception e) {
+                    String error = "Error in calling on success admin login for the thrift session.";
+                    log.error(error, e);
                 }
+                return true;
             } else {
-                //if session id not found, check in db as well, if exist in db, populate cache
+                //if not valid in cache, check if valid in db
                 try {
-                    if (sessionDAO.isSessionExisting(sessionId)) {
-                        ThriftSession thriftSession = sessionDAO.getSession(sessionId);
-                        if (isSessionValid(thriftSession)) {
-                            thriftSession.setLastAccess(System.currentTimeMillis());
-                            onSuccessLogin(thriftSession);
-                            authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
-                            sessionDAO.updateLastAccessTime(sessionId, thriftSession.getLastAccess());
-                            return true;
-                        } else {
-                            sessionDAO.removeSession(sessionId);
-                            return false;
-                        }
+                    ThriftSession thriftSession = sessionDAO.getSession(sessionId);
+                    if (isSessionValid(thriftSession)) {
+                        //update cache and return true
+                        thriftSession.setLastAccess(System.currentTimeMillis());
+                        onSuccessLogin(thriftSession);
+                        authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+                        updateLastAccessTime(sessionId, thriftSession.getLastAccess());
+                        return true;
+                    } else {
+                        //remove from cache and db and return false
+                        removeThriftSession(sessionId);
+                        return false;
                     }
                 } catch (IdentityException e) {
                     String error = "Error while obtaining thrift session from database.";
                     log.error(error, e);
                 } catch (Exception e) {
-                    String error = "Error in calling on success admin login for the thrift session obtained from DB.";
+                    String error = "Error in calling on success admin login for the thrift session.";
                     log.error(error, e);
                 }
             }
+        } else {
+            //if session id not found, check in db as well, if exist in db, populate cache
+            try {
+                if (sessionDAO.isSessionExisting(sessionId)) {
+                    ThriftSession thriftSession = sessionDAO.getSession(sessionId);
+                    if (isSessionValid(thriftSession)) {
+                        thriftSession.setLastAccess(System.currentTimeMillis());
+                        onSuccessLogin(thriftSession);
+                        authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+                        updateLastAccessTime(sessionId, thriftSession.getLastAccess());
+                        return true;
+                    } else {
+                        sessionDAO.removeSession(sessionId);
+                        return false;
+                    }
+                }
+            } catch (IdentityException e) {
+                String error = "Error while obtaining thrift session from database.";
+                log.error(error, e);
+            } catch (Exception e) {
+                String error = "Error in calling on success admin login for the thrift session obtained from DB.";
+                log.error(error, e);
+            }
         }
 
         return false;
@@ -270,21 +314,79 @@ public class ThriftAuthenticatorServiceImpl implements ThriftAuthenticatorServic
     }
 
     private void populateSessionsFromDB() throws Exception {
-        //first clear the cache
-        if (!authenticatedSessions.isEmpty()) {
-            authenticatedSessions.clear();
-        }
         //get all sessions from db
         ThriftSessionDAO sessionDAO = this.thriftSessionDAO.getInstance();
         List<ThriftSession> thriftSessions = sessionDAO.getAllSessions();
-        //add to cache
+        //add to cache, sessions added or accessed while loading are newer than the ones in db
         if (CollectionUtils.isNotEmpty(thriftSessions)) {
             for (ThriftSession thriftSession : thriftSessions) {
-                authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+                if (!authenticatedSessions.containsKey(thriftSession.getSessionId())) {
+                    authenticatedSessions.put(thriftSession.getSessionId(), thriftSession);
+                    storedLastAccessTimes.put(thriftSession.getSessionId(), thriftSession.getLastAccess());
+                }
             }
         }
     }
 
+    private void schedulePopulateSessionsFromDB() {
+        if (!populatingSessions.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        populateSessionsFromDB();
+                    } catch (Exception e) {
+                        String error = "Error while populating thrift sessions from database";
+                        log.error(error, e);
+                    } finally {
+                        populatingSessions.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            populatingSessions.set(false);
+        }
+    }
+
+    /**
+     * Marks the last access time of a session to be written to the session store, unless the stored one is within
+     * the granularity.
+     */
+    private void updateLastAccessTime(String sessionId, long lastAccessTime) {
+        Long storedLastAccessTime = storedLastAccessTimes.get(sessionId);
+        if (storedLastAccessTime == null || lastAccessTime - storedLastAccessTime >= lastAccessTimeGranularity) {
+            pendingLastAccessTimes.put(sessionId, lastAccessTime);
+        }
+    }
+
+    private void storeLastAccessTimes() {
+        if (pendingLastAccessTimes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> lastAccessTimes = new HashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : pendingLastAccessTimes.entrySet()) {
+            //a newer last access time marked meanwhile is left for the next run
+            if (pendingLastAccessTimes.remove(entry.getKey(), entry.getValue())) {
+                lastAccessTimes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            this.thriftSessionDAO.getInstance().updateLastAccessTimes(lastAccessTimes);
+            for (Map.Entry<String, Long> entry : lastAccessTimes.entrySet()) {
+                if (authenticatedSessions.containsKey(entry.getKey())) {
+                    storedLastAccessTimes.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            String error = "Error while updating last access time of thrift sessions in DB";
+            log.error(error, e);
+        }
+    }
+
     private void callOnSuccessAdminLogin(ThriftSession session) throws Exception {
         if (realmService != null) {
             String tenantDomain = MultitenantUtils.getTenantDomain(session.getUserName());
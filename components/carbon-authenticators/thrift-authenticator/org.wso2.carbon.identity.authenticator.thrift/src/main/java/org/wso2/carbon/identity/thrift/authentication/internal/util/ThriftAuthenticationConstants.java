@@ -31,6 +31,10 @@ public class ThriftAuthenticationConstants {
     public static final String CARBON_CONFIG_PORT_OFFSET_NODE = "Ports.Offset";
     public static final String CLIENT_TIMEOUT = "ClientTimeout";
     public static final int DEFAULT_CLIENT_TIMEOUT = 30000;
+    public static final String LAST_ACCESS_TIME_UPDATE_INTERVAL = "LastAccessTimeUpdateInterval";
+    public static final long DEFAULT_LAST_ACCESS_TIME_UPDATE_INTERVAL = 30000L;
+    public static final String LAST_ACCESS_TIME_GRANULARITY = "LastAccessTimeGranularity";
+    public static final long DEFAULT_LAST_ACCESS_TIME_GRANULARITY = 60000L;
 
     public static final String THRIFT_SESSION_CACHE_ID = "THRIFT_SESSION_CACHE_ID";
 
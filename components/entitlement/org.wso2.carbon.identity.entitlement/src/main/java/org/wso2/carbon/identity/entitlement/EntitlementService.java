@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.entitlement.dto.AttributeDTO;
 import org.wso2.carbon.identity.entitlement.dto.EntitledResultSetDTO;
+import org.wso2.carbon.identity.entitlement.pdp.BatchDecisionEvaluator;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.policy.search.PolicySearch;
 import org.wso2.carbon.identity.entitlement.wsxacml.XACMLHandler;
@@ -106,6 +107,53 @@ public class EntitlementService implements XACMLHandler {
         }
     }
 
+    /**
+     * Evaluates a batch of subject, resource and action tuples in one call and returns the XACML responses in
+     * the order of the tuples. Tuples are evaluated in parallel and subject attributes resolved by the PIP are
+     * shared by the whole batch. Default attribute ids and data types are used as in
+     * {@link #getDecisionByAttributes(String, String, String, String[])}
+     *
+     * @param subjects    subjects
+     * @param resources   resources, one for each subject
+     * @param actions     actions, one for each subject
+     * @param environment environment common to all the tuples
+     * @return XACML responses as String objects
+     * @throws EntitlementException throws
+     */
+    public String[] getDecisionsByAttributes(String[] subjects, String[] resources, String[] actions,
+                                             String[] environment) throws EntitlementException {
+        try {
+            return BatchDecisionEvaluator.getInstance().evaluate(subjects, resources, actions, environment);
+        } catch (Exception e) {
+            log.error("Error occurred while evaluating XACML requests", e);
+            throw new EntitlementException("Error occurred while evaluating XACML requests");
+        }
+    }
+
+    /**
+     * Evaluates a batch of subject, resource and action tuples in one call and returns the decisions as
+     * boolean values in the order of the tuples. A decision is true only if the result is permit.
+     *
+     * @param subjects  subjects
+     * @param resources resources, one for each subject
+     * @param actions   actions, one for each subject
+     * @return decisions as boolean true or false
+     * @throws Exception throws
+     */
+    public boolean[] getBooleanDecisions(String[] subjects, String[] resources, String[] actions) throws Exception {
+        try {
+            String[] responses = BatchDecisionEvaluator.getInstance().evaluate(subjects, resources, actions, null);
+            boolean[] decisions = new boolean[responses.length];
+            for (int i = 0; i < responses.length; i++) {
+                decisions[i] = responses[i].contains("Permit");
+            }
+            return decisions;
+        } catch (Exception e) {
+            log.error("Error occurred while evaluating XACML requests", e);
+            throw new Exception("Error occurred while evaluating XACML requests");
+        }
+    }
+
     /**
      * Gets entitled resources for given user or role
      * This method can be only used, if all policies in PDP are defined with default categories i.e
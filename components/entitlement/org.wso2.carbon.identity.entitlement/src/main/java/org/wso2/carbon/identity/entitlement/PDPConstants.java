@@ -243,6 +243,13 @@ public class PDPConstants {
 
     public static final String DECISION_CACHING_INTERVAL = "PDP.DecisionCaching.CachingInterval";
 
+    public static final String DECISION_CACHING_SELECTIVE_INVALIDATION =
+            "PDP.DecisionCaching.SelectiveInvalidation";
+
+    public static final String DECISION_CACHING_MAX_TRACKED_DECISIONS = "PDP.DecisionCaching.MaxTrackedDecisions";
+
+    public static final int DEFAULT_DECISION_CACHING_MAX_TRACKED_DECISIONS = 10000;
+
     public static final String ATTRIBUTE_CACHING = "PDP.AttributeCaching.Enable";
 
     public static final String ATTRIBUTE_CACHING_INTERVAL = "PDP.AttributeCaching.CachingInterval";
@@ -277,4 +284,15 @@ public class PDPConstants {
 
     public static final String POLICY_CACHING_INTERVAL = "PDP.PolicyCaching.CachingInterval";
 
+    public static final String BATCH_EVALUATION_THREAD_POOL_SIZE = "PDP.BatchEvaluation.ThreadPoolSize";
+
+    public static final String BATCH_EVALUATION_MAX_REQUESTS = "PDP.BatchEvaluation.MaxRequests";
+
+    public static final String BATCH_EVALUATION_SHARE_SUBJECT_ATTRIBUTES =
+            "PDP.BatchEvaluation.ShareSubjectAttributes";
+
+    public static final int DEFAULT_BATCH_EVALUATION_THREAD_POOL_SIZE = 10;
+
+    public static final int DEFAULT_BATCH_EVALUATION_MAX_REQUESTS = 200;
+
 }
@@ -82,6 +82,17 @@ public class DecisionCache extends EntitlementBaseCache<IdentityCacheKey, String
         return null;
     }
 
+    /**
+     * Removes the decision of a request from the cache
+     *
+     * @param key
+     */
+    public void removeFromCache(String key) {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, key);
+        clearCacheEntry(cacheKey);
+    }
+
     /**
      * Clear all decision cache
      */
@@ -0,0 +1,200 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the keys of the decision caches. A request is reduced to a canonical form in which namespace prefixes,
+ * ignorable white space and the order of attributes are not significant, and the key is a SHA-256 digest of that
+ * form. Semantically equal requests share a cache entry and the keys stay small whatever the size of the request.
+ */
+public class DecisionCacheKeyGenerator {
+
+    private static final Log log = LogFactory.getLog(DecisionCacheKeyGenerator.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Elements whose children can be given in any order. XACML 3.0 Request, Attributes and Attribute, and the
+     * XACML 2.0 Request, Subject, Resource, Action, Environment and Attribute. The children of other elements,
+     * such as Content or MultiRequests, keep their order.
+     */
+    private static final Set<String> UNORDERED_ELEMENTS = new HashSet<String>(Arrays.asList(
+            "Request", "Attributes", "Attribute", "Subject", "Resource", "Action", "Environment"));
+
+    private DecisionCacheKeyGenerator() {
+    }
+
+    /**
+     * Builds the key of a parsed XACML request.
+     *
+     * @param request XACML request element
+     * @return cache key
+     */
+    public static String getKey(Element request) {
+        StringBuilder builder = new StringBuilder();
+        appendCanonicalForm(request, builder);
+        return digest(builder.toString());
+    }
+
+    /**
+     * Builds the key of a XACML request which could not be parsed, from its raw form.
+     *
+     * @param request XACML request as String
+     * @return cache key
+     */
+    public static String getKey(String request) {
+        return digest("raw:" + request);
+    }
+
+    /**
+     * Builds the key of a request made of single subject, resource, action and environment values.
+     *
+     * @param subject     subject
+     * @param resource    resource
+     * @param action      action
+     * @param environment environment
+     * @return cache key
+     */
+    public static String getKey(String subject, String resource, String action, String environment) {
+        StringBuilder builder = new StringBuilder();
+        // values are length prefixed, so that their boundaries are part of the key
+        for (String value : new String[]{subject, resource, action, environment}) {
+            if (value == null) {
+                builder.append("-;");
+            } else {
+                builder.append(value.length()).append(':').append(value).append(';');
+            }
+        }
+        return digest(builder.toString());
+    }
+
+    private static void appendCanonicalForm(Element element, StringBuilder builder) {
+
+        builder.append('<');
+        appendName(element, builder);
+
+        NamedNodeMap attributes = element.getAttributes();
+        if (attributes.getLength() > 0) {
+            List<String> canonicalAttributes = new ArrayList<String>(attributes.getLength());
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attribute = (Attr) attributes.item(i);
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                    // namespace declarations only bind prefixes, which are not significant
+                    continue;
+                }
+                StringBuilder attributeBuilder = new StringBuilder();
+                appendName(attribute, attributeBuilder);
+                attributeBuilder.append('=');
+                appendEscaped(attribute.getValue(), attributeBuilder);
+                canonicalAttributes.add(attributeBuilder.toString());
+            }
+            Collections.sort(canonicalAttributes);
+            for (String canonicalAttribute : canonicalAttributes) {
+                builder.append(' ').append(canonicalAttribute);
+            }
+        }
+        builder.append('>');
+
+        List<String> children = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        boolean hasElementChildren = false;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                hasElementChildren = true;
+                StringBuilder childBuilder = new StringBuilder();
+                appendCanonicalForm((Element) child, childBuilder);
+                children.add(childBuilder.toString());
+            } else if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                text.append(child.getNodeValue());
+            }
+        }
+
+        if (hasElementChildren) {
+            // white space between child elements is not significant, any other text is kept
+            String trimmed = text.toString().trim();
+            if (trimmed.length() > 0) {
+                appendEscaped(trimmed, builder);
+            }
+            if (UNORDERED_ELEMENTS.contains(element.getLocalName())) {
+                Collections.sort(children);
+            }
+            for (String child : children) {
+                builder.append(child);
+            }
+        } else {
+            // text of leaf elements, such as attribute values, is significant as it is
+            appendEscaped(text.toString(), builder);
+        }
+        builder.append("</>");
+    }
+
+    private static void appendName(Node node, StringBuilder builder) {
+        if (node.getNamespaceURI() != null) {
+            appendEscaped(node.getNamespaceURI(), builder);
+            builder.append('|');
+        }
+        appendEscaped(node.getLocalName() != null ? node.getLocalName() : node.getNodeName(), builder);
+    }
+
+    private static void appendEscaped(String value, StringBuilder builder) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '<' || c == '>' || c == '|' || c == '=' || c == ' ' || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value.getBytes(UTF_8));
+            char[] chars = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256, keep the value itself rather than failing the request
+            log.error("Error while creating the digest of the decision cache key", e);
+            return value;
+        }
+    }
+}
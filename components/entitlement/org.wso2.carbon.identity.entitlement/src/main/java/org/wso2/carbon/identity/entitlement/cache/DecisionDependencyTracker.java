@@ -0,0 +1,256 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the policies each cached decision of a tenant was evaluated against, so that a policy change only
+ * evicts the decisions which considered that policy.
+ * <p/>
+ * While a request is evaluated, the policy collection records the identifiers of the policies it matched against
+ * the request. A decision which depends on policies that can not be told apart, e.g. when policies are looked up by
+ * reference or a custom policy collection is used, is evicted on any policy change. When more decisions are cached
+ * than can be tracked, tracking is dropped and the next change clears the decision caches.
+ * <p/>
+ * A decision is tracked before it is added to the cache and the caller checks the generation afterwards, so that a
+ * decision evaluated against a policy collection which was replaced meanwhile is never left in the cache.
+ */
+public class DecisionDependencyTracker {
+
+    private static Log log = LogFactory.getLog(DecisionDependencyTracker.class);
+
+    private static final ThreadLocal<Dependencies> currentDependencies = new ThreadLocal<Dependencies>();
+
+    private final int maxTrackedDecisions;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Set<TrackedDecision>> decisionsByPolicy = new HashMap<String, Set<TrackedDecision>>();
+    private final Map<TrackedDecision, Set<String>> policiesByDecision = new HashMap<TrackedDecision, Set<String>>();
+    private final Set<TrackedDecision> unboundDecisions = new HashSet<TrackedDecision>();
+    private boolean overflowed;
+
+    public DecisionDependencyTracker(int maxTrackedDecisions) {
+        this.maxTrackedDecisions = maxTrackedDecisions;
+    }
+
+    /**
+     * Starts recording the policies the current thread evaluates a request against.
+     */
+    public static void startRecording() {
+        currentDependencies.set(new Dependencies());
+    }
+
+    /**
+     * Stops recording for the current thread.
+     *
+     * @return policies recorded since {@link #startRecording()}
+     */
+    public static Dependencies stopRecording() {
+        Dependencies dependencies = currentDependencies.get();
+        currentDependencies.remove();
+        return dependencies;
+    }
+
+    /**
+     * Records that the request being evaluated by the current thread was matched against the given policy.
+     *
+     * @param policyId policy identifier
+     */
+    public static void recordPolicy(String policyId) {
+        Dependencies dependencies = currentDependencies.get();
+        if (dependencies != null) {
+            dependencies.policyIds.add(policyId);
+        }
+    }
+
+    /**
+     * Records that the decision being evaluated by the current thread may depend on any policy.
+     */
+    public static void recordAllPolicies() {
+        Dependencies dependencies = currentDependencies.get();
+        if (dependencies != null) {
+            dependencies.allPolicies = true;
+        }
+    }
+
+    /**
+     * @return number of policy changes applied so far
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Tracks a decision which is about to be cached.
+     *
+     * @param cacheKey     key of the decision in the cache
+     * @param simpleCache  whether the decision is kept in the simple decision cache
+     * @param dependencies policies recorded while the decision was evaluated
+     */
+    public synchronized void track(String cacheKey, boolean simpleCache, Dependencies dependencies) {
+
+        if (overflowed) {
+            return;
+        }
+        TrackedDecision decision = new TrackedDecision(cacheKey, simpleCache);
+        // a decision is re-evaluated after it expired from the cache, only the dependencies of the latest one count
+        removeDecision(decision);
+        if (policiesByDecision.size() >= maxTrackedDecisions) {
+            if (log.isDebugEnabled()) {
+                log.debug("More than " + maxTrackedDecisions + " decisions are cached. Decision caches are " +
+                          "cleared on the next policy change");
+            }
+            clearTracking();
+            overflowed = true;
+            return;
+        }
+
+        if (dependencies == null || dependencies.allPolicies) {
+            policiesByDecision.put(decision, null);
+            unboundDecisions.add(decision);
+            return;
+        }
+        policiesByDecision.put(decision, dependencies.policyIds);
+        for (String policyId : dependencies.policyIds) {
+            Set<TrackedDecision> decisions = decisionsByPolicy.get(policyId);
+            if (decisions == null) {
+                decisions = new HashSet<TrackedDecision>();
+                decisionsByPolicy.put(policyId, decisions);
+            }
+            decisions.add(decision);
+        }
+    }
+
+    /**
+     * Stops tracking the decisions which depend on any of the given policies and moves to the next generation.
+     *
+     * @param policyIds identifiers of the changed policies
+     * @return decisions to evict, or null if every decision has to be evicted
+     */
+    public synchronized List<TrackedDecision> invalidate(Collection<String> policyIds) {
+
+        generation.incrementAndGet();
+        if (overflowed) {
+            clearTracking();
+            return null;
+        }
+
+        Set<TrackedDecision> evicted = new HashSet<TrackedDecision>(unboundDecisions);
+        for (String policyId : policyIds) {
+            Set<TrackedDecision> decisions = decisionsByPolicy.get(policyId);
+            if (decisions != null) {
+                evicted.addAll(decisions);
+            }
+        }
+        for (TrackedDecision decision : evicted) {
+            removeDecision(decision);
+        }
+        return new ArrayList<TrackedDecision>(evicted);
+    }
+
+    /**
+     * Stops tracking every decision and moves to the next generation. Called when the decision caches are cleared.
+     */
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        clearTracking();
+    }
+
+    private void removeDecision(TrackedDecision decision) {
+        Set<String> policyIds = policiesByDecision.remove(decision);
+        if (policyIds == null) {
+            unboundDecisions.remove(decision);
+            return;
+        }
+        for (String policyId : policyIds) {
+            Set<TrackedDecision> decisions = decisionsByPolicy.get(policyId);
+            if (decisions != null) {
+                decisions.remove(decision);
+                if (decisions.isEmpty()) {
+                    decisionsByPolicy.remove(policyId);
+                }
+            }
+        }
+    }
+
+    private void clearTracking() {
+        decisionsByPolicy.clear();
+        policiesByDecision.clear();
+        unboundDecisions.clear();
+        overflowed = false;
+    }
+
+    /**
+     * Policies a request was evaluated against.
+     */
+    public static class Dependencies {
+
+        private final Set<String> policyIds = new HashSet<String>();
+        private boolean allPolicies;
+    }
+
+    /**
+     * Cache key of a decision and the cache it is kept in.
+     */
+    public static class TrackedDecision {
+
+        private final String cacheKey;
+        private final boolean simpleCache;
+
+        private TrackedDecision(String cacheKey, boolean simpleCache) {
+            this.cacheKey = cacheKey;
+            this.simpleCache = simpleCache;
+        }
+
+        public String getCacheKey() {
+            return cacheKey;
+        }
+
+        public boolean isSimpleCache() {
+            return simpleCache;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TrackedDecision)) {
+                return false;
+            }
+            TrackedDecision that = (TrackedDecision) o;
+            return simpleCache == that.simpleCache && cacheKey.equals(that.cacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * cacheKey.hashCode() + (simpleCache ? 1 : 0);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import javax.cache.event.CacheEntryCreatedListener;
 import javax.cache.event.CacheEntryUpdatedListener;
 import java.io.Serializable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A base class for all cache implementations in user entitlement module.
@@ -38,12 +39,15 @@ import java.util.concurrent.TimeUnit;
 public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Serializable> {
 
     private static final String ENTITLEMENT_CACHE_MANAGER = "ENTITLEMENT_CACHE_MANAGER";
+    private static final long ENTRY_OVERHEAD = 64;
     private static Log log = LogFactory.getLog(EntitlementBaseCache.class);
     private String Entitlement_CACHE_NAME;
     private int cacheTimeout;
     private CacheBuilder<K, V> cacheBuilder;
     private CacheEntryUpdatedListener<K, V> cacheEntryUpdatedListener;
     private CacheEntryCreatedListener<K, V> cacheEntryCreatedListener;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
     /**
      * Create Entitlement cache object
@@ -171,14 +175,18 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Serializ
     public V getValueFromCache(K key) {
         Cache<K, V> cache = getEntitlementCache();
         if (cache != null) {
-            if (cache.containsKey(key)) {
+            // a single lookup, so that an entry expiring in between is not reported as a hit
+            V value = cache.get(key);
+            if (value != null) {
+                hits.incrementAndGet();
                 if (log.isDebugEnabled()) {
                     String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
                     log.debug("Cache : " + Entitlement_CACHE_NAME + "  is HIT " + "in tenant domain : " + tenantDomain);
                 }
-                return cache.get(key);
+                return value;
             }
         }
+        misses.incrementAndGet();
         if (log.isDebugEnabled()) {
             String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
             log.debug("Cache : " + Entitlement_CACHE_NAME + "  is MISSED " + "in tenant domain : " + tenantDomain);
@@ -225,6 +233,38 @@ public class EntitlementBaseCache<K extends IdentityCacheKey, V extends Serializ
         }
     }
 
+    /**
+     * Returns the statistics of this cache. The entries of the cache are walked to compute its size, so this is
+     * meant for monitoring rather than for the request path.
+     *
+     * @return cache statistics
+     */
+    public EntitlementCacheStatistics getStatistics() {
+        long entries = 0;
+        long memoryFootprint = 0;
+        Cache<K, V> cache = getEntitlementCache();
+        if (cache != null) {
+            for (Cache.Entry<K, V> entry : cache) {
+                entries++;
+                memoryFootprint += getEntrySize(entry.getKey(), entry.getValue());
+            }
+        }
+        return new EntitlementCacheStatistics(Entitlement_CACHE_NAME, hits.get(), misses.get(), entries,
+                memoryFootprint);
+    }
+
+    private long getEntrySize(K key, V value) {
+        // object headers and the tenant id, plus two bytes per character of the key and of String values
+        long size = ENTRY_OVERHEAD;
+        if (key != null && key.getKey() != null) {
+            size += key.getKey().length() * 2L;
+        }
+        if (value instanceof String) {
+            size += ((String) value).length() * 2L;
+        }
+        return size;
+    }
+
     public void setCacheEntryUpdatedListener(CacheEntryUpdatedListener<K, V> cacheEntryUpdatedListener) {
         this.cacheEntryUpdatedListener = cacheEntryUpdatedListener;
     }
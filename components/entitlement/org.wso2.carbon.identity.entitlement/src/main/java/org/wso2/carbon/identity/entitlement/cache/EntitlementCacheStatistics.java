@@ -0,0 +1,79 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+/**
+ * Point in time statistics of an entitlement cache. Hits and misses are counted on this node since the cache was
+ * created, while the entry count and the memory footprint are computed from the entries when the statistics are
+ * taken.
+ */
+public class EntitlementCacheStatistics {
+
+    private final String cacheName;
+    private final long hits;
+    private final long misses;
+    private final long entries;
+    private final long memoryFootprint;
+
+    public EntitlementCacheStatistics(String cacheName, long hits, long misses, long entries, long memoryFootprint) {
+        this.cacheName = cacheName;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = entries;
+        this.memoryFootprint = memoryFootprint;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return ratio of lookups which were served from the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return approximate number of bytes held by the keys and values of the cache
+     */
+    public long getMemoryFootprint() {
+        return memoryFootprint;
+    }
+
+    @Override
+    public String toString() {
+        return "EntitlementCacheStatistics{cacheName=" + cacheName + ", hits=" + hits + ", misses=" + misses +
+                ", hitRatio=" + getHitRatio() + ", entries=" + entries + ", memoryFootprint=" + memoryFootprint +
+                "}";
+    }
+}
@@ -24,7 +24,9 @@ import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 import org.wso2.carbon.identity.entitlement.common.EntitlementConstants;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -220,6 +222,29 @@ public class PolicyCache extends EntitlementBaseCache<IdentityCacheKey, PolicySt
         return tmpSet ;
     }
 
+    /**
+     * Takes the invalidated policies of the current tenant out of the local cache, so that each change is applied
+     * once.
+     *
+     * @return invalidated policies, empty if there are none
+     */
+    public Collection<PolicyStatus> drainInvalidatedPolicies() {
+
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        synchronized (localPolicyCacheMap) {
+            Map<String, PolicyStatus> tmpMap = localPolicyCacheMap.get(tenantId);
+            if (tmpMap == null || tmpMap.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Collection<PolicyStatus> tmpSet = new ArrayList<PolicyStatus>(tmpMap.values());
+            tmpMap.clear();
+            if (log.isDebugEnabled()) {
+                log.debug("Read " + tmpSet.size() + " invalidated policy files for : " + tenantId);
+            }
+            return tmpSet;
+        }
+    }
+
     /**
      * This method is for get the priority of the action.
      *
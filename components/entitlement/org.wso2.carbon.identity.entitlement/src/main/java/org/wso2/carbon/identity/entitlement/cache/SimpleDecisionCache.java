@@ -50,6 +50,13 @@ public class SimpleDecisionCache extends EntitlementBaseCache<IdentityCacheKey,
         return null;
     }
 
+    public void removeFromCache(String key) {
+
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, key);
+        clearCacheEntry(cacheKey);
+    }
+
     public void clearCache() {
         clear();
     }
@@ -0,0 +1,226 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.pdp;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
+import org.wso2.carbon.identity.entitlement.pip.BatchAttributeScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates a batch of subject, resource and action decision requests on a bounded thread pool which is shared
+ * by all tenants. Decisions are returned in the order of the requests. Subject attributes resolved by the PIP
+ * attribute finders are shared by all the requests of a batch through a {@link BatchAttributeScope}.
+ * <p/>
+ * When the pool is saturated the calling thread evaluates the request itself, so a burst of batches slows the
+ * callers down instead of queueing without limit.
+ */
+public class BatchDecisionEvaluator {
+
+    private static Log log = LogFactory.getLog(BatchDecisionEvaluator.class);
+
+    private static volatile BatchDecisionEvaluator instance;
+
+    private final ThreadPoolExecutor executor;
+    private final int maxRequests;
+
+    private BatchDecisionEvaluator() {
+
+        Properties properties = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties();
+        int poolSize = getIntProperty(properties, PDPConstants.BATCH_EVALUATION_THREAD_POOL_SIZE,
+                                      PDPConstants.DEFAULT_BATCH_EVALUATION_THREAD_POOL_SIZE);
+        maxRequests = getIntProperty(properties, PDPConstants.BATCH_EVALUATION_MAX_REQUESTS,
+                                     PDPConstants.DEFAULT_BATCH_EVALUATION_MAX_REQUESTS);
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(poolSize * 4), new BatchThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static BatchDecisionEvaluator getInstance() {
+        if (instance == null) {
+            synchronized (BatchDecisionEvaluator.class) {
+                if (instance == null) {
+                    instance = new BatchDecisionEvaluator();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Evaluates each subject, resource and action tuple of the batch with the default attribute ids and
+     * data types.
+     *
+     * @param subjects    subjects of the batch
+     * @param resources   resources of the batch, same length as the subjects
+     * @param actions     actions of the batch, same length as the subjects
+     * @param environment environment which is common to every request of the batch, may be null
+     * @return XACML responses in the order of the requests
+     * @throws EntitlementException if the batch is malformed or any of the requests fails
+     */
+    public String[] evaluate(String[] subjects, String[] resources, String[] actions, String[] environment)
+            throws EntitlementException {
+
+        if (subjects == null || resources == null || actions == null) {
+            throw new EntitlementException("Invalid input data - subjects, resources and actions should be non-null");
+        }
+        if (subjects.length != resources.length || subjects.length != actions.length) {
+            throw new EntitlementException("Invalid input data - subjects, resources and actions should be of " +
+                                           "the same length");
+        }
+        if (subjects.length > maxRequests) {
+            throw new EntitlementException("Batch of " + subjects.length + " requests exceeds the maximum of " +
+                                           maxRequests + " requests");
+        }
+
+        String[] responses = new String[subjects.length];
+        if (subjects.length == 0) {
+            return responses;
+        }
+
+        BatchAttributeScope scope = new BatchAttributeScope();
+        if (subjects.length == 1) {
+            BatchAttributeScope.bind(scope);
+            try {
+                responses[0] = EntitlementEngine.getInstance().evaluate(subjects[0], resources[0], actions[0],
+                                                                        environment);
+            } catch (Exception e) {
+                throw new EntitlementException("Error occurred while evaluating XACML request", e);
+            } finally {
+                BatchAttributeScope.unbind();
+            }
+            return responses;
+        }
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        List<Future<String>> futures = new ArrayList<Future<String>>(subjects.length);
+        try {
+            for (int i = 0; i < subjects.length; i++) {
+                futures.add(executor.submit(new DecisionTask(subjects[i], resources[i], actions[i], environment,
+                        scope, carbonContext.getTenantId(), carbonContext.getTenantDomain(),
+                        carbonContext.getUsername())));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                responses[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EntitlementException("Interrupted while evaluating the batch of XACML requests", e);
+        } catch (ExecutionException e) {
+            throw new EntitlementException("Error occurred while evaluating XACML request", e.getCause());
+        } finally {
+            for (Future<String> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Evaluated a batch of " + subjects.length + " requests sharing " + scope.size() +
+                      " subject attribute lookups");
+        }
+        return responses;
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        if (value != null) {
+            try {
+                int intValue = Integer.parseInt(value.trim());
+                if (intValue > 0) {
+                    return intValue;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + name + ". Using the default " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Evaluates one request of a batch in the tenant flow of the caller.
+     */
+    private static class DecisionTask implements Callable<String> {
+
+        private final String subject;
+        private final String resource;
+        private final String action;
+        private final String[] environment;
+        private final BatchAttributeScope scope;
+        private final int tenantId;
+        private final String tenantDomain;
+        private final String username;
+
+        private DecisionTask(String subject, String resource, String action, String[] environment,
+                             BatchAttributeScope scope, int tenantId, String tenantDomain, String username) {
+            this.subject = subject;
+            this.resource = resource;
+            this.action = action;
+            this.environment = environment;
+            this.scope = scope;
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+            this.username = username;
+        }
+
+        @Override
+        public String call() throws Exception {
+            PrivilegedCarbonContext.startTenantFlow();
+            BatchAttributeScope.bind(scope);
+            try {
+                PrivilegedCarbonContext context = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                context.setTenantId(tenantId);
+                context.setTenantDomain(tenantDomain);
+                context.setUsername(username);
+                return EntitlementEngine.getInstance().evaluate(subject, resource, action, environment);
+            } finally {
+                BatchAttributeScope.unbind();
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "EntitlementBatchEvaluator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
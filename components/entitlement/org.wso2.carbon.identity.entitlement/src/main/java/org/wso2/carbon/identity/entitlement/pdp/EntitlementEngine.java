@@ -42,6 +42,9 @@ import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.EntitlementUtil;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 import org.wso2.carbon.identity.entitlement.cache.DecisionCache;
+import org.wso2.carbon.identity.entitlement.cache.DecisionCacheKeyGenerator;
+import org.wso2.carbon.identity.entitlement.cache.DecisionDependencyTracker;
+import org.wso2.carbon.identity.entitlement.cache.EntitlementCacheStatistics;
 import org.wso2.carbon.identity.entitlement.cache.EntitlementEngineCache;
 import org.wso2.carbon.identity.entitlement.cache.PolicyCache;
 import org.wso2.carbon.identity.entitlement.cache.SimpleDecisionCache;
@@ -60,6 +63,7 @@ import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +76,7 @@ public class EntitlementEngine {
     private CarbonAttributeFinder carbonAttributeFinder;
     private CarbonResourceFinder carbonResourceFinder;
     private PolicyFinder carbonPolicyFinder;
+    private CarbonPolicyFinder carbonPolicyFinderModule;
     private PolicySearch policySearch;
     private PDP pdp;
     private PDP pdpTest;
@@ -89,6 +94,9 @@ public class EntitlementEngine {
 
     private SimpleDecisionCache simpleDecisionCache = null;
 
+    private DecisionDependencyTracker dependencyTracker = null;
+    private boolean selectiveDecisionInvalidation;
+
     private static Log log = LogFactory.getLog(EntitlementEngine.class);
 
 
@@ -100,8 +108,63 @@ public class EntitlementEngine {
         this.policyCache = policyCache;
     }
 
+    /**
+     * @return statistics of the XACML request decision cache
+     */
+    public EntitlementCacheStatistics getDecisionCacheStatistics() {
+        return decisionCache.getStatistics();
+    }
+
+    /**
+     * @return statistics of the decision cache used for single attribute value requests
+     */
+    public EntitlementCacheStatistics getSimpleDecisionCacheStatistics() {
+        return simpleDecisionCache.getStatistics();
+    }
+
+    /**
+     * @return whether only the cached decisions of changed policies are evicted, instead of the whole cache
+     */
+    public boolean isSelectiveDecisionInvalidation() {
+        return selectiveDecisionInvalidation;
+    }
+
     public void clearDecisionCache() {
+        this.dependencyTracker.invalidateAll();
         this.decisionCache.clear();
+        this.simpleDecisionCache.clear();
+    }
+
+    /**
+     * Evicts the cached decisions which were evaluated against any of the given policies. Clears the decision
+     * caches if decisions are not tracked by policy.
+     *
+     * @param policyIds identifiers of the changed policies
+     */
+    public void invalidateDecisions(Collection<String> policyIds) {
+
+        if (!selectiveDecisionInvalidation) {
+            clearDecisionCache();
+            return;
+        }
+
+        List<DecisionDependencyTracker.TrackedDecision> decisions = dependencyTracker.invalidate(policyIds);
+        if (decisions == null) {
+            this.decisionCache.clear();
+            this.simpleDecisionCache.clear();
+            return;
+        }
+        for (DecisionDependencyTracker.TrackedDecision decision : decisions) {
+            if (decision.isSimpleCache()) {
+                simpleDecisionCache.removeFromCache(decision.getCacheKey());
+            } else {
+                decisionCache.removeFromCache(decision.getCacheKey());
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted " + decisions.size() + " cached decisions of policies " + policyIds +
+                      " for tenantId : " + tenantId);
+        }
     }
 
     /**
@@ -195,9 +258,24 @@ public class EntitlementEngine {
         }
 
 
+        String selectiveInvalidation = properties.getProperty(PDPConstants.DECISION_CACHING_SELECTIVE_INVALIDATION);
+        selectiveDecisionInvalidation = selectiveInvalidation != null &&
+                                        Boolean.parseBoolean(selectiveInvalidation.trim());
+
+        int maxTrackedDecisions = PDPConstants.DEFAULT_DECISION_CACHING_MAX_TRACKED_DECISIONS;
+        String maxTracked = properties.getProperty(PDPConstants.DECISION_CACHING_MAX_TRACKED_DECISIONS);
+        if (maxTracked != null) {
+            try {
+                maxTrackedDecisions = Integer.parseInt(maxTracked.trim());
+            } catch (Exception e) {
+                //ignore
+            }
+        }
+
         //init caches
         decisionCache = new DecisionCache(pdpDecisionCachingInterval);
         simpleDecisionCache = new SimpleDecisionCache(pdpDecisionCachingInterval);
+        dependencyTracker = new DecisionDependencyTracker(maxTrackedDecisions);
         this.policyCache = new PolicyCache(pdpPolicyCachingInterval);
 
         // policy search
@@ -277,9 +355,26 @@ public class EntitlementEngine {
             log.debug("XACML Request : " + xacmlRequest);
         }
 
+        checkForPolicyChanges();
+
         String xacmlResponse;
+        Element xacmlRequestElement = null;
+        String cacheKey = null;
 
-        if ((xacmlResponse = getFromCache(xacmlRequest, false)) != null) {
+        if (pdpDecisionCacheEnable) {
+            // the key is built from the parsed request, so that equal requests written differently share an entry
+            try {
+                xacmlRequestElement = new PolicyRequestBuilder().getXacmlRequest(xacmlRequest);
+                cacheKey = DecisionCacheKeyGenerator.getKey(xacmlRequestElement);
+            } catch (EntitlementException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("XACML request could not be parsed to build the decision cache key", e);
+                }
+                cacheKey = DecisionCacheKeyGenerator.getKey(xacmlRequest);
+            }
+        }
+
+        if ((xacmlResponse = getFromCache(cacheKey, false)) != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
                 log.debug("XACML Response : " + xacmlResponse);
             }
@@ -289,22 +384,31 @@ public class EntitlementEngine {
         Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
                 .getExtensions();
 
-        if (extensions != null && !extensions.isEmpty()) {
-            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
-            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
-            AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
-                    getRequestCtx(xacmlRequestElement);
-            Set<PIPExtension> pipExtensions = extensions.keySet();
-            for (PIPExtension pipExtension : pipExtensions) {
-                pipExtension.update(requestCtx);
+        long generation = dependencyTracker.getGeneration();
+        DecisionDependencyTracker.Dependencies dependencies;
+        DecisionDependencyTracker.startRecording();
+        try {
+            if (extensions != null && !extensions.isEmpty()) {
+                if (xacmlRequestElement == null) {
+                    PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
+                    xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
+                }
+                AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
+                        getRequestCtx(xacmlRequestElement);
+                Set<PIPExtension> pipExtensions = extensions.keySet();
+                for (PIPExtension pipExtension : pipExtensions) {
+                    pipExtension.update(requestCtx);
+                }
+                ResponseCtx responseCtx = pdp.evaluate(requestCtx);
+                xacmlResponse = responseCtx.encode();
+            } else {
+                xacmlResponse = pdp.evaluate(xacmlRequest);
             }
-            ResponseCtx responseCtx = pdp.evaluate(requestCtx);
-            xacmlResponse = responseCtx.encode();
-        } else {
-            xacmlResponse = pdp.evaluate(xacmlRequest);
+        } finally {
+            dependencies = DecisionDependencyTracker.stopRecording();
         }
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        addToCache(cacheKey, xacmlResponse, false, dependencies, generation);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + xacmlResponse);
@@ -322,6 +426,7 @@ public class EntitlementEngine {
      * @return ResponseCtx  Balana Object model for response
      */
     public ResponseCtx evaluateByContext(AbstractRequestCtx requestCtx) {
+        checkForPolicyChanges();
         return pdp.evaluate(requestCtx);
     }
 
@@ -345,11 +450,15 @@ public class EntitlementEngine {
         if (environment != null && environment.length > 0) {
             environmentValue = environment[0];
         }
+        checkForPolicyChanges();
+
         String response;
-        String request = (subject != null ? subject : "") + (resource != null ? resource : "") +
-                         (action != null ? action : "") + (environmentValue != null ? environmentValue : "");
+        String cacheKey = null;
+        if (pdpDecisionCacheEnable) {
+            cacheKey = DecisionCacheKeyGenerator.getKey(subject, resource, action, environmentValue);
+        }
 
-        if ((response = getFromCache(request, true)) != null) {
+        if ((response = getFromCache(cacheKey, true)) != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_REQUEST)) {
                 log.debug("XACML Request : " + EntitlementUtil.
                         createSimpleXACMLRequest(subject, resource, action, environmentValue));
@@ -366,9 +475,16 @@ public class EntitlementEngine {
             log.debug("XACML Request : " + requestAsString);
         }
 
-        response = pdp.evaluate(requestAsString);
+        long generation = dependencyTracker.getGeneration();
+        DecisionDependencyTracker.Dependencies dependencies;
+        DecisionDependencyTracker.startRecording();
+        try {
+            response = pdp.evaluate(requestAsString);
+        } finally {
+            dependencies = DecisionDependencyTracker.stopRecording();
+        }
 
-        addToCache(request, response, true);
+        addToCache(cacheKey, response, true, dependencies, generation);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + response);
@@ -418,15 +534,15 @@ public class EntitlementEngine {
     /**
      * get entry from decision caching
      *
-     * @param request     XACML request as String
+     * @param cacheKey    key built from the request by <code>DecisionCacheKeyGenerator</code>
      * @param simpleCache whether using simple cache or not
      * @return XACML response as String
      */
-    private String getFromCache(String request, boolean simpleCache) {
+    private String getFromCache(String cacheKey, boolean simpleCache) {
 
         if (pdpDecisionCacheEnable) {
 
-            String tenantRequest = tenantId + "+" + request;
+            String tenantRequest = tenantId + "+" + cacheKey;
             String decision;
 
 
@@ -453,18 +569,32 @@ public class EntitlementEngine {
     /**
      * put entry in to cache
      *
-     * @param request     XACML request as String
-     * @param response    XACML response as String
-     * @param simpleCache whether using simple cache or not
+     * @param cacheKey     key built from the request by <code>DecisionCacheKeyGenerator</code>
+     * @param response     XACML response as String
+     * @param simpleCache  whether using simple cache or not
+     * @param dependencies policies the request was evaluated against
+     * @param generation   generation of the dependency tracker when the evaluation started
      */
-    private void addToCache(String request, String response, boolean simpleCache) {
+    private void addToCache(String cacheKey, String response, boolean simpleCache,
+                            DecisionDependencyTracker.Dependencies dependencies, long generation) {
         if (pdpDecisionCacheEnable) {
-            String tenantRequest = tenantId + "+" + request;
+            String tenantRequest = tenantId + "+" + cacheKey;
+            if (selectiveDecisionInvalidation) {
+                dependencyTracker.track(tenantRequest, simpleCache, dependencies);
+            }
             if (simpleCache) {
                 simpleDecisionCache.addToCache(tenantRequest, response);
             } else {
                 decisionCache.addToCache(tenantRequest, response);
             }
+            if (dependencyTracker.getGeneration() != generation) {
+                // policies were changed while the request was evaluated, so the decision may be stale
+                if (simpleCache) {
+                    simpleDecisionCache.removeFromCache(tenantRequest);
+                } else {
+                    decisionCache.removeFromCache(tenantRequest);
+                }
+            }
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("PDP Decision Caching is disabled");
@@ -530,7 +660,18 @@ public class EntitlementEngine {
         policyModules.add(tmpCarbonPolicyFinder);
         carbonPolicyFinder.setModules(policyModules);
         carbonPolicyFinder.init();
+        carbonPolicyFinderModule = tmpCarbonPolicyFinder;
+
+    }
 
+    /**
+     * Hands the policy changes published for this tenant over to the policy finder, which applies them in the
+     * background.
+     */
+    private void checkForPolicyChanges() {
+        if (carbonPolicyFinderModule != null) {
+            carbonPolicyFinderModule.checkForPolicyChanges(policyCache);
+        }
     }
 
 }
\ No newline at end of file
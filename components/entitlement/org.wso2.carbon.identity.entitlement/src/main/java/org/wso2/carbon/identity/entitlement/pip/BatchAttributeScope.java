@@ -0,0 +1,75 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.pip;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Attribute values resolved by PIP attribute finders while evaluating one batch of decision requests.
+ * <p/>
+ * A batch usually repeats the same subject against many resources and actions, so subject attributes such as
+ * roles and claims are looked up once and shared by every request of the batch. The scope is bound to each
+ * thread that evaluates a request of the batch and is discarded with the batch, hence values never outlive
+ * the call that produced them.
+ */
+public class BatchAttributeScope {
+
+    private static final ThreadLocal<BatchAttributeScope> currentScope = new ThreadLocal<BatchAttributeScope>();
+
+    private final ConcurrentMap<String, Set<String>> attributeValues = new ConcurrentHashMap<String, Set<String>>();
+
+    /**
+     * Binds the given scope to the current thread.
+     *
+     * @param scope batch scope
+     */
+    public static void bind(BatchAttributeScope scope) {
+        currentScope.set(scope);
+    }
+
+    /**
+     * Removes the scope bound to the current thread, if any.
+     */
+    public static void unbind() {
+        currentScope.remove();
+    }
+
+    /**
+     * @return scope bound to the current thread or null if the thread is not evaluating a batch
+     */
+    public static BatchAttributeScope getCurrentScope() {
+        return currentScope.get();
+    }
+
+    Set<String> getAttributeValues(String key) {
+        return attributeValues.get(key);
+    }
+
+    void addAttributeValues(String key, Set<String> values) {
+        if (values != null) {
+            attributeValues.putIfAbsent(key, values);
+        }
+    }
+
+    public int size() {
+        return attributeValues.size();
+    }
+}
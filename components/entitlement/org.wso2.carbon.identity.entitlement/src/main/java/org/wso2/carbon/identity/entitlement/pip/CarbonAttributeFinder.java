@@ -21,8 +21,10 @@ package org.wso2.carbon.identity.entitlement.pip;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.balana.ParsingException;
+import org.wso2.balana.XACMLConstants;
 import org.wso2.balana.attr.AttributeValue;
 import org.wso2.balana.attr.BagAttribute;
+import org.wso2.balana.attr.StringAttribute;
 import org.wso2.balana.cond.EvaluationResult;
 import org.wso2.balana.ctx.EvaluationCtx;
 import org.wso2.balana.ctx.Status;
@@ -59,6 +61,7 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
     private Map<String, List<PIPAttributeFinder>> attrFinders = new HashMap<String, List<PIPAttributeFinder>>();
     private static Log log = LogFactory.getLog(CarbonAttributeFinder.class);
     private PIPAttributeCache attributeFinderCache = null;
+    private boolean shareSubjectAttributes = false;
     protected int tenantId;
 
     public CarbonAttributeFinder(int tenantId) {
@@ -86,6 +89,9 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
             }
             attributeFinderCache = new PIPAttributeCache(attributeCachingInterval);
         }
+        if ("true".equals(properties.getProperty(PDPConstants.BATCH_EVALUATION_SHARE_SUBJECT_ATTRIBUTES))) {
+            shareSubjectAttributes = true;
+        }
         // clear decision cache
         if (designators != null && !designators.isEmpty()) {
             Set<PIPAttributeFinder> pipAttributeFinders = designators.keySet();
@@ -161,8 +167,18 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
 
                 Set<String> attrs = null;
                 String key = null;
+                BatchAttributeScope batchScope = BatchAttributeScope.getCurrentScope();
+                String batchKey = null;
+
+                if (batchScope != null) {
+                    batchKey = getBatchKey(pipAttributeFinder, attributeType, attributeId, issuer, category,
+                                           context);
+                    if (batchKey != null) {
+                        attrs = batchScope.getAttributeValues(batchKey);
+                    }
+                }
 
-                if (attributeFinderCache != null && !pipAttributeFinder.overrideDefaultCache()) {
+                if (attrs == null && attributeFinderCache != null && !pipAttributeFinder.overrideDefaultCache()) {
 
                     key = attributeType.toString() + attributeId.toString() + category.toString() +
                           encodeContext(context);
@@ -183,6 +199,9 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
                         && !pipAttributeFinder.overrideDefaultCache()) {
                         attributeFinderCache.addToCache(tenantId, key, attrs);
                     }
+                    if (batchKey != null) {
+                        batchScope.addAttributeValues(batchKey, attrs);
+                    }
                 }
 
                 if (attrs != null) {
@@ -278,6 +297,36 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
         }
     }
 
+    /**
+     * Builds the key under which a subject attribute is shared within a batch of decision requests. Subject
+     * attributes are resolved from the subject id, so every request of the batch for the same subject can reuse
+     * the values. Returns null when the attribute can not be shared.
+     */
+    private String getBatchKey(PIPAttributeFinder pipAttributeFinder, URI attributeType, URI attributeId,
+                               String issuer, URI category, EvaluationCtx context) throws URISyntaxException {
+
+        if (!shareSubjectAttributes || !XACMLConstants.SUBJECT_CATEGORY.equals(category.toString())
+            || PDPConstants.SUBJECT_ID_DEFAULT.equals(attributeId.toString())) {
+            return null;
+        }
+
+        EvaluationResult subject = context.getAttribute(new URI(StringAttribute.identifier),
+                new URI(PDPConstants.SUBJECT_ID_DEFAULT), issuer, category);
+        if (subject == null || subject.indeterminate() || subject.getAttributeValue() == null ||
+            !subject.getAttributeValue().isBag()) {
+            return null;
+        }
+        BagAttribute bagAttribute = (BagAttribute) subject.getAttributeValue();
+        if (bagAttribute.size() != 1) {
+            return null;
+        }
+        String subjectId = ((AttributeValue) bagAttribute.iterator().next()).encode();
+
+        return pipAttributeFinder.getClass().getName() + "@" + System.identityHashCode(pipAttributeFinder) + "|" +
+               attributeType + "|" + attributeId + "|" +
+               (issuer != null ? issuer : "") + "|" + subjectId;
+    }
+
     /**
      * Converts DOM object to String. This is a helper method for creating cache key
      *
@@ -44,6 +44,8 @@ public class PolicyRequestBuilder {
             Constants.SECURITY_MANAGER_PROPERTY;
     private static final int ENTITY_EXPANSION_LIMIT = 0;
     public static final String EXTERNAL_GENERAL_ENTITIES_URI = "http://xml.org/sax/features/external-general-entities";
+    private static volatile DocumentBuilderFactory documentBuilderFactory;
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>();
     /**
      * creates DOM representation of the XACML request
      *
@@ -54,23 +56,11 @@ public class PolicyRequestBuilder {
     public Element getXacmlRequest(String request) throws EntitlementException {
 
         ByteArrayInputStream inputStream;
-        DocumentBuilderFactory documentBuilderFactory;
         Document doc;
 
         inputStream = new ByteArrayInputStream(request.getBytes());
-        documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
-        documentBuilderFactory.setExpandEntityReferences(false);
-
-        SecurityManager securityManager = new SecurityManager();
-        securityManager.setEntityExpansionLimit(ENTITY_EXPANSION_LIMIT);
-        documentBuilderFactory.setAttribute(SECURITY_MANAGER_PROPERTY, securityManager);
-        DocumentBuilder documentBuilder;
         try {
-            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            documentBuilderFactory.setFeature(EXTERNAL_GENERAL_ENTITIES_URI, false);
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            documentBuilder.setEntityResolver(new CarbonEntityResolver());
+            DocumentBuilder documentBuilder = getDocumentBuilder();
             doc = documentBuilder.parse(inputStream);
         } catch (SAXException e) {
             throw new EntitlementException("Error while creating DOM from XACML request");
@@ -87,4 +77,39 @@ public class PolicyRequestBuilder {
         }
         return doc.getDocumentElement();
     }
+
+    /**
+     * Returns the document builder of the current thread. Creating the factory is costly, so the secured factory
+     * and a builder per thread are reused across requests.
+     *
+     * @return document builder
+     * @throws ParserConfigurationException if the builder can not be created
+     */
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        if (documentBuilder == null) {
+            DocumentBuilderFactory factory = documentBuilderFactory;
+            if (factory == null) {
+                factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setExpandEntityReferences(false);
+
+                SecurityManager securityManager = new SecurityManager();
+                securityManager.setEntityExpansionLimit(ENTITY_EXPANSION_LIMIT);
+                factory.setAttribute(SECURITY_MANAGER_PROPERTY, securityManager);
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                factory.setFeature(EXTERNAL_GENERAL_ENTITIES_URI, false);
+                documentBuilderFactory = factory;
+            }
+            synchronized (factory) {
+                documentBuilder = factory.newDocumentBuilder();
+            }
+            documentBuilders.set(documentBuilder);
+        } else {
+            documentBuilder.reset();
+        }
+        documentBuilder.setEntityResolver(new CarbonEntityResolver());
+        return documentBuilder;
+    }
 }
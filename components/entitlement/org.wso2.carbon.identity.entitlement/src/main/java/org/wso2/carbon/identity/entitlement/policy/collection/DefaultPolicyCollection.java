@@ -35,6 +35,7 @@ import org.wso2.balana.xacml2.Target;
 import org.wso2.balana.xacml2.TargetSection;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.EntitlementLRUCache;
+import org.wso2.carbon.identity.entitlement.cache.DecisionDependencyTracker;
 
 import java.io.Serializable;
 import java.net.URI;
@@ -42,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
@@ -71,6 +73,8 @@ public class DefaultPolicyCollection implements PolicyCollection {
     // the optional policy id used when wrapping multiple policies
     private URI parentId;
     private int maxInMemoryPolicies;
+    // index of the policy targets, used to find the policies which can match a request
+    private final PolicyTargetIndex targetIndex = new PolicyTargetIndex();
 
     ;
 
@@ -141,18 +145,23 @@ public class DefaultPolicyCollection implements PolicyCollection {
      * @return
      */
     public boolean addPolicy(AbstractPolicy policy, String identifier) {
+        boolean added;
+        TreeSet<AbstractPolicy> set;
         if (policies.containsKey(identifier)) {
             // this identifier is already is use, so see if this version is
             // already in the set
-            TreeSet<AbstractPolicy> set = policies.get(identifier);
-            return set.add(policy);
+            set = policies.get(identifier);
+            added = set.add(policy);
         } else {
             // this identifier isn't already being used, so create a new
             // set in the map for it, and add the policy
-            TreeSet<AbstractPolicy> set = new TreeSet<AbstractPolicy>(versionComparator);
+            set = new TreeSet<AbstractPolicy>(versionComparator);
             policies.put(identifier, set);
-            return set.add(policy);
+            added = set.add(policy);
         }
+        // only the most recent version takes part in matching
+        targetIndex.update(identifier, set.first());
+        return added;
     }
 
     /**
@@ -169,12 +178,19 @@ public class DefaultPolicyCollection implements PolicyCollection {
     public AbstractPolicy getEffectivePolicy(EvaluationCtx context) throws EntitlementException {
         // setup a list of matching policies
         ArrayList<AbstractPolicy> list = new ArrayList<AbstractPolicy>();
-        // get an iterator over all the identifiers
-        Iterator<TreeSet<AbstractPolicy>> it = policies.values().iterator();
 
-        while (it.hasNext()) {
-            // for each identifier, get only the most recent policy
-            AbstractPolicy policy = it.next().first();
+        // policies may have been removed from or added to the map directly, or evicted from it
+        if (targetIndex.size() != policies.size()) {
+            rebuildTargetIndex();
+        }
+
+        // only the policies whose target can match the request are matched
+        for (PolicyTargetIndex.IndexedPolicy candidate : targetIndex.getCandidates(context)) {
+            if (!policies.containsKey(candidate.getIdentifier())) {
+                continue;
+            }
+            DecisionDependencyTracker.recordPolicy(candidate.getIdentifier());
+            AbstractPolicy policy = candidate.getPolicy();
 
             // see if we match
             MatchResult match = policy.match(context);
@@ -396,7 +412,9 @@ public class DefaultPolicyCollection implements PolicyCollection {
     }
 @Override
     public boolean deletePolicy(String policyId) {
-        return false;
+        boolean removed = policies.remove(policyId) != null;
+        targetIndex.remove(policyId);
+        return removed;
     }
 @Override
     public LinkedHashMap getPolicyMap() {
@@ -406,5 +424,16 @@ public class DefaultPolicyCollection implements PolicyCollection {
     @Override
     public void setPolicyMap(LinkedHashMap policyMap) {
         this.policies = policyMap ;
+        rebuildTargetIndex();
+    }
+
+    private void rebuildTargetIndex() {
+        LinkedHashMap<String, AbstractPolicy> latestPolicies = new LinkedHashMap<String, AbstractPolicy>();
+        for (Map.Entry<String, TreeSet<AbstractPolicy>> entry : policies.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                latestPolicies.put(entry.getKey(), entry.getValue().first());
+            }
+        }
+        targetIndex.rebuild(latestPolicies);
     }
 }
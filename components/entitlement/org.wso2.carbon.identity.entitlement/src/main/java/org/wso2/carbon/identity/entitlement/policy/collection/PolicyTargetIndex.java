@@ -0,0 +1,397 @@
+/*
+ *  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.AbstractTarget;
+import org.wso2.balana.TargetMatch;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.attr.BagAttribute;
+import org.wso2.balana.attr.StringAttribute;
+import org.wso2.balana.attr.xacml3.AttributeDesignator;
+import org.wso2.balana.cond.EvaluationResult;
+import org.wso2.balana.cond.Function;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.balana.xacml3.AllOfSelection;
+import org.wso2.balana.xacml3.AnyOfSelection;
+import org.wso2.balana.xacml3.Target;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of top level policies by the string-equal matches of their XACML 3.0 <code>Target</code>. It is used to
+ * find the policies which can possibly match a request, so that <code>AbstractPolicy.match</code> is only called on
+ * those instead of on every policy in the collection.
+ * <p/>
+ * A policy is indexed when every <code>AllOf</code> of its first <code>AnyOf</code> starts with a string-equal
+ * match of a literal value against an attribute designator without an issuer. Such a policy can only match a
+ * request that carries one of those values. Policies without such an <code>AnyOf</code>, including XACML
+ * 2.0 policies and policies with an empty target, are kept in a residual list and are always matched.
+ * <p/>
+ * The request attributes are resolved through the <code>EvaluationCtx</code>, the same way the designators of the
+ * target are resolved at match time. When an attribute can not be resolved, or it is missing and a designator
+ * requires it to be present, all policies indexed on it are returned so that their match reports the error as
+ * before.
+ */
+class PolicyTargetIndex {
+
+    private static final Log log = LogFactory.getLog(PolicyTargetIndex.class);
+
+    private static final String STRING_EQUAL = "urn:oasis:names:tc:xacml:1.0:function:string-equal";
+
+    private static final Comparator<IndexedPolicy> ORDER_COMPARATOR = new Comparator<IndexedPolicy>() {
+        @Override
+        public int compare(IndexedPolicy o1, IndexedPolicy o2) {
+            return o1.order < o2.order ? -1 : (o1.order == o2.order ? 0 : 1);
+        }
+    };
+
+    private final Map<String, IndexedPolicy> indexedPolicies = new HashMap<String, IndexedPolicy>();
+    private long nextOrder;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Adds or replaces the indexed version of a policy.
+     *
+     * @param identifier policy identifier
+     * @param policy     current version of the policy
+     */
+    synchronized void update(String identifier, AbstractPolicy policy) {
+        IndexedPolicy existing = indexedPolicies.get(identifier);
+        long order = existing != null ? existing.order : nextOrder++;
+        indexedPolicies.put(identifier, new IndexedPolicy(identifier, policy, order, getIndexKeys(policy)));
+        snapshot = null;
+    }
+
+    /**
+     * Removes a policy from the index.
+     *
+     * @param identifier policy identifier
+     */
+    synchronized void remove(String identifier) {
+        if (indexedPolicies.remove(identifier) != null) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Re-creates the index from the given policies, in their iteration order.
+     *
+     * @param policies policies by identifier
+     */
+    synchronized void rebuild(Map<String, AbstractPolicy> policies) {
+        indexedPolicies.clear();
+        nextOrder = 0;
+        for (Map.Entry<String, AbstractPolicy> entry : policies.entrySet()) {
+            indexedPolicies.put(entry.getKey(), new IndexedPolicy(entry.getKey(), entry.getValue(), nextOrder++,
+                    getIndexKeys(entry.getValue())));
+        }
+        snapshot = null;
+    }
+
+    synchronized int size() {
+        return indexedPolicies.size();
+    }
+
+    /**
+     * Returns the policies which can possibly match the request, in the order they were added.
+     *
+     * @param context evaluation context of the request
+     * @return candidate policies
+     */
+    List<IndexedPolicy> getCandidates(EvaluationCtx context) {
+
+        Snapshot current = getSnapshot();
+        if (current.attributes.isEmpty()) {
+            return current.residual;
+        }
+
+        Map<String, IndexedPolicy> candidates = new HashMap<String, IndexedPolicy>();
+        for (IndexedAttribute attribute : current.attributes) {
+            EvaluationResult result = context.getAttribute(attribute.type, attribute.id, null, attribute.category);
+            if (result == null || result.indeterminate() || result.getAttributeValue() == null ||
+                    !result.getAttributeValue().isBag()) {
+                addAll(candidates, attribute.allPolicies);
+                continue;
+            }
+            BagAttribute bag = (BagAttribute) result.getAttributeValue();
+            if (bag.isEmpty()) {
+                addAll(candidates, attribute.mustBePresentPolicies);
+                continue;
+            }
+            Iterator iterator = bag.iterator();
+            while (iterator.hasNext()) {
+                List<IndexedPolicy> matching = attribute.policiesByValue.get(
+                        ((AttributeValue) iterator.next()).encode());
+                if (matching != null) {
+                    addAll(candidates, matching);
+                }
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return current.residual;
+        }
+        List<IndexedPolicy> list = new ArrayList<IndexedPolicy>(candidates.size() + current.residual.size());
+        list.addAll(candidates.values());
+        list.addAll(current.residual);
+        Collections.sort(list, ORDER_COMPARATOR);
+        return list;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = new Snapshot(indexedPolicies.values());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static void addAll(Map<String, IndexedPolicy> candidates, List<IndexedPolicy> policies) {
+        for (IndexedPolicy policy : policies) {
+            candidates.put(policy.identifier, policy);
+        }
+    }
+
+    /**
+     * Checks whether a policy can only be a candidate for requests which a previous version of it was a candidate
+     * for. That holds when the previous version was not indexed, or when every index key of the policy was also an
+     * index key of the previous version.
+     *
+     * @param policy   policy
+     * @param previous previous version of the policy
+     * @return true if the candidates of the policy are a subset of the candidates of the previous version
+     */
+    static boolean isCandidateSubset(AbstractPolicy policy, AbstractPolicy previous) {
+        List<IndexKey> previousKeys = getIndexKeys(previous);
+        if (previousKeys == null) {
+            return true;
+        }
+        List<IndexKey> keys = getIndexKeys(policy);
+        return keys != null && new HashSet<IndexKey>(previousKeys).containsAll(keys);
+    }
+
+    /**
+     * Finds the index keys of a policy.
+     *
+     * @param policy policy
+     * @return one key per <code>AllOf</code> of the indexed <code>AnyOf</code>, or null if the policy can not be
+     * indexed
+     */
+    private static List<IndexKey> getIndexKeys(AbstractPolicy policy) {
+
+        AbstractTarget target = policy.getTarget();
+        if (!(target instanceof Target)) {
+            return null;
+        }
+        List<AnyOfSelection> anyOfSelections = ((Target) target).getAnyOfSelections();
+        if (anyOfSelections == null) {
+            return null;
+        }
+
+        // only the first match of the first AnyOf is looked at, as those are the ones evaluated first when the
+        // target is matched
+        if (!anyOfSelections.isEmpty()) {
+            List<AllOfSelection> allOfSelections = anyOfSelections.get(0).getAllOfSelections();
+            if (allOfSelections != null && !allOfSelections.isEmpty()) {
+                List<IndexKey> keys = new ArrayList<IndexKey>(allOfSelections.size());
+                for (AllOfSelection allOfSelection : allOfSelections) {
+                    List<TargetMatch> matches = allOfSelection.getMatches();
+                    IndexKey key = matches == null || matches.isEmpty() ? null : getIndexKey(matches.get(0));
+                    if (key == null) {
+                        keys = null;
+                        break;
+                    }
+                    keys.add(key);
+                }
+                if (keys != null) {
+                    return keys;
+                }
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Target of policy " + policy.getId() + " can not be indexed. It is matched against every " +
+                    "request");
+        }
+        return null;
+    }
+
+    private static IndexKey getIndexKey(TargetMatch match) {
+
+        Function function = match.getMatchFunction();
+        if (function == null || !STRING_EQUAL.equals(function.getIdentifier().toString())) {
+            return null;
+        }
+        if (!(match.getMatchEvaluatable() instanceof AttributeDesignator) || match.getMatchValue() == null) {
+            return null;
+        }
+        AttributeDesignator designator = (AttributeDesignator) match.getMatchEvaluatable();
+        if (designator.getIssuer() != null || designator.getCategory() == null ||
+                !StringAttribute.identifier.equals(designator.getType().toString())) {
+            return null;
+        }
+        return new IndexKey(designator.getCategory(), designator.getId(), designator.getType(),
+                designator.mustBePresent(), match.getMatchValue().encode());
+    }
+
+    /**
+     * Policy with the keys it is indexed on.
+     */
+    static class IndexedPolicy {
+
+        private final String identifier;
+        private final AbstractPolicy policy;
+        private final long order;
+        private final List<IndexKey> keys;
+
+        private IndexedPolicy(String identifier, AbstractPolicy policy, long order, List<IndexKey> keys) {
+            this.identifier = identifier;
+            this.policy = policy;
+            this.order = order;
+            this.keys = keys;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        AbstractPolicy getPolicy() {
+            return policy;
+        }
+    }
+
+    private static class IndexKey {
+
+        private final URI category;
+        private final URI id;
+        private final URI type;
+        private final boolean mustBePresent;
+        private final String value;
+
+        private IndexKey(URI category, URI id, URI type, boolean mustBePresent, String value) {
+            this.category = category;
+            this.id = id;
+            this.type = type;
+            this.mustBePresent = mustBePresent;
+            this.value = value;
+        }
+
+        private String getAttributeKey() {
+            return category + "|" + id + "|" + type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IndexKey)) {
+                return false;
+            }
+            IndexKey that = (IndexKey) o;
+            return mustBePresent == that.mustBePresent && category.equals(that.category) && id.equals(that.id) &&
+                   type.equals(that.type) && value.equals(that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return getAttributeKey().hashCode() * 31 + value.hashCode();
+        }
+    }
+
+    /**
+     * Policies indexed on one request attribute.
+     */
+    private static class IndexedAttribute {
+
+        private final URI category;
+        private final URI id;
+        private final URI type;
+        private final Map<String, List<IndexedPolicy>> policiesByValue = new HashMap<String, List<IndexedPolicy>>();
+        private final List<IndexedPolicy> allPolicies = new ArrayList<IndexedPolicy>();
+        private final List<IndexedPolicy> mustBePresentPolicies = new ArrayList<IndexedPolicy>();
+
+        private IndexedAttribute(IndexKey key) {
+            this.category = key.category;
+            this.id = key.id;
+            this.type = key.type;
+        }
+    }
+
+    /**
+     * Immutable view of the index used by the request threads. It is re-created on the first request after the
+     * policies are changed.
+     */
+    private static class Snapshot {
+
+        private final Collection<IndexedAttribute> attributes;
+        private final List<IndexedPolicy> residual;
+
+        private Snapshot(Collection<IndexedPolicy> indexedPolicies) {
+
+            Map<String, IndexedAttribute> attributeMap = new LinkedHashMap<String, IndexedAttribute>();
+            List<IndexedPolicy> residualPolicies = new ArrayList<IndexedPolicy>();
+            for (IndexedPolicy indexedPolicy : indexedPolicies) {
+                if (indexedPolicy.keys == null) {
+                    residualPolicies.add(indexedPolicy);
+                    continue;
+                }
+                for (IndexKey key : indexedPolicy.keys) {
+                    IndexedAttribute attribute = attributeMap.get(key.getAttributeKey());
+                    if (attribute == null) {
+                        attribute = new IndexedAttribute(key);
+                        attributeMap.put(key.getAttributeKey(), attribute);
+                    }
+                    List<IndexedPolicy> policies = attribute.policiesByValue.get(key.value);
+                    if (policies == null) {
+                        policies = new ArrayList<IndexedPolicy>();
+                        attribute.policiesByValue.put(key.value, policies);
+                    }
+                    policies.add(indexedPolicy);
+                    attribute.allPolicies.add(indexedPolicy);
+                    if (key.mustBePresent) {
+                        attribute.mustBePresentPolicies.add(indexedPolicy);
+                    }
+                }
+            }
+            Collections.sort(residualPolicies, ORDER_COMPARATOR);
+            this.attributes = attributeMap.values();
+            this.residual = Collections.unmodifiableList(residualPolicies);
+        }
+    }
+}
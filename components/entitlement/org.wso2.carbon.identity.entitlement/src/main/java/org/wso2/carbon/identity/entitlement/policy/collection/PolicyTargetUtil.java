@@ -0,0 +1,43 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.wso2.balana.AbstractPolicy;
+
+/**
+ * Utilities on the targets of top level policies, as seen by the policy collections of this package.
+ */
+public class PolicyTargetUtil {
+
+    private PolicyTargetUtil() {
+    }
+
+    /**
+     * Checks whether an updated policy can only be matched against requests that the previous version of it was
+     * matched against by {@link SimplePolicyCollection} and {@link DefaultPolicyCollection}. When it can, only the
+     * decisions which considered the previous version are affected by the update.
+     *
+     * @param policy   updated policy
+     * @param previous previous version of the policy, may be null
+     * @return true if the update does not widen the requests the policy is matched against
+     */
+    public static boolean isTargetNarrowed(AbstractPolicy policy, AbstractPolicy previous) {
+        return policy != null && previous != null && PolicyTargetIndex.isCandidateSubset(policy, previous);
+    }
+}
@@ -29,8 +29,10 @@ import org.wso2.balana.VersionConstraints;
 import org.wso2.balana.combine.PolicyCombiningAlgorithm;
 import org.wso2.balana.ctx.EvaluationCtx;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
+import org.wso2.carbon.identity.entitlement.cache.DecisionDependencyTracker;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -58,6 +60,10 @@ public class SimplePolicyCollection implements PolicyCollection {
      * the optional policy id used when wrapping multiple policies
      */
     private URI parentId;
+    /**
+     * index of the policy targets, used to find the policies which can match a request
+     */
+    private final PolicyTargetIndex targetIndex = new PolicyTargetIndex();
 
     @Override
     public void init(Properties properties) throws Exception {
@@ -78,9 +84,16 @@ public class SimplePolicyCollection implements PolicyCollection {
         // setup a list of matching policies
         ArrayList<AbstractPolicy> list = new ArrayList<AbstractPolicy>();
 
-        for (Map.Entry<URI, AbstractPolicy> entry : policyCollection.entrySet()) {
+        // policies may have been removed from or added to the map directly
+        if (targetIndex.size() != policyCollection.size()) {
+            rebuildTargetIndex();
+        }
+
+        // only the policies whose target can match the request are matched
+        for (PolicyTargetIndex.IndexedPolicy candidate : targetIndex.getCandidates(context)) {
 
-            AbstractPolicy policy = entry.getValue();
+            DecisionDependencyTracker.recordPolicy(candidate.getIdentifier());
+            AbstractPolicy policy = candidate.getPolicy();
 
             // see if we match
             MatchResult match = policy.match(context);
@@ -152,7 +165,9 @@ public class SimplePolicyCollection implements PolicyCollection {
     }
 
     private synchronized boolean addPolicy(URI identifier, AbstractPolicy policy) {
-        return policyCollection.put(identifier, policy) != null;
+        boolean replaced = policyCollection.put(identifier, policy) != null;
+        targetIndex.update(identifier.toString(), policy);
+        return replaced;
     }
 
     @Override
@@ -163,7 +178,15 @@ public class SimplePolicyCollection implements PolicyCollection {
     @Override
     public boolean deletePolicy(String policyId) {
 
-        return this.policyCollection.remove(policyId) != null ;
+        boolean removed = false;
+        try {
+            // policies are keyed by their URI
+            removed = this.policyCollection.remove(new URI(policyId)) != null;
+        } catch (URISyntaxException e) {
+            log.error("Invalid policy id : " + policyId, e);
+        }
+        targetIndex.remove(policyId);
+        return removed;
     }
 
     @Override
@@ -174,5 +197,14 @@ public class SimplePolicyCollection implements PolicyCollection {
     @Override
     public void setPolicyMap(LinkedHashMap policyMap) {
         this.policyCollection = policyMap ;
+        rebuildTargetIndex();
+    }
+
+    private void rebuildTargetIndex() {
+        LinkedHashMap<String, AbstractPolicy> policies = new LinkedHashMap<String, AbstractPolicy>();
+        for (Map.Entry<URI, AbstractPolicy> entry : policyCollection.entrySet()) {
+            policies.put(entry.getKey().toString(), entry.getValue());
+        }
+        targetIndex.rebuild(policies);
     }
 }
@@ -53,9 +53,11 @@ public abstract class AbstractPolicyFinderModule implements PolicyFinderModule {
 
         EntitlementEngine.getInstance().getPolicyCache().invalidateCache(policyId, action);
 
-
-        EntitlementEngine.getInstance().clearDecisionCache();
-
+        // with selective invalidation the decisions which depend on the policy are evicted once the change is
+        // applied by the policy finder
+        if (!EntitlementEngine.getInstance().isSelectiveDecisionInvalidation()) {
+            EntitlementEngine.getInstance().clearDecisionCache();
+        }
     }
 
     public static void invalidateCache() {
@@ -32,67 +32,96 @@ import org.wso2.balana.ctx.Status;
 import org.wso2.balana.finder.PolicyFinder;
 import org.wso2.balana.finder.PolicyFinderResult;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
-import org.wso2.carbon.identity.entitlement.PolicyOrderComparator;
+import org.wso2.carbon.identity.entitlement.cache.DecisionDependencyTracker;
+import org.wso2.carbon.identity.entitlement.cache.PolicyCache;
 import org.wso2.carbon.identity.entitlement.cache.PolicyStatus;
 import org.wso2.carbon.identity.entitlement.common.EntitlementConstants;
-import org.wso2.carbon.identity.entitlement.dto.PolicyDTO;
 import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
 import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
 import org.wso2.carbon.identity.entitlement.policy.PolicyReader;
+import org.wso2.carbon.identity.entitlement.policy.collection.DefaultPolicyCollection;
 import org.wso2.carbon.identity.entitlement.policy.collection.PolicyCollection;
+import org.wso2.carbon.identity.entitlement.policy.collection.PolicyTargetUtil;
 import org.wso2.carbon.identity.entitlement.policy.collection.SimplePolicyCollection;
 import org.wso2.carbon.identity.entitlement.policy.store.DefaultPolicyDataStore;
 import org.wso2.carbon.identity.entitlement.policy.store.PolicyDataStore;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Policy finder of the WSO2 entitlement engine.  This an implementation of <code>PolicyFinderModule</code>
  * of Balana engine. Extensions can be plugged with this.
+ * <p/>
+ * Requests are evaluated against a policy collection which is never modified once it is in use. Policy changes
+ * published through the policy cache are applied by a background thread, which builds a new collection from the
+ * current one and swaps it in, so requests never wait for policies to be loaded. Once the new collection is in use,
+ * only the cached decisions which depend on the changed policies are evicted.
  */
 public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModule {
 
     private static Log log = LogFactory.getLog(CarbonPolicyFinder.class);
+
+    private static final ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "EntitlementPolicyReloader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     public PolicyReader policyReader;
     private List<PolicyFinderModule> finderModules = null;
-    private PolicyCollection policyCollection;
-
-    private List<PolicyDTO> policyCollectionOrder = new ArrayList<PolicyDTO>();
+    private volatile PolicyCollection policyCollection;
+    private PolicyCombiningAlgorithm policyCombiningAlgorithm;
 
     private PolicyFinder finder;
+    private volatile Map<URI, AbstractPolicy> policyReferenceCache = null;
+    private int maxReferenceCacheEntries = PDPConstants.MAX_NO_OF_IN_MEMORY_POLICIES;
+
     /**
-     * this is a flag to keep whether init it has finished or not.
+     * policies are loaded by one thread at a time, either by init or by the reload task
      */
-    private volatile boolean initFinish;
-    private LinkedHashMap<URI, AbstractPolicy> policyReferenceCache = null;
-    private int maxReferenceCacheEntries = PDPConstants.MAX_NO_OF_IN_MEMORY_POLICIES;
+    private final Object loadLock = new Object();
+    /**
+     * policy changes which are not applied yet, guarded by the list itself
+     */
+    private final List<PolicyStatus> pendingChanges = new ArrayList<PolicyStatus>();
+    private boolean pendingFullReload;
+    private boolean reloadScheduled;
 
 
     @Override
     public void init(PolicyFinder finder) {
-        initFinish = false;
         this.finder = finder;
-        init();
-        policyReferenceCache.clear();
+        synchronized (loadLock) {
+            init();
+        }
     }
 
-    private synchronized void init() {
-
-        if (initFinish) {
-            return;
-        }
+    /**
+     * Loads all the policies from the finder modules in to a new policy collection. Must be called holding the
+     * load lock.
+     */
+    private void init() {
 
         log.info("Initializing of policy store is started at :  " + new Date());
 
@@ -107,17 +136,6 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
             }
         }
 
-        policyReferenceCache = new LinkedHashMap<URI, AbstractPolicy>() {
-
-            @Override
-            protected boolean removeEldestEntry(Map.Entry eldest) {
-                // oldest entry of the cache would be removed when max cache size become, i.e 50
-                return size() > maxReferenceCacheEntries;
-            }
-
-        };
-
-        PolicyCombiningAlgorithm policyCombiningAlgorithm = null;
         // get registered finder modules
         Map<PolicyFinderModule, Properties> finderModules = EntitlementServiceComponent.
                 getEntitlementConfig().getPolicyFinderModules();
@@ -126,16 +144,7 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
             this.finderModules = new ArrayList<PolicyFinderModule>(finderModules.keySet());
         }
 
-        PolicyCollection tempPolicyCollection = null;
-
-        // get policy collection
-        Map<PolicyCollection, Properties> policyCollections = EntitlementServiceComponent.
-                getEntitlementConfig().getPolicyCollections();
-        if (policyCollections != null && policyCollections.size() > 0) {
-            tempPolicyCollection = policyCollections.entrySet().iterator().next().getKey();
-        } else {
-            tempPolicyCollection = new SimplePolicyCollection();
-        }
+        PolicyCollection tempPolicyCollection = createPolicyCollection();
 
         // get policy reader
         policyReader = PolicyReader.getInstance(finder);
@@ -160,14 +169,9 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
             for (PolicyFinderModule finderModule : this.finderModules) {
                 log.info("Start retrieving policies from " + finderModule + " at : " + new Date());
                 String[] policies = finderModule.getActivePolicies();
-                for (int a = 0; a < policies.length; a++) {
-                    String policy = policies[a];
+                for (String policy : policies) {
                     AbstractPolicy abstractPolicy = policyReader.getPolicy(policy);
                     if (abstractPolicy != null) {
-                        PolicyDTO policyDTO = new PolicyDTO();
-                        policyDTO.setPolicyId(abstractPolicy.getId().toString());
-                        policyDTO.setPolicyOrder(a);
-                        policyCollectionOrder.add(policyDTO);
                         tempPolicyCollection.addPolicy(abstractPolicy);
                     }
                 }
@@ -178,8 +182,8 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
 
         }
 
+        policyReferenceCache = createPolicyReferenceCache();
         policyCollection = tempPolicyCollection;
-        initFinish = true;
         log.info("Initializing of policy store is finished at :  " + new Date());
     }
 
@@ -198,88 +202,294 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
         return true;
     }
 
+    /**
+     * Picks up the policy changes published through the policy cache of the current tenant and schedules them to
+     * be applied in the background. Until they are applied, requests are evaluated against the current policies.
+     *
+     * @param policyCache policy cache of the current tenant
+     */
+    public void checkForPolicyChanges(PolicyCache policyCache) {
 
-    private void orderPolicyCache() {
-        LinkedHashMap<URI, AbstractPolicy> policyMap = policyCollection.getPolicyMap();
-        Collections.sort(policyCollectionOrder, new PolicyOrderComparator());
-        LinkedHashMap<URI, AbstractPolicy> newPolicyMap = new LinkedHashMap<URI, AbstractPolicy>();
-        Iterator<PolicyDTO> policyDTOIterator = policyCollectionOrder.iterator();
-        while (policyDTOIterator.hasNext()) {
-            try {
-                URI policyURI = new URI(policyDTOIterator.next().getPolicyId());
-                newPolicyMap.put(policyURI, policyMap.get(policyURI));
+        boolean fullReload = policyCache.isInvalidate();
+        Collection<PolicyStatus> changes = policyCache.drainInvalidatedPolicies();
+        if (!fullReload && changes.isEmpty()) {
+            return;
+        }
 
-            } catch (URISyntaxException e) {
-                e.printStackTrace();
+        synchronized (pendingChanges) {
+            pendingFullReload = pendingFullReload || fullReload;
+            pendingChanges.addAll(changes);
+            if (reloadScheduled) {
+                return;
             }
+            reloadScheduled = true;
+        }
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        if (log.isDebugEnabled()) {
+            log.debug("Policy changes are received. Scheduled re-loading of policies of tenantId : " +
+                      carbonContext.getTenantId());
         }
+        reloadExecutor.execute(new PolicyReloadTask(carbonContext.getTenantId(), carbonContext.getTenantDomain()));
     }
 
-    @Override
-    public PolicyFinderResult findPolicy(EvaluationCtx context) {
+    /**
+     * Applies the pending policy changes, if any.
+     *
+     * @return false if there were no pending changes
+     */
+    private boolean applyPendingChanges() {
+
+        boolean fullReload;
+        List<PolicyStatus> changes;
+        synchronized (pendingChanges) {
+            if (!pendingFullReload && pendingChanges.isEmpty()) {
+                reloadScheduled = false;
+                return false;
+            }
+            fullReload = pendingFullReload;
+            changes = new ArrayList<PolicyStatus>(pendingChanges);
+            pendingFullReload = false;
+            pendingChanges.clear();
+        }
 
-        if (EntitlementEngine.getInstance().getPolicyCache().isInvalidate()) {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            Set<String> changedPolicyIds = new HashSet<String>();
+            boolean allDecisionsAffected;
+            synchronized (loadLock) {
+                if (fullReload) {
+                    init();
+                    allDecisionsAffected = true;
+                } else {
+                    allDecisionsAffected = applyChanges(changes, changedPolicyIds);
+                }
+            }
 
-            init(this.finder);
-            policyReferenceCache.clear();
-            EntitlementEngine.getInstance().clearDecisionCache();
+            if (allDecisionsAffected) {
+                EntitlementEngine.getInstance().clearDecisionCache();
+            } else {
+                EntitlementEngine.getInstance().invalidateDecisions(changedPolicyIds);
+            }
             if (log.isDebugEnabled()) {
-                int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
-                log.debug("Invalidation cache message is received. " +
-                          "Re-initialized policy finder module of current node and invalidate decision " +
-                          "caching for tenantId : " + tenantId);
+                log.debug("Re-loaded policies of tenantId : " + tenantId + (allDecisionsAffected ?
+                          " and cleared the decision cache" : " and evicted the decisions of policies " +
+                          changedPolicyIds));
             }
-        } else {
-            Collection<PolicyStatus> policies =
-                    EntitlementEngine.getInstance().getPolicyCache().getInvalidatedPolicies();
-            if (policies != null) {
-                if (policies.size() > 0) {
-                    synchronized (policies) {
-                        boolean isReorder = false;
-                        policyReferenceCache.clear();
-                        EntitlementEngine.getInstance().clearDecisionCache();
-                        for (PolicyStatus policyStatus : policies) {
-
-                            if (EntitlementConstants.PolicyPublish.ACTION_DELETE
-                                    .equals(policyStatus.getPolicyAction())) {
-                                policyCollection.deletePolicy(policyStatus.getPolicyId());
-                                policyCollectionOrder.remove(new PolicyDTO(policyStatus.getPolicyId()));
-                            } else if (EntitlementConstants.PolicyPublish.ACTION_UPDATE
-                                    .equals(policyStatus.getPolicyAction())) {
-                                AbstractPolicy abstractPolicy = loadPolicy(policyStatus.getPolicyId());
-                                policyCollection.addPolicy(abstractPolicy);
-                            } else if (EntitlementConstants.PolicyPublish.ACTION_CREATE
-                                    .equals(policyStatus.getPolicyAction())) {
-                                AbstractPolicy abstractPolicy = loadPolicy(policyStatus.getPolicyId());
-                                policyCollection.addPolicy(abstractPolicy);
-                                isReorder = true;
-                            } else if (EntitlementConstants.PolicyPublish.ACTION_ORDER
-                                    .equals(policyStatus.getPolicyAction())) {
-                                int order = getPolicyOrder(policyStatus.getPolicyId());
-                                if (order != -1) {
-                                    PolicyDTO policyDTO = new PolicyDTO(policyStatus.getPolicyId());
-                                    if (policyCollectionOrder.indexOf(policyDTO) != -1) {
-                                        policyCollectionOrder.get(policyCollectionOrder.indexOf(policyDTO))
-                                                .setPolicyOrder(order);
-                                        isReorder = true;
-                                    }
-                                }
-                            }
+        } catch (RuntimeException e) {
+            log.error("Error while applying policy changes of tenantId : " + tenantId, e);
+        }
+        return true;
+    }
 
-                        }
-                        if (isReorder) {
-                            orderPolicyCache();
-                        }
-                        policies.clear();
+    /**
+     * Builds a new policy collection from the current one with the given changes applied, and puts it in to use.
+     * Must be called holding the load lock.
+     *
+     * @param changes          policy changes
+     * @param changedPolicyIds populated with the identifiers of the changed policies
+     * @return true if any cached decision may be affected by the changes, false if only the decisions which
+     * depend on the changed policies are
+     */
+    private boolean applyChanges(List<PolicyStatus> changes, Set<String> changedPolicyIds) {
+
+        PolicyCollection currentCollection = policyCollection;
+        Map<String, List<AbstractPolicy>> policies = getPolicies(currentCollection);
+        if (policies == null) {
+            // policies can not be read out of a custom policy collection
+            init();
+            return true;
+        }
+
+        boolean allDecisionsAffected = !isDependencyRecorded(currentCollection);
+        boolean reorder = false;
+        for (PolicyStatus policyStatus : changes) {
+            String policyId = policyStatus.getPolicyId();
+            String action = policyStatus.getPolicyAction();
+            changedPolicyIds.add(policyId);
+
+            if (EntitlementConstants.PolicyPublish.ACTION_DELETE.equals(action) ||
+                EntitlementConstants.PolicyPublish.ACTION_DISABLE.equals(action)) {
+                policies.remove(policyId);
+            } else if (EntitlementConstants.PolicyPublish.ACTION_UPDATE.equals(action) ||
+                       EntitlementConstants.PolicyPublish.ACTION_CREATE.equals(action) ||
+                       EntitlementConstants.PolicyPublish.ACTION_ENABLE.equals(action)) {
+                AbstractPolicy abstractPolicy = loadPolicy(policyId);
+                if (abstractPolicy == null) {
+                    log.warn("Policy " + policyId + " can not be loaded from the policy finder modules. It is " +
+                             "removed from the policy store");
+                    policies.remove(policyId);
+                    continue;
+                }
+                List<AbstractPolicy> versions = policies.get(policyId);
+                if (versions == null) {
+                    // a new policy may apply to any request
+                    versions = new ArrayList<AbstractPolicy>();
+                    policies.put(policyId, versions);
+                    allDecisionsAffected = true;
+                    reorder = true;
+                } else if (!PolicyTargetUtil.isTargetNarrowed(abstractPolicy, versions.get(versions.size() - 1))) {
+                    // the updated policy may apply to requests which the previous version did not
+                    allDecisionsAffected = true;
+                }
+                versions.add(abstractPolicy);
+            } else if (EntitlementConstants.PolicyPublish.ACTION_ORDER.equals(action)) {
+                reorder = true;
+            }
+        }
+
+        if (reorder) {
+            policies = orderPolicies(policies);
+        }
+
+        PolicyCollection newPolicyCollection = createPolicyCollection();
+        newPolicyCollection.setPolicyCombiningAlgorithm(policyCombiningAlgorithm);
+        for (List<AbstractPolicy> versions : policies.values()) {
+            for (AbstractPolicy abstractPolicy : versions) {
+                newPolicyCollection.addPolicy(abstractPolicy);
+            }
+        }
+
+        policyReferenceCache = createPolicyReferenceCache();
+        policyCollection = newPolicyCollection;
+        return allDecisionsAffected;
+    }
+
+    /**
+     * Reads the policies of a collection, keeping their order.
+     *
+     * @param collection policy collection
+     * @return versions of the policies by policy id, or null if the collection does not expose its policies
+     */
+    private static Map<String, List<AbstractPolicy>> getPolicies(PolicyCollection collection) {
+
+        Map policyMap = collection.getPolicyMap();
+        if (policyMap == null) {
+            return null;
+        }
+        Map<String, List<AbstractPolicy>> policies = new LinkedHashMap<String, List<AbstractPolicy>>();
+        for (Object value : policyMap.values()) {
+            if (value instanceof AbstractPolicy) {
+                addPolicy(policies, (AbstractPolicy) value);
+            } else if (value instanceof Collection) {
+                // all the versions of a policy
+                for (Object version : (Collection) value) {
+                    if (version instanceof AbstractPolicy) {
+                        addPolicy(policies, (AbstractPolicy) version);
                     }
+                }
+            }
+        }
+        return policies;
+    }
 
+    private static void addPolicy(Map<String, List<AbstractPolicy>> policies, AbstractPolicy policy) {
+        String policyId = policy.getId().toString();
+        List<AbstractPolicy> versions = policies.get(policyId);
+        if (versions == null) {
+            versions = new ArrayList<AbstractPolicy>();
+            policies.put(policyId, versions);
+        }
+        versions.add(policy);
+    }
+
+    /**
+     * Orders the policies as the finder modules order them. Policies which are not known to the finder modules
+     * keep their current order, after the others.
+     *
+     * @param policies versions of the policies by policy id
+     * @return ordered policies
+     */
+    private Map<String, List<AbstractPolicy>> orderPolicies(Map<String, List<AbstractPolicy>> policies) {
 
+        final Map<String, Integer> policyOrder = new HashMap<String, Integer>();
+        if (this.finderModules != null) {
+            for (PolicyFinderModule finderModule : this.finderModules) {
+                String[] policyIds = finderModule.getOrderedPolicyIdentifiers();
+                if (policyIds == null) {
+                    continue;
+                }
+                for (String policyId : policyIds) {
+                    if (!policyOrder.containsKey(policyId)) {
+                        policyOrder.put(policyId, policyOrder.size());
+                    }
                 }
             }
         }
 
+        List<String> policyIds = new ArrayList<String>(policies.keySet());
+        Collections.sort(policyIds, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                Integer order1 = policyOrder.get(o1);
+                Integer order2 = policyOrder.get(o2);
+                int value1 = order1 != null ? order1 : Integer.MAX_VALUE;
+                int value2 = order2 != null ? order2 : Integer.MAX_VALUE;
+                return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+            }
+        });
+
+        Map<String, List<AbstractPolicy>> orderedPolicies = new LinkedHashMap<String, List<AbstractPolicy>>();
+        for (String policyId : policyIds) {
+            orderedPolicies.put(policyId, policies.get(policyId));
+        }
+        return orderedPolicies;
+    }
+
+    /**
+     * Creates an empty policy collection of the configured type.
+     *
+     * @return policy collection
+     */
+    private PolicyCollection createPolicyCollection() {
+
+        Map<PolicyCollection, Properties> policyCollections = EntitlementServiceComponent.
+                getEntitlementConfig().getPolicyCollections();
+        if (policyCollections != null && policyCollections.size() > 0) {
+            Map.Entry<PolicyCollection, Properties> entry = policyCollections.entrySet().iterator().next();
+            try {
+                PolicyCollection collection = entry.getKey().getClass().newInstance();
+                collection.init(entry.getValue());
+                return collection;
+            } catch (Exception e) {
+                log.error("Error while creating policy collection " + entry.getKey().getClass().getName() +
+                          ". Using the default policy collection", e);
+            }
+        }
+        return new SimplePolicyCollection();
+    }
+
+    private Map<URI, AbstractPolicy> createPolicyReferenceCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<URI, AbstractPolicy>() {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                // oldest entry of the cache would be removed when max cache size become, i.e 50
+                return size() > maxReferenceCacheEntries;
+            }
+
+        });
+    }
+
+    /**
+     * @param collection policy collection
+     * @return true if the collection records the policies each request is matched against
+     */
+    private static boolean isDependencyRecorded(PolicyCollection collection) {
+        return collection.getClass() == SimplePolicyCollection.class ||
+               collection.getClass() == DefaultPolicyCollection.class;
+    }
+
+    @Override
+    public PolicyFinderResult findPolicy(EvaluationCtx context) {
+
+        PolicyCollection collection = policyCollection;
+        if (!isDependencyRecorded(collection)) {
+            DecisionDependencyTracker.recordAllPolicies();
+        }
+
         try {
-            AbstractPolicy policy = policyCollection.getEffectivePolicy(context);
+            AbstractPolicy policy = collection.getEffectivePolicy(context);
             if (policy == null) {
                 return new PolicyFinderResult();
             } else {
@@ -309,24 +519,15 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
         return null;
     }
 
-    private int getPolicyOrder(String policyId) {
-        int order = -1;
-        if (this.finderModules != null) {
-
-            for (PolicyFinderModule finderModule : this.finderModules) {
-                if ((order = finderModule.getPolicyOrder(policyId)) != -1) {
-                    break;
-                }
-            }
-        }
-        return order;
-    }
-
     @Override
     public PolicyFinderResult findPolicy(URI idReference, int type, VersionConstraints constraints,
                                          PolicyMetaData parentMetaData) {
 
-        AbstractPolicy policy = policyReferenceCache.get(idReference);
+        // referenced policies are not tracked one by one, a decision using them depends on every policy
+        DecisionDependencyTracker.recordAllPolicies();
+
+        Map<URI, AbstractPolicy> referenceCache = policyReferenceCache;
+        AbstractPolicy policy = referenceCache.get(idReference);
 
         if (policy == null) {
             if (this.finderModules != null) {
@@ -335,7 +536,7 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
                     if (policyString != null) {
                         policy = policyReader.getPolicy(policyString);
                         if (policy != null) {
-                            policyReferenceCache.put(idReference, policy);
+                            referenceCache.put(idReference, policy);
                             break;
                         }
                     }
@@ -363,4 +564,35 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
     public void clearPolicyCache() {
         EntitlementEngine.getInstance().getPolicyCache().clear();
     }
+
+    /**
+     * Applies the policy changes of a tenant in the tenant flow of that tenant.
+     */
+    private class PolicyReloadTask implements Runnable {
+
+        private final int tenantId;
+        private final String tenantDomain;
+
+        private PolicyReloadTask(int tenantId, String tenantDomain) {
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+        }
+
+        @Override
+        public void run() {
+            PrivilegedCarbonContext.startTenantFlow();
+            try {
+                PrivilegedCarbonContext context = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                context.setTenantId(tenantId);
+                context.setTenantDomain(tenantDomain);
+                // changes received while applying are applied in the same run
+                boolean applied = true;
+                while (applied) {
+                    applied = applyPendingChanges();
+                }
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+    }
 }
@@ -25,6 +25,8 @@ public class EntitlementService {
 
         public String getDecisionByAttributes(String subject, String resource, String action, List<String> environment, String sessionID) throws EntitlementException, org.apache.thrift.TException;
 
+        public List<String> getDecisionsByAttributes(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID) throws EntitlementException, org.apache.thrift.TException;
+
     }
 
     public interface AsyncIface {
@@ -33,6 +35,8 @@ public class EntitlementService {
 
         public void getDecisionByAttributes(String subject, String resource, String action, List<String> environment, String sessionID, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getDecisionByAttributes_call> resultHandler) throws org.apache.thrift.TException;
 
+        public void getDecisionsByAttributes(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getDecisionsByAttributes_call> resultHandler) throws org.apache.thrift.TException;
+
     }
 
     public static class Client extends org.apache.thrift.TServiceClient implements Iface {
@@ -95,6 +99,33 @@ public class EntitlementService {
             throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getDecisionByAttributes failed: unknown result");
         }
 
+        public List<String> getDecisionsByAttributes(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID) throws EntitlementException, org.apache.thrift.TException {
+            send_getDecisionsByAttributes(subjects, resources, actions, environment, sessionID);
+            return recv_getDecisionsByAttributes();
+        }
+
+        public void send_getDecisionsByAttributes(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID) throws org.apache.thrift.TException {
+            getDecisionsByAttributes_args args = new getDecisionsByAttributes_args();
+            args.setSubjects(subjects);
+            args.setResources(resources);
+            args.setActions(actions);
+            args.setEnvironment(environment);
+            args.setSessionID(sessionID);
+            sendBase("getDecisionsByAttributes", args);
+        }
+
+        public List<String> recv_getDecisionsByAttributes() throws EntitlementException, org.apache.thrift.TException {
+            getDecisionsByAttributes_result result = new getDecisionsByAttributes_result();
+            receiveBase(result, "getDecisionsByAttributes");
+            if (result.isSetSuccess()) {
+                return result.success;
+            }
+            if (result.e != null) {
+                throw result.e;
+            }
+            throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getDecisionsByAttributes failed: unknown result");
+        }
+
         public static class Factory implements org.apache.thrift.TServiceClientFactory<Client> {
             public Factory() {
             }
@@ -129,6 +160,13 @@ public class EntitlementService {
             ___manager.call(method_call);
         }
 
+        public void getDecisionsByAttributes(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID, org.apache.thrift.async.AsyncMethodCallback<getDecisionsByAttributes_call> resultHandler) throws org.apache.thrift.TException {
+            checkReady();
+            getDecisionsByAttributes_call method_call = new getDecisionsByAttributes_call(subjects, resources, actions, environment, sessionID, resultHandler, this, ___protocolFactory, ___transport);
+            this.___currentMethod = method_call;
+            ___manager.call(method_call);
+        }
+
         public static class Factory implements org.apache.thrift.async.TAsyncClientFactory<AsyncClient> {
             private org.apache.thrift.async.TAsyncClientManager clientManager;
             private org.apache.thrift.protocol.TProtocolFactory protocolFactory;
@@ -210,6 +248,44 @@ public class EntitlementService {
             }
         }
 
+        public static class getDecisionsByAttributes_call extends org.apache.thrift.async.TAsyncMethodCall {
+            private List<String> subjects;
+            private List<String> resources;
+            private List<String> actions;
+            private List<String> environment;
+            private String sessionID;
+
+            public getDecisionsByAttributes_call(List<String> subjects, List<String> resources, List<String> actions, List<String> environment, String sessionID, org.apache.thrift.async.AsyncMethodCallback<getDecisionsByAttributes_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+                super(client, protocolFactory, transport, resultHandler, false);
+                this.subjects = subjects;
+                this.resources = resources;
+                this.actions = actions;
+                this.environment = environment;
+                this.sessionID = sessionID;
+            }
+
+            public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+                prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("getDecisionsByAttributes", org.apache.thrift.protocol.TMessageType.CALL, 0));
+                getDecisionsByAttributes_args args = new getDecisionsByAttributes_args();
+                args.setSubjects(subjects);
+                args.setResources(resources);
+                args.setActions(actions);
+                args.setEnvironment(environment);
+                args.setSessionID(sessionID);
+                args.write(prot);
+                prot.writeMessageEnd();
+            }
+
+            public List<String> getResult() throws EntitlementException, org.apache.thrift.TException {
+                if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+                    throw new IllegalStateException("Method call not finished!");
+                }
+                org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+                org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+                return (new Client(prot)).recv_getDecisionsByAttributes();
+            }
+        }
+
     }
 
     public static class Processor<I extends Iface> extends org.apache.thrift.TBaseProcessor implements org.apache.thrift.TProcessor {
@@ -226,6 +302,7 @@ public class EntitlementService {
         private static <I extends Iface> Map<String, org.apache.thrift.ProcessFunction<I, ? extends org.apache.thrift.TBase>> getProcessMap(Map<String, org.apache.thrift.ProcessFunction<I, ? extends org.apache.thrift.TBase>> processMap) {
             processMap.put("getDecision", new getDecision());
             processMap.put("getDecisionByAttributes", new getDecisionByAttributes());
+            processMap.put("getDecisionsByAttributes", new getDecisionsByAttributes());
             return processMap;
         }
 
@@ -273,6 +350,28 @@ public class EntitlementService {
             }
         }
 
+        private static class getDecisionsByAttributes<I extends Iface> extends org.apache.thrift.ProcessFunction<I, getDecisionsByAttributes_args> {
+            public getDecisionsByAttributes() {
+                super("getDecisionsByAttributes");
+            }
+
+            protected getDecisionsByAttributes_args getEmptyArgsInstance() {
+                return new getDecisionsByAttributes_args();
+            }
+
+            protected getDecisionsByAttributes_result getResult(I iface, getDecisionsByAttributes_args args) throws org.apache.thrift.TException {
+                getDecisionsByAttributes_result result = new getDecisionsByAttributes_result();
+                try {
+                    result.success = iface.getDecisionsByAttributes(args.subjects, args.resources, args.actions, args.environment, args.sessionID);
+                } catch (EntitlementException e) {
+                    result.e = e;
+                } finally {
+                    PrivilegedCarbonContext.destroyCurrentContext();
+                }
+                return result;
+            }
+        }
+
     }
 
     public static class getDecision_args implements org.apache.thrift.TBase<getDecision_args, getDecision_args._Fields>, java.io.Serializable, Cloneable {
@@ -2148,4 +2247,1239 @@ public class EntitlementService {
 
     }
 
+    public static class getDecisionsByAttributes_args implements org.apache.thrift.TBase<getDecisionsByAttributes_args, getDecisionsByAttributes_args._Fields>, java.io.Serializable, Cloneable {
+        public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+        static {
+            Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+            tmpMap.put(_Fields.SUBJECTS, new org.apache.thrift.meta_data.FieldMetaData("subjects", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.RESOURCES, new org.apache.thrift.meta_data.FieldMetaData("resources", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.ACTIONS, new org.apache.thrift.meta_data.FieldMetaData("actions", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.ENVIRONMENT, new org.apache.thrift.meta_data.FieldMetaData("environment", org.apache.thrift.TFieldRequirementType.DEFAULT,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.SESSION_ID, new org.apache.thrift.meta_data.FieldMetaData("sessionID", org.apache.thrift.TFieldRequirementType.REQUIRED,
+                    new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+            metaDataMap = Collections.unmodifiableMap(tmpMap);
+            org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getDecisionsByAttributes_args.class, metaDataMap);
+        }
+        private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getDecisionsByAttributes_args");
+        private static final org.apache.thrift.protocol.TField SUBJECTS_FIELD_DESC = new org.apache.thrift.protocol.TField("subjects", org.apache.thrift.protocol.TType.LIST, (short) 1);
+        private static final org.apache.thrift.protocol.TField RESOURCES_FIELD_DESC = new org.apache.thrift.protocol.TField("resources", org.apache.thrift.protocol.TType.LIST, (short) 2);
+        private static final org.apache.thrift.protocol.TField ACTIONS_FIELD_DESC = new org.apache.thrift.protocol.TField("actions", org.apache.thrift.protocol.TType.LIST, (short) 3);
+        private static final org.apache.thrift.protocol.TField ENVIRONMENT_FIELD_DESC = new org.apache.thrift.protocol.TField("environment", org.apache.thrift.protocol.TType.LIST, (short) 4);
+        private static final org.apache.thrift.protocol.TField SESSION_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("sessionID", org.apache.thrift.protocol.TType.STRING, (short) 5);
+        public List<String> subjects; // required
+        public List<String> resources; // required
+        public List<String> actions; // required
+        public List<String> environment; // required
+
+        // isset id assignments
+        public String sessionID; // required
+
+        public getDecisionsByAttributes_args() {
+        }
+
+        public getDecisionsByAttributes_args(
+                List<String> subjects,
+                List<String> resources,
+                List<String> actions,
+                List<String> environment,
+                String sessionID) {
+            this();
+            this.subjects = subjects;
+            this.resources = resources;
+            this.actions = actions;
+            this.environment = environment;
+            this.sessionID = sessionID;
+        }
+
+        /**
+         * Performs a deep copy on <i>other</i>.
+         */
+        public getDecisionsByAttributes_args(getDecisionsByAttributes_args other) {
+            if (other.isSetSubjects()) {
+                List<String> __this__subjects = new ArrayList<String>();
+                for (String other_element : other.subjects) {
+                    __this__subjects.add(other_element);
+                }
+                this.subjects = __this__subjects;
+            }
+            if (other.isSetResources()) {
+                List<String> __this__resources = new ArrayList<String>();
+                for (String other_element : other.resources) {
+                    __this__resources.add(other_element);
+                }
+                this.resources = __this__resources;
+            }
+            if (other.isSetActions()) {
+                List<String> __this__actions = new ArrayList<String>();
+                for (String other_element : other.actions) {
+                    __this__actions.add(other_element);
+                }
+                this.actions = __this__actions;
+            }
+            if (other.isSetEnvironment()) {
+                List<String> __this__environment = new ArrayList<String>();
+                for (String other_element : other.environment) {
+                    __this__environment.add(other_element);
+                }
+                this.environment = __this__environment;
+            }
+            if (other.isSetSessionID()) {
+                this.sessionID = other.sessionID;
+            }
+        }
+
+        public getDecisionsByAttributes_args deepCopy() {
+            return new getDecisionsByAttributes_args(this);
+        }
+
+        @Override
+        public void clear() {
+            this.subjects = null;
+            this.resources = null;
+            this.actions = null;
+            this.environment = null;
+            this.sessionID = null;
+        }
+
+        public int getSubjectsSize() {
+            return (this.subjects == null) ? 0 : this.subjects.size();
+        }
+
+        public java.util.Iterator<String> getSubjectsIterator() {
+            return (this.subjects == null) ? null : this.subjects.iterator();
+        }
+
+        public void addToSubjects(String elem) {
+            if (this.subjects == null) {
+                this.subjects = new ArrayList<String>();
+            }
+            this.subjects.add(elem);
+        }
+
+        public List<String> getSubjects() {
+            return this.subjects;
+        }
+
+        public getDecisionsByAttributes_args setSubjects(List<String> subjects) {
+            this.subjects = subjects;
+            return this;
+        }
+
+        public void unsetSubjects() {
+            this.subjects = null;
+        }
+
+        /**
+         * Returns true if field subjects is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetSubjects() {
+            return this.subjects != null;
+        }
+
+        public void setSubjectsIsSet(boolean value) {
+            if (!value) {
+                this.subjects = null;
+            }
+        }
+
+        public int getResourcesSize() {
+            return (this.resources == null) ? 0 : this.resources.size();
+        }
+
+        public java.util.Iterator<String> getResourcesIterator() {
+            return (this.resources == null) ? null : this.resources.iterator();
+        }
+
+        public void addToResources(String elem) {
+            if (this.resources == null) {
+                this.resources = new ArrayList<String>();
+            }
+            this.resources.add(elem);
+        }
+
+        public List<String> getResources() {
+            return this.resources;
+        }
+
+        public getDecisionsByAttributes_args setResources(List<String> resources) {
+            this.resources = resources;
+            return this;
+        }
+
+        public void unsetResources() {
+            this.resources = null;
+        }
+
+        /**
+         * Returns true if field resources is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetResources() {
+            return this.resources != null;
+        }
+
+        public void setResourcesIsSet(boolean value) {
+            if (!value) {
+                this.resources = null;
+            }
+        }
+
+        public int getActionsSize() {
+            return (this.actions == null) ? 0 : this.actions.size();
+        }
+
+        public java.util.Iterator<String> getActionsIterator() {
+            return (this.actions == null) ? null : this.actions.iterator();
+        }
+
+        public void addToActions(String elem) {
+            if (this.actions == null) {
+                this.actions = new ArrayList<String>();
+            }
+            this.actions.add(elem);
+        }
+
+        public List<String> getActions() {
+            return this.actions;
+        }
+
+        public getDecisionsByAttributes_args setActions(List<String> actions) {
+            this.actions = actions;
+            return this;
+        }
+
+        public void unsetActions() {
+            this.actions = null;
+        }
+
+        /**
+         * Returns true if field actions is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetActions() {
+            return this.actions != null;
+        }
+
+        public void setActionsIsSet(boolean value) {
+            if (!value) {
+                this.actions = null;
+            }
+        }
+
+        public int getEnvironmentSize() {
+            return (this.environment == null) ? 0 : this.environment.size();
+        }
+
+        public java.util.Iterator<String> getEnvironmentIterator() {
+            return (this.environment == null) ? null : this.environment.iterator();
+        }
+
+        public void addToEnvironment(String elem) {
+            if (this.environment == null) {
+                this.environment = new ArrayList<String>();
+            }
+            this.environment.add(elem);
+        }
+
+        public List<String> getEnvironment() {
+            return this.environment;
+        }
+
+        public getDecisionsByAttributes_args setEnvironment(List<String> environment) {
+            this.environment = environment;
+            return this;
+        }
+
+        public void unsetEnvironment() {
+            this.environment = null;
+        }
+
+        /**
+         * Returns true if field environment is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetEnvironment() {
+            return this.environment != null;
+        }
+
+        public void setEnvironmentIsSet(boolean value) {
+            if (!value) {
+                this.environment = null;
+            }
+        }
+
+        public String getSessionID() {
+            return this.sessionID;
+        }
+
+        public getDecisionsByAttributes_args setSessionID(String sessionID) {
+            this.sessionID = sessionID;
+            return this;
+        }
+
+        public void unsetSessionID() {
+            this.sessionID = null;
+        }
+
+        /**
+         * Returns true if field sessionID is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetSessionID() {
+            return this.sessionID != null;
+        }
+
+        public void setSessionIDIsSet(boolean value) {
+            if (!value) {
+                this.sessionID = null;
+            }
+        }
+
+        public void setFieldValue(_Fields field, Object value) {
+            switch (field) {
+                case SUBJECTS:
+                    if (value == null) {
+                        unsetSubjects();
+                    } else {
+                        setSubjects((List<String>) value);
+                    }
+                    break;
+
+                case RESOURCES:
+                    if (value == null) {
+                        unsetResources();
+                    } else {
+                        setResources((List<String>) value);
+                    }
+                    break;
+
+                case ACTIONS:
+                    if (value == null) {
+                        unsetActions();
+                    } else {
+                        setActions((List<String>) value);
+                    }
+                    break;
+
+                case ENVIRONMENT:
+                    if (value == null) {
+                        unsetEnvironment();
+                    } else {
+                        setEnvironment((List<String>) value);
+                    }
+                    break;
+
+                case SESSION_ID:
+                    if (value == null) {
+                        unsetSessionID();
+                    } else {
+                        setSessionID((String) value);
+                    }
+                    break;
+
+            }
+        }
+
+        public Object getFieldValue(_Fields field) {
+            switch (field) {
+                case SUBJECTS:
+                    return getSubjects();
+
+                case RESOURCES:
+                    return getResources();
+
+                case ACTIONS:
+                    return getActions();
+
+                case ENVIRONMENT:
+                    return getEnvironment();
+
+                case SESSION_ID:
+                    return getSessionID();
+
+            }
+            throw new IllegalStateException();
+        }
+
+        /**
+         * Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSet(_Fields field) {
+            if (field == null) {
+                throw new IllegalArgumentException();
+            }
+
+            switch (field) {
+                case SUBJECTS:
+                    return isSetSubjects();
+                case RESOURCES:
+                    return isSetResources();
+                case ACTIONS:
+                    return isSetActions();
+                case ENVIRONMENT:
+                    return isSetEnvironment();
+                case SESSION_ID:
+                    return isSetSessionID();
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (that == null)
+                return false;
+            if (that instanceof getDecisionsByAttributes_args)
+                return this.equals((getDecisionsByAttributes_args) that);
+            return false;
+        }
+
+        public boolean equals(getDecisionsByAttributes_args that) {
+            if (that == null)
+                return false;
+
+            boolean this_present_subjects = true && this.isSetSubjects();
+            boolean that_present_subjects = true && that.isSetSubjects();
+            if (this_present_subjects || that_present_subjects) {
+                if (!(this_present_subjects && that_present_subjects))
+                    return false;
+                if (!this.subjects.equals(that.subjects))
+                    return false;
+            }
+
+            boolean this_present_resources = true && this.isSetResources();
+            boolean that_present_resources = true && that.isSetResources();
+            if (this_present_resources || that_present_resources) {
+                if (!(this_present_resources && that_present_resources))
+                    return false;
+                if (!this.resources.equals(that.resources))
+                    return false;
+            }
+
+            boolean this_present_actions = true && this.isSetActions();
+            boolean that_present_actions = true && that.isSetActions();
+            if (this_present_actions || that_present_actions) {
+                if (!(this_present_actions && that_present_actions))
+                    return false;
+                if (!this.actions.equals(that.actions))
+                    return false;
+            }
+
+            boolean this_present_environment = true && this.isSetEnvironment();
+            boolean that_present_environment = true && that.isSetEnvironment();
+            if (this_present_environment || that_present_environment) {
+                if (!(this_present_environment && that_present_environment))
+                    return false;
+                if (!this.environment.equals(that.environment))
+                    return false;
+            }
+
+            boolean this_present_sessionID = true && this.isSetSessionID();
+            boolean that_present_sessionID = true && that.isSetSessionID();
+            if (this_present_sessionID || that_present_sessionID) {
+                if (!(this_present_sessionID && that_present_sessionID))
+                    return false;
+                if (!this.sessionID.equals(that.sessionID))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        public int compareTo(getDecisionsByAttributes_args other) {
+            if (!getClass().equals(other.getClass())) {
+                return getClass().getName().compareTo(other.getClass().getName());
+            }
+
+            int lastComparison = 0;
+            getDecisionsByAttributes_args typedOther = (getDecisionsByAttributes_args) other;
+
+            lastComparison = Boolean.valueOf(isSetSubjects()).compareTo(typedOther.isSetSubjects());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetSubjects()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.subjects, typedOther.subjects);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetResources()).compareTo(typedOther.isSetResources());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetResources()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.resources, typedOther.resources);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetActions()).compareTo(typedOther.isSetActions());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetActions()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.actions, typedOther.actions);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetEnvironment()).compareTo(typedOther.isSetEnvironment());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetEnvironment()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.environment, typedOther.environment);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetSessionID()).compareTo(typedOther.isSetSessionID());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetSessionID()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.sessionID, typedOther.sessionID);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            return 0;
+        }
+
+        public _Fields fieldForId(int fieldId) {
+            return _Fields.findByThriftId(fieldId);
+        }
+
+        public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+            org.apache.thrift.protocol.TField field;
+            iprot.readStructBegin();
+            while (true) {
+                field = iprot.readFieldBegin();
+                if (field.type == org.apache.thrift.protocol.TType.STOP) {
+                    break;
+                }
+                switch (field.id) {
+                    case 1: // SUBJECTS
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list4 = iprot.readListBegin();
+                                this.subjects = new ArrayList<String>(_list4.size);
+                                for (int _i5 = 0; _i5 < _list4.size; ++_i5) {
+                                    String _elem6; // required
+                                    _elem6 = iprot.readString();
+                                    this.subjects.add(_elem6);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 2: // RESOURCES
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list7 = iprot.readListBegin();
+                                this.resources = new ArrayList<String>(_list7.size);
+                                for (int _i8 = 0; _i8 < _list7.size; ++_i8) {
+                                    String _elem9; // required
+                                    _elem9 = iprot.readString();
+                                    this.resources.add(_elem9);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 3: // ACTIONS
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list10 = iprot.readListBegin();
+                                this.actions = new ArrayList<String>(_list10.size);
+                                for (int _i11 = 0; _i11 < _list10.size; ++_i11) {
+                                    String _elem12; // required
+                                    _elem12 = iprot.readString();
+                                    this.actions.add(_elem12);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 4: // ENVIRONMENT
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list13 = iprot.readListBegin();
+                                this.environment = new ArrayList<String>(_list13.size);
+                                for (int _i14 = 0; _i14 < _list13.size; ++_i14) {
+                                    String _elem15; // required
+                                    _elem15 = iprot.readString();
+                                    this.environment.add(_elem15);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 5: // SESSION_ID
+                        if (field.type == org.apache.thrift.protocol.TType.STRING) {
+                            this.sessionID = iprot.readString();
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    default:
+                        org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                }
+                iprot.readFieldEnd();
+            }
+            iprot.readStructEnd();
+
+            // check for required fields of primitive type, which can't be checked in the validate method
+            validate();
+        }
+
+        public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+            validate();
+
+            oprot.writeStructBegin(STRUCT_DESC);
+            if (this.subjects != null) {
+                oprot.writeFieldBegin(SUBJECTS_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.subjects.size()));
+                    for (String _iter16 : this.subjects) {
+                        oprot.writeString(_iter16);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            }
+            if (this.resources != null) {
+                oprot.writeFieldBegin(RESOURCES_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.resources.size()));
+                    for (String _iter17 : this.resources) {
+                        oprot.writeString(_iter17);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            }
+            if (this.actions != null) {
+                oprot.writeFieldBegin(ACTIONS_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.actions.size()));
+                    for (String _iter18 : this.actions) {
+                        oprot.writeString(_iter18);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            }
+            if (this.environment != null) {
+                oprot.writeFieldBegin(ENVIRONMENT_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.environment.size()));
+                    for (String _iter19 : this.environment) {
+                        oprot.writeString(_iter19);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            }
+            if (this.sessionID != null) {
+                oprot.writeFieldBegin(SESSION_ID_FIELD_DESC);
+                oprot.writeString(this.sessionID);
+                oprot.writeFieldEnd();
+            }
+            oprot.writeFieldStop();
+            oprot.writeStructEnd();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("getDecisionsByAttributes_args(");
+            boolean first = true;
+
+            sb.append("subjects:");
+            if (this.subjects == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.subjects);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("resources:");
+            if (this.resources == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.resources);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("actions:");
+            if (this.actions == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.actions);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("environment:");
+            if (this.environment == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.environment);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("sessionID:");
+            if (this.sessionID == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.sessionID);
+            }
+            first = false;
+            sb.append(")");
+            return sb.toString();
+        }
+
+        public void validate() throws org.apache.thrift.TException {
+            // check for required fields
+            if (subjects == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'subjects' was not present! Struct: " + toString());
+            }
+            if (resources == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'resources' was not present! Struct: " + toString());
+            }
+            if (actions == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'actions' was not present! Struct: " + toString());
+            }
+            if (sessionID == null) {
+                throw new org.apache.thrift.protocol.TProtocolException("Required field 'sessionID' was not present! Struct: " + toString());
+            }
+        }
+
+        private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+            try {
+                write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+            try {
+                read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        /**
+         * The set of fields this struct contains, along with convenience methods for finding and manipulating them.
+         */
+        public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+            SUBJECTS((short) 1, "subjects"),
+            RESOURCES((short) 2, "resources"),
+            ACTIONS((short) 3, "actions"),
+            ENVIRONMENT((short) 4, "environment"),
+            SESSION_ID((short) 5, "sessionID");
+
+            private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+            static {
+                for (_Fields field : EnumSet.allOf(_Fields.class)) {
+                    byName.put(field.getFieldName(), field);
+                }
+            }
+            private final short _thriftId;
+            private final String _fieldName;
+
+            _Fields(short thriftId, String fieldName) {
+                _thriftId = thriftId;
+                _fieldName = fieldName;
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, or null if its not found.
+             */
+            public static _Fields findByThriftId(int fieldId) {
+                switch (fieldId) {
+                    case 1: // SUBJECTS
+                        return SUBJECTS;
+                    case 2: // RESOURCES
+                        return RESOURCES;
+                    case 3: // ACTIONS
+                        return ACTIONS;
+                    case 4: // ENVIRONMENT
+                        return ENVIRONMENT;
+                    case 5: // SESSION_ID
+                        return SESSION_ID;
+                    default:
+                        return null;
+                }
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, throwing an exception
+             * if it is not found.
+             */
+            public static _Fields findByThriftIdOrThrow(int fieldId) {
+                _Fields fields = findByThriftId(fieldId);
+                if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+                return fields;
+            }
+
+            /**
+             * Find the _Fields constant that matches name, or null if its not found.
+             */
+            public static _Fields findByName(String name) {
+                return byName.get(name);
+            }
+
+            public short getThriftFieldId() {
+                return _thriftId;
+            }
+
+            public String getFieldName() {
+                return _fieldName;
+            }
+        }
+
+    }
+
+    public static class getDecisionsByAttributes_result implements org.apache.thrift.TBase<getDecisionsByAttributes_result, getDecisionsByAttributes_result._Fields>, java.io.Serializable, Cloneable {
+        public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+        static {
+            Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+            tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT,
+                    new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST,
+                            new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
+            tmpMap.put(_Fields.E, new org.apache.thrift.meta_data.FieldMetaData("e", org.apache.thrift.TFieldRequirementType.DEFAULT,
+                    new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRUCT)));
+            metaDataMap = Collections.unmodifiableMap(tmpMap);
+            org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getDecisionsByAttributes_result.class, metaDataMap);
+        }
+        private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getDecisionsByAttributes_result");
+        private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.LIST, (short) 0);
+        private static final org.apache.thrift.protocol.TField E_FIELD_DESC = new org.apache.thrift.protocol.TField("e", org.apache.thrift.protocol.TType.STRUCT, (short) 1);
+        public List<String> success; // required
+
+        // isset id assignments
+        public EntitlementException e; // required
+
+        public getDecisionsByAttributes_result() {
+        }
+
+        public getDecisionsByAttributes_result(
+                List<String> success,
+                EntitlementException e) {
+            this();
+            this.success = success;
+            this.e = e;
+        }
+
+        /**
+         * Performs a deep copy on <i>other</i>.
+         */
+        public getDecisionsByAttributes_result(getDecisionsByAttributes_result other) {
+            if (other.isSetSuccess()) {
+                List<String> __this__success = new ArrayList<String>();
+                for (String other_element : other.success) {
+                    __this__success.add(other_element);
+                }
+                this.success = __this__success;
+            }
+            if (other.isSetE()) {
+                this.e = new EntitlementException(other.e);
+            }
+        }
+
+        public getDecisionsByAttributes_result deepCopy() {
+            return new getDecisionsByAttributes_result(this);
+        }
+
+        @Override
+        public void clear() {
+            this.success = null;
+            this.e = null;
+        }
+
+        public int getSuccessSize() {
+            return (this.success == null) ? 0 : this.success.size();
+        }
+
+        public java.util.Iterator<String> getSuccessIterator() {
+            return (this.success == null) ? null : this.success.iterator();
+        }
+
+        public void addToSuccess(String elem) {
+            if (this.success == null) {
+                this.success = new ArrayList<String>();
+            }
+            this.success.add(elem);
+        }
+
+        public List<String> getSuccess() {
+            return this.success;
+        }
+
+        public getDecisionsByAttributes_result setSuccess(List<String> success) {
+            this.success = success;
+            return this;
+        }
+
+        public void unsetSuccess() {
+            this.success = null;
+        }
+
+        /**
+         * Returns true if field success is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetSuccess() {
+            return this.success != null;
+        }
+
+        public void setSuccessIsSet(boolean value) {
+            if (!value) {
+                this.success = null;
+            }
+        }
+
+        public EntitlementException getE() {
+            return this.e;
+        }
+
+        public getDecisionsByAttributes_result setE(EntitlementException e) {
+            this.e = e;
+            return this;
+        }
+
+        public void unsetE() {
+            this.e = null;
+        }
+
+        /**
+         * Returns true if field e is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSetE() {
+            return this.e != null;
+        }
+
+        public void setEIsSet(boolean value) {
+            if (!value) {
+                this.e = null;
+            }
+        }
+
+        public void setFieldValue(_Fields field, Object value) {
+            switch (field) {
+                case SUCCESS:
+                    if (value == null) {
+                        unsetSuccess();
+                    } else {
+                        setSuccess((List<String>) value);
+                    }
+                    break;
+
+                case E:
+                    if (value == null) {
+                        unsetE();
+                    } else {
+                        setE((EntitlementException) value);
+                    }
+                    break;
+
+            }
+        }
+
+        public Object getFieldValue(_Fields field) {
+            switch (field) {
+                case SUCCESS:
+                    return getSuccess();
+
+                case E:
+                    return getE();
+
+            }
+            throw new IllegalStateException();
+        }
+
+        /**
+         * Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise
+         */
+        public boolean isSet(_Fields field) {
+            if (field == null) {
+                throw new IllegalArgumentException();
+            }
+
+            switch (field) {
+                case SUCCESS:
+                    return isSetSuccess();
+                case E:
+                    return isSetE();
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (that == null)
+                return false;
+            if (that instanceof getDecisionsByAttributes_result)
+                return this.equals((getDecisionsByAttributes_result) that);
+            return false;
+        }
+
+        public boolean equals(getDecisionsByAttributes_result that) {
+            if (that == null)
+                return false;
+
+            boolean this_present_success = true && this.isSetSuccess();
+            boolean that_present_success = true && that.isSetSuccess();
+            if (this_present_success || that_present_success) {
+                if (!(this_present_success && that_present_success))
+                    return false;
+                if (!this.success.equals(that.success))
+                    return false;
+            }
+
+            boolean this_present_e = true && this.isSetE();
+            boolean that_present_e = true && that.isSetE();
+            if (this_present_e || that_present_e) {
+                if (!(this_present_e && that_present_e))
+                    return false;
+                if (!this.e.equals(that.e))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        public int compareTo(getDecisionsByAttributes_result other) {
+            if (!getClass().equals(other.getClass())) {
+                return getClass().getName().compareTo(other.getClass().getName());
+            }
+
+            int lastComparison = 0;
+            getDecisionsByAttributes_result typedOther = (getDecisionsByAttributes_result) other;
+
+            lastComparison = Boolean.valueOf(isSetSuccess()).compareTo(typedOther.isSetSuccess());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetSuccess()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            lastComparison = Boolean.valueOf(isSetE()).compareTo(typedOther.isSetE());
+            if (lastComparison != 0) {
+                return lastComparison;
+            }
+            if (isSetE()) {
+                lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.e, typedOther.e);
+                if (lastComparison != 0) {
+                    return lastComparison;
+                }
+            }
+            return 0;
+        }
+
+        public _Fields fieldForId(int fieldId) {
+            return _Fields.findByThriftId(fieldId);
+        }
+
+        public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+            org.apache.thrift.protocol.TField field;
+            iprot.readStructBegin();
+            while (true) {
+                field = iprot.readFieldBegin();
+                if (field.type == org.apache.thrift.protocol.TType.STOP) {
+                    break;
+                }
+                switch (field.id) {
+                    case 0: // SUCCESS
+                        if (field.type == org.apache.thrift.protocol.TType.LIST) {
+                            {
+                                org.apache.thrift.protocol.TList _list20 = iprot.readListBegin();
+                                this.success = new ArrayList<String>(_list20.size);
+                                for (int _i21 = 0; _i21 < _list20.size; ++_i21) {
+                                    String _elem22; // required
+                                    _elem22 = iprot.readString();
+                                    this.success.add(_elem22);
+                                }
+                                iprot.readListEnd();
+                            }
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    case 1: // E
+                        if (field.type == org.apache.thrift.protocol.TType.STRUCT) {
+                            this.e = new EntitlementException();
+                            this.e.read(iprot);
+                        } else {
+                            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                        }
+                        break;
+                    default:
+                        org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+                }
+                iprot.readFieldEnd();
+            }
+            iprot.readStructEnd();
+
+            // check for required fields of primitive type, which can't be checked in the validate method
+            validate();
+        }
+
+        public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+            oprot.writeStructBegin(STRUCT_DESC);
+
+            if (this.isSetSuccess()) {
+                oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+                {
+                    oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, this.success.size()));
+                    for (String _iter23 : this.success) {
+                        oprot.writeString(_iter23);
+                    }
+                    oprot.writeListEnd();
+                }
+                oprot.writeFieldEnd();
+            } else if (this.isSetE()) {
+                oprot.writeFieldBegin(E_FIELD_DESC);
+                this.e.write(oprot);
+                oprot.writeFieldEnd();
+            }
+            oprot.writeFieldStop();
+            oprot.writeStructEnd();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("getDecisionsByAttributes_result(");
+            boolean first = true;
+
+            sb.append("success:");
+            if (this.success == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.success);
+            }
+            first = false;
+            if (!first) sb.append(", ");
+            sb.append("e:");
+            if (this.e == null) {
+                sb.append("null");
+            } else {
+                sb.append(this.e);
+            }
+            first = false;
+            sb.append(")");
+            return sb.toString();
+        }
+
+        public void validate() throws org.apache.thrift.TException {
+            // check for required fields
+        }
+
+        private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+            try {
+                write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+            try {
+                read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+            } catch (org.apache.thrift.TException te) {
+                throw new java.io.IOException(te);
+            }
+        }
+
+        /**
+         * The set of fields this struct contains, along with convenience methods for finding and manipulating them.
+         */
+        public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+            SUCCESS((short) 0, "success"),
+            E((short) 1, "e");
+
+            private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+            static {
+                for (_Fields field : EnumSet.allOf(_Fields.class)) {
+                    byName.put(field.getFieldName(), field);
+                }
+            }
+            private final short _thriftId;
+            private final String _fieldName;
+
+            _Fields(short thriftId, String fieldName) {
+                _thriftId = thriftId;
+                _fieldName = fieldName;
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, or null if its not found.
+             */
+            public static _Fields findByThriftId(int fieldId) {
+                switch (fieldId) {
+                    case 0: // SUCCESS
+                        return SUCCESS;
+                    case 1: // E
+                        return E;
+                    default:
+                        return null;
+                }
+            }
+
+            /**
+             * Find the _Fields constant that matches fieldId, throwing an exception
+             * if it is not found.
+             */
+            public static _Fields findByThriftIdOrThrow(int fieldId) {
+                _Fields fields = findByThriftId(fieldId);
+                if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+                return fields;
+            }
+
+            /**
+             * Find the _Fields constant that matches name, or null if its not found.
+             */
+            public static _Fields findByName(String name) {
+                return byName.get(name);
+            }
+
+            public short getThriftFieldId() {
+                return _thriftId;
+            }
+
+            public String getFieldName() {
+                return _fieldName;
+            }
+        }
+
+    }
+
 }
@@ -24,6 +24,7 @@ import org.wso2.carbon.identity.entitlement.dto.AttributeDTO;
 import org.wso2.carbon.identity.entitlement.dto.EntitledResultSetDTO;
 import org.wso2.carbon.identity.thrift.authentication.ThriftAuthenticatorService;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -123,6 +124,59 @@ public class ThriftEntitlementServiceImpl implements EntitlementService.Iface {
         }
     }
 
+    /**
+     * Thrift based service method that evaluates a batch of subject, resource and action tuples in one call.
+     * Responses are returned in the order of the tuples.
+     *
+     * @param subjects    subjects
+     * @param resources   resources, one for each subject
+     * @param actions     actions, one for each subject
+     * @param environment environment common to all the tuples
+     * @param sessionID   a sessionId obtained by authenticating to thrift based authentication service.
+     * @return XACML responses
+     * @throws EntitlementException
+     * @throws TException
+     */
+    public List<String> getDecisionsByAttributes(List<String> subjects, List<String> resources,
+                                                 List<String> actions, List<String> environment,
+                                                 String sessionID) throws EntitlementException, TException {
+        try {
+            if (thriftAuthenticatorService != null && entitlementService != null) {
+                /* Authenticate session from thrift based authentication service. */
+                if (thriftAuthenticatorService.isAuthenticated(sessionID)) {
+                    try {
+                        String[] environmentArray = null;
+                        if (environment != null) {
+                            environmentArray = environment.toArray(new String[environment.size()]);
+                        }
+                        String[] responses = entitlementService.getDecisionsByAttributes(
+                                subjects.toArray(new String[subjects.size()]),
+                                resources.toArray(new String[resources.size()]),
+                                actions.toArray(new String[actions.size()]), environmentArray);
+                        return Arrays.asList(responses);
+                    } catch (Exception e) {
+                        String error = "Error while evaluating XACML decisions from thrift service";
+                        log.error(error, e);
+                        throw new EntitlementException(error);
+                    }
+                } else {
+                    String authErrorMsg = "User is not authenticated. Please login first.";
+                    log.error(authErrorMsg);
+                    throw new EntitlementException(authErrorMsg);
+                }
+
+            } else {
+                String initErrorMsg = "Thrift Authenticator service or Entitlement "
+                        + "service is not initialized.";
+                log.error(initErrorMsg);
+                throw new EntitlementException(initErrorMsg);
+            }
+        } catch (Exception e) {
+            String errorMsg = "Error occurred when invoking the Thrift based Entitlement Service.";
+            log.error(errorMsg, e);
+            throw new EntitlementException(errorMsg);
+        }
+    }
 
     public EntitledResultSetDTO getEntitledAttributes(String subjectName, String resourceName,
                                                       String subjectId, String action, boolean enableChildSearch,
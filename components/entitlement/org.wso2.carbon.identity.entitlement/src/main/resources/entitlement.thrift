@@ -0,0 +1,17 @@
+namespace java org.wso2.carbon.identity.entitlement.thrift
+
+exception EntitlementException {
+    1: required string message
+}
+
+service EntitlementService {
+    string getDecision(1:required string request, 2:required string sessionId) throws (1:EntitlementException e)
+
+    string getDecisionByAttributes(1:string subject, 2:required string resource, 3:string action,
+                                   4:list<string> environment, 5:required string sessionID)
+                                                        throws (1:EntitlementException e)
+
+    list<string> getDecisionsByAttributes(1:required list<string> subjects, 2:required list<string> resources,
+                                          3:required list<string> actions, 4:list<string> environment,
+                                          5:required string sessionID) throws (1:EntitlementException e)
+}
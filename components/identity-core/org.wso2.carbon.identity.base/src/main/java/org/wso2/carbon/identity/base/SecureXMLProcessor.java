@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.base;
+
+import org.apache.xerces.util.SecurityManager;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+import org.w3c.dom.ls.LSSerializer;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses and serializes SAML messages with parsers and serializers which are created once per thread and reused.
+ * <p/>
+ * Parsers are namespace aware, do not expand entity references, reject external entities and do not allow any
+ * entity expansion, as the per call parsers used for SAML messages did. A parser and a serializer are not thread
+ * safe, hence each thread keeps its own instances and resets the parser after every document it parses.
+ */
+public class SecureXMLProcessor {
+
+    private static final String SECURITY_MANAGER_PROPERTY = "http://apache.org/xml/properties/security-manager";
+    private static final int ENTITY_EXPANSION_LIMIT = 0;
+    private static final String XERCES_DOCUMENT_BUILDER_FACTORY = "org.apache.xerces.jaxp.DocumentBuilderFactoryImpl";
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>();
+    private static final ThreadLocal<LSSerializer> serializers = new ThreadLocal<LSSerializer>();
+
+    private static volatile DocumentBuilderFactory documentBuilderFactory;
+    private static volatile DOMImplementationLS domImplementationLS;
+
+    static {
+        // OpenSAML marshallers look up the default DocumentBuilderFactory, which the SAML utilities used to set
+        // before every marshalling
+        System.setProperty("javax.xml.parsers.DocumentBuilderFactory", XERCES_DOCUMENT_BUILDER_FACTORY);
+    }
+
+    private SecureXMLProcessor() {
+    }
+
+    /**
+     * Parses an XML document.
+     *
+     * @param xmlString XML document
+     * @return parsed document
+     * @throws ParserConfigurationException if a secure parser can not be created
+     * @throws SAXException                 if the document is not well formed or refers to an external entity
+     * @throws IOException                  if the document can not be read
+     */
+    public static Document parse(String xmlString) throws ParserConfigurationException, SAXException,
+            IOException {
+
+        DocumentBuilder documentBuilder = getDocumentBuilder();
+        try {
+            return documentBuilder.parse(new InputSource(new StringReader(xmlString)));
+        } finally {
+            documentBuilder.reset();
+            documentBuilder.setEntityResolver(new CarbonEntityResolver());
+        }
+    }
+
+    /**
+     * Creates an empty document, e.g. for an OpenSAML marshaller to marshall an XML object into.
+     *
+     * @return empty document
+     * @throws ParserConfigurationException if a parser can not be created
+     */
+    public static Document newDocument() throws ParserConfigurationException {
+        return getDocumentBuilder().newDocument();
+    }
+
+    /**
+     * Serializes a DOM node.
+     *
+     * @param node node to serialize
+     * @return UTF-8 serialization of the node
+     * @throws ClassNotFoundException if no DOM implementation supporting load and save is available
+     * @throws InstantiationException if the DOM implementation can not be instantiated
+     * @throws IllegalAccessException if the DOM implementation can not be instantiated
+     */
+    public static String serialize(Node node) throws ClassNotFoundException, InstantiationException,
+            IllegalAccessException {
+
+        LSSerializer serializer = serializers.get();
+        DOMImplementationLS impl = getDOMImplementationLS();
+        if (serializer == null) {
+            serializer = impl.createLSSerializer();
+            serializers.set(serializer);
+        }
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        LSOutput output = impl.createLSOutput();
+        output.setByteStream(byteArrayOutputStream);
+        output.setEncoding(StandardCharsets.UTF_8.name());
+        serializer.write(node, output);
+        return new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        if (documentBuilder == null) {
+            DocumentBuilderFactory factory = getDocumentBuilderFactory();
+            // a factory is not required to be thread safe
+            synchronized (factory) {
+                documentBuilder = factory.newDocumentBuilder();
+            }
+            documentBuilder.setEntityResolver(new CarbonEntityResolver());
+            documentBuilders.set(documentBuilder);
+        }
+        return documentBuilder;
+    }
+
+    private static DocumentBuilderFactory getDocumentBuilderFactory() throws ParserConfigurationException {
+
+        if (documentBuilderFactory == null) {
+            synchronized (SecureXMLProcessor.class) {
+                if (documentBuilderFactory == null) {
+                    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                    factory.setNamespaceAware(true);
+                    factory.setExpandEntityReferences(false);
+                    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                    SecurityManager securityManager = new SecurityManager();
+                    securityManager.setEntityExpansionLimit(ENTITY_EXPANSION_LIMIT);
+                    factory.setAttribute(SECURITY_MANAGER_PROPERTY, securityManager);
+                    documentBuilderFactory = factory;
+                }
+            }
+        }
+        return documentBuilderFactory;
+    }
+
+    private static DOMImplementationLS getDOMImplementationLS() throws ClassNotFoundException,
+            InstantiationException, IllegalAccessException {
+
+        if (domImplementationLS == null) {
+            synchronized (SecureXMLProcessor.class) {
+                if (domImplementationLS == null) {
+                    DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
+                    domImplementationLS = (DOMImplementationLS) registry.getDOMImplementation("LS");
+                }
+            }
+        }
+        return domImplementationLS;
+    }
+}
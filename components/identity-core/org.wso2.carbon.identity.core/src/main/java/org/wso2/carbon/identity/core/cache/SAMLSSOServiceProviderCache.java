@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.Serializable;
+
+/**
+ * SAML SSO service provider configurations of all the tenants, indexed by tenant and issuer.
+ * <p/>
+ * Service providers are loaded from the registry the first time their issuer is looked up, and issuers which are
+ * not registered are remembered as well, so that the SSO request path does not touch the registry once an issuer
+ * has been seen. The cached configuration is the parsed {@link SAMLSSOServiceProviderDO}, hence the assertion
+ * consumer URLs, requested claims, audiences and recipients are not parsed again per request.
+ * <p/>
+ * The cache is distributed, so removing an entry when a service provider is added or removed invalidates it on every
+ * node of the cluster.
+ */
+public class SAMLSSOServiceProviderCache {
+
+    private static final Log log = LogFactory.getLog(SAMLSSOServiceProviderCache.class);
+
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String CACHE_NAME = "SAMLSSOServiceProviderCache";
+
+    private static final SAMLSSOServiceProviderCache instance = new SAMLSSOServiceProviderCache();
+
+    private volatile IdentityCacheConfig identityCacheConfig;
+    private volatile boolean identityCacheConfigResolved;
+
+    private SAMLSSOServiceProviderCache() {
+    }
+
+    public static SAMLSSOServiceProviderCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached configuration of a service provider.
+     *
+     * @param tenantId tenant of the service provider
+     * @param issuer   issuer of the service provider
+     * @return cached entry, or null if the issuer has not been looked up since it was last changed
+     */
+    public Entry getValueFromCache(int tenantId, String issuer) {
+        if (!isEnabled() || issuer == null) {
+            return null;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, Entry> cache = getCache();
+            if (cache != null) {
+                return cache.get(getKey(tenantId, issuer));
+            }
+            return null;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Caches the configuration of a service provider.
+     *
+     * @param tenantId          tenant of the service provider
+     * @param issuer            issuer of the service provider
+     * @param serviceProviderDO configuration of the service provider, or null if the issuer is not registered
+     */
+    public void addToCache(int tenantId, String issuer, SAMLSSOServiceProviderDO serviceProviderDO) {
+        if (!isEnabled() || issuer == null) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, Entry> cache = getCache();
+            if (cache != null) {
+                cache.put(getKey(tenantId, issuer), new Entry(serviceProviderDO));
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Removes the configuration of a service provider from the cache of every node.
+     *
+     * @param tenantId tenant of the service provider
+     * @param issuer   issuer of the service provider
+     */
+    public void clearCacheEntry(int tenantId, String issuer) {
+        if (!isEnabled() || issuer == null) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, Entry> cache = getCache();
+            if (cache != null) {
+                cache.remove(getKey(tenantId, issuer));
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached configuration of service provider " + issuer + " of tenant " + tenantId);
+        }
+    }
+
+    /**
+     * Removes the configurations of all the service providers from the cache.
+     */
+    public void clear() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, Entry> cache = getCache();
+            if (cache != null) {
+                cache.removeAll();
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    public boolean isEnabled() {
+        if (!identityCacheConfigResolved) {
+            identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, CACHE_NAME);
+            identityCacheConfigResolved = true;
+        }
+        return identityCacheConfig == null || identityCacheConfig.isEnabled();
+    }
+
+    private Cache<String, Entry> getCache() {
+        CacheManager cacheManager = Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME);
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static String getKey(int tenantId, String issuer) {
+        return tenantId + ":" + issuer;
+    }
+
+    private static void startSuperTenantFlow() {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    /**
+     * Configuration of a service provider as it was read from the registry.
+     */
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = -2760343526744911893L;
+
+        private final SAMLSSOServiceProviderDO serviceProviderDO;
+
+        private Entry(SAMLSSOServiceProviderDO serviceProviderDO) {
+            this.serviceProviderDO = serviceProviderDO;
+        }
+
+        /**
+         * @return configuration of the service provider, or null if the issuer is not registered
+         */
+        public SAMLSSOServiceProviderDO getServiceProviderDO() {
+            return serviceProviderDO;
+        }
+    }
+}
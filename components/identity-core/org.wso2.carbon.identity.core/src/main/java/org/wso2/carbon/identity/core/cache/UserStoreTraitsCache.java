@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tenant ids of tenant domains and the traits of the user stores of each tenant, which are otherwise resolved
+ * through the tenant manager and the user realm on every token and claim lookup.
+ * <p/>
+ * The traits are derived from the user store managers deployed on this node, hence the cache is local and is
+ * cleared whenever a user store is deployed or undeployed on this node.
+ */
+public class UserStoreTraitsCache {
+
+    private static final Log log = LogFactory.getLog(UserStoreTraitsCache.class);
+
+    private static final UserStoreTraitsCache instance = new UserStoreTraitsCache();
+
+    private final ConcurrentMap<String, Integer> tenantIds = new ConcurrentHashMap<String, Integer>();
+    private final ConcurrentMap<String, Boolean> caseSensitivity = new ConcurrentHashMap<String, Boolean>();
+
+    private UserStoreTraitsCache() {
+    }
+
+    public static UserStoreTraitsCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @return tenant id of the tenant domain, or null if it has not been resolved yet
+     */
+    public Integer getTenantId(String tenantDomain) {
+        if (tenantDomain == null) {
+            return null;
+        }
+        return tenantIds.get(tenantDomain);
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id of an existing tenant
+     */
+    public void addTenantId(String tenantDomain, int tenantId) {
+        if (tenantDomain != null) {
+            tenantIds.put(tenantDomain, tenantId);
+        }
+    }
+
+    /**
+     * @param tenantId        tenant id of the user store
+     * @param userStoreDomain domain name of the user store
+     * @return whether user names of the user store are case sensitive, or null if it has not been resolved yet
+     */
+    public Boolean isCaseSensitive(int tenantId, String userStoreDomain) {
+        return caseSensitivity.get(getKey(tenantId, userStoreDomain));
+    }
+
+    /**
+     * @param tenantId        tenant id of the user store
+     * @param userStoreDomain domain name of the user store
+     * @param caseSensitive   whether user names of the user store are case sensitive
+     */
+    public void addCaseSensitivity(int tenantId, String userStoreDomain, boolean caseSensitive) {
+        caseSensitivity.put(getKey(tenantId, userStoreDomain), caseSensitive);
+    }
+
+    /**
+     * Removes the resolved traits of every user store. Called when user stores are deployed or undeployed.
+     */
+    public void clear() {
+        caseSensitivity.clear();
+        tenantIds.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached user store traits");
+        }
+    }
+
+    private static String getKey(int tenantId, String userStoreDomain) {
+        return tenantId + ":" + (userStoreDomain == null ? "" : userStoreDomain.toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.IdentityRegistryResources;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.registry.core.Registry;
@@ -281,6 +282,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
                 if (!isTransactionStarted) {
                     registry.commitTransaction();
                 }
+                clearCacheEntry(serviceProviderDO.getIssuer());
 
             } catch (RegistryException e) {
                 if (!isTransactionStarted) {
@@ -347,6 +349,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
                     if (!isTransactionStarted) {
                         registry.commitTransaction();
                     }
+                    clearCacheEntry(issuer);
 
                     return true;
 
@@ -366,7 +369,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     }
 
     /**
-     * Get the service provider
+     * Get the service provider. The configuration is read from the registry only if it is not cached already.
      *
      * @param issuer
      * @return
@@ -374,18 +377,25 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
      */
     public SAMLSSOServiceProviderDO getServiceProvider(String issuer) throws IdentityException {
 
+        UserRegistry userRegistry = (UserRegistry) registry;
+        SAMLSSOServiceProviderCache.Entry cacheEntry = SAMLSSOServiceProviderCache.getInstance()
+                .getValueFromCache(userRegistry.getTenantId(), issuer);
+        if (cacheEntry != null) {
+            return cacheEntry.getServiceProviderDO();
+        }
+
         String path = IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS + encodePath(issuer);
         SAMLSSOServiceProviderDO serviceProviderDO = null;
 
-        UserRegistry userRegistry = null;
         String tenantDomain = null;
         try {
-            userRegistry = (UserRegistry) registry;
             tenantDomain = IdentityTenantUtil.getRealmService().getTenantManager().getDomain(userRegistry.getTenantId());
             if (registry.resourceExists(path)) {
                 serviceProviderDO = resourceToObject(registry.get(path));
                 serviceProviderDO.setTenantDomain(tenantDomain);
             }
+            SAMLSSOServiceProviderCache.getInstance().addToCache(userRegistry.getTenantId(), issuer,
+                    serviceProviderDO);
         } catch (RegistryException e) {
             throw IdentityException.error("Error occurred while checking if resource path \'" + path + "\' exists in " +
                     "registry for tenant domain : " + tenantDomain, e);
@@ -407,6 +417,14 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
         }
     }
 
+    private void clearCacheEntry(String issuer) {
+        if (registry instanceof UserRegistry) {
+            SAMLSSOServiceProviderCache.getInstance().clearCacheEntry(((UserRegistry) registry).getTenantId(), issuer);
+        } else {
+            SAMLSSOServiceProviderCache.getInstance().clear();
+        }
+    }
+
     private String encodePath(String path) {
         String encodedStr = new String(Base64.encodeBase64(path.getBytes()));
         return encodedStr.replace("=", "");
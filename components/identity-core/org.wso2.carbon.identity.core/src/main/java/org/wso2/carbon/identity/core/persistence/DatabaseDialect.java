@@ -0,0 +1,64 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.core.persistence;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/**
+ * Database dialects for which identity components keep vendor specific SQL.
+ */
+public enum DatabaseDialect {
+
+    MYSQL, H2, DB2, MSSQL, POSTGRESQL, INFORMIX, ORACLE;
+
+    /**
+     * Resolves the dialect from the driver and product names of a database. Databases which are not recognized
+     * are treated as Oracle, as the identity components always did.
+     *
+     * @param metaData meta data of a connection to the database
+     * @return dialect of the database
+     * @throws SQLException if the meta data cannot be read
+     */
+    public static DatabaseDialect resolve(DatabaseMetaData metaData) throws SQLException {
+        String driverName = metaData.getDriverName();
+        if (driverName.contains("MySQL")) {
+            return MYSQL;
+        } else if (driverName.contains("H2")) {
+            return H2;
+        } else if (metaData.getDatabaseProductName().contains("DB2")) {
+            return DB2;
+        } else if (driverName.contains("MS SQL") || driverName.contains("Microsoft")) {
+            return MSSQL;
+        } else if (driverName.contains("PostgreSQL")) {
+            return POSTGRESQL;
+        } else if (driverName.contains("Informix")) {
+            // Driver name = "IBM Informix JDBC Driver for IBM Informix Dynamic Server"
+            return INFORMIX;
+        }
+        return ORACLE;
+    }
+
+    /**
+     * @return true if the dialect accepts MySQL style LIMIT clauses, which is the case for MySQL and H2
+     */
+    public boolean isMySQLCompatible() {
+        return this == MYSQL || this == H2;
+    }
+}
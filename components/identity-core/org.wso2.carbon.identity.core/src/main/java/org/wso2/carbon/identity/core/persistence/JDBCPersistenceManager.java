@@ -46,6 +46,7 @@ public class JDBCPersistenceManager {
     private static Log log = LogFactory.getLog(JDBCPersistenceManager.class);
     private static volatile JDBCPersistenceManager instance;
     private DataSource dataSource;
+    private volatile DatabaseDialect databaseDialect;
 
     private JDBCPersistenceManager() {
         initDataSource();
@@ -130,4 +131,33 @@ public class JDBCPersistenceManager {
         }
     }
 
+    /**
+     * Returns the dialect of the Identity data source. It is resolved from the connection meta data on the first
+     * call and reused afterwards, so that callers do not need a meta data round trip per query.
+     *
+     * @return Database dialect
+     * @throws IdentityRuntimeException Error when the dialect cannot be resolved
+     */
+    public DatabaseDialect getDatabaseDialect() throws IdentityRuntimeException {
+        if (databaseDialect == null) {
+            Connection connection = getDBConnection();
+            try {
+                databaseDialect = DatabaseDialect.resolve(connection.getMetaData());
+                if (log.isDebugEnabled()) {
+                    log.debug("Resolved the Identity data source dialect as " + databaseDialect);
+                }
+            } catch (SQLException e) {
+                String errMsg = "Error when resolving the dialect of the Identity data source.";
+                throw IdentityRuntimeException.error(errMsg, e);
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.error("Database error. Could not close connection. - " + e.getMessage(), e);
+                }
+            }
+        }
+        return databaseDialect;
+    }
+
 }
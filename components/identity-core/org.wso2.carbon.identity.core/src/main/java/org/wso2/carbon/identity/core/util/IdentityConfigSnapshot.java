@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable view of the identity.xml properties with typed accessors.
+ * <p/>
+ * A snapshot is built each time the configuration is populated and replaces the previous one as a whole, so a
+ * reader never sees a half populated configuration. Placeholders such as ${carbon.host} are resolved the first time
+ * a property is read and the resolved value is kept for the life of the snapshot, since resolving them looks up the
+ * server configuration, the network interfaces and the Axis configuration, some of which are not available yet
+ * when the configuration is parsed.
+ */
+public class IdentityConfigSnapshot {
+
+    private static final Log log = LogFactory.getLog(IdentityConfigSnapshot.class);
+
+    private final Map<String, String> properties;
+    private final ConcurrentMap<String, String> resolvedProperties = new ConcurrentHashMap<String, String>();
+
+    /**
+     * @param configuration properties as read by {@link IdentityConfigParser}, the first value is taken for
+     *                      properties which occur more than once
+     */
+    public IdentityConfigSnapshot(Map<String, Object> configuration) {
+
+        Map<String, String> firstValues = new HashMap<String, String>();
+        for (Map.Entry<String, Object> entry : configuration.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof List) {
+                List values = (List) value;
+                value = values.isEmpty() ? null : values.get(0);
+            }
+            if (value != null) {
+                firstValues.put(entry.getKey(), (String) value);
+            }
+        }
+        this.properties = Collections.unmodifiableMap(firstValues);
+    }
+
+    /**
+     * @param key property name, e.g. "a.b" for the text of {@code <a><b>text</b></a>}
+     * @return property value with the placeholders resolved, or null if the property is not configured
+     */
+    public String getProperty(String key) {
+
+        String value = resolvedProperties.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = properties.get(key);
+        if (value == null) {
+            return null;
+        }
+        value = IdentityUtil.fillURLPlaceholders(value);
+        resolvedProperties.putIfAbsent(key, value);
+        return value;
+    }
+
+    /**
+     * @param key          property name
+     * @param defaultValue value to return if the property is not configured or blank
+     * @return property value, or the default value
+     */
+    public String getString(String key, String defaultValue) {
+
+        String value = getProperty(key);
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+
+    /**
+     * @param key          property name
+     * @param defaultValue value to return if the property is not configured or is not an integer
+     * @return property value, or the default value
+     */
+    public int getInt(String key, int defaultValue) {
+
+        String value = getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value " + value + " for " + key + ". Using the default " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param key          property name
+     * @param defaultValue value to return if the property is not configured
+     * @return true if the property is "true" ignoring the case, false for any other value
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+
+        String value = getProperty(key);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Reads a duration which is configured as a number of units, e.g. a timeout in minutes.
+     *
+     * @param key          property name
+     * @param unit         unit the property and the default value are expressed in
+     * @param defaultValue value to return, in the given unit, if the property is not configured or is not a number
+     * @return duration in milliseconds
+     */
+    public long getDurationMillis(String key, TimeUnit unit, long defaultValue) {
+
+        String value = getProperty(key);
+        long duration = defaultValue;
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                duration = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + key + ". Using the default " + defaultValue);
+            }
+        }
+        return unit.toMillis(duration);
+    }
+}
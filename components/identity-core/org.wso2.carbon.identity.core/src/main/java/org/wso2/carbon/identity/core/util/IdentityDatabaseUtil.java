@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.core.util;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.persistence.DatabaseDialect;
 import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
 import org.wso2.carbon.identity.core.persistence.UmPersistenceManager;
 
@@ -43,6 +44,16 @@ public class IdentityDatabaseUtil {
         return JDBCPersistenceManager.getInstance().getDBConnection();
     }
 
+    /**
+     * Get the dialect of the Identity data source
+     *
+     * @return Database dialect
+     * @throws IdentityRuntimeException Error when resolving the dialect of the Identity data source
+     */
+    public static DatabaseDialect getDatabaseDialect() throws IdentityRuntimeException {
+        return JDBCPersistenceManager.getInstance().getDatabaseDialect();
+    }
+
     public static void closeAllConnections(Connection dbConnection, ResultSet rs, PreparedStatement prepStmt) {
 
         closeResultSet(rs);
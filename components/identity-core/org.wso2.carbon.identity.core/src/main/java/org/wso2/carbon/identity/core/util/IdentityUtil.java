@@ -43,6 +43,7 @@ import org.wso2.carbon.identity.base.CarbonEntityResolver;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.cache.UserStoreTraitsCache;
 import org.wso2.carbon.identity.core.internal.IdentityCoreServiceComponent;
 import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
 import org.wso2.carbon.identity.core.model.IdentityCacheConfigKey;
@@ -73,7 +74,6 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.SignatureException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -97,10 +97,12 @@ public class IdentityUtil {
     public static final String DEFAULT_FILE_NAME_REGEX = "^(?!(?:CON|PRN|AUX|NUL|COM[1-9]|LPT[1-9])(?:\\.[^.]*)?$)" +
                                                          "[^<>:\"/\\\\|?*\\x00-\\x1F]*[^<>:\"/\\\\|?*\\x00-\\x1F\\ .]$";
     private static Log log = LogFactory.getLog(IdentityUtil.class);
-    private static Map<String, Object> configuration = new HashMap<String, Object>();
-    private static Map<IdentityEventListenerConfigKey, IdentityEventListenerConfig> eventListenerConfiguration = new
-            HashMap<>();
-    private static Map<IdentityCacheConfigKey, IdentityCacheConfig> identityCacheConfigurationHolder = new HashMap<>();
+    private static volatile IdentityConfigSnapshot configSnapshot =
+            new IdentityConfigSnapshot(new HashMap<String, Object>());
+    private static volatile Map<IdentityEventListenerConfigKey, IdentityEventListenerConfig>
+            eventListenerConfiguration = new HashMap<>();
+    private static volatile Map<IdentityCacheConfigKey, IdentityCacheConfig> identityCacheConfigurationHolder =
+            new HashMap<>();
     private static Document importerDoc = null;
     private static ThreadLocal<IdentityErrorMsgContext> IdentityError = new ThreadLocal<IdentityErrorMsgContext>();
     private static final String SECURITY_MANAGER_PROPERTY = Constants.XERCES_PROPERTY_PREFIX +
@@ -140,19 +142,17 @@ public class IdentityUtil {
      * @return Element text value, "text" for the above element.
      */
     public static String getProperty(String key) {
+        return configSnapshot.getProperty(key);
+    }
 
-        Object value = configuration.get(key);
-        String strValue;
-
-        if (value instanceof ArrayList) {
-            strValue = (String) ((ArrayList) value).get(0);
-        } else {
-            strValue = (String) value;
-        }
-
-        strValue = fillURLPlaceholders(strValue);
-
-        return strValue;
+    /**
+     * Returns the current identity.xml configuration. The returned snapshot does not change when the configuration
+     * is populated again, hence callers should not hold on to it beyond a single operation.
+     *
+     * @return configuration snapshot
+     */
+    public static IdentityConfigSnapshot getConfigSnapshot() {
+        return configSnapshot;
     }
 
     public static IdentityEventListenerConfig readEventListenerProperty(String type, String name) {
@@ -168,7 +168,7 @@ public class IdentityUtil {
     }
 
     public static void populateProperties() {
-        configuration = IdentityConfigParser.getInstance().getConfiguration();
+        configSnapshot = new IdentityConfigSnapshot(IdentityConfigParser.getInstance().getConfiguration());
         eventListenerConfiguration = IdentityConfigParser.getInstance().getEventListenerConfiguration();
         identityCacheConfigurationHolder = IdentityConfigParser.getInstance().getIdentityCacheConfigurationHolder();
     }
@@ -406,7 +406,13 @@ public class IdentityUtil {
         boolean isUsernameCaseSensitive = true;
         try {
             String tenantDomain = MultitenantUtils.getTenantDomain(username);
-            int tenantId = IdentityTenantUtil.getRealmService().getTenantManager().getTenantId(tenantDomain);
+            Integer tenantId = UserStoreTraitsCache.getInstance().getTenantId(tenantDomain);
+            if (tenantId == null) {
+                tenantId = IdentityTenantUtil.getRealmService().getTenantManager().getTenantId(tenantDomain);
+                if (tenantId != MultitenantConstants.INVALID_TENANT_ID) {
+                    UserStoreTraitsCache.getInstance().addTenantId(tenantDomain, tenantId);
+                }
+            }
             return isUserStoreInUsernameCaseSensitive(username, tenantId);
         } catch (UserStoreException e) {
             if (log.isDebugEnabled()) {
@@ -439,13 +445,19 @@ public class IdentityUtil {
             //this is to handle federated scenarios
             return true;
         }
+        Boolean cachedCaseSensitivity = UserStoreTraitsCache.getInstance().isCaseSensitive(tenantId, userStoreDomain);
+        if (cachedCaseSensitivity != null) {
+            return cachedCaseSensitivity;
+        }
         try {
             org.wso2.carbon.user.core.UserStoreManager userStoreManager = (org.wso2.carbon.user.core
                     .UserStoreManager) IdentityTenantUtil.getRealmService()
                     .getTenantUserRealm(tenantId).getUserStoreManager();
             org.wso2.carbon.user.core.UserStoreManager userAvailableUserStoreManager = userStoreManager
                     .getSecondaryUserStoreManager(userStoreDomain);
-            return isUserStoreCaseSensitive(userAvailableUserStoreManager);
+            isUsernameCaseSensitive = isUserStoreCaseSensitive(userAvailableUserStoreManager);
+            UserStoreTraitsCache.getInstance().addCaseSensitivity(tenantId, userStoreDomain, isUsernameCaseSensitive);
+            return isUsernameCaseSensitive;
         } catch (UserStoreException e) {
             if (log.isDebugEnabled()) {
                 log.debug("Error while reading user store property CaseInsensitiveUsername. Considering as case " +
@@ -475,6 +487,20 @@ public class IdentityUtil {
         return !Boolean.parseBoolean(caseInsensitiveUsername);
     }
 
+    /**
+     * Check whether clustering is enabled in axis2.xml.
+     *
+     * @return true if the server is a member of a cluster
+     */
+    public static boolean isClusteringEnabled() {
+        if (IdentityCoreServiceComponent.getConfigurationContextService() == null) {
+            return false;
+        }
+        AxisConfiguration axisConfiguration = IdentityCoreServiceComponent.getConfigurationContextService().
+                getServerConfigContext().getAxisConfiguration();
+        return axisConfiguration.getClusteringAgent() != null;
+    }
+
     public static boolean isNotBlank(String input) {
         if (StringUtils.isNotBlank(input) && !"null".equals(input.trim())) {
             return true;
@@ -492,25 +518,13 @@ public class IdentityUtil {
     }
 
     public static int getCleanUpTimeout() {
-
-        String cleanUpTimeout = IdentityUtil.getProperty(IdentityConstants.ServerConfig.CLEAN_UP_TIMEOUT);
-        if (StringUtils.isBlank(cleanUpTimeout)) {
-            cleanUpTimeout = IdentityConstants.ServerConfig.CLEAN_UP_TIMEOUT_DEFAULT;
-        } else if (!StringUtils.isNumeric(cleanUpTimeout)) {
-            cleanUpTimeout = IdentityConstants.ServerConfig.CLEAN_UP_TIMEOUT_DEFAULT;
-        }
-        return Integer.parseInt(cleanUpTimeout);
+        return configSnapshot.getInt(IdentityConstants.ServerConfig.CLEAN_UP_TIMEOUT,
+                Integer.parseInt(IdentityConstants.ServerConfig.CLEAN_UP_TIMEOUT_DEFAULT));
     }
 
     public static int getCleanUpPeriod(String tenantDomain) {
-
-        String cleanUpPeriod = IdentityUtil.getProperty(IdentityConstants.ServerConfig.CLEAN_UP_PERIOD);
-        if (StringUtils.isBlank(cleanUpPeriod)) {
-            cleanUpPeriod = IdentityConstants.ServerConfig.CLEAN_UP_PERIOD_DEFAULT;
-        } else if (!StringUtils.isNumeric(cleanUpPeriod)) {
-            cleanUpPeriod = IdentityConstants.ServerConfig.CLEAN_UP_PERIOD_DEFAULT;
-        }
-        return Integer.parseInt(cleanUpPeriod);
+        return configSnapshot.getInt(IdentityConstants.ServerConfig.CLEAN_UP_PERIOD,
+                Integer.parseInt(IdentityConstants.ServerConfig.CLEAN_UP_PERIOD_DEFAULT));
     }
 
     public static String extractDomainFromName(String nameWithDomain) {
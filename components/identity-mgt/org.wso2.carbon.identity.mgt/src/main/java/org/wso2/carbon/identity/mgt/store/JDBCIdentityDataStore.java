@@ -70,104 +70,96 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
             log.error("Error while getting tenant Id.", e);
         }
 
-
-        Map<String, String> data = userIdentityDTO.getUserDataMap();
-
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            boolean isUserExists = false;
-            try {
-                isUserExists = isExistingUserDataValue(userName, tenantId, key);
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while checking if user existing", e);
-            }
-            try {
-                if (isUserExists) {
-                    updateUserDataValue(userName, tenantId, key, value);
-                } else {
-                    addUserDataValue(userName, tenantId, key, value);
-                }
-            } catch (SQLException e) {
-                throw IdentityException.error("Error occurred while persisting user data", e);
-            }
+        try {
+            storeUserDataValues(userName, tenantId, userIdentityDTO.getUserDataMap());
+        } catch (SQLException e) {
+            throw IdentityException.error("Error occurred while persisting user data", e);
         }
     }
 
-    private boolean isExistingUserDataValue(String userName, int tenantId, String key) throws SQLException {
+    /**
+     * Inserts the keys of a user which are not in the database and updates the keys whose values changed, in a
+     * single transaction. The stored values are read with one query so that the keys which did not change, which
+     * are most of them on a login, are not written.
+     */
+    private void storeUserDataValues(String userName, int tenantId, Map<String, String> data) throws SQLException {
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-        ResultSet results;
+        PreparedStatement loadStmt = null;
+        PreparedStatement addStmt = null;
+        PreparedStatement updateStmt = null;
+        ResultSet results = null;
         boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
         try {
             String query;
             if (isUsernameCaseSensitive) {
-                query = SQLQuery.CHECK_EXIST_USER_DATA;
+                query = SQLQuery.LOAD_USER_DATA;
             } else {
-                query = SQLQuery.CHECK_EXIST_USER_DATA_CASE_INSENSITIVE;
+                query = SQLQuery.LOAD_USER_DATA_CASE_INSENSITIVE;
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            results = prepStmt.executeQuery();
-            if (results.next()) {
-                return true;
+            loadStmt = connection.prepareStatement(query);
+            loadStmt.setInt(1, tenantId);
+            loadStmt.setString(2, userName);
+            results = loadStmt.executeQuery();
+            Map<String, String> storedData = new HashMap<String, String>();
+            while (results.next()) {
+                storedData.put(results.getString(1), results.getString(2));
             }
-            connection.commit();
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
-        return false;
-    }
-
 
-    private void addUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
-
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-
-        try {
-            prepStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            prepStmt.setString(4, value);
-            prepStmt.execute();
-            connection.commit();
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
-    }
-
-
-    private void updateUserDataValue(String userName, int tenantId, String key, String value) throws SQLException {
+            boolean hasAdditions = false;
+            boolean hasUpdates = false;
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (!storedData.containsKey(key)) {
+                    if (addStmt == null) {
+                        addStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+                    }
+                    addStmt.setInt(1, tenantId);
+                    addStmt.setString(2, userName);
+                    addStmt.setString(3, key);
+                    addStmt.setString(4, value);
+                    addStmt.addBatch();
+                    hasAdditions = true;
+                } else if (!isEqual(storedData.get(key), value)) {
+                    if (updateStmt == null) {
+                        if (isUsernameCaseSensitive) {
+                            query = SQLQuery.UPDATE_USER_DATA;
+                        } else {
+                            query = SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE;
+                        }
+                        updateStmt = connection.prepareStatement(query);
+                    }
+                    updateStmt.setString(1, value);
+                    updateStmt.setInt(2, tenantId);
+                    updateStmt.setString(3, userName);
+                    updateStmt.setString(4, key);
+                    updateStmt.addBatch();
+                    hasUpdates = true;
+                }
+            }
 
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement prepStmt = null;
-        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
-        try {
-            String query;
-            if (isUsernameCaseSensitive) {
-                query = SQLQuery.UPDATE_USER_DATA;
-            } else {
-                query = SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE;
+            if (hasAdditions) {
+                addStmt.executeBatch();
+            }
+            if (hasUpdates) {
+                updateStmt.executeBatch();
             }
-            prepStmt = connection.prepareStatement(query);
-            prepStmt.setString(1, value);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setString(3, userName);
-            prepStmt.setString(4, key);
-            prepStmt.executeUpdate();
             connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw e;
         } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
+            IdentityDatabaseUtil.closeResultSet(results);
+            IdentityDatabaseUtil.closeStatement(loadStmt);
+            IdentityDatabaseUtil.closeStatement(addStmt);
+            IdentityDatabaseUtil.closeStatement(updateStmt);
             IdentityDatabaseUtil.closeConnection(connection);
         }
+    }
 
+    private static boolean isEqual(String storedValue, String value) {
+        return storedValue == null ? value == null : storedValue.equals(value);
     }
 
     @Override
@@ -267,11 +259,6 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
      * The primary key is tenantId, userName, DatKey combination
      */
     private static class SQLQuery {
-        public static final String CHECK_EXIST_USER_DATA = "SELECT DATA_VALUE FROM IDN_IDENTITY_USER_DATA WHERE " +
-                "TENANT_ID = ? AND USER_NAME = ? AND DATA_KEY = ?";
-        public static final String CHECK_EXIST_USER_DATA_CASE_INSENSITIVE = "SELECT DATA_VALUE FROM " +
-                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?) AND DATA_KEY = ?";
-
         public static final String STORE_USER_DATA = "INSERT INTO IDN_IDENTITY_USER_DATA (TENANT_ID, USER_NAME, " +
                 "DATA_KEY, DATA_VALUE) VALUES (?,?,?,?)";
 
@@ -580,6 +580,7 @@ public class IdentityProviderManager {
         identityProvider.setIdpProperties(idpProperties);
 
         dao.addIdP(identityProvider, IdentityTenantUtil.getTenantId(tenantDomain), tenantDomain);
+        IdPManagementUtil.clearSessionPolicy(tenantDomain);
 
         // invoking the post listeners
         for (IdentityProviderMgtListener listener : listeners) {
@@ -634,6 +635,7 @@ public class IdentityProviderManager {
                 identityProvider.getFederatedAuthenticatorConfigs(), tenantId, tenantDomain);
 
         dao.updateIdP(identityProvider, currentIdP, tenantId, tenantDomain);
+        IdPManagementUtil.clearSessionPolicy(tenantDomain);
 
         // invoking the post listeners
         for (IdentityProviderMgtListener listener : listeners) {
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.idp.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+
+public class ResidentIdPSessionPolicyCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -5394370522180717404L;
+
+    private final int idleSessionTimeOut;
+    private final int rememberMeTimeOut;
+
+    /**
+     * @param idleSessionTimeOut idle session timeout in seconds
+     * @param rememberMeTimeOut  remember me session timeout in seconds
+     */
+    public ResidentIdPSessionPolicyCacheEntry(int idleSessionTimeOut, int rememberMeTimeOut) {
+        this.idleSessionTimeOut = idleSessionTimeOut;
+        this.rememberMeTimeOut = rememberMeTimeOut;
+    }
+
+    public int getIdleSessionTimeOut() {
+        return idleSessionTimeOut;
+    }
+
+    public int getRememberMeTimeOut() {
+        return rememberMeTimeOut;
+    }
+}
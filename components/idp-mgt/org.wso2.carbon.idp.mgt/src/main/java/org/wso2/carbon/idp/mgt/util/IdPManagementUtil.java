@@ -31,6 +31,9 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationManag
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPSessionPolicyCache;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPSessionPolicyCacheEntry;
+import org.wso2.carbon.idp.mgt.cache.ResidentIdPSessionPolicyCacheKey;
 import org.wso2.carbon.idp.mgt.internal.IdPManagementServiceComponent;
 import org.wso2.carbon.user.api.TenantManager;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -71,40 +74,74 @@ public class IdPManagementUtil {
         return localEntityId;
     }
 
+    /**
+     * @param tenantDomain tenant domain
+     * @return idle session timeout of the resident identity provider of the tenant, in seconds
+     */
     public static int getIdleSessionTimeOut(String tenantDomain) {
+        return getSessionPolicy(tenantDomain).getIdleSessionTimeOut();
+    }
 
-        IdentityProviderManager identityProviderManager = IdentityProviderManager.getInstance();
-        int timeout = Integer.parseInt(IdentityApplicationConstants.SESSION_IDLE_TIME_OUT_DEFAULT);
+    /**
+     * @param tenantDomain tenant domain
+     * @return remember me session timeout of the resident identity provider of the tenant, in seconds
+     */
+    public static int getRememberMeTimeout(String tenantDomain) {
+        return getSessionPolicy(tenantDomain).getRememberMeTimeOut();
+    }
 
-        try {
-            IdentityProvider identityProvider = identityProviderManager.getResidentIdP(tenantDomain);
-            IdentityProviderProperty idpProperty = IdentityApplicationManagementUtil.getProperty(
-                    identityProvider.getIdpProperties(), IdentityApplicationConstants.SESSION_IDLE_TIME_OUT);
-            if (idpProperty != null) {
-                timeout = Integer.parseInt(idpProperty.getValue());
-            }
-        } catch (IdentityProviderManagementException e) {
-            log.error("Error when accessing the IdentityProviderManager for tenant : " + tenantDomain, e);
+    /**
+     * Clears the cached session timeouts of the resident identity provider of a tenant. Should be called whenever
+     * the resident identity provider is added or updated.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public static void clearSessionPolicy(String tenantDomain) {
+        if (tenantDomain != null) {
+            ResidentIdPSessionPolicyCache.getInstance().clearCacheEntry(
+                    new ResidentIdPSessionPolicyCacheKey(tenantDomain));
         }
-        return timeout * 60;
     }
 
-    public static int getRememberMeTimeout(String tenantDomain) {
+    private static ResidentIdPSessionPolicyCacheEntry getSessionPolicy(String tenantDomain) {
 
-        IdentityProviderManager identityProviderManager = IdentityProviderManager.getInstance();
-        int rememberMeTimeout = Integer.parseInt(IdentityApplicationConstants.REMEMBER_ME_TIME_OUT_DEFAULT);
+        ResidentIdPSessionPolicyCacheKey cacheKey = null;
+        if (tenantDomain != null) {
+            cacheKey = new ResidentIdPSessionPolicyCacheKey(tenantDomain);
+            ResidentIdPSessionPolicyCacheEntry sessionPolicy = ResidentIdPSessionPolicyCache.getInstance()
+                    .getValueFromCache(cacheKey);
+            if (sessionPolicy != null) {
+                return sessionPolicy;
+            }
+        }
 
+        int timeout = Integer.parseInt(IdentityApplicationConstants.SESSION_IDLE_TIME_OUT_DEFAULT);
+        int rememberMeTimeout = Integer.parseInt(IdentityApplicationConstants.REMEMBER_ME_TIME_OUT_DEFAULT);
+        boolean resolved = false;
         try {
-            IdentityProvider identityProvider = identityProviderManager.getResidentIdP(tenantDomain);
+            IdentityProvider identityProvider = IdentityProviderManager.getInstance().getResidentIdP(tenantDomain);
             IdentityProviderProperty idpProperty = IdentityApplicationManagementUtil.getProperty(
+                    identityProvider.getIdpProperties(), IdentityApplicationConstants.SESSION_IDLE_TIME_OUT);
+            if (idpProperty != null) {
+                timeout = Integer.parseInt(idpProperty.getValue());
+            }
+            idpProperty = IdentityApplicationManagementUtil.getProperty(
                     identityProvider.getIdpProperties(), IdentityApplicationConstants.REMEMBER_ME_TIME_OUT);
             if (idpProperty != null) {
                 rememberMeTimeout = Integer.parseInt(idpProperty.getValue());
             }
+            resolved = true;
         } catch (IdentityProviderManagementException e) {
             log.error("Error when accessing the IdentityProviderManager for tenant : " + tenantDomain, e);
         }
-        return rememberMeTimeout * 60;
+
+        ResidentIdPSessionPolicyCacheEntry sessionPolicy = new ResidentIdPSessionPolicyCacheEntry(timeout * 60,
+                rememberMeTimeout * 60);
+        // the defaults are not cached, so that the timeouts of the tenant are picked once they can be read
+        if (resolved && cacheKey != null) {
+            ResidentIdPSessionPolicyCache.getInstance().addToCache(cacheKey, sessionPolicy);
+        }
+        return sessionPolicy;
     }
 
     /**
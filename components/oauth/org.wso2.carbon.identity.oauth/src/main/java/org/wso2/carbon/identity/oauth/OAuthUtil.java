@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.registry.core.utils.UUIDGenerator;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
@@ -103,6 +104,8 @@ public final class OAuthUtil {
             OAuthCacheKey cacheKey = new OAuthCacheKey(oauthCacheKey);
             oauthCache.clearCacheEntry(cacheKey);
         }
+        // access tokens are also held by the node local validation cache
+        TokenValidationCache.getInstance().clearCacheEntry(oauthCacheKey);
     }
 
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node local cache used by the token validation and introspection path. It has two tiers.
+ * <ul>
+ * <li>Valid tokens, bounded in size and kept no longer than the token is valid or the configured maximum time to
+ * live, whichever comes first.</li>
+ * <li>Unknown tokens, kept for a short time so that repeated requests with invalid or forged tokens do not reach
+ * the database.</li>
+ * </ul>
+ * Entries are dropped when the token is stored, revoked or its state is changed through TokenMgtDAO. Invalidation is
+ * local to the node making the change, so other nodes of a cluster may accept a revoked token until the entry
+ * expires. The cache is therefore disabled unless OAuth.TokenValidationCache.Enable is set to true.
+ */
+public class TokenValidationCache {
+
+    private static final Log log = LogFactory.getLog(TokenValidationCache.class);
+
+    private static final String CONFIG_PREFIX = "OAuth.TokenValidationCache.";
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_MAX_TIME_TO_LIVE = 60;
+    private static final int DEFAULT_INVALID_TOKEN_CAPACITY = 10000;
+    private static final int DEFAULT_INVALID_TOKEN_TIME_TO_LIVE = 10;
+
+    private static volatile TokenValidationCache instance;
+
+    private final boolean enabled;
+    private final long maxTimeToLiveMillis;
+    private final long invalidTokenTimeToLiveMillis;
+
+    private final Map<String, ValidTokenEntry> validTokens;
+    private final Map<String, String> tokenIdentifiersById = new HashMap<>();
+    private final Map<String, Long> invalidTokens;
+
+    private TokenValidationCache() {
+
+        enabled = Boolean.parseBoolean(IdentityUtil.getProperty(CONFIG_PREFIX + "Enable"));
+        final int capacity = readIntProperty("Capacity", DEFAULT_CAPACITY);
+        final int invalidTokenCapacity = readIntProperty("InvalidTokenCapacity", DEFAULT_INVALID_TOKEN_CAPACITY);
+        maxTimeToLiveMillis = readIntProperty("MaxTimeToLive", DEFAULT_MAX_TIME_TO_LIVE) * 1000L;
+        invalidTokenTimeToLiveMillis =
+                readIntProperty("InvalidTokenTimeToLive", DEFAULT_INVALID_TOKEN_TIME_TO_LIVE) * 1000L;
+
+        validTokens = new LinkedHashMap<String, ValidTokenEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidTokenEntry> eldest) {
+                if (size() > capacity) {
+                    tokenIdentifiersById.remove(eldest.getValue().tokenId);
+                    return true;
+                }
+                return false;
+            }
+        };
+        invalidTokens = new LinkedHashMap<String, Long>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > invalidTokenCapacity;
+            }
+        };
+
+        if (log.isDebugEnabled()) {
+            log.debug("Token validation cache enabled : " + enabled + ", capacity : " + capacity +
+                    ", max time to live : " + maxTimeToLiveMillis + "ms, invalid token capacity : " +
+                    invalidTokenCapacity + ", invalid token time to live : " + invalidTokenTimeToLiveMillis + "ms");
+        }
+    }
+
+    /**
+     * Returns TokenValidationCache instance
+     *
+     * @return instance of TokenValidationCache
+     */
+    public static TokenValidationCache getInstance() {
+        if (instance == null) {
+            synchronized (TokenValidationCache.class) {
+                if (instance == null) {
+                    instance = new TokenValidationCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a cached valid token.
+     *
+     * @param tokenIdentifier access token identifier
+     * @return cached token or null if the token is not cached or the entry has expired
+     */
+    public AccessTokenDO getValidToken(String tokenIdentifier) {
+        if (!enabled || tokenIdentifier == null) {
+            return null;
+        }
+        synchronized (validTokens) {
+            ValidTokenEntry entry = validTokens.get(tokenIdentifier);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiryTime <= System.currentTimeMillis()) {
+                removeValidToken(tokenIdentifier);
+                return null;
+            }
+            return entry.accessTokenDO;
+        }
+    }
+
+    /**
+     * Caches a token loaded by the validation path.
+     *
+     * @param tokenIdentifier access token identifier
+     * @param accessTokenDO   token to cache
+     */
+    public void addValidToken(String tokenIdentifier, AccessTokenDO accessTokenDO) {
+        if (!enabled || tokenIdentifier == null || accessTokenDO == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiryTime = now + maxTimeToLiveMillis;
+        if (accessTokenDO.getValidityPeriodInMillis() >= 0 && accessTokenDO.getIssuedTime() != null) {
+            expiryTime = Math.min(expiryTime,
+                    accessTokenDO.getIssuedTime().getTime() + accessTokenDO.getValidityPeriodInMillis());
+        }
+        if (expiryTime <= now) {
+            return;
+        }
+        synchronized (validTokens) {
+            removeValidToken(tokenIdentifier);
+            validTokens.put(tokenIdentifier, new ValidTokenEntry(accessTokenDO, expiryTime));
+            if (accessTokenDO.getTokenId() != null) {
+                tokenIdentifiersById.put(accessTokenDO.getTokenId(), tokenIdentifier);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the token was recently looked up and found not to exist.
+     *
+     * @param tokenIdentifier access token identifier
+     * @return true if the token is known to be invalid
+     */
+    public boolean isInvalidToken(String tokenIdentifier) {
+        if (!enabled || tokenIdentifier == null) {
+            return false;
+        }
+        synchronized (invalidTokens) {
+            Long expiryTime = invalidTokens.get(tokenIdentifier);
+            if (expiryTime == null) {
+                return false;
+            }
+            if (expiryTime <= System.currentTimeMillis()) {
+                invalidTokens.remove(tokenIdentifier);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Records a token which could not be found.
+     *
+     * @param tokenIdentifier access token identifier
+     */
+    public void addInvalidToken(String tokenIdentifier) {
+        if (!enabled || tokenIdentifier == null || invalidTokenTimeToLiveMillis <= 0) {
+            return;
+        }
+        synchronized (invalidTokens) {
+            // re-insert so that the entry moves to the end of the eviction order
+            invalidTokens.remove(tokenIdentifier);
+            invalidTokens.put(tokenIdentifier, System.currentTimeMillis() + invalidTokenTimeToLiveMillis);
+        }
+    }
+
+    /**
+     * Removes the token from both tiers.
+     *
+     * @param tokenIdentifier access token identifier
+     */
+    public void clearCacheEntry(String tokenIdentifier) {
+        if (!enabled || tokenIdentifier == null) {
+            return;
+        }
+        synchronized (validTokens) {
+            removeValidToken(tokenIdentifier);
+        }
+        synchronized (invalidTokens) {
+            invalidTokens.remove(tokenIdentifier);
+        }
+    }
+
+    /**
+     * Removes a valid token by its token id. Used where the token state is changed without the token identifier
+     * being at hand.
+     *
+     * @param tokenId id of the access token
+     */
+    public void clearCacheEntryByTokenId(String tokenId) {
+        if (!enabled || tokenId == null) {
+            return;
+        }
+        synchronized (validTokens) {
+            String tokenIdentifier = tokenIdentifiersById.remove(tokenId);
+            if (tokenIdentifier != null) {
+                validTokens.remove(tokenIdentifier);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from both tiers.
+     */
+    public void clear() {
+        synchronized (validTokens) {
+            validTokens.clear();
+            tokenIdentifiersById.clear();
+        }
+        synchronized (invalidTokens) {
+            invalidTokens.clear();
+        }
+    }
+
+    private void removeValidToken(String tokenIdentifier) {
+        ValidTokenEntry entry = validTokens.remove(tokenIdentifier);
+        if (entry != null && entry.tokenId != null) {
+            tokenIdentifiersById.remove(entry.tokenId);
+        }
+    }
+
+    private static int readIntProperty(String name, int defaultValue) {
+        String value = IdentityUtil.getProperty(CONFIG_PREFIX + name);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value : " + value + " for " + CONFIG_PREFIX + name + ". Using the default value : "
+                        + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static class ValidTokenEntry {
+
+        private final AccessTokenDO accessTokenDO;
+        private final String tokenId;
+        private final long expiryTime;
+
+        private ValidTokenEntry(AccessTokenDO accessTokenDO, long expiryTime) {
+            this.accessTokenDO = accessTokenDO;
+            this.tokenId = accessTokenDO.getTokenId();
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class AccessContextTokenDO {
     private AccessTokenDO newAccessTokenDO;
     private AccessTokenDO existingAccessTokenDO;
     private String userStoreDomain;
+    private long queuedTime;
 
     public AccessContextTokenDO(String accessToken, String consumerKey, AccessTokenDO newAccessTokenDO, AccessTokenDO
             existingAccessTokenDO, String userStoreDomain) {
@@ -38,6 +39,7 @@ public class AccessContextTokenDO {
         this.newAccessTokenDO = newAccessTokenDO;
         this.existingAccessTokenDO = existingAccessTokenDO;
         this.userStoreDomain = userStoreDomain;
+        this.queuedTime = System.currentTimeMillis();
     }
 
     public String getAccessToken() {
@@ -59,4 +61,11 @@ public class AccessContextTokenDO {
     public AccessTokenDO getExistingAccessTokenDO() {
         return existingAccessTokenDO;
     }
+
+    /**
+     * @return time in milliseconds at which this access token was queued for persistence
+     */
+    public long getQueuedTime() {
+        return queuedTime;
+    }
 }
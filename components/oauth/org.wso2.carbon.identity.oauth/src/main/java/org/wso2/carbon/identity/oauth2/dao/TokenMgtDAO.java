@@ -24,8 +24,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.persistence.DatabaseDialect;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
@@ -47,6 +49,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -55,6 +58,8 @@ import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -71,6 +76,10 @@ public class TokenMgtDAO {
 
     private static int maxPoolSize = 100;
 
+    private static int tokenPersistBatchSize = 100;
+
+    private static TokenPersistenceStats tokenPersistenceStats = new TokenPersistenceStats();
+
     private boolean enablePersist = true;
 
     private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue = new LinkedBlockingDeque<>();
@@ -81,6 +90,9 @@ public class TokenMgtDAO {
 
     private static final String IDN_OAUTH2_ACCESS_TOKEN = "IDN_OAUTH2_ACCESS_TOKEN";
 
+    // Final SQL of the dialect and partition dependent queries, keyed by the variant they were built for
+    private static final ConcurrentMap<String, String> resolvedQueries = new ConcurrentHashMap<>();
+
     static {
 
         final Log log = LogFactory.getLog(TokenMgtDAO.class);
@@ -98,13 +110,25 @@ public class TokenMgtDAO {
             log.warn("Session data persistence pool size is not configured. Using default value.");
         }
 
+        try {
+            String batchSizeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.TokenPersist.BatchSize");
+            if (StringUtils.isNotBlank(batchSizeConfigValue)) {
+                tokenPersistBatchSize = Integer.parseInt(batchSizeConfigValue.trim());
+            }
+        } catch (NumberFormatException e) {
+            if(log.isDebugEnabled()){
+                log.debug("Error while parsing the integer", e);
+            }
+            log.warn("Token persistence batch size is not a valid integer. Using default value.");
+        }
+
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
 
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
 
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue));
+                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue, tokenPersistBatchSize));
             }
 
             threadPool = Executors.newFixedThreadPool(maxPoolSize);
@@ -259,7 +283,7 @@ public class TokenMgtDAO {
             return;
         }
         if (maxPoolSize > 0) {
-            accessContextTokenQueue.push(new AccessContextTokenDO(accessToken, consumerKey, newAccessTokenDO
+            accessContextTokenQueue.add(new AccessContextTokenDO(accessToken, consumerKey, newAccessTokenDO
                     , existingAccessTokenDO, userStoreDomain));
         } else {
             persistAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO, userStoreDomain);
@@ -292,6 +316,12 @@ public class TokenMgtDAO {
                 storeAccessToken(accessToken, consumerKey, newAccessTokenDO, connection, userStoreDomain);
             }
             connection.commit();
+            // the token may have been looked up before it reached the database
+            TokenValidationCache validationCache = TokenValidationCache.getInstance();
+            validationCache.clearCacheEntry(accessToken);
+            if (existingAccessTokenDO != null) {
+                validationCache.clearCacheEntryByTokenId(existingAccessTokenDO.getTokenId());
+            }
             return true;
         } catch (SQLException e) {
             throw new IdentityOAuth2Exception("Error occurred while persisting access token", e);
@@ -300,6 +330,210 @@ public class TokenMgtDAO {
         }
     }
 
+    /**
+     * Persists a group of access tokens in a single transaction. Token state updates, token inserts, scope inserts
+     * and authorization code deactivations are sent as JDBC batches, reusing one prepared statement per
+     * access token table. If the batch fails it is rolled back and the access tokens are persisted one by one, so
+     * that a single failing token does not affect the others.
+     * <p/>
+     * The state updates of a batch are executed before its inserts. A token which replaces a token of the same
+     * group would not find the replaced token, hence the group is split before such a token.
+     *
+     * @param accessContextTokenDOs access tokens to be persisted, in the order they were issued
+     */
+    public void persistAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) {
+
+        if (!enablePersist || accessContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        int fromIndex = 0;
+        Set<String> batchTokenIds = new HashSet<>();
+        for (int i = 0; i < accessContextTokenDOs.size(); i++) {
+            AccessContextTokenDO accessContextTokenDO = accessContextTokenDOs.get(i);
+            AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+            if (existingAccessTokenDO != null && batchTokenIds.contains(existingAccessTokenDO.getTokenId())) {
+                persistAccessTokenBatch(accessContextTokenDOs.subList(fromIndex, i));
+                fromIndex = i;
+                batchTokenIds.clear();
+            }
+            batchTokenIds.add(accessContextTokenDO.getNewAccessTokenDO().getTokenId());
+        }
+        persistAccessTokenBatch(accessContextTokenDOs.subList(fromIndex, accessContextTokenDOs.size()));
+    }
+
+    private void persistAccessTokenBatch(List<AccessContextTokenDO> accessContextTokenDOs) {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        Map<String, PreparedStatement> updateStateStatements = new HashMap<>();
+        Map<String, PreparedStatement> insertTokenStatements = new HashMap<>();
+        PreparedStatement insertScopeStatement = null;
+        PreparedStatement deactivateAuthzCodeStatement = null;
+        Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        try {
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                AccessTokenDO newAccessTokenDO = accessContextTokenDO.getNewAccessTokenDO();
+                AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+                String accessTokenStoreTable = IDN_OAUTH2_ACCESS_TOKEN;
+                if (StringUtils.isNotBlank(accessContextTokenDO.getUserStoreDomain())) {
+                    accessTokenStoreTable = accessTokenStoreTable + "_" + accessContextTokenDO.getUserStoreDomain();
+                }
+
+                if (existingAccessTokenDO != null) {
+                    //  Mark the existing access token as expired on database if a token exist for the user
+                    PreparedStatement updateStateStatement = updateStateStatements.get(accessTokenStoreTable);
+                    if (updateStateStatement == null) {
+                        updateStateStatement = connection.prepareStatement(SQLQueries.UPDATE_TOKE_STATE.replace(
+                                IDN_OAUTH2_ACCESS_TOKEN, accessTokenStoreTable));
+                        updateStateStatements.put(accessTokenStoreTable, updateStateStatement);
+                    }
+                    updateStateStatement.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+                    updateStateStatement.setString(2, UUID.randomUUID().toString());
+                    updateStateStatement.setString(3, existingAccessTokenDO.getTokenId());
+                    updateStateStatement.addBatch();
+                }
+
+                PreparedStatement insertTokenStatement = insertTokenStatements.get(accessTokenStoreTable);
+                if (insertTokenStatement == null) {
+                    insertTokenStatement = connection.prepareStatement(SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN
+                            .replaceAll("\\$accessTokenStoreTable", accessTokenStoreTable));
+                    insertTokenStatements.put(accessTokenStoreTable, insertTokenStatement);
+                }
+                String consumerKey = accessContextTokenDO.getConsumerKey();
+                insertTokenStatement.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(
+                        accessContextTokenDO.getAccessToken()));
+                if (newAccessTokenDO.getRefreshToken() != null) {
+                    insertTokenStatement.setString(2, persistenceProcessor.getProcessedRefreshToken(
+                            newAccessTokenDO.getRefreshToken()));
+                } else {
+                    insertTokenStatement.setString(2, null);
+                }
+                insertTokenStatement.setString(3, newAccessTokenDO.getAuthzUser().getUserName());
+                int tenantId = OAuth2Util.getTenantId(newAccessTokenDO.getAuthzUser().getTenantDomain());
+                insertTokenStatement.setInt(4, tenantId);
+                insertTokenStatement.setString(5, newAccessTokenDO.getAuthzUser().getUserStoreDomain());
+                insertTokenStatement.setTimestamp(6, newAccessTokenDO.getIssuedTime(), utcCalendar);
+                insertTokenStatement.setTimestamp(7, newAccessTokenDO.getRefreshTokenIssuedTime(), utcCalendar);
+                insertTokenStatement.setLong(8, newAccessTokenDO.getValidityPeriodInMillis());
+                insertTokenStatement.setLong(9, newAccessTokenDO.getRefreshTokenValidityPeriodInMillis());
+                insertTokenStatement.setString(10, OAuth2Util.hashScopes(newAccessTokenDO.getScope()));
+                insertTokenStatement.setString(11, newAccessTokenDO.getTokenState());
+                insertTokenStatement.setString(12, newAccessTokenDO.getTokenType());
+                insertTokenStatement.setString(13, newAccessTokenDO.getTokenId());
+                insertTokenStatement.setString(14, newAccessTokenDO.getGrantType());
+                insertTokenStatement.setString(15, newAccessTokenDO.getAuthzUser()
+                        .getAuthenticatedSubjectIdentifier());
+                insertTokenStatement.setString(16, persistenceProcessor.getProcessedClientId(consumerKey));
+                insertTokenStatement.addBatch();
+
+                if (newAccessTokenDO.getScope() != null && newAccessTokenDO.getScope().length > 0) {
+                    if (insertScopeStatement == null) {
+                        insertScopeStatement = connection.prepareStatement(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE);
+                    }
+                    for (String scope : newAccessTokenDO.getScope()) {
+                        insertScopeStatement.setString(1, newAccessTokenDO.getTokenId());
+                        insertScopeStatement.setString(2, scope);
+                        insertScopeStatement.setInt(3, tenantId);
+                        insertScopeStatement.addBatch();
+                    }
+                }
+
+                if (newAccessTokenDO.getAuthorizationCode() != null) {
+                    // expire authz code and insert issued access token against authz code
+                    if (deactivateAuthzCodeStatement == null) {
+                        deactivateAuthzCodeStatement = connection.prepareStatement(
+                                SQLQueries.DEACTIVATE_AUTHZ_CODE_AND_INSERT_CURRENT_TOKEN);
+                    }
+                    deactivateAuthzCodeStatement.setString(1, newAccessTokenDO.getTokenId());
+                    deactivateAuthzCodeStatement.setString(2, persistenceProcessor.getPreprocessedAuthzCode(
+                            newAccessTokenDO.getAuthorizationCode()));
+                    deactivateAuthzCodeStatement.addBatch();
+                }
+            }
+
+            // existing tokens are expired before the new ones are inserted to honour the unique token state. None of
+            // the expired tokens is inserted by this batch, as persistAccessTokens splits replace chains
+            for (PreparedStatement updateStateStatement : updateStateStatements.values()) {
+                updateStateStatement.executeBatch();
+            }
+            for (PreparedStatement insertTokenStatement : insertTokenStatements.values()) {
+                insertTokenStatement.executeBatch();
+            }
+            if (insertScopeStatement != null) {
+                insertScopeStatement.executeBatch();
+            }
+            if (deactivateAuthzCodeStatement != null) {
+                deactivateAuthzCodeStatement.executeBatch();
+            }
+            connection.commit();
+
+            // the tokens may have been looked up while they were queued
+            TokenValidationCache validationCache = TokenValidationCache.getInstance();
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                validationCache.clearCacheEntry(accessContextTokenDO.getAccessToken());
+                if (accessContextTokenDO.getExistingAccessTokenDO() != null) {
+                    validationCache.clearCacheEntryByTokenId(
+                            accessContextTokenDO.getExistingAccessTokenDO().getTokenId());
+                }
+            }
+
+            long lag = System.currentTimeMillis() - accessContextTokenDOs.get(0).getQueuedTime();
+            tokenPersistenceStats.recordBatch(accessContextTokenDOs.size(), lag);
+            if (log.isDebugEnabled()) {
+                log.debug("Persisted a batch of " + accessContextTokenDOs.size() + " access tokens. " +
+                        tokenPersistenceStats);
+            }
+        } catch (SQLException | IdentityOAuth2Exception e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            tokenPersistenceStats.recordFailedBatch();
+            log.error("Error occurred while persisting a batch of " + accessContextTokenDOs.size() +
+                    " access tokens. Persisting them one by one", e);
+            closeStatements(updateStateStatements.values());
+            closeStatements(insertTokenStatements.values());
+            updateStateStatements.clear();
+            insertTokenStatements.clear();
+            IdentityDatabaseUtil.closeStatement(insertScopeStatement);
+            IdentityDatabaseUtil.closeStatement(deactivateAuthzCodeStatement);
+            insertScopeStatement = null;
+            deactivateAuthzCodeStatement = null;
+            IdentityDatabaseUtil.closeConnection(connection);
+            connection = null;
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                try {
+                    persistAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                            accessContextTokenDO.getNewAccessTokenDO(),
+                            accessContextTokenDO.getExistingAccessTokenDO(),
+                            accessContextTokenDO.getUserStoreDomain());
+                } catch (IdentityOAuth2Exception e1) {
+                    log.error("Error occurred while persisting access token : " +
+                            accessContextTokenDO.getNewAccessTokenDO().getTokenId(), e1);
+                }
+            }
+        } finally {
+            closeStatements(updateStateStatements.values());
+            closeStatements(insertTokenStatements.values());
+            IdentityDatabaseUtil.closeStatement(insertScopeStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deactivateAuthzCodeStatement);
+        }
+    }
+
+    private void closeStatements(Collection<PreparedStatement> statements) {
+        for (PreparedStatement statement : statements) {
+            IdentityDatabaseUtil.closeStatement(statement);
+        }
+    }
+
+    /**
+     * @return number of access tokens waiting to be persisted
+     */
+    public static int getAccessTokenPersistQueueSize() {
+        return accessContextTokenQueue.size();
+    }
+
+    public static TokenPersistenceStats getTokenPersistenceStats() {
+        return tokenPersistenceStats;
+    }
+
     public AccessTokenDO retrieveLatestAccessToken(String consumerKey, AuthenticatedUser authzUser,
                                                    String userStoreDomain, String scope,
                                                    boolean includeExpiredTokens)
@@ -319,39 +553,8 @@ public class TokenMgtDAO {
         ResultSet resultSet = null;
         try {
 
-            String sql;
-            if (connection.getMetaData().getDriverName().contains("MySQL")
-                || connection.getMetaData().getDriverName().contains("H2")) {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MYSQL;
-            } else if (connection.getMetaData().getDatabaseProductName().contains("DB2")) {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_DB2SQL;
-            }
-            else if (connection.getMetaData().getDriverName().contains("MS SQL")) {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MSSQL;
-            } else if (connection.getMetaData().getDriverName().contains("Microsoft")) {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MSSQL;
-            } else if (connection.getMetaData().getDriverName().contains("PostgreSQL")) {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_POSTGRESQL;
-            } else if (connection.getMetaData().getDriverName().contains("Informix")){
-                // Driver name = "IBM Informix JDBC Driver for IBM Informix Dynamic Server"
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_INFORMIX;
-
-            } else {
-                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_ORACLE;
-            }
-
-            if (StringUtils.isNotEmpty(userStoreDomain)) {
-                //logic to store access token into different tables when multiple user stores are configured.
-                sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" + userStoreDomain);
-            }
-            if (!isUsernameCaseSensitive){
-                sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
-            }
-
             String hashedScope = OAuth2Util.hashScopes(scope);
-            if (hashedScope == null) {
-                sql = sql.replace("TOKEN_SCOPE_HASH=?", "TOKEN_SCOPE_HASH IS NULL");
-            }
+            String sql = getLatestAccessTokenQuery(userStoreDomain, isUsernameCaseSensitive, hashedScope == null);
 
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, persistenceProcessor.getProcessedClientId(consumerKey));
@@ -448,16 +651,7 @@ public class TokenMgtDAO {
         Map<String, AccessTokenDO> accessTokenDOMap = new HashMap<>();
         try {
             int tenantId = OAuth2Util.getTenantId(tenantDomain);
-            String sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_BY_CLIENT_ID_USER;
-            if (includeExpired) {
-                sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_BY_CLIENT_ID_USER;
-            }
-            if (StringUtils.isNotEmpty(userStoreDomain)) {
-                sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" + userStoreDomain);
-            }
-            if (!isUsernameCaseSensitive){
-                sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
-            }
+            String sql = getAccessTokensByUserQuery(userStoreDomain, isUsernameCaseSensitive, includeExpired);
 
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, persistenceProcessor.getProcessedClientId(consumerKey));
@@ -626,13 +820,7 @@ public class TokenMgtDAO {
         PreparedStatement prepStmt = null;
         ResultSet resultSet = null;
         String userStoreDomain = null;
-        String sql = null;
-        String mySqlQuery;
-        String db2Query;
-        String oracleQuery;
-        String msSqlQuery;
-        String postgreSqlQuery;
-        String informixQuery;
+        String sql;
 
         try {
             if (OAuth2Util.checkAccessTokenPartitioningEnabled() &&
@@ -645,39 +833,7 @@ public class TokenMgtDAO {
                 accessTokenStoreTable = accessTokenStoreTable + "_" + userStoreDomain;
             }
 
-            mySqlQuery = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MYSQL.replaceAll("\\$accessTokenStoreTable",
-                    accessTokenStoreTable);
-            db2Query = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_DB2SQL.replaceAll("\\$accessTokenStoreTable",
-                    accessTokenStoreTable);
-            oracleQuery = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_ORACLE.replaceAll("\\$accessTokenStoreTable",
-                    accessTokenStoreTable);
-            msSqlQuery = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MSSQL.replaceAll("\\$accessTokenStoreTable",
-                    accessTokenStoreTable);
-            informixQuery = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_INFORMIX.replaceAll
-                    ("\\$accessTokenStoreTable", accessTokenStoreTable);
-            postgreSqlQuery = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_POSTGRESQL.replaceAll
-                    ("\\$accessTokenStoreTable", accessTokenStoreTable);
-
-            if (connection.getMetaData().getDriverName().contains("MySQL")
-                || connection.getMetaData().getDriverName().contains("H2")) {
-                sql = mySqlQuery;
-            } else if(connection.getMetaData().getDatabaseProductName().contains("DB2")){
-                sql = db2Query;
-            } else if (connection.getMetaData().getDriverName().contains("MS SQL")) {
-                sql = msSqlQuery;
-            } else if (connection.getMetaData().getDriverName().contains("Microsoft")) {
-                sql = msSqlQuery;
-            } else if (connection.getMetaData().getDriverName().contains("PostgreSQL")) {
-                sql = postgreSqlQuery;
-            } else if (connection.getMetaData().getDriverName().contains("INFORMIX")) {
-                sql = informixQuery;
-            } else {
-                sql = oracleQuery;
-            }
-
-            if (refreshToken == null) {
-                sql = sql.replace("REFRESH_TOKEN = ?", "REFRESH_TOKEN IS NULL");
-            }
+            sql = getRefreshTokenValidationQuery(accessTokenStoreTable, refreshToken == null);
 
             prepStmt = connection.prepareStatement(sql);
 
@@ -873,10 +1029,17 @@ public class TokenMgtDAO {
      */
     public void revokeTokens(String[] tokens) throws IdentityOAuth2Exception {
 
-        if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
-            revokeTokensIndividual(tokens);
-        } else {
-            revokeTokensBatch(tokens);
+        try {
+            if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
+                revokeTokensIndividual(tokens);
+            } else {
+                revokeTokensBatch(tokens);
+            }
+        } finally {
+            TokenValidationCache validationCache = TokenValidationCache.getInstance();
+            for (String token : tokens) {
+                validationCache.clearCacheEntry(token);
+            }
         }
     }
 
@@ -964,6 +1127,8 @@ public class TokenMgtDAO {
                 log.debug("Number of rows being updated : " + count);
             }
             connection.commit();
+            // cleared after the commit so that a validation in between can not cache the active token again
+            TokenValidationCache.getInstance().clearCacheEntryByTokenId(tokenId);
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollBack(connection);
             throw new IdentityOAuth2Exception("Error occurred while revoking Access Token with ID : " + tokenId, e);
@@ -1090,6 +1255,9 @@ public class TokenMgtDAO {
 
 			// commit both transactions
 			connection.commit();
+            TokenValidationCache validationCache = TokenValidationCache.getInstance();
+            validationCache.clearCacheEntry(newAccessToken);
+            validationCache.clearCacheEntryByTokenId(oldAccessTokenId);
 		} catch (SQLException e) {
 			String errorMsg = "Error while regenerating access token";
 			throw new IdentityOAuth2Exception(errorMsg, e);
@@ -1524,7 +1692,7 @@ public class TokenMgtDAO {
         PreparedStatement prepStmt = null;
         try {
             String updateNewTokenAgaintAuthzCodeSql;
-            if (connection.getMetaData().getDriverName().contains("MySQL")){
+            if (IdentityDatabaseUtil.getDatabaseDialect() == DatabaseDialect.MYSQL) {
                 updateNewTokenAgaintAuthzCodeSql = SQLQueries.UPDATE_NEW_TOKEN_AGAINST_AUTHZ_CODE_MYSQL;
             }else{
                 updateNewTokenAgaintAuthzCodeSql = SQLQueries.UPDATE_NEW_TOKEN_AGAINST_AUTHZ_CODE;
@@ -1577,4 +1745,114 @@ public class TokenMgtDAO {
         }
     }
 
+    private String getLatestAccessTokenQuery(String userStoreDomain, boolean isUsernameCaseSensitive,
+                                             boolean isScopeNull) {
+
+        DatabaseDialect dialect = IdentityDatabaseUtil.getDatabaseDialect();
+        String key = "LATEST_ACCESS_TOKEN:" + dialect + ":" + userStoreDomain + ":" + isUsernameCaseSensitive + ":" +
+                isScopeNull;
+        String sql = resolvedQueries.get(key);
+        if (sql != null) {
+            return sql;
+        }
+
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MYSQL;
+                break;
+            case DB2:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_DB2SQL;
+                break;
+            case MSSQL:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MSSQL;
+                break;
+            case POSTGRESQL:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_POSTGRESQL;
+                break;
+            case INFORMIX:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_INFORMIX;
+                break;
+            default:
+                sql = SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_ORACLE;
+        }
+
+        if (StringUtils.isNotEmpty(userStoreDomain)) {
+            //logic to store access token into different tables when multiple user stores are configured.
+            sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" + userStoreDomain);
+        }
+        if (!isUsernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+        if (isScopeNull) {
+            sql = sql.replace("TOKEN_SCOPE_HASH=?", "TOKEN_SCOPE_HASH IS NULL");
+        }
+        return cacheQuery(key, sql);
+    }
+
+    private String getAccessTokensByUserQuery(String userStoreDomain, boolean isUsernameCaseSensitive,
+                                              boolean includeExpired) {
+
+        String key = "ACCESS_TOKENS_BY_USER:" + userStoreDomain + ":" + isUsernameCaseSensitive + ":" +
+                includeExpired;
+        String sql = resolvedQueries.get(key);
+        if (sql != null) {
+            return sql;
+        }
+
+        if (includeExpired) {
+            sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_BY_CLIENT_ID_USER;
+        } else {
+            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_BY_CLIENT_ID_USER;
+        }
+        if (StringUtils.isNotEmpty(userStoreDomain)) {
+            sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" + userStoreDomain);
+        }
+        if (!isUsernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+        return cacheQuery(key, sql);
+    }
+
+    private String getRefreshTokenValidationQuery(String accessTokenStoreTable, boolean isRefreshTokenNull) {
+
+        DatabaseDialect dialect = IdentityDatabaseUtil.getDatabaseDialect();
+        String key = "REFRESH_TOKEN_VALIDATION:" + dialect + ":" + accessTokenStoreTable + ":" + isRefreshTokenNull;
+        String sql = resolvedQueries.get(key);
+        if (sql != null) {
+            return sql;
+        }
+
+        switch (dialect) {
+            case MYSQL:
+            case H2:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MYSQL;
+                break;
+            case DB2:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_DB2SQL;
+                break;
+            case MSSQL:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MSSQL;
+                break;
+            case POSTGRESQL:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_POSTGRESQL;
+                break;
+            case INFORMIX:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_INFORMIX;
+                break;
+            default:
+                sql = SQLQueries.RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_ORACLE;
+        }
+
+        sql = sql.replace("$accessTokenStoreTable", accessTokenStoreTable);
+        if (isRefreshTokenNull) {
+            sql = sql.replace("REFRESH_TOKEN = ?", "REFRESH_TOKEN IS NULL");
+        }
+        return cacheQuery(key, sql);
+    }
+
+    private static String cacheQuery(String key, String sql) {
+        String existing = resolvedQueries.putIfAbsent(key, sql);
+        return existing != null ? existing : sql;
+    }
 }
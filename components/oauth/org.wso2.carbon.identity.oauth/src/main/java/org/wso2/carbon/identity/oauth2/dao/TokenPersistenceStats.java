@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and lag counters of the asynchronous access token persistence. Lag is the time between an access
+ * token being queued and the transaction which persisted it being committed.
+ */
+public class TokenPersistenceStats {
+
+    private final AtomicLong persistedTokens = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final long startTime = System.currentTimeMillis();
+
+    void recordBatch(int batchSize, long lagMillis) {
+        committedBatches.incrementAndGet();
+        persistedTokens.addAndGet(batchSize);
+        totalLagMillis.addAndGet(lagMillis * batchSize);
+        lastLagMillis.set(lagMillis);
+
+        long max = maxLagMillis.get();
+        while (lagMillis > max && !maxLagMillis.compareAndSet(max, lagMillis)) {
+            max = maxLagMillis.get();
+        }
+    }
+
+    void recordFailedBatch() {
+        failedBatches.incrementAndGet();
+    }
+
+    /**
+     * @return number of access tokens persisted by batches
+     */
+    public long getPersistedTokens() {
+        return persistedTokens.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    /**
+     * @return number of batches which failed and were retried token by token
+     */
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = committedBatches.get();
+        return batches == 0 ? 0 : (double) persistedTokens.get() / batches;
+    }
+
+    /**
+     * @return average number of access tokens persisted per second since the server started
+     */
+    public double getThroughput() {
+        long elapsed = System.currentTimeMillis() - startTime;
+        return elapsed <= 0 ? 0 : persistedTokens.get() * 1000D / elapsed;
+    }
+
+    public double getAverageLagMillis() {
+        long tokens = persistedTokens.get();
+        return tokens == 0 ? 0 : (double) totalLagMillis.get() / tokens;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPersistenceStats{persistedTokens=" + getPersistedTokens() +
+                ", committedBatches=" + getCommittedBatches() +
+                ", failedBatches=" + getFailedBatches() +
+                ", averageBatchSize=" + getAverageBatchSize() +
+                ", throughput=" + getThroughput() +
+                ", averageLagMillis=" + getAverageLagMillis() +
+                ", maxLagMillis=" + getMaxLagMillis() + "}";
+    }
+}
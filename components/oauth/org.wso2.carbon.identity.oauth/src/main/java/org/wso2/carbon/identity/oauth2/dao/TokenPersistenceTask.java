@@ -19,20 +19,29 @@ package org.wso2.carbon.identity.oauth2.dao;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.base.IdentityException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
 
 /**
- *
+ * Consumer of the access token persistence queue. Queued access tokens are drained in groups of up to the
+ * configured batch size and persisted in a single transaction.
  */
 public class TokenPersistenceTask implements Runnable {
 
     private static Log log = LogFactory.getLog(TokenPersistenceTask.class);
     private BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+    private int batchSize;
+    private TokenMgtDAO tokenMgtDAO;
 
     public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue) {
+        this(accessContextTokenQueue, 1);
+    }
+
+    public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue, int batchSize) {
         this.accessContextTokenQueue = accessContextTokenQueue;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
     }
 
     @Override
@@ -40,25 +49,31 @@ public class TokenPersistenceTask implements Runnable {
 
         log.debug("Access Token context persist consumer is started");
 
+        List<AccessContextTokenDO> batch = new ArrayList<>(batchSize);
         while (true) {
-            AccessContextTokenDO accessContextTokenDO = null;
-            String accessToken = null;
             try {
-                accessContextTokenDO =  accessContextTokenQueue.take();
-                if (accessContextTokenDO != null) {
-                    accessToken = accessContextTokenDO.getAccessToken();
-                    log.debug("Access Token Data persisting Task is started to run");
-                    TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
-                    tokenMgtDAO.persistAccessToken(accessToken, accessContextTokenDO.getConsumerKey(),
-                                                   accessContextTokenDO.getNewAccessTokenDO(),
-                                                   accessContextTokenDO.getExistingAccessTokenDO(),
-                                                   accessContextTokenDO.getUserStoreDomain());
+                batch.add(accessContextTokenQueue.take());
+                accessContextTokenQueue.drainTo(batch, batchSize - 1);
+                if (log.isDebugEnabled()) {
+                    log.debug("Access Token Data persisting Task is started to run for " + batch.size() +
+                            " access tokens");
                 }
+                getTokenMgtDAO().persistAccessTokens(batch);
             } catch (InterruptedException e) {
                 log.error("Error occurred while getting AccessContextTokenDO instance from accessContextTokenQueue" , e);
-            }catch (IdentityException e){
-                log.error("Error occurred while persisting access token :" + accessToken, e);
+            } catch (RuntimeException e) {
+                log.error("Error occurred while persisting a batch of " + batch.size() + " access tokens", e);
+            } finally {
+                batch.clear();
             }
         }
     }
+
+    private TokenMgtDAO getTokenMgtDAO() {
+        // created lazily since the OAuth server configuration may not be available when the task is scheduled
+        if (tokenMgtDAO == null) {
+            tokenMgtDAO = new TokenMgtDAO();
+        }
+        return tokenMgtDAO;
+    }
 }
@@ -28,6 +28,7 @@ import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.CacheKey;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
@@ -459,8 +460,20 @@ public class TokenValidationHandler {
      */
     private AccessTokenDO findAccessToken(String tokenIdentifier) throws IdentityOAuth2Exception {
 
+	TokenValidationCache validationCache = TokenValidationCache.getInstance();
+	// check the node local tiers before the distributed cache and the database.
+	AccessTokenDO accessTokenDO = validationCache.getValidToken(tokenIdentifier);
+	if (accessTokenDO != null) {
+	    return accessTokenDO;
+	}
+	if (validationCache.isInvalidToken(tokenIdentifier)) {
+	    if (log.isDebugEnabled()) {
+		log.debug("Access token was recently found to be invalid. Skipping the database lookup.");
+	    }
+	    throw new IllegalArgumentException("Invalid access token");
+	}
+
 	boolean cacheHit = false;
-	AccessTokenDO accessTokenDO = null;
 	// check the cache, if caching is enabled.
 	if (OAuthServerConfiguration.getInstance().isCacheEnabled()) {
 	    OAuthCache oauthCache = OAuthCache.getInstance();
@@ -478,6 +491,7 @@ public class TokenValidationHandler {
 	}
 	
 	if (accessTokenDO == null) {
+	    validationCache.addInvalidToken(tokenIdentifier);
 	    throw new IllegalArgumentException("Invalid access token");
 	}
 
@@ -490,6 +504,7 @@ public class TokenValidationHandler {
 		log.debug("Access Token Info object was added back to the cache.");
 	    }
 	}
+	validationCache.addValidToken(tokenIdentifier, accessTokenDO);
 
 	return accessTokenDO;
     }
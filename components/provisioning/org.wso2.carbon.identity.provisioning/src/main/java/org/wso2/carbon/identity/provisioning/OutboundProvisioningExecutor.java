@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityConfigSnapshot;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the non blocking outbound provisioning operations of all the tenants on a single bounded thread pool.
+ * <p/>
+ * Operations are queued per provisioning identity provider of a tenant and at most
+ * OutboundProvisioning.MaxConcurrencyPerConnector operations of a queue are sent at a time, so that a slow
+ * provisioning identity provider can not take all the threads of the pool. A tenant can have at most
+ * OutboundProvisioning.MaxPendingPerTenant operations queued; when a tenant reaches the limit, e.g. during a bulk
+ * import, the thread which triggers provisioning waits until operations of the tenant complete.
+ * <p/>
+ * The queues are kept in memory, hence operations which are still queued when the server stops are not sent.
+ */
+public class OutboundProvisioningExecutor {
+
+    private static final Log log = LogFactory.getLog(OutboundProvisioningExecutor.class);
+
+    private static final int DEFAULT_THREAD_POOL_SIZE = 10;
+    private static final int DEFAULT_MAX_CONCURRENCY_PER_CONNECTOR = 4;
+    private static final int DEFAULT_MAX_PENDING_PER_TENANT = 10000;
+    // operations sent by a thread before it lets the queues of other connectors use it
+    private static final int MAX_OPERATIONS_PER_RUN = 16;
+
+    private static final ThreadLocal<Boolean> provisioningThread = new ThreadLocal<Boolean>();
+
+    private static volatile OutboundProvisioningExecutor instance;
+
+    private final ThreadPoolExecutor threadPool;
+    private final int maxConcurrencyPerConnector;
+    private final int maxPendingPerTenant;
+    private final ConcurrentMap<String, ConnectorQueue> connectorQueues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, OutboundProvisioningStats> stats = new ConcurrentHashMap<>();
+
+    private OutboundProvisioningExecutor() {
+
+        IdentityConfigSnapshot config = IdentityUtil.getConfigSnapshot();
+        int threadPoolSize = Math.max(1, config.getInt("OutboundProvisioning.ThreadPoolSize",
+                DEFAULT_THREAD_POOL_SIZE));
+        maxConcurrencyPerConnector = Math.max(1, config.getInt("OutboundProvisioning.MaxConcurrencyPerConnector",
+                DEFAULT_MAX_CONCURRENCY_PER_CONNECTOR));
+        maxPendingPerTenant = Math.max(1, config.getInt("OutboundProvisioning.MaxPendingPerTenant",
+                DEFAULT_MAX_PENDING_PER_TENANT));
+
+        // the work queue holds at most maxConcurrencyPerConnector runs per connector, operations are queued per
+        // connector and bounded per tenant
+        threadPool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ProvisioningThreadFactory());
+        threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    public static OutboundProvisioningExecutor getInstance() {
+        if (instance == null) {
+            synchronized (OutboundProvisioningExecutor.class) {
+                if (instance == null) {
+                    instance = new OutboundProvisioningExecutor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Queues an operation to be sent to a provisioning identity provider.
+     *
+     * @param tenantDomain   tenant of the provisioning identity provider
+     * @param idPName        name of the provisioning identity provider
+     * @param operation      operation which returns true if the entity was provisioned
+     * @param failureMessage message to be logged if the operation fails
+     */
+    public void submit(String tenantDomain, String idPName, Callable<Boolean> operation, String failureMessage) {
+
+        String key = getKey(tenantDomain, idPName);
+        OutboundProvisioningStats connectorStats = getStats(key);
+        Semaphore permits = getTenantPermits(tenantDomain);
+
+        if (Boolean.TRUE.equals(provisioningThread.get())) {
+            // an operation triggered by another operation is sent right away, waiting for a permit of the tenant
+            // from a thread of the pool may never end
+            connectorStats.recordSubmitted();
+            new Operation(operation, failureMessage, connectorStats, null).run();
+            return;
+        }
+
+        if (!permits.tryAcquire()) {
+            if (log.isDebugEnabled()) {
+                log.debug(maxPendingPerTenant + " outbound provisioning operations of tenant " + tenantDomain +
+                          " are pending. Waiting for them to complete");
+            }
+            permits.acquireUninterruptibly();
+        }
+        connectorStats.recordSubmitted();
+        getConnectorQueue(key).offer(new Operation(operation, failureMessage, connectorStats, permits));
+    }
+
+    /**
+     * Sends an operation to a provisioning identity provider from the calling thread.
+     *
+     * @param tenantDomain tenant of the provisioning identity provider
+     * @param idPName      name of the provisioning identity provider
+     * @param operation    operation which returns true if the entity was provisioned
+     * @return result of the operation
+     * @throws Exception if the operation fails
+     */
+    public boolean call(String tenantDomain, String idPName, Callable<Boolean> operation) throws Exception {
+
+        OutboundProvisioningStats connectorStats = getStats(getKey(tenantDomain, idPName));
+        connectorStats.recordSubmitted();
+        long startTime = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            success = Boolean.TRUE.equals(operation.call());
+            return success;
+        } finally {
+            connectorStats.recordCompleted(success, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * @return counters of each provisioning identity provider, keyed by tenant domain and identity provider name
+     * separated by a colon
+     */
+    public Map<String, OutboundProvisioningStats> getStats() {
+        return Collections.unmodifiableMap(new HashMap<String, OutboundProvisioningStats>(stats));
+    }
+
+    /**
+     * @return counters of the current pool, or an empty map if no pool was created
+     */
+    static Map<String, OutboundProvisioningStats> getCurrentStats() {
+        OutboundProvisioningExecutor executor = instance;
+        if (executor == null) {
+            return Collections.emptyMap();
+        }
+        return executor.getStats();
+    }
+
+    /**
+     * Stops the threads of the pool once the queued operations are sent. The next call to getInstance creates a
+     * new pool. Does nothing if no pool was created.
+     */
+    public static void shutdown() {
+        synchronized (OutboundProvisioningExecutor.class) {
+            if (instance != null) {
+                instance.threadPool.shutdown();
+                instance = null;
+            }
+        }
+    }
+
+    private OutboundProvisioningStats getStats(String key) {
+        OutboundProvisioningStats connectorStats = stats.get(key);
+        if (connectorStats == null) {
+            OutboundProvisioningStats newStats = new OutboundProvisioningStats();
+            connectorStats = stats.putIfAbsent(key, newStats);
+            if (connectorStats == null) {
+                connectorStats = newStats;
+            }
+        }
+        return connectorStats;
+    }
+
+    private Semaphore getTenantPermits(String tenantDomain) {
+        Semaphore permits = tenantPermits.get(tenantDomain);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(maxPendingPerTenant);
+            permits = tenantPermits.putIfAbsent(tenantDomain, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private ConnectorQueue getConnectorQueue(String key) {
+        ConnectorQueue connectorQueue = connectorQueues.get(key);
+        if (connectorQueue == null) {
+            ConnectorQueue newQueue = new ConnectorQueue();
+            connectorQueue = connectorQueues.putIfAbsent(key, newQueue);
+            if (connectorQueue == null) {
+                connectorQueue = newQueue;
+            }
+        }
+        return connectorQueue;
+    }
+
+    private static String getKey(String tenantDomain, String idPName) {
+        return tenantDomain + ":" + idPName;
+    }
+
+    /**
+     * Operations queued for a provisioning identity provider and the number of pool threads sending them.
+     */
+    private class ConnectorQueue implements Runnable {
+
+        private final Queue<Operation> operations = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger runs = new AtomicInteger();
+
+        private void offer(Operation operation) {
+            operations.add(operation);
+            schedule();
+        }
+
+        private void schedule() {
+            while (!operations.isEmpty()) {
+                int currentRuns = runs.get();
+                if (currentRuns >= maxConcurrencyPerConnector) {
+                    return;
+                }
+                if (runs.compareAndSet(currentRuns, currentRuns + 1)) {
+                    try {
+                        threadPool.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        // the pool is shut down, the operations are sent by the calling thread
+                        run();
+                    }
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            provisioningThread.set(Boolean.TRUE);
+            try {
+                Operation operation;
+                int count = 0;
+                while (count++ < MAX_OPERATIONS_PER_RUN && (operation = operations.poll()) != null) {
+                    operation.run();
+                }
+            } finally {
+                provisioningThread.remove();
+                runs.decrementAndGet();
+                // operations added after the last poll, or left for the next run
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * An operation and the counters it is recorded in.
+     */
+    private static class Operation implements Runnable {
+
+        private final Callable<Boolean> operation;
+        private final String failureMessage;
+        private final OutboundProvisioningStats connectorStats;
+        private final Semaphore permits;
+        private final long submitTime = System.currentTimeMillis();
+
+        private Operation(Callable<Boolean> operation, String failureMessage,
+                          OutboundProvisioningStats connectorStats, Semaphore permits) {
+            this.operation = operation;
+            this.failureMessage = failureMessage;
+            this.connectorStats = connectorStats;
+            this.permits = permits;
+        }
+
+        @Override
+        public void run() {
+            boolean success = false;
+            try {
+                success = Boolean.TRUE.equals(operation.call());
+                if (!success) {
+                    log.error(failureMessage);
+                }
+            } catch (Exception e) {
+                log.error(failureMessage, e);
+            } finally {
+                connectorStats.recordCompleted(success, System.currentTimeMillis() - submitTime);
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    private static class ProvisioningThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "OutboundProvisioningThread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
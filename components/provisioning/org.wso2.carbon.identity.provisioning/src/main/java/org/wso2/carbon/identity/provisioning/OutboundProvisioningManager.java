@@ -19,7 +19,6 @@
 package org.wso2.carbon.identity.provisioning;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonException;
@@ -65,7 +64,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  *
@@ -397,19 +395,12 @@ public class OutboundProvisioningManager {
             }
 
             // get all the provisioning connectors associated with local service provider for
-            // out-bound provisioning.
-            // TODO: stop loading connectors all the time.
+            // out-bound provisioning. the connectors are cached per service provider.
             Map<String, RuntimeProvisioningConfig> connectors = getOutboundProvisioningConnectors(
                     serviceProvider, tenantDomainName);
 
             ProvisioningEntity outboundProEntity;
 
-            ExecutorService executors = null;
-
-            if (MapUtils.isNotEmpty(connectors)) {
-                executors = Executors.newFixedThreadPool(connectors.size());
-            }
-
             for (Iterator<Entry<String, RuntimeProvisioningConfig>> iterator = connectors
                     .entrySet().iterator(); iterator.hasNext(); ) {
 
@@ -520,7 +511,8 @@ public class OutboundProvisioningManager {
                         outboundProEntity.setIdentifier(provisionedIdentifier);
                         outboundProEntity.setJitProvisioning(jitProvisioning);
                         boolean isBlocking = entry.getValue().isBlocking();
-                        executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                        executeOutboundProvisioning(provisioningEntity, tenantDomainName, connectorType, idPName,
+                                proThread, isBlocking);
 
                     }
 
@@ -543,7 +535,8 @@ public class OutboundProvisioningManager {
                             outboundProEntity.setIdentifier(provisionedUserIdentifier);
                             outboundProEntity.setJitProvisioning(jitProvisioning);
                             boolean isBlocking = entry.getValue().isBlocking();
-                            executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                            executeOutboundProvisioning(provisioningEntity, tenantDomainName, connectorType, idPName,
+                                    proThread, isBlocking);
                         }
                     }
 
@@ -568,40 +561,38 @@ public class OutboundProvisioningManager {
                     outboundProEntity.setIdentifier(provisionedIdentifier);
                     outboundProEntity.setJitProvisioning(jitProvisioning);
                     boolean isBlocking = entry.getValue().isBlocking();
-                    executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                    executeOutboundProvisioning(provisioningEntity, tenantDomainName, connectorType, idPName,
+                            proThread, isBlocking);
                 }
 
             }
 
-            if (executors != null) {
-                executors.shutdown();
-            }
-
         } catch (CarbonException | IdentityApplicationManagementException | IdentityProviderManagementException | UserStoreException e) {
             throw new IdentityProvisioningException("Error occurred while checking for user " +
                     "provisioning", e);
         }
     }
 
-    private void executeOutboundProvisioning(ProvisioningEntity provisioningEntity, ExecutorService executors, String connectorType,
-                                             String idPName, Callable<Boolean> proThread, boolean isBlocking) throws IdentityProvisioningException {
+    private void executeOutboundProvisioning(ProvisioningEntity provisioningEntity, String tenantDomainName,
+                                             String connectorType, String idPName, Callable<Boolean> proThread,
+                                             boolean isBlocking) throws IdentityProvisioningException {
+        OutboundProvisioningExecutor executor = OutboundProvisioningExecutor.getInstance();
         if (!isBlocking) {
-            executors.submit(proThread);
+            executor.submit(tenantDomainName, idPName, proThread, "Provisioning failed for IDP = " + idPName +
+                    " Connector Type = " + connectorType + " with Entity name = " + provisioningEntity.getEntityName() +
+                    " For operation = " + provisioningEntity.getOperation());
         } else {
             try {
 
-                boolean success = proThread.call();
+                boolean success = executor.call(tenantDomainName, idPName, proThread);
                 if (!success) {
-                    if (executors != null) {
-                        executors.shutdown();
-                    }
                     throw new IdentityProvisioningException
                             (generateMessageOnFailureProvisioningOperation(idPName,
                                     connectorType, provisioningEntity));
                     //DO Rollback
                 }
             } catch (Exception e) { //call() of Callable interface throws this exception
-                handleException(idPName, connectorType, provisioningEntity, executors, e);
+                handleException(idPName, connectorType, provisioningEntity, null, e);
             }
         }
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exposes the counters of the outbound provisioning connectors through JMX. The counters are read from the current
+ * provisioning pool, hence they start from zero when the pool is created again.
+ */
+public class OutboundProvisioningMonitor implements OutboundProvisioningMonitorMBean {
+
+    public static final String OBJECT_NAME = "org.wso2.carbon.identity:type=OutboundProvisioningStats";
+
+    @Override
+    public String[] getConnectors() {
+        return OutboundProvisioningExecutor.getCurrentStats().keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getPendingOperations(String connector) {
+        OutboundProvisioningStats stats = getStats(connector);
+        return stats != null ? stats.getPendingOperations() : 0;
+    }
+
+    @Override
+    public long getFailedOperations(String connector) {
+        OutboundProvisioningStats stats = getStats(connector);
+        return stats != null ? stats.getFailedOperations() : 0;
+    }
+
+    @Override
+    public long getSucceededOperations(String connector) {
+        OutboundProvisioningStats stats = getStats(connector);
+        return stats != null ? stats.getSucceededOperations() : 0;
+    }
+
+    @Override
+    public double getAverageLatencyMillis(String connector) {
+        OutboundProvisioningStats stats = getStats(connector);
+        return stats != null ? stats.getAverageLatencyMillis() : 0;
+    }
+
+    @Override
+    public long getMaxLatencyMillis(String connector) {
+        OutboundProvisioningStats stats = getStats(connector);
+        return stats != null ? stats.getMaxLatencyMillis() : 0;
+    }
+
+    @Override
+    public String getStatsText() {
+        StringBuilder text = new StringBuilder();
+        Map<String, OutboundProvisioningStats> sortedStats =
+                new TreeMap<String, OutboundProvisioningStats>(OutboundProvisioningExecutor.getCurrentStats());
+        for (Map.Entry<String, OutboundProvisioningStats> entry : sortedStats.entrySet()) {
+            text.append(entry.getKey()).append(" ").append(entry.getValue()).append("\n");
+        }
+        return text.toString();
+    }
+
+    private OutboundProvisioningStats getStats(String connector) {
+        return OutboundProvisioningExecutor.getCurrentStats().get(connector);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+/**
+ * JMX view of the outbound provisioning counters. Connectors are named by tenant domain and identity provider name
+ * separated by a colon.
+ */
+public interface OutboundProvisioningMonitorMBean {
+
+    /**
+     * @return names of the connectors which were used since the provisioning pool was created
+     */
+    public String[] getConnectors();
+
+    /**
+     * @param connector tenant domain and identity provider name separated by a colon
+     * @return number of operations which are queued or being sent
+     */
+    public long getPendingOperations(String connector);
+
+    /**
+     * @param connector tenant domain and identity provider name separated by a colon
+     * @return number of operations which failed
+     */
+    public long getFailedOperations(String connector);
+
+    /**
+     * @param connector tenant domain and identity provider name separated by a colon
+     * @return number of operations the connector completed successfully
+     */
+    public long getSucceededOperations(String connector);
+
+    /**
+     * @param connector tenant domain and identity provider name separated by a colon
+     * @return average time in milliseconds from the submission of an operation until the connector returns
+     */
+    public double getAverageLatencyMillis(String connector);
+
+    /**
+     * @param connector tenant domain and identity provider name separated by a colon
+     * @return maximum time in milliseconds from the submission of an operation until the connector returns
+     */
+    public long getMaxLatencyMillis(String connector);
+
+    /**
+     * @return counters of all the connectors, one connector per line
+     */
+    public String getStatsText();
+
+}
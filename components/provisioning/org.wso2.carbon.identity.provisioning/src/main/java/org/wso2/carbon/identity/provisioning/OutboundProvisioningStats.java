@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the outbound provisioning operations of a provisioning connector of a tenant. Latency is measured
+ * from the time an operation is submitted until the connector returns, including the time spent in the queue.
+ */
+public class OutboundProvisioningStats {
+
+    private final AtomicLong submittedOperations = new AtomicLong();
+    private final AtomicLong succeededOperations = new AtomicLong();
+    private final AtomicLong failedOperations = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    void recordSubmitted() {
+        submittedOperations.incrementAndGet();
+    }
+
+    void recordCompleted(boolean success, long latencyMillis) {
+        if (success) {
+            succeededOperations.incrementAndGet();
+        } else {
+            failedOperations.incrementAndGet();
+        }
+        totalLatencyMillis.addAndGet(latencyMillis);
+
+        long max = maxLatencyMillis.get();
+        while (latencyMillis > max && !maxLatencyMillis.compareAndSet(max, latencyMillis)) {
+            max = maxLatencyMillis.get();
+        }
+    }
+
+    /**
+     * @return number of operations submitted to the connector
+     */
+    public long getSubmittedOperations() {
+        return submittedOperations.get();
+    }
+
+    /**
+     * @return number of operations the connector completed successfully
+     */
+    public long getSucceededOperations() {
+        return succeededOperations.get();
+    }
+
+    /**
+     * @return number of operations which failed
+     */
+    public long getFailedOperations() {
+        return failedOperations.get();
+    }
+
+    /**
+     * @return number of operations which are queued or being sent
+     */
+    public long getPendingOperations() {
+        return submittedOperations.get() - succeededOperations.get() - failedOperations.get();
+    }
+
+    public double getAverageLatencyMillis() {
+        long completed = succeededOperations.get() + failedOperations.get();
+        return completed == 0 ? 0 : (double) totalLatencyMillis.get() / completed;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundProvisioningStats{submittedOperations=" + getSubmittedOperations() +
+                ", succeededOperations=" + getSucceededOperations() +
+                ", failedOperations=" + getFailedOperations() +
+                ", pendingOperations=" + getPendingOperations() +
+                ", averageLatencyMillis=" + getAverageLatencyMillis() +
+                ", maxLatencyMillis=" + getMaxLatencyMillis() + "}";
+    }
+}
@@ -26,6 +26,8 @@ import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.ProvisioningConnectorConfig;
 import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.provisioning.AbstractProvisioningConnectorFactory;
+import org.wso2.carbon.identity.provisioning.OutboundProvisioningExecutor;
+import org.wso2.carbon.identity.provisioning.OutboundProvisioningMonitor;
 import org.wso2.carbon.identity.provisioning.listener.DefaultInboundUserProvisioningListener;
 import org.wso2.carbon.identity.provisioning.listener.ProvisioningApplicationMgtListener;
 import org.wso2.carbon.identity.provisioning.listener.ProvisioningIdentityProviderMgtListener;
@@ -34,6 +36,10 @@ import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
 
 /**
@@ -117,6 +123,7 @@ public class IdentityProvisionServiceComponent {
             if (log.isDebugEnabled()) {
                 log.debug("Identity Provider Management Event listener registered successfully");
             }
+            registerOutboundProvisioningMonitor();
             if (log.isDebugEnabled()) {
                 log.debug("Identity Provisioning framework bundle is activated");
             }
@@ -130,11 +137,37 @@ public class IdentityProvisionServiceComponent {
      * @param context
      */
     protected void deactivate(ComponentContext context) {
+        unregisterOutboundProvisioningMonitor();
+        OutboundProvisioningExecutor.shutdown();
         if (log.isDebugEnabled()) {
             log.debug("Identity Provision bundle is de-activated");
         }
     }
 
+    private void registerOutboundProvisioningMonitor() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OutboundProvisioningMonitor.OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(new OutboundProvisioningMonitor(), objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while registering the outbound provisioning statistics MBean", e);
+        }
+    }
+
+    private void unregisterOutboundProvisioningMonitor() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OutboundProvisioningMonitor.OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error while unregistering the outbound provisioning statistics MBean", e);
+        }
+    }
+
     /**
      * @param registryService
      */
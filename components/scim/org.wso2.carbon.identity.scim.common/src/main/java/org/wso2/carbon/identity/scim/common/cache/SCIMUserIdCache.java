@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.common.cache;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.Locale;
+
+/**
+ * SCIM ids of users, indexed by tenant and domain qualified user name.
+ * <p/>
+ * Listing the members of a group needs the SCIM id of every member, and the user store API reads the claims of one
+ * user at a time. The id of a user is set when the user is added and does not change afterwards, so it is cached
+ * and the entry is removed when the user or the claims of the user are deleted or updated. The cache is distributed,
+ * hence removing an entry invalidates it on every node of the cluster.
+ */
+public class SCIMUserIdCache {
+
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String CACHE_NAME = "SCIMUserIdCache";
+
+    private static final SCIMUserIdCache instance = new SCIMUserIdCache();
+
+    private volatile IdentityCacheConfig identityCacheConfig;
+    private volatile boolean identityCacheConfigResolved;
+
+    private SCIMUserIdCache() {
+    }
+
+    public static SCIMUserIdCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param tenantId tenant of the user
+     * @param userName user name, qualified with the user store domain unless it is in the primary user store
+     * @return SCIM id of the user, or null if it is not cached
+     */
+    public String getUserId(int tenantId, String userName) {
+        if (!isEnabled() || userName == null) {
+            return null;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, String> cache = getCache();
+            return cache != null ? cache.get(getKey(tenantId, userName)) : null;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * @param tenantId tenant of the user
+     * @param userName user name, qualified with the user store domain unless it is in the primary user store
+     * @param userId   SCIM id of the user
+     */
+    public void addUserId(int tenantId, String userName, String userId) {
+        if (!isEnabled() || userName == null || userId == null) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, String> cache = getCache();
+            if (cache != null) {
+                cache.put(getKey(tenantId, userName), userId);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Removes the id of a user from the cache of every node.
+     *
+     * @param tenantId tenant of the user
+     * @param userName user name, qualified with the user store domain unless it is in the primary user store
+     */
+    public void clearUserId(int tenantId, String userName) {
+        if (!isEnabled() || userName == null) {
+            return;
+        }
+
+        try {
+            startSuperTenantFlow();
+            Cache<String, String> cache = getCache();
+            if (cache != null) {
+                cache.remove(getKey(tenantId, userName));
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    public boolean isEnabled() {
+        if (!identityCacheConfigResolved) {
+            identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, CACHE_NAME);
+            identityCacheConfigResolved = true;
+        }
+        return identityCacheConfig == null || identityCacheConfig.isEnabled();
+    }
+
+    private Cache<String, String> getCache() {
+        CacheManager cacheManager = Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME);
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static String getKey(int tenantId, String userName) {
+        String domain = IdentityUtil.extractDomainFromName(userName);
+        String key = domain + UserCoreConstants.DOMAIN_SEPARATOR + UserCoreUtil.removeDomainFromName(userName);
+        if (!IdentityUtil.isUserStoreCaseSensitive(domain, tenantId)) {
+            key = key.toLowerCase(Locale.ENGLISH);
+        }
+        return tenantId + ":" + key;
+    }
+
+    private static void startSuperTenantFlow() {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+}
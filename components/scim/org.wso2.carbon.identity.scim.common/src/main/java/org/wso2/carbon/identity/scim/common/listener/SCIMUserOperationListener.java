@@ -26,6 +26,7 @@ import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim.common.cache.SCIMUserIdCache;
 import org.wso2.carbon.identity.scim.common.group.SCIMGroupHandler;
 import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
 import org.wso2.carbon.identity.scim.common.utils.SCIMCommonUtils;
@@ -209,8 +210,10 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPostDeleteUser(String s, UserStoreManager userStoreManager)
+    public boolean doPostDeleteUser(String userName, UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        clearSCIMUserId(userName, userStoreManager);
         return true;
     }
 
@@ -222,9 +225,10 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPostSetUserClaimValue(String s, UserStoreManager userStoreManager)
+    public boolean doPostSetUserClaimValue(String userName, UserStoreManager userStoreManager)
             throws UserStoreException {
         //TODO: need to set last modified time.
+        clearSCIMUserId(userName, userStoreManager);
         return true;
     }
 
@@ -240,6 +244,7 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
                                             String profileName, UserStoreManager userStoreManager)
             throws UserStoreException {
 
+        clearSCIMUserId(userName, userStoreManager);
         try {
             if (!isEnable() || !userStoreManager.isSCIMEnabled()) {
                 return true;
@@ -273,8 +278,10 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPostDeleteUserClaimValues(String s, UserStoreManager userStoreManager)
+    public boolean doPostDeleteUserClaimValues(String userName, UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        clearSCIMUserId(userName, userStoreManager);
         return true;
     }
 
@@ -286,8 +293,10 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPostDeleteUserClaimValue(String s, UserStoreManager userStoreManager)
+    public boolean doPostDeleteUserClaimValue(String userName, UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        clearSCIMUserId(userName, userStoreManager);
         return true;
     }
 
@@ -485,4 +494,13 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
         //TODO: add other optional attributes like location etc.
     }
 
+    /**
+     * Removes the cached SCIM id of a user whose claims changed or who was deleted.
+     */
+    private void clearSCIMUserId(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+        String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+        SCIMUserIdCache.getInstance().clearUserId(userStoreManager.getTenantId(),
+                IdentityUtil.addDomainToName(userName, domainName));
+    }
+
 }
@@ -58,7 +58,7 @@ public class ApplicationInitializer implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-        // Do nothing
+        BulkRequestProcessor.getInstance().shutdown();
     }
 
     private void initSCIMAuthenticatorRegistry() {
@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.provider.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.model.ThreadLocalProvisioningServiceProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.core.util.IdentityConfigSnapshot;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim.common.utils.SCIMCommonUtils;
+import org.wso2.charon.core.exceptions.CharonException;
+import org.wso2.charon.core.extensions.UserManager;
+import org.wso2.charon.core.protocol.ResponseCodeConstants;
+import org.wso2.charon.core.protocol.SCIMResponse;
+import org.wso2.charon.core.protocol.endpoints.GroupResourceEndpoint;
+import org.wso2.charon.core.protocol.endpoints.UserResourceEndpoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executes the operations of a SCIM bulk request in parallel.
+ * <p/>
+ * An operation which refers to the bulkId of another operation, e.g. a group whose members are users created in
+ * the same request, is executed only after the operations it refers to, with the bulkIds replaced by the ids of the
+ * created resources. The other operations are executed on a thread pool shared by all the bulk requests, with at
+ * most SCIMBulk.MaxConcurrency operations of a request in progress at a time.
+ * <p/>
+ * Parallel execution is enabled by setting SCIMBulk.MaxConcurrency in identity.xml to a value greater than one.
+ * Requests with operations other than creating users and groups are handed over to the charon bulk endpoint.
+ */
+public class BulkRequestProcessor {
+
+    private static final Log log = LogFactory.getLog(BulkRequestProcessor.class);
+
+    private static final String SCHEMA = "urn:scim:schemas:core:1.0";
+    private static final String ATTRIBUTE_SCHEMAS = "schemas";
+    private static final String ATTRIBUTE_OPERATIONS = "Operations";
+    private static final String ATTRIBUTE_FAIL_ON_ERRORS = "failOnErrors";
+    private static final String ATTRIBUTE_METHOD = "method";
+    private static final String ATTRIBUTE_PATH = "path";
+    private static final String ATTRIBUTE_BULK_ID = "bulkId";
+    private static final String ATTRIBUTE_DATA = "data";
+    private static final String ATTRIBUTE_LOCATION = "location";
+    private static final String ATTRIBUTE_STATUS = "status";
+    private static final String ATTRIBUTE_CODE = "code";
+    private static final String ATTRIBUTE_DESCRIPTION = "description";
+    private static final String ATTRIBUTE_ERRORS = "Errors";
+    private static final String ATTRIBUTE_ID = "id";
+    private static final String METHOD_POST = "POST";
+    private static final String PATH_USERS = "/Users";
+    private static final String PATH_GROUPS = "/Groups";
+    private static final String LOCATION_HEADER = "Location";
+    private static final String BULK_ID_PREFIX = "bulkId:";
+    private static final Pattern BULK_ID_REFERENCE = Pattern.compile("\"" + BULK_ID_PREFIX + "([^\"]+)\"");
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 1;
+    private static final int DEFAULT_THREAD_POOL_SIZE = 10;
+    // number of completed operations between two progress log entries
+    private static final int PROGRESS_LOG_INTERVAL = 1000;
+
+    private static volatile BulkRequestProcessor instance;
+
+    private final int maxConcurrency;
+    private final ThreadPoolExecutor threadPool;
+
+    private BulkRequestProcessor() {
+
+        IdentityConfigSnapshot config = IdentityUtil.getConfigSnapshot();
+        maxConcurrency = Math.max(1, config.getInt("SCIMBulk.MaxConcurrency", DEFAULT_MAX_CONCURRENCY));
+        int threadPoolSize = Math.max(1, config.getInt("SCIMBulk.ThreadPoolSize", DEFAULT_THREAD_POOL_SIZE));
+
+        // the number of queued operations is bounded by the concurrency of the requests in progress
+        threadPool = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new BulkThreadFactory());
+        threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    public static BulkRequestProcessor getInstance() {
+        if (instance == null) {
+            synchronized (BulkRequestProcessor.class) {
+                if (instance == null) {
+                    instance = new BulkRequestProcessor();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if the operations of bulk requests are executed in parallel
+     */
+    public boolean isEnabled() {
+        return maxConcurrency > 1;
+    }
+
+    /**
+     * Executes the operations of a bulk request.
+     *
+     * @param resourceString bulk request in JSON
+     * @param inputFormat    format of the resources in the request
+     * @param outputFormat   format of the resources in the responses of the operations
+     * @param userManager    user manager of the tenant of the request
+     * @return bulk response in JSON, or null if the request has operations which can only be executed by the
+     * charon bulk endpoint
+     * @throws CharonException if the request is not a valid bulk request
+     */
+    public String processBulkData(String resourceString, String inputFormat, String outputFormat,
+                                  UserManager userManager) throws CharonException {
+
+        List<BulkOperation> operations = new ArrayList<>();
+        int failOnErrors;
+        try {
+            JSONObject request = new JSONObject(resourceString);
+            failOnErrors = request.optInt(ATTRIBUTE_FAIL_ON_ERRORS, 0);
+            JSONArray operationArray = request.optJSONArray(ATTRIBUTE_OPERATIONS);
+            if (operationArray == null) {
+                throw badRequest("Bulk request does not contain " + ATTRIBUTE_OPERATIONS);
+            }
+            for (int i = 0; i < operationArray.length(); i++) {
+                JSONObject operation = operationArray.getJSONObject(i);
+                String method = operation.optString(ATTRIBUTE_METHOD);
+                String path = operation.optString(ATTRIBUTE_PATH);
+                JSONObject data = operation.optJSONObject(ATTRIBUTE_DATA);
+                if (!METHOD_POST.equalsIgnoreCase(method) || data == null ||
+                        !(PATH_USERS.equals(path) || PATH_GROUPS.equals(path))) {
+                    return null;
+                }
+                operations.add(new BulkOperation(i, path, operation.optString(ATTRIBUTE_BULK_ID, null),
+                        data.toString()));
+            }
+        } catch (JSONException e) {
+            throw badRequest("Invalid bulk request: " + e.getMessage());
+        }
+
+        BulkJob job = new BulkJob(operations, failOnErrors, inputFormat, outputFormat, userManager);
+        job.execute();
+        return job.getResponse();
+    }
+
+    private static CharonException badRequest(String message) {
+        CharonException exception = new CharonException(message);
+        exception.setCode(ResponseCodeConstants.CODE_BAD_REQUEST);
+        return exception;
+    }
+
+    /**
+     * Stops the threads of the pool once the queued operations are executed.
+     */
+    public void shutdown() {
+        threadPool.shutdown();
+    }
+
+    /**
+     * Operations of a bulk request, executed in waves of operations whose bulkId references are resolved.
+     */
+    private class BulkJob {
+
+        private final List<BulkOperation> operations;
+        private final int failOnErrors;
+        private final String inputFormat;
+        private final String outputFormat;
+        private final UserManager userManager;
+        private final Map<String, String> resolvedIds = new HashMap<>();
+        private final Set<String> failedBulkIds = new LinkedHashSet<>();
+        private final String tenantDomain;
+        private final int tenantId;
+        private final String username;
+        private final ThreadLocalProvisioningServiceProvider serviceProvider;
+        private final long startTime = System.currentTimeMillis();
+        private int completed;
+        private int errors;
+
+        private BulkJob(List<BulkOperation> operations, int failOnErrors, String inputFormat, String outputFormat,
+                        UserManager userManager) {
+            this.operations = operations;
+            this.failOnErrors = failOnErrors;
+            this.inputFormat = inputFormat;
+            this.outputFormat = outputFormat;
+            this.userManager = userManager;
+
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            tenantDomain = carbonContext.getTenantDomain();
+            tenantId = carbonContext.getTenantId();
+            username = carbonContext.getUsername();
+            serviceProvider = IdentityApplicationManagementUtil.getThreadLocalProvisioningServiceProvider();
+        }
+
+        private void execute() throws CharonException {
+
+            List<BulkOperation> pending = new ArrayList<>(operations);
+            while (!pending.isEmpty() && !isFailLimitReached()) {
+                List<BulkOperation> ready = new ArrayList<>();
+                List<BulkOperation> blocked = new ArrayList<>();
+                for (BulkOperation operation : pending) {
+                    if (hasFailedReference(operation)) {
+                        operation.fail(ResponseCodeConstants.CODE_CONFLICT,
+                                "Operation refers to a bulkId whose operation failed");
+                        recordCompleted(operation);
+                    } else if (isResolved(operation)) {
+                        ready.add(operation);
+                    } else {
+                        blocked.add(operation);
+                    }
+                }
+                if (ready.isEmpty()) {
+                    // the remaining operations refer to each other or to bulkIds which are not in the request
+                    for (BulkOperation operation : blocked) {
+                        operation.fail(ResponseCodeConstants.CODE_CONFLICT,
+                                "Operation refers to a bulkId which can not be resolved");
+                        recordCompleted(operation);
+                    }
+                    break;
+                }
+                executeWave(ready);
+                pending = blocked;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Bulk request of tenant " + tenantDomain + " completed. " + completed + " of " +
+                          operations.size() + " operations executed with " + errors + " errors in " +
+                          (System.currentTimeMillis() - startTime) + " ms");
+            }
+        }
+
+        private void executeWave(List<BulkOperation> wave) throws CharonException {
+
+            CompletionService<BulkOperation> completionService = new ExecutorCompletionService<>(threadPool);
+            int inProgress = 0;
+            try {
+                for (BulkOperation operation : wave) {
+                    if (inProgress >= maxConcurrency) {
+                        recordCompleted(completionService.take().get());
+                        inProgress--;
+                    }
+                    if (isFailLimitReached()) {
+                        break;
+                    }
+                    operation.resolve(resolvedIds);
+                    completionService.submit(new OperationTask(this, operation), operation);
+                    inProgress++;
+                }
+                while (inProgress > 0) {
+                    recordCompleted(completionService.take().get());
+                    inProgress--;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CharonException("Interrupted while executing bulk request", e);
+            } catch (ExecutionException e) {
+                throw new CharonException("Error while executing bulk request", e);
+            }
+        }
+
+        private void recordCompleted(BulkOperation operation) {
+
+            completed++;
+            if (operation.isSuccess()) {
+                if (operation.bulkId != null) {
+                    resolvedIds.put(operation.bulkId, operation.resourceId);
+                }
+            } else {
+                errors++;
+                if (operation.bulkId != null) {
+                    failedBulkIds.add(operation.bulkId);
+                }
+            }
+            if (completed % PROGRESS_LOG_INTERVAL == 0) {
+                log.info("Bulk request of tenant " + tenantDomain + ": " + completed + " of " + operations.size() +
+                         " operations executed with " + errors + " errors in " +
+                         (System.currentTimeMillis() - startTime) + " ms");
+            }
+        }
+
+        private boolean isFailLimitReached() {
+            return failOnErrors > 0 && errors >= failOnErrors;
+        }
+
+        private boolean isResolved(BulkOperation operation) {
+            for (String reference : operation.references) {
+                if (!resolvedIds.containsKey(reference)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasFailedReference(BulkOperation operation) {
+            for (String reference : operation.references) {
+                if (failedBulkIds.contains(reference)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String getResponse() throws CharonException {
+
+            try {
+                JSONObject response = new JSONObject();
+                response.put(ATTRIBUTE_SCHEMAS, new JSONArray().put(SCHEMA));
+                JSONArray results = new JSONArray();
+                for (BulkOperation operation : operations) {
+                    if (operation.code == 0) {
+                        // not executed since failOnErrors was reached
+                        continue;
+                    }
+                    JSONObject result = new JSONObject();
+                    if (operation.location != null) {
+                        result.put(ATTRIBUTE_LOCATION, operation.location);
+                    }
+                    result.put(ATTRIBUTE_METHOD, METHOD_POST);
+                    if (operation.bulkId != null) {
+                        result.put(ATTRIBUTE_BULK_ID, operation.bulkId);
+                    }
+                    JSONObject status = new JSONObject();
+                    status.put(ATTRIBUTE_CODE, String.valueOf(operation.code));
+                    if (operation.description != null) {
+                        status.put(ATTRIBUTE_DESCRIPTION, operation.description);
+                    }
+                    result.put(ATTRIBUTE_STATUS, status);
+                    results.put(result);
+                }
+                response.put(ATTRIBUTE_OPERATIONS, results);
+                return response.toString();
+            } catch (JSONException e) {
+                throw new CharonException("Error while encoding bulk response", e);
+            }
+        }
+    }
+
+    /**
+     * Executes an operation with the tenant and the provisioning service provider of the bulk request.
+     */
+    private class OperationTask implements Runnable {
+
+        private final BulkJob job;
+        private final BulkOperation operation;
+
+        private OperationTask(BulkJob job, BulkOperation operation) {
+            this.job = job;
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+
+            PrivilegedCarbonContext.startTenantFlow();
+            try {
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantId(job.tenantId);
+                carbonContext.setTenantDomain(job.tenantDomain);
+                carbonContext.setUsername(job.username);
+                if (job.serviceProvider != null) {
+                    IdentityApplicationManagementUtil.setThreadLocalProvisioningServiceProvider(
+                            copyServiceProvider(job.serviceProvider));
+                }
+
+                SCIMResponse response;
+                if (PATH_USERS.equals(operation.path)) {
+                    response = new UserResourceEndpoint().create(operation.data, job.inputFormat,
+                            job.outputFormat, job.userManager);
+                } else {
+                    response = new GroupResourceEndpoint().create(operation.data, job.inputFormat,
+                            job.outputFormat, job.userManager);
+                }
+                operation.complete(response);
+            } catch (RuntimeException e) {
+                log.error("Error while executing bulk operation " + operation, e);
+                operation.fail(ResponseCodeConstants.CODE_INTERNAL_SERVER_ERROR, e.getMessage());
+            } finally {
+                SCIMCommonUtils.unsetThreadLocalIsManagedThroughSCIMEP();
+                IdentityApplicationManagementUtil.resetThreadLocalProvisioningServiceProvider();
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+
+        private ThreadLocalProvisioningServiceProvider copyServiceProvider(
+                ThreadLocalProvisioningServiceProvider serviceProvider) {
+
+            ThreadLocalProvisioningServiceProvider copy = new ThreadLocalProvisioningServiceProvider();
+            copy.setServiceProviderName(serviceProvider.getServiceProviderName());
+            copy.setServiceProviderType(serviceProvider.getServiceProviderType());
+            copy.setClaimDialect(serviceProvider.getClaimDialect());
+            copy.setJustInTimeProvisioning(serviceProvider.isJustInTimeProvisioning());
+            copy.setTenantDomain(serviceProvider.getTenantDomain());
+            copy.setBulkUserAdd(true);
+            return copy;
+        }
+    }
+
+    /**
+     * An operation of a bulk request and its result.
+     */
+    private static class BulkOperation {
+
+        private final int index;
+        private final String path;
+        private final String bulkId;
+        private final Set<String> references = new LinkedHashSet<>();
+        private String data;
+
+        private volatile int code;
+        private volatile String location;
+        private volatile String resourceId;
+        private volatile String description;
+
+        private BulkOperation(int index, String path, String bulkId, String data) {
+            this.index = index;
+            this.path = path;
+            this.bulkId = bulkId;
+            this.data = data;
+
+            Matcher matcher = BULK_ID_REFERENCE.matcher(data);
+            while (matcher.find()) {
+                references.add(matcher.group(1));
+            }
+        }
+
+        private void resolve(Map<String, String> resolvedIds) {
+            for (String reference : references) {
+                data = data.replace("\"" + BULK_ID_PREFIX + reference + "\"", JSONObject.quote(
+                        resolvedIds.get(reference)));
+            }
+        }
+
+        private void complete(SCIMResponse response) {
+
+            code = response.getResponseCode();
+            Map<String, String> headers = response.getHeaderParameterMap();
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    if (LOCATION_HEADER.equalsIgnoreCase(header.getKey())) {
+                        location = header.getValue();
+                    }
+                }
+            }
+
+            String message = response.getResponseMessage();
+            if (message == null) {
+                return;
+            }
+            try {
+                JSONObject body = new JSONObject(message);
+                if (isSuccess()) {
+                    resourceId = body.optString(ATTRIBUTE_ID, null);
+                } else {
+                    JSONArray bodyErrors = body.optJSONArray(ATTRIBUTE_ERRORS);
+                    if (bodyErrors != null && bodyErrors.length() > 0) {
+                        description = bodyErrors.getJSONObject(0).optString(ATTRIBUTE_DESCRIPTION, null);
+                    }
+                }
+            } catch (JSONException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Response of bulk operation " + this + " is not in JSON", e);
+                }
+            }
+            if (isSuccess() && resourceId == null) {
+                code = ResponseCodeConstants.CODE_INTERNAL_SERVER_ERROR;
+                description = "Id of the created resource is not in the response";
+            }
+        }
+
+        private void fail(int code, String description) {
+            this.code = code;
+            this.description = description;
+        }
+
+        private boolean isSuccess() {
+            return code >= 200 && code < 300;
+        }
+
+        @Override
+        public String toString() {
+            return index + (bulkId != null ? " (bulkId " + bulkId + ")" : "") + " " + METHOD_POST + " " + path;
+        }
+    }
+
+    private static class BulkThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SCIMBulkThread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
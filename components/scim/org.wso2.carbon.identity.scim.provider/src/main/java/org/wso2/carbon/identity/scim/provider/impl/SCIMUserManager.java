@@ -39,6 +39,7 @@ import org.wso2.carbon.identity.provisioning.OutboundProvisioningManager;
 import org.wso2.carbon.identity.provisioning.ProvisioningEntity;
 import org.wso2.carbon.identity.provisioning.ProvisioningOperation;
 import org.wso2.carbon.identity.provisioning.listener.DefaultInboundUserProvisioningListener;
+import org.wso2.carbon.identity.scim.common.cache.SCIMUserIdCache;
 import org.wso2.carbon.identity.scim.common.group.SCIMGroupHandler;
 import org.wso2.carbon.identity.scim.common.utils.AttributeMapper;
 import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
@@ -236,30 +237,13 @@ public class SCIMUserManager implements UserManager {
     @Override
     public List<User> listUsers() throws CharonException {
 
-        ClaimMapping[] claims;
         List<User> users = new ArrayList<>();
-        try {
-            String[] userNames = carbonUM.getUserList(SCIMConstants.ID_URI, "*", null);
-            if (userNames != null && userNames.length != 0) {
-                //get claims related to SCIM claim dialect
-                claims = carbonClaimManager.getAllClaimMappings(SCIMCommonConstants.SCIM_CLAIM_DIALECT);
-                List<String> claimURIList = new ArrayList<>();
-                for (ClaimMapping claim : claims) {
-                    claimURIList.add(claim.getClaim().getClaimUri());
-                }
-                for (String userName : userNames) {
-                    if (userName.contains(UserCoreConstants.NAME_COMBINER)) {
-                        userName = userName.split("\\" + UserCoreConstants.NAME_COMBINER)[0];
-                    }
-                    User scimUser = this.getSCIMMetaUser(userName);
-                    Map<String, Attribute> attrMap = scimUser.getAttributeList();
-                    if (attrMap != null && !attrMap.isEmpty()) {
-                        users.add(scimUser);
-                    }
-                }
+        for (String userName : getSCIMUserNames()) {
+            User scimUser = this.getSCIMMetaUser(userName);
+            Map<String, Attribute> attrMap = scimUser.getAttributeList();
+            if (attrMap != null && !attrMap.isEmpty()) {
+                users.add(scimUser);
             }
-        } catch (UserStoreException e) {
-            throw new CharonException("Error while retrieving users from user store..", e);
         }
         return users;
     }
@@ -327,13 +311,49 @@ public class SCIMUserManager implements UserManager {
     }
 
     @Override
-    public List<User> listUsersBySort(String s, String s1) {
-        return Collections.emptyList();
+    public List<User> listUsersBySort(String sortBy, String sortOrder) throws CharonException {
+
+        // user names are the only attribute which can be sorted on before the claims are read. The meta claims of
+        // every user are still read, as the whole sorted list is returned
+        if (sortBy != null && !SCIMConstants.UserSchemaConstants.USER_NAME.equalsIgnoreCase(sortBy) &&
+                !SCIMConstants.USER_NAME_URI.equals(sortBy)) {
+            throw new CharonException("Sorting users by " + sortBy + " is not supported");
+        }
+        List<String> userNames = getSortedSCIMUserNames();
+        if ("descending".equalsIgnoreCase(sortOrder)) {
+            Collections.reverse(userNames);
+        }
+
+        List<User> users = new ArrayList<>();
+        for (String userName : userNames) {
+            User scimUser = this.getSCIMMetaUser(userName);
+            if (scimUser.getId() != null) {
+                users.add(scimUser);
+            }
+        }
+        return users;
     }
 
     @Override
-    public List<User> listUsersWithPagination(int i, int i1) {
-        return Collections.emptyList();
+    public List<User> listUsersWithPagination(int startIndex, int count) throws CharonException {
+
+        // the user store API has no paged listing, so the names of all SCIM users are listed and sorted for every
+        // page and only the meta claims of the users of the page are read. startIndex is one based
+        List<String> userNames = getSortedSCIMUserNames();
+        int fromIndex = Math.max(startIndex, 1) - 1;
+        if (fromIndex >= userNames.size() || count <= 0) {
+            return Collections.emptyList();
+        }
+        int toIndex = (int) Math.min((long) fromIndex + count, userNames.size());
+
+        List<User> users = new ArrayList<>(toIndex - fromIndex);
+        for (String userName : userNames.subList(fromIndex, toIndex)) {
+            User scimUser = this.getSCIMMetaUser(userName);
+            if (scimUser.getId() != null) {
+                users.add(scimUser);
+            }
+        }
+        return users;
     }
 
     @Override
@@ -1267,6 +1287,49 @@ public class SCIMUserManager implements UserManager {
         }
     }
 
+    /**
+     * Get the names of the users which have a SCIM id.
+     *
+     * @return user names
+     * @throws CharonException
+     */
+    private List<String> getSCIMUserNames() throws CharonException {
+
+        String[] userNames;
+        try {
+            userNames = carbonUM.getUserList(SCIMConstants.ID_URI, "*", null);
+        } catch (UserStoreException e) {
+            throw new CharonException("Error while retrieving users from user store..", e);
+        }
+        if (userNames == null || userNames.length == 0) {
+            return new ArrayList<>();
+        }
+
+        List<String> scimUserNames = new ArrayList<>(userNames.length);
+        for (String userName : userNames) {
+            if (userName.contains(UserCoreConstants.NAME_COMBINER)) {
+                userName = userName.split("\\" + UserCoreConstants.NAME_COMBINER)[0];
+            }
+            scimUserNames.add(userName);
+        }
+        return scimUserNames;
+    }
+
+    /**
+     * Get the names of the users which have a SCIM id, without the anonymous user and sorted so that pages of the
+     * list are stable.
+     *
+     * @return user names
+     * @throws CharonException
+     */
+    private List<String> getSortedSCIMUserNames() throws CharonException {
+
+        List<String> scimUserNames = getSCIMUserNames();
+        scimUserNames.remove(CarbonConstants.REGISTRY_ANONNYMOUS_USERNAME);
+        Collections.sort(scimUserNames);
+        return scimUserNames;
+    }
+
     private User getSCIMMetaUser(String userName) throws CharonException {
 
         List<String> claimURIList = new ArrayList<>();
@@ -1364,8 +1427,16 @@ public class SCIMUserManager implements UserManager {
 
         //get the ids of the users and set them in the group with id + display name
         if (userNames != null && userNames.length != 0) {
+            int tenantId = carbonUM.getTenantId();
+            SCIMUserIdCache userIdCache = SCIMUserIdCache.getInstance();
             for (String userName : userNames) {
-                String userId = carbonUM.getUserClaimValue(userName, SCIMConstants.ID_URI, null);
+                String userId = userIdCache.getUserId(tenantId, userName);
+                if (userId == null) {
+                    userId = carbonUM.getUserClaimValue(userName, SCIMConstants.ID_URI, null);
+                    if (StringUtils.isNotEmpty(userId)) {
+                        userIdCache.addUserId(tenantId, userName, userId);
+                    }
+                }
                 group.setMember(userId, userName);
             }
         }
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.scim.provider.resources;
 
+import org.wso2.carbon.identity.scim.provider.impl.BulkRequestProcessor;
 import org.wso2.carbon.identity.scim.provider.impl.IdentitySCIMManager;
 import org.wso2.carbon.identity.scim.provider.util.JAXRSResponseBuilder;
 import org.wso2.charon.core.encoder.Encoder;
@@ -64,6 +65,15 @@ public class BulkResource {
             UserManager userManager = identitySCIMManager.getInstance().getUserManager(
                     authorization);
 
+            BulkRequestProcessor bulkRequestProcessor = BulkRequestProcessor.getInstance();
+            if (bulkRequestProcessor.isEnabled() && inputFormat.startsWith(SCIMConstants.APPLICATION_JSON)) {
+                String bulkResponse = bulkRequestProcessor.processBulkData(resourceString, inputFormat,
+                        outputFormat, userManager);
+                if (bulkResponse != null) {
+                    return Response.ok(bulkResponse, SCIMConstants.APPLICATION_JSON).build();
+                }
+            }
+
             BulkResourceEndpoint bulkResourceEndpoint = new BulkResourceEndpoint();
             SCIMResponse responseString = bulkResourceEndpoint.processBulkData(resourceString,
                     inputFormat,
@@ -72,6 +72,14 @@ public class SAMLSSOConstants {
     public static final String ENCODING_FORMAT = "UTF-8";
     public static final String COM_PROTOCOL = "https";
     public static final String CRYPTO_PROTOCOL = "TLS";
+    public static final String SLO_DISPATCHER_THREAD_POOL_SIZE = "SSOService.SingleLogoutDispatcher.ThreadPoolSize";
+    public static final String SLO_DISPATCHER_MAX_CONNECTIONS = "SSOService.SingleLogoutDispatcher.MaxConnections";
+    public static final String SLO_DISPATCHER_MAX_CONNECTIONS_PER_ROUTE =
+            "SSOService.SingleLogoutDispatcher.MaxConnectionsPerRoute";
+    public static final String SLO_DISPATCHER_CONNECT_TIMEOUT = "SSOService.SingleLogoutDispatcher.ConnectTimeout";
+    public static final String SLO_DISPATCHER_SOCKET_TIMEOUT = "SSOService.SingleLogoutDispatcher.SocketTimeout";
+    public static final String SLO_DISPATCHER_MAX_RETRY_INTERVAL =
+            "SSOService.SingleLogoutDispatcher.MaxRetryInterval";
 
     private SAMLSSOConstants() {
     }
@@ -20,16 +20,21 @@ package org.wso2.carbon.identity.sso.saml.logout;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.util.IdentityConfigParser;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
@@ -41,36 +46,103 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is used to send logout requests to each and every session participant. It follows a fire and
  * forget approach where the task of sending each and every logout request is submitted to a threadpool
  * as a job. This class implements a singleton, because it is expensive to create thread pool for each
  * and every object.
+ * <p/>
+ * All the logout requests are sent through one HTTP client with a pool of connections per session participant,
+ * so connections are reused across logouts. A failed request is not retried on the thread which sent it. The
+ * retry is scheduled with an exponentially growing interval, which leaves the threads free to send the logout
+ * requests of other users meanwhile. Each request is bounded by the connect and socket timeouts, so that a slow
+ * session participant can only hold a thread for that long.
  */
 public class LogoutRequestSender {
 
     private static Log log = LogFactory.getLog(LogoutRequestSender.class);
 
-    private static ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    private static final int DEFAULT_THREAD_POOL_SIZE = 10;
+    private static final int DEFAULT_MAX_CONNECTIONS = 100;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int DEFAULT_TIMEOUT = 10000;
+    private static final long IDLE_CONNECTION_TIMEOUT = 60000;
 
     private static LogoutRequestSender instance = new LogoutRequestSender();
 
+    private final ScheduledThreadPoolExecutor threadPool;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final boolean isSAMLSOAPBindingEnabled;
+    private final long maxRetryInterval;
+    private final SingleLogoutStats stats = new SingleLogoutStats();
+
     /**
      * A private constructor since we are implementing a singleton here
      */
     private LogoutRequestSender() {
 
+        int threadPoolSize = getIntProperty(SAMLSSOConstants.SLO_DISPATCHER_THREAD_POOL_SIZE,
+                DEFAULT_THREAD_POOL_SIZE);
+        int connectTimeout = getIntProperty(SAMLSSOConstants.SLO_DISPATCHER_CONNECT_TIMEOUT, DEFAULT_TIMEOUT);
+        int socketTimeout = getIntProperty(SAMLSSOConstants.SLO_DISPATCHER_SOCKET_TIMEOUT, DEFAULT_TIMEOUT);
+        maxRetryInterval = getIntProperty(SAMLSSOConstants.SLO_DISPATCHER_MAX_RETRY_INTERVAL, 0);
+
+        Object soapBindingEnabled = IdentityConfigParser.getInstance().getConfiguration()
+                .get(SAMLSSOConstants.SLO_SAML_SOAP_BINDING_ENABLED);
+        isSAMLSOAPBindingEnabled = soapBindingEnabled != null && Boolean.parseBoolean(soapBindingEnabled.toString());
+
+        RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+        try {
+            SSLContext sslContext = SSLContext.getInstance(SAMLSSOConstants.CRYPTO_PROTOCOL);
+            sslContext.init(null, new TrustManager[]{new EasyTrustManager()}, null);
+            registryBuilder.register(SAMLSSOConstants.COM_PROTOCOL, new SSLConnectionSocketFactory(sslContext,
+                    SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER));
+        } catch (GeneralSecurityException e) {
+            log.error("Error registering the EasySSLProtocolSocketFactory", e);
+        }
+        Registry<ConnectionSocketFactory> registry = registryBuilder.build();
+
+        connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(getIntProperty(SAMLSSOConstants.SLO_DISPATCHER_MAX_CONNECTIONS,
+                DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty(
+                SAMLSSOConstants.SLO_DISPATCHER_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .build();
+
+        // the client is shared by all the users, so cookies set by a session participant must not be kept
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement()
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .build();
+
+        threadPool = new ScheduledThreadPoolExecutor(threadPoolSize, new LogoutThreadFactory());
+        threadPool.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        }, IDLE_CONNECTION_TIMEOUT, IDLE_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -94,7 +166,14 @@ public class LogoutRequestSender {
         }
         // For each logoutReq, create a new task and submit it to the thread pool.
         for (SingleLogoutRequestDTO reqDTO : singleLogoutRequestDTOs) {
-            threadPool.submit(new LogoutReqSenderTask(reqDTO));
+            try {
+                threadPool.execute(new LogoutReqSenderTask(reqDTO));
+                stats.recordSubmitted();
+            } catch (RejectedExecutionException e) {
+                log.error("Error while submitting the single logout request to : " +
+                        reqDTO.getAssertionConsumerURL(), e);
+                continue;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("A logoutReqSenderTask is assigned to the thread pool");
 
@@ -103,37 +182,62 @@ public class LogoutRequestSender {
     }
 
     /**
-     * This method is used to derive the port from the assertion consumer URL.
+     * @return counters of the logout requests sent so far
+     */
+    public SingleLogoutStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return number of logout requests and retries waiting for a thread
+     */
+    public int getQueueDepth() {
+        // the idle connection monitor is always in the queue
+        return Math.max(threadPool.getQueue().size() - 1, 0);
+    }
+
+    /**
+     * Calculates the interval before the given retry. The configured retry interval is doubled on each retry,
+     * up to the maximum retry interval.
      *
-     * @param assertionConsumerURL Assertion Consumer URL
-     * @return Port, if mentioned in the URL, or else 443 as the default value
-     * @throws MalformedURLException when the ACS is malformed.
+     * @param retryCount number of retries done so far
+     * @return interval in milli seconds
      */
-    private int derivePortFromAssertionConsumerURL(String assertionConsumerURL)
-            throws URISyntaxException {
-        int port = 443;    // use 443 as the default port
-        try {
-            URI uri = new URI(assertionConsumerURL);
-            if (uri.getPort() != -1) {    // if the port is mentioned in the URL
-                port = uri.getPort();
-            } else if ("http".equals(uri.getScheme())) {  // if it is using http
-                port = 80;
+    private long getRetryInterval(int retryCount) {
+        long retryInterval = SAMLSSOUtil.getSingleLogoutRetryInterval();
+        long maxInterval = maxRetryInterval > 0 ? maxRetryInterval : retryInterval * 8;
+        for (int i = 0; i < retryCount && retryInterval < maxInterval; i++) {
+            retryInterval *= 2;
+        }
+        return Math.min(retryInterval, maxInterval);
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null) {
+            try {
+                int intValue = Integer.parseInt(value.trim());
+                if (intValue > 0) {
+                    return intValue;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + name + ". Using the default " + defaultValue);
             }
-        } catch (URISyntaxException e) {
-            log.error("Error deriving port from the assertion consumer url", e);
-            throw e;
         }
-        return port;
+        return defaultValue;
     }
 
     /**
      * This class is used to model a single logout request that is being sent to a session participant.
      * It will send the logout req. to the session participant in its 'run' method when this job is
-     * submitted to the thread pool.
+     * submitted to the thread pool. When the session participant does not accept the request, the task
+     * schedules itself again until the retry count is reached.
      */
     private class LogoutReqSenderTask implements Runnable {
 
         private SingleLogoutRequestDTO logoutReqDTO;
+        private final long submittedTime = System.currentTimeMillis();
+        private int retryCount;
 
         public LogoutReqSenderTask(SingleLogoutRequestDTO logoutReqDTO) {
             this.logoutReqDTO = logoutReqDTO;
@@ -141,29 +245,62 @@ public class LogoutRequestSender {
 
         @Override
         public void run() {
-            List<NameValuePair> logoutReqParams = new ArrayList<NameValuePair>();
-            StringBuffer logoutRequestWithSoapBinding = new StringBuffer();
-            String decodedSAMLRequest = null;
 
-            boolean propertySAMLSOAPBindingEnabled = IdentityConfigParser.getInstance()
-                    .getConfiguration().containsKey(SAMLSSOConstants.SLO_SAML_SOAP_BINDING_ENABLED);
-            boolean isSAMLSOAPBindingEnabled;
+            boolean isSuccessfullyLogout = false;
+            try {
+                isSuccessfullyLogout = send();
+            } catch (IOException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while executing http request.", e);
+                }
+                // ignore this exception since the request is retried
+            } catch (RuntimeException e) {
+                log.error("Runtime exception occurred.", e);
+            }
 
-            if (propertySAMLSOAPBindingEnabled) {
-                isSAMLSOAPBindingEnabled = Boolean.parseBoolean(IdentityConfigParser.getInstance()
-                        .getConfiguration().get(SAMLSSOConstants.SLO_SAML_SOAP_BINDING_ENABLED).toString());
-            } else {
-                isSAMLSOAPBindingEnabled = false;
+            if (isSuccessfullyLogout) {
+                stats.recordDelivered(System.currentTimeMillis() - submittedTime);
+                return;
+            }
+
+            if (retryCount + 1 < SAMLSSOUtil.getSingleLogoutRetryCount()) {
+                long retryInterval = getRetryInterval(retryCount);
+                retryCount++;
+                try {
+                    threadPool.schedule(this, retryInterval, TimeUnit.MILLISECONDS);
+                    stats.recordRetry();
+                    log.info("Sending single log out request again with retry count " + retryCount +
+                            " after waiting for " + retryInterval + " milli seconds to " +
+                            logoutReqDTO.getAssertionConsumerURL());
+                    return;
+                } catch (RejectedExecutionException e) {
+                    log.error("Error while scheduling the single logout request to : " +
+                            logoutReqDTO.getAssertionConsumerURL() + " for retrying", e);
+                }
             }
 
-            decodedSAMLRequest = logoutReqDTO.getLogoutResponse();
+            stats.recordFailed();
+            log.error("Single logout failed after retrying " + retryCount + " times to " +
+                    logoutReqDTO.getAssertionConsumerURL());
+        }
+
+        /**
+         * Sends the logout request once.
+         *
+         * @return true if the session participant accepted the logout request
+         * @throws IOException if the request could not be sent
+         */
+        private boolean send() throws IOException {
+
+            List<NameValuePair> logoutReqParams = new ArrayList<NameValuePair>();
+            String decodedSAMLRequest = logoutReqDTO.getLogoutResponse();
 
             if (isSAMLSOAPBindingEnabled) {
                 decodedSAMLRequest = decodedSAMLRequest.replaceAll(SAMLSSOConstants.XML_TAG_REGEX, "").trim();
-                logoutRequestWithSoapBinding.append(SAMLSSOConstants.START_SOAP_BINDING + decodedSAMLRequest + SAMLSSOConstants.END_SOAP_BINDING);
                 // set the logout request
                 logoutReqParams.add(new BasicNameValuePair(SAMLSSOConstants.SAML_REQUEST_PARAM_KEY,
-                        SAMLSSOUtil.encode(logoutRequestWithSoapBinding.toString())));
+                        SAMLSSOUtil.encode(SAMLSSOConstants.START_SOAP_BINDING + decodedSAMLRequest +
+                                SAMLSSOConstants.END_SOAP_BINDING)));
             } else {
                 // set the logout request
                 logoutReqParams.add(new BasicNameValuePair(SAMLSSOConstants.SAML_REQUEST_PARAM_KEY, SAMLSSOUtil.encode(logoutReqDTO.getLogoutResponse())));
@@ -173,119 +310,69 @@ public class LogoutRequestSender {
                 log.debug("SAMLRequest : " + decodedSAMLRequest);
             }
 
-            try {
-                int port = derivePortFromAssertionConsumerURL(logoutReqDTO.getAssertionConsumerURL());
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(logoutReqParams, SAMLSSOConstants.ENCODING_FORMAT);
-                HttpPost httpPost = new HttpPost(logoutReqDTO.getAssertionConsumerURL());
-                httpPost.setEntity(entity);
-                httpPost.addHeader(SAMLSSOConstants.COOKIE_PARAM_KEY, SAMLSSOConstants.SESSION_ID_PARAM_KEY + logoutReqDTO.getRpSessionId());
-                if (isSAMLSOAPBindingEnabled) {
-                    httpPost.addHeader(SAMLSSOConstants.SOAP_ACTION_PARAM_KEY, SAMLSSOConstants.SOAP_ACTION);
-                }
-                TrustManager easyTrustManager = new X509TrustManager() {
-
-                    @Override
-                    public void checkClientTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                        //overridden method, no method body needed here
-                    }
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(logoutReqParams, SAMLSSOConstants.ENCODING_FORMAT);
+            HttpPost httpPost = new HttpPost(logoutReqDTO.getAssertionConsumerURL());
+            httpPost.setEntity(entity);
+            httpPost.addHeader(SAMLSSOConstants.COOKIE_PARAM_KEY, SAMLSSOConstants.SESSION_ID_PARAM_KEY + logoutReqDTO.getRpSessionId());
+            if (isSAMLSOAPBindingEnabled) {
+                httpPost.addHeader(SAMLSSOConstants.SOAP_ACTION_PARAM_KEY, SAMLSSOConstants.SOAP_ACTION);
+            }
 
-                    @Override
-                    public void checkServerTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                        //overridden method, no method body needed here
+            // send the logout request as a POST
+            CloseableHttpResponse response = httpClient.execute(httpPost);
+            try {
+                int statusCode = response.getStatusLine().getStatusCode();
+                // completely consume the response, so that the connection goes back to the pool
+                EntityUtils.consume(response.getEntity());
+
+                if (SAMLSSOUtil.isHttpSuccessStatusCode(statusCode) || SAMLSSOUtil.isHttpRedirectStatusCode(statusCode)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
+                                " is returned with " + HttpStatus.getStatusText(statusCode));
                     }
+                    return true;
+                }
+                log.warn("Failed single logout response from " + logoutReqDTO.getAssertionConsumerURL() +
+                        " with status code " + HttpStatus.getStatusText(statusCode));
+                return false;
+            } finally {
+                response.close();
+            }
+        }
+    }
 
-                    @Override
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-                };
-
-                SSLContext sslContext = SSLContext.getInstance(SAMLSSOConstants.CRYPTO_PROTOCOL);
-                sslContext.init(null, new TrustManager[]{easyTrustManager}, null);
-                SSLSocketFactory sf = new SSLSocketFactory(sslContext);
-                sf.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-                Scheme httpsScheme = new Scheme(SAMLSSOConstants.COM_PROTOCOL, sf, port);
-
-                HttpClient httpClient = new DefaultHttpClient();
-                httpClient.getConnectionManager().getSchemeRegistry().register(httpsScheme);
-
-                HttpResponse response = null;
-                boolean isSuccessfullyLogout = false;
-                for (int currentRetryCount = 0; currentRetryCount < SAMLSSOUtil.getSingleLogoutRetryCount(); currentRetryCount++) {
-                    int statusCode = 0;
-
-                    //Completely consume the previous response before retrying
-                    if (response != null) {
-                        HttpEntity httpEntity = response.getEntity();
-                        if (httpEntity != null && httpEntity.isStreaming()) {
-                            InputStream instream = httpEntity.getContent();
-                            if (instream != null)
-                                instream.close();
-                        }
-                    }
+    /**
+     * Trust manager which accepts the certificates of all the session participants.
+     */
+    private static class EasyTrustManager implements X509TrustManager {
 
-                    // send the logout request as a POST
-                    try {
-                        response = httpClient.execute(httpPost);
-                        statusCode = response.getStatusLine().getStatusCode();
-                    } catch (IOException e) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Error while executing http request.", e);
-                        }
-                        // ignore this exception since retrying is enabled if response is null.
-                    }
-                    if (response != null && (SAMLSSOUtil.isHttpSuccessStatusCode(statusCode) || SAMLSSOUtil
-                            .isHttpRedirectStatusCode(statusCode))) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
-                                    " is returned with " + HttpStatus.getStatusText(response.getStatusLine().getStatusCode()));
-                        }
-                        isSuccessfullyLogout = true;
-                        break;
-                    } else {
-                        if (statusCode != 0) {
-                            log.warn("Failed single logout response from " +
-                                    logoutReqDTO.getAssertionConsumerURL() + " with status code " +
-                                    HttpStatus.getStatusText(statusCode));
-                        }
-                        try {
-                            synchronized (Thread.currentThread()) {
-                                Thread.currentThread().wait(SAMLSSOUtil.getSingleLogoutRetryInterval());
-                            }
-                            log.info("Sending single log out request again with retry count " +
-                                    (currentRetryCount + 1) + " after waiting for " +
-                                    SAMLSSOUtil.getSingleLogoutRetryInterval() + " milli seconds to " +
-                                    logoutReqDTO.getAssertionConsumerURL());
-                        } catch (InterruptedException e) {
-                            //Todo: handle this in better way.
-                        }
-                    }
+        @Override
+        public void checkClientTrusted(X509Certificate[] x509Certificates, String s)
+                throws java.security.cert.CertificateException {
+            //overridden method, no method body needed here
+        }
 
-                }
-                if (!isSuccessfullyLogout) {
-                    log.error("Single logout failed after retrying " + SAMLSSOUtil.getSingleLogoutRetryCount() +
-                            " times with time interval " + SAMLSSOUtil.getSingleLogoutRetryInterval() + " in milli seconds.");
-                }
+        @Override
+        public void checkServerTrusted(X509Certificate[] x509Certificates, String s)
+                throws java.security.cert.CertificateException {
+            //overridden method, no method body needed here
+        }
 
-            } catch (IOException e) {
-                log.error("Error sending logout requests to : " +
-                        logoutReqDTO.getAssertionConsumerURL(), e);
-            } catch (GeneralSecurityException e) {
-                log.error("Error registering the EasySSLProtocolSocketFactory", e);
-            } catch (RuntimeException e) {
-                log.error("Runtime exception occurred.", e);
-            } catch (URISyntaxException e) {
-                log.error("Error deriving port from the assertion consumer url", e);
-            }
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
         }
     }
 
+    private static class LogoutThreadFactory implements ThreadFactory {
 
-}
+        private final AtomicInteger count = new AtomicInteger();
 
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "SAMLSingleLogoutSender-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.sso.saml.logout;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the back channel single logout dispatcher. Delivery latency is measured from the time a logout
+ * request is submitted until a session participant accepts it, including the time spent waiting for retries.
+ */
+public class SingleLogoutStats {
+
+    private final AtomicLong submittedRequests = new AtomicLong();
+    private final AtomicLong deliveredRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalDeliveryTimeMillis = new AtomicLong();
+    private final AtomicLong maxDeliveryTimeMillis = new AtomicLong();
+
+    void recordSubmitted() {
+        submittedRequests.incrementAndGet();
+    }
+
+    void recordDelivered(long deliveryTimeMillis) {
+        deliveredRequests.incrementAndGet();
+        totalDeliveryTimeMillis.addAndGet(deliveryTimeMillis);
+
+        long max = maxDeliveryTimeMillis.get();
+        while (deliveryTimeMillis > max && !maxDeliveryTimeMillis.compareAndSet(max, deliveryTimeMillis)) {
+            max = maxDeliveryTimeMillis.get();
+        }
+    }
+
+    void recordFailed() {
+        failedRequests.incrementAndGet();
+    }
+
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    /**
+     * @return number of logout requests submitted to the dispatcher
+     */
+    public long getSubmittedRequests() {
+        return submittedRequests.get();
+    }
+
+    /**
+     * @return number of logout requests accepted by the session participants
+     */
+    public long getDeliveredRequests() {
+        return deliveredRequests.get();
+    }
+
+    /**
+     * @return number of logout requests given up on after all the retries
+     */
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    /**
+     * @return number of retries scheduled
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return number of logout requests which are neither delivered nor given up on yet
+     */
+    public long getPendingRequests() {
+        return submittedRequests.get() - deliveredRequests.get() - failedRequests.get();
+    }
+
+    public double getAverageDeliveryTimeMillis() {
+        long delivered = deliveredRequests.get();
+        return delivered == 0 ? 0 : (double) totalDeliveryTimeMillis.get() / delivered;
+    }
+
+    public long getMaxDeliveryTimeMillis() {
+        return maxDeliveryTimeMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleLogoutStats{submittedRequests=" + getSubmittedRequests() +
+                ", deliveredRequests=" + getDeliveredRequests() +
+                ", failedRequests=" + getFailedRequests() +
+                ", retries=" + getRetries() +
+                ", pendingRequests=" + getPendingRequests() +
+                ", averageDeliveryTimeMillis=" + getAverageDeliveryTimeMillis() +
+                ", maxDeliveryTimeMillis=" + getMaxDeliveryTimeMillis() + "}";
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.tools.ant.util.FileUtils;
 import org.wso2.carbon.base.api.ServerConfigurationService;
+import org.wso2.carbon.identity.core.cache.UserStoreTraitsCache;
 import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
 import org.wso2.carbon.identity.user.store.configuration.deployer.exception.UserStoreConfigurationDeployerException;
 import org.wso2.carbon.identity.user.store.configuration.deployer.internal.UserStoreConfigComponent;
@@ -165,6 +166,7 @@ public class UserStoreConfigurationDeployer extends AbstractDeployer {
 
             UserStoreDeploymentManager userStoreDeploymentManager = new UserStoreDeploymentManager();
             userStoreDeploymentManager.deploy(deploymentFileData.getAbsolutePath());
+            UserStoreTraitsCache.getInstance().clear();
         }
     }
 
@@ -181,6 +183,7 @@ public class UserStoreConfigurationDeployer extends AbstractDeployer {
             if (!UserStoreConfigurationConstants.ENC_EXTENSION.equalsIgnoreCase(ext)) {
                 UserStoreDeploymentManager userStoreDeploymentManager = new UserStoreDeploymentManager();
                 userStoreDeploymentManager.undeploy(fileName);
+                UserStoreTraitsCache.getInstance().clear();
             }
         }
     }
@@ -200,6 +200,9 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             TENANT_ID INTEGER DEFAULT -1,
 		        PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
 );
+
+CREATE INDEX IDX_IDN_AUTH_SESSION_TIME ON IDN_AUTH_SESSION_STORE (TIME_CREATED);
+
 CREATE TABLE IF NOT EXISTS SP_APP (
         ID INTEGER NOT NULL AUTO_INCREMENT,
         TENANT_ID INTEGER NOT NULL,
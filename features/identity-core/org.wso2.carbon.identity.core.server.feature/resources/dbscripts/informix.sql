@@ -200,6 +200,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
 );
 
+CREATE INDEX IDX_IDN_AUTH_SESSION_TIME ON IDN_AUTH_SESSION_STORE (TIME_CREATED);
+
 CREATE TABLE SP_APP (
             ID SERIAL,
             TENANT_ID INTEGER NOT NULL,
@@ -226,6 +226,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
 	);
 
+CREATE INDEX IDX_IDN_AUTH_SESSION_TIME ON IDN_AUTH_SESSION_STORE (TIME_CREATED);
+
 DROP TABLE IF EXISTS SP_APP;
 DROP SEQUENCE IF EXISTS SP_APP_SEQ;
 CREATE SEQUENCE SP_APP_SEQ;